@@ -33,7 +33,11 @@ data class AverageBucket(override val timestamp: Long = 0) : AbstractBucket(), D
     val count = AtomicLong()
 
     override fun updatePoint(key: Map<String, String>, sample: Point) {
-        value.addAndGet(sample.value)
+        updatePoint(key, sample.timestamp, sample.value)
+    }
+
+    override fun updatePoint(key: Map<String, String>, timestamp: Long, value: Double) {
+        this.value.addAndGet(value)
         count.incrementAndGet()
     }
 
@@ -37,6 +37,10 @@ data class CountBucket(override val timestamp: Long) : AnyBucket {
         count.incrementAndGet()
     }
 
+    override fun updatePoint(key: Map<String, String>, timestamp: Long, value: Double) {
+        count.incrementAndGet()
+    }
+
     fun count(): Long {
         return count.get()
     }
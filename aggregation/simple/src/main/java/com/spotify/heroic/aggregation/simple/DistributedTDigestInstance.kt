@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.aggregation.simple
+
+import com.google.common.collect.ImmutableSet
+import com.spotify.heroic.ObjectHasher
+import com.spotify.heroic.aggregation.AggregationInstance
+import com.spotify.heroic.aggregation.BucketAggregationInstance
+import com.spotify.heroic.metric.Metric
+import com.spotify.heroic.metric.MetricType
+import com.spotify.heroic.metric.Payload
+
+/**
+ * Sub-aggregation of [TDigestQuantileInstance], emitting the serialized digest of each bucket as
+ * a [Payload].
+ */
+data class DistributedTDigestInstance(
+    override val size: Long,
+    override val extent: Long,
+    val compression: Double
+) : BucketAggregationInstance<TDigestQuantileBucket>(size, extent, ImmutableSet.of(MetricType.POINT, MetricType.CARDINALITY), MetricType.CARDINALITY) {
+
+    override fun distributed(): AggregationInstance {
+        return this
+    }
+
+    override fun buildBucket(timestamp: Long): TDigestQuantileBucket {
+        return TDigestQuantileBucket(timestamp, compression)
+    }
+
+    override fun build(bucket: TDigestQuantileBucket): Metric {
+        val digest = bucket.digest()
+
+        return if (digest.size() <= 0.0) {
+            Metric.invalid()
+        } else Payload(bucket.timestamp, digest.toBytes())
+    }
+
+    override fun bucketHashTo(hasher: ObjectHasher) {
+        hasher.putField("compression", compression, hasher.doubleValue())
+    }
+
+    companion object {
+        const val NAME = "distributed-tdigest"
+    }
+}
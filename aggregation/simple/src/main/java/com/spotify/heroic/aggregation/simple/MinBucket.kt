@@ -36,14 +36,18 @@ data class MinBucket(override val timestamp: Long) : AbstractBucket(), DoubleBuc
     private val value = AtomicDouble(java.lang.Double.POSITIVE_INFINITY)
 
     override fun updatePoint(key: Map<String, String>, d: Point) {
+        updatePoint(key, d.timestamp, d.value)
+    }
+
+    override fun updatePoint(key: Map<String, String>, timestamp: Long, value: Double) {
         while (true) {
-            val current = value.get()
+            val current = this.value.get()
 
-            if (current < d.value) {
+            if (current < value) {
                 break
             }
 
-            if (value.compareAndSet(current, d.value)) {
+            if (this.value.compareAndSet(current, value)) {
                 break
             }
         }
@@ -33,6 +33,7 @@ import com.spotify.heroic.dagger.LoadingComponent;
 import com.spotify.heroic.grammar.DoubleExpression;
 import com.spotify.heroic.grammar.Expression;
 import com.spotify.heroic.grammar.IntegerExpression;
+import com.spotify.heroic.grammar.StringExpression;
 import dagger.Component;
 import eu.toolchain.serializer.SerializerFramework;
 
@@ -110,11 +111,19 @@ public class Module implements HeroicModule {
                             .positionalOrKeyword("error", DoubleExpression.class)
                             .map(DoubleExpression::getValue)
                             .orElse(null);
+                        final String method = args
+                            .keyword("method", StringExpression.class)
+                            .map(StringExpression::getString)
+                            .orElse(null);
                         return new Quantile(
-                            null, size.orElse(null), extent.orElse(null), q, error);
+                            null, size.orElse(null), extent.orElse(null), q, error, method);
                     }
                 });
 
+            c.registerInstance(TDigestQuantileInstance.NAME, TDigestQuantileInstance.class);
+            c.registerInstance(DistributedTDigestInstance.NAME,
+                DistributedTDigestInstance.class);
+
             c.register(Delta.NAME, Delta.class, DeltaInstance.class, args -> Delta.INSTANCE);
 
             c.register(DeltaPerSecond.NAME, DeltaPerSecond.class,
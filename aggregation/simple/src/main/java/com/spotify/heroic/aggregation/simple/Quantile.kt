@@ -22,6 +22,7 @@
 package com.spotify.heroic.aggregation.simple
 
 import com.spotify.heroic.aggregation.AggregationContext
+import com.spotify.heroic.aggregation.AggregationInstance
 import com.spotify.heroic.aggregation.SamplingAggregation
 import com.spotify.heroic.aggregation.SamplingQuery
 import com.spotify.heroic.common.Duration
@@ -31,7 +32,8 @@ data class Quantile(
         override var size: Duration?,
         override var extent: Duration?,
         val q: Double?,
-        val error: Double?
+        val error: Double?,
+        val method: String? = null
 ) : SamplingAggregation {
 
     init {
@@ -39,13 +41,25 @@ data class Quantile(
         extent = extent ?: sampling?.extent
     }
 
-    override fun apply(context: AggregationContext?, size: Long, extent: Long): QuantileInstance {
-        return QuantileInstance(size, extent, q ?: DEFAULT_QUANTILE, error ?: DEFAULT_ERROR)
+    override fun apply(context: AggregationContext?, size: Long, extent: Long): AggregationInstance {
+        val q = q ?: DEFAULT_QUANTILE
+        val error = error ?: DEFAULT_ERROR
+
+        return when (method ?: CKMS) {
+            CKMS -> QuantileInstance(size, extent, q, error)
+            /* t-digest accuracy is proportional to 1 / compression */
+            TDIGEST -> TDigestQuantileInstance(
+                size, extent, q, Math.max(1.0 / error, MIN_COMPRESSION))
+            else -> throw IllegalArgumentException("Unsupported quantile method: $method")
+        }
     }
 
     companion object {
         const val NAME = "quantile"
         const val DEFAULT_QUANTILE = 0.5
         const val DEFAULT_ERROR = 0.01
+        const val CKMS = "ckms"
+        const val TDIGEST = "tdigest"
+        const val MIN_COMPRESSION = 20.0
     }
 }
@@ -90,7 +90,12 @@ data class QuantileBucket(
      */
     @Synchronized
     override fun updatePoint(key: Map<String, String>, sample: Point) {
-        batch[index] = sample.value
+        updatePoint(key, sample.timestamp, sample.value)
+    }
+
+    @Synchronized
+    override fun updatePoint(key: Map<String, String>, timestamp: Long, value: Double) {
+        batch[index] = value
         index++
         count++
 
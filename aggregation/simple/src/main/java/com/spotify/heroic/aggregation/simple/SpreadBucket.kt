@@ -22,6 +22,7 @@
 package com.spotify.heroic.aggregation.simple
 
 import com.spotify.heroic.aggregation.AbstractBucket
+import com.spotify.heroic.aggregation.SummarizingBucket
 import com.spotify.heroic.metric.Metric
 import com.spotify.heroic.metric.Point
 import com.spotify.heroic.metric.Spread
@@ -39,7 +40,7 @@ import java.util.concurrent.atomic.LongAdder
  *
  * @author udoprog
  */
-data class SpreadBucket(override val timestamp: Long) : AbstractBucket() {
+data class SpreadBucket(override val timestamp: Long) : AbstractBucket(), SummarizingBucket {
 
     internal val count = LongAdder()
     internal val sum = DoubleAdder()
@@ -56,8 +57,10 @@ data class SpreadBucket(override val timestamp: Long) : AbstractBucket() {
     }
 
     override fun updatePoint(key: Map<String, String>, d: Point) {
-        val value = d.value
+        updatePoint(key, d.timestamp, d.value)
+    }
 
+    override fun updatePoint(key: Map<String, String>, timestamp: Long, value: Double) {
         if (!java.lang.Double.isFinite(value)) {
             return
         }
@@ -69,6 +72,16 @@ data class SpreadBucket(override val timestamp: Long) : AbstractBucket() {
         min.accumulate(value)
     }
 
+    override fun updateSummary(
+        key: Map<String, String>, count: Long, sum: Double, sum2: Double, min: Double, max: Double
+    ) {
+        this.count.add(count)
+        this.sum.add(sum)
+        this.sum2.add(sum2)
+        this.max.accumulate(max)
+        this.min.accumulate(min)
+    }
+
     fun newSpread(): Metric {
         val count = this.count.sum()
 
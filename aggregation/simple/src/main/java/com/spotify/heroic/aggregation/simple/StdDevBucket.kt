@@ -38,8 +38,10 @@ data class StdDevBucket(override val timestamp: Long) : AbstractBucket(), Double
     private val cell = AtomicReference(ZERO)
 
     override fun updatePoint(key: Map<String, String>, d: Point) {
-        val value = d.value
+        updatePoint(key, d.timestamp, d.value)
+    }
 
+    override fun updatePoint(key: Map<String, String>, timestamp: Long, value: Double) {
         while (true) {
             val c = cell.get()
 
@@ -23,6 +23,7 @@ package com.spotify.heroic.aggregation.simple
 
 import com.spotify.heroic.aggregation.AbstractBucket
 import com.spotify.heroic.aggregation.DoubleBucket
+import com.spotify.heroic.aggregation.SummarizingBucket
 import com.spotify.heroic.metric.Point
 import com.spotify.heroic.metric.Spread
 import java.util.concurrent.atomic.DoubleAdder
@@ -33,16 +34,27 @@ import java.util.concurrent.atomic.LongAdder
  *
  * @author udoprog
  */
-data class StripedAverageBucket(override val timestamp: Long) : AbstractBucket(), DoubleBucket {
+data class StripedAverageBucket(override val timestamp: Long) : AbstractBucket(), SummarizingBucket, DoubleBucket {
 
     private val value = DoubleAdder()
     private val count = LongAdder()
 
     override fun updatePoint(key: Map<String, String>, d: Point) {
-        value.add(d.value)
+        updatePoint(key, d.timestamp, d.value)
+    }
+
+    override fun updatePoint(key: Map<String, String>, timestamp: Long, value: Double) {
+        this.value.add(value)
         count.increment()
     }
 
+    override fun updateSummary(
+        key: Map<String, String>, count: Long, sum: Double, sum2: Double, min: Double, max: Double
+    ) {
+        this.value.add(sum)
+        this.count.add(count)
+    }
+
     override fun updateSpread(key: Map<String, String>, sample: Spread) {
         value.add(sample.sum)
         count.add(sample.count)
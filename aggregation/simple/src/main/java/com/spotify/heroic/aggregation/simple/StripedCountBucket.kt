@@ -22,6 +22,7 @@
 package com.spotify.heroic.aggregation.simple
 
 import com.spotify.heroic.aggregation.AnyBucket
+import com.spotify.heroic.aggregation.SummarizingBucket
 import com.spotify.heroic.metric.Metric
 import java.util.concurrent.atomic.LongAdder
 
@@ -33,13 +34,23 @@ import java.util.concurrent.atomic.LongAdder
  *
  * @author udoprog
  */
-data class StripedCountBucket(override val timestamp: Long) : AnyBucket {
+data class StripedCountBucket(override val timestamp: Long) : AnyBucket, SummarizingBucket {
     private val count = LongAdder()
 
     override fun update(key: Map<String, String>, d: Metric) {
         count.increment()
     }
 
+    override fun updatePoint(key: Map<String, String>, timestamp: Long, value: Double) {
+        count.increment()
+    }
+
+    override fun updateSummary(
+        key: Map<String, String>, count: Long, sum: Double, sum2: Double, min: Double, max: Double
+    ) {
+        this.count.add(count)
+    }
+
     fun count(): Long {
         return count.sum()
     }
@@ -23,6 +23,7 @@ package com.spotify.heroic.aggregation.simple
 
 import com.spotify.heroic.aggregation.AbstractBucket
 import com.spotify.heroic.aggregation.DoubleBucket
+import com.spotify.heroic.aggregation.SummarizingBucket
 import com.spotify.heroic.metric.Point
 import com.spotify.heroic.metric.Spread
 import java.util.concurrent.atomic.DoubleAccumulator
@@ -36,12 +37,22 @@ import java.util.function.DoubleBinaryOperator
  *
  * @author udoprog
  */
-data class StripedMaxBucket(override val timestamp: Long) : AbstractBucket(), DoubleBucket {
+data class StripedMaxBucket(override val timestamp: Long) : AbstractBucket(), SummarizingBucket, DoubleBucket {
 
     private val max = DoubleAccumulator(maxFn, java.lang.Double.NEGATIVE_INFINITY)
 
     override fun updatePoint(key: Map<String, String>, d: Point) {
-        max.accumulate(d.value)
+        updatePoint(key, d.timestamp, d.value)
+    }
+
+    override fun updatePoint(key: Map<String, String>, timestamp: Long, value: Double) {
+        max.accumulate(value)
+    }
+
+    override fun updateSummary(
+        key: Map<String, String>, count: Long, sum: Double, sum2: Double, min: Double, max: Double
+    ) {
+        this.max.accumulate(max)
     }
 
     override fun updateSpread(key: Map<String, String>, d: Spread) {
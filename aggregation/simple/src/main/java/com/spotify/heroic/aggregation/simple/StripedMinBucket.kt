@@ -23,6 +23,7 @@ package com.spotify.heroic.aggregation.simple
 
 import com.spotify.heroic.aggregation.AbstractBucket
 import com.spotify.heroic.aggregation.DoubleBucket
+import com.spotify.heroic.aggregation.SummarizingBucket
 import com.spotify.heroic.metric.Point
 import com.spotify.heroic.metric.Spread
 import java.util.concurrent.atomic.DoubleAccumulator
@@ -35,7 +36,7 @@ import java.util.concurrent.atomic.DoubleAccumulator
  *
  * @author udoprog
  */
-data class StripedMinBucket(override val timestamp: Long) : AbstractBucket(), DoubleBucket {
+data class StripedMinBucket(override val timestamp: Long) : AbstractBucket(), SummarizingBucket, DoubleBucket {
 
     private val min = DoubleAccumulator(minFn, java.lang.Double.POSITIVE_INFINITY)
 
@@ -44,7 +45,17 @@ data class StripedMinBucket(override val timestamp: Long) : AbstractBucket(), Do
     }
 
     override fun updatePoint(key: Map<String, String>, d: Point) {
-        min.accumulate(d.value)
+        updatePoint(key, d.timestamp, d.value)
+    }
+
+    override fun updatePoint(key: Map<String, String>, timestamp: Long, value: Double) {
+        min.accumulate(value)
+    }
+
+    override fun updateSummary(
+        key: Map<String, String>, count: Long, sum: Double, sum2: Double, min: Double, max: Double
+    ) {
+        this.min.accumulate(min)
     }
 
     override fun value(): Double {
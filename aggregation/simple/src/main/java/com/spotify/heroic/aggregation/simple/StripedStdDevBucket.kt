@@ -23,6 +23,7 @@ package com.spotify.heroic.aggregation.simple
 
 import com.spotify.heroic.aggregation.AbstractBucket
 import com.spotify.heroic.aggregation.DoubleBucket
+import com.spotify.heroic.aggregation.SummarizingBucket
 import com.spotify.heroic.metric.Point
 import com.spotify.heroic.metric.Spread
 import java.util.concurrent.atomic.DoubleAdder
@@ -36,7 +37,7 @@ import java.util.concurrent.atomic.LongAdder
  *
  * @author udoprog
  */
-data class StripedStdDevBucket(override val timestamp: Long) : AbstractBucket(), DoubleBucket {
+data class StripedStdDevBucket(override val timestamp: Long) : AbstractBucket(), SummarizingBucket, DoubleBucket {
     private val sum = DoubleAdder()
     private val sum2 = DoubleAdder()
     private val count = LongAdder()
@@ -48,13 +49,23 @@ data class StripedStdDevBucket(override val timestamp: Long) : AbstractBucket(),
     }
 
     override fun updatePoint(key: Map<String, String>, d: Point) {
-        val v = d.value
+        updatePoint(key, d.timestamp, d.value)
+    }
 
-        sum.add(v)
-        sum2.add(v * v)
+    override fun updatePoint(key: Map<String, String>, timestamp: Long, value: Double) {
+        sum.add(value)
+        sum2.add(value * value)
         count.increment()
     }
 
+    override fun updateSummary(
+        key: Map<String, String>, count: Long, sum: Double, sum2: Double, min: Double, max: Double
+    ) {
+        this.sum.add(sum)
+        this.sum2.add(sum2)
+        this.count.add(count)
+    }
+
     override fun value(): Double {
         val count = this.count.sum()
 
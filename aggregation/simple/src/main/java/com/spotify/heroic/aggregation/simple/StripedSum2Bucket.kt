@@ -23,6 +23,7 @@ package com.spotify.heroic.aggregation.simple
 
 import com.spotify.heroic.aggregation.AbstractBucket
 import com.spotify.heroic.aggregation.DoubleBucket
+import com.spotify.heroic.aggregation.SummarizingBucket
 import com.spotify.heroic.metric.Point
 import com.spotify.heroic.metric.Spread
 import java.util.concurrent.atomic.DoubleAdder
@@ -35,7 +36,7 @@ import java.util.concurrent.atomic.DoubleAdder
  *
  * @author udoprog
  */
-data class StripedSum2Bucket(override val timestamp: Long) : AbstractBucket(), DoubleBucket {
+data class StripedSum2Bucket(override val timestamp: Long) : AbstractBucket(), SummarizingBucket, DoubleBucket {
 
     /* the sum of all seen values */
     private val sum2 = DoubleAdder()
@@ -49,8 +50,19 @@ data class StripedSum2Bucket(override val timestamp: Long) : AbstractBucket(), D
     }
 
     override fun updatePoint(key: Map<String, String>, d: Point) {
+        updatePoint(key, d.timestamp, d.value)
+    }
+
+    override fun updatePoint(key: Map<String, String>, timestamp: Long, value: Double) {
+        valid = true
+        sum2.add(value * value)
+    }
+
+    override fun updateSummary(
+        key: Map<String, String>, count: Long, sum: Double, sum2: Double, min: Double, max: Double
+    ) {
         valid = true
-        sum2.add(d.value * d.value)
+        this.sum2.add(sum2)
     }
 
     override fun updateSpread(key: Map<String, String>, d: Spread) {
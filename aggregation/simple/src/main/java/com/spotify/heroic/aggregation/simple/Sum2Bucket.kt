@@ -47,8 +47,12 @@ data class Sum2Bucket(override val timestamp: Long) : AbstractBucket(), DoubleBu
     private var valid = false
 
     override fun updatePoint(key: Map<String, String>, d: Point) {
+        updatePoint(key, d.timestamp, d.value)
+    }
+
+    override fun updatePoint(key: Map<String, String>, timestamp: Long, value: Double) {
         valid = true
-        sum2.addAndGet(d.value * d.value)
+        sum2.addAndGet(value * value)
     }
 
     override fun updateSpread(key: Map<String, String>, d: Spread) {
@@ -47,8 +47,12 @@ data class SumBucket(override val timestamp: Long) : AbstractBucket(), DoubleBuc
     private var valid = false
 
     override fun updatePoint(key: Map<String, String>, d: Point) {
+        updatePoint(key, d.timestamp, d.value)
+    }
+
+    override fun updatePoint(key: Map<String, String>, timestamp: Long, value: Double) {
         valid = true
-        sum.addAndGet(d.value)
+        sum.addAndGet(value)
     }
 
     override fun updateSpread(key: Map<String, String>, d: Spread) {
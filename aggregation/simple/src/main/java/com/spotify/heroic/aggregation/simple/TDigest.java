@@ -0,0 +1,373 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.aggregation.simple;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A merging t-digest, used to estimate quantiles of a stream of values.
+ * <p>
+ * Centroids are kept sorted in primitive arrays. Incoming values are appended to a buffer which
+ * is sorted and merged into the centroids when full, so adding a value does not allocate.
+ * Digests can be merged with each other and serialized, which allows quantiles to be computed
+ * over sub-aggregations without loss of information beyond that of the digest itself.
+ * <p>
+ * This class is not thread-safe.
+ * <p>
+ * See: Dunning and Ertl, "Computing Extremely Accurate Quantiles Using t-Digests", 2019
+ */
+public final class TDigest {
+    private static final byte VERSION = 1;
+    private static final int BUFFER_FACTOR = 4;
+
+    private final double compression;
+
+    /* sorted centroids */
+    private double[] mean;
+    private double[] weight;
+    private int centroids = 0;
+    private double totalWeight = 0D;
+
+    /* scratch space used when merging, swapped with the centroids */
+    private double[] nextMean;
+    private double[] nextWeight;
+
+    /* unsorted values which have not been merged yet */
+    private final double[] bufferMean;
+    private final double[] bufferWeight;
+    private int buffered = 0;
+    private double bufferedWeight = 0D;
+
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public TDigest(final double compression) {
+        if (!(compression > 0D)) {
+            throw new IllegalArgumentException("compression must be positive: " + compression);
+        }
+
+        final int capacity = (int) Math.ceil(compression);
+
+        this.compression = compression;
+        this.mean = new double[2 * capacity + 10];
+        this.weight = new double[2 * capacity + 10];
+        this.bufferMean = new double[BUFFER_FACTOR * capacity];
+        this.bufferWeight = new double[BUFFER_FACTOR * capacity];
+    }
+
+    public double compression() {
+        return compression;
+    }
+
+    /**
+     * Total weight of all values added to this digest.
+     */
+    public double size() {
+        return totalWeight + bufferedWeight;
+    }
+
+    /**
+     * Number of centroids currently retained, after merging any buffered values.
+     */
+    public int centroids() {
+        flush();
+        return centroids;
+    }
+
+    public void add(final double value) {
+        add(value, 1D);
+    }
+
+    public void add(final double value, final double weight) {
+        if (!Double.isFinite(value) || !(weight > 0D)) {
+            return;
+        }
+
+        if (buffered == bufferMean.length) {
+            flush();
+        }
+
+        bufferMean[buffered] = value;
+        bufferWeight[buffered] = weight;
+        buffered += 1;
+        bufferedWeight += weight;
+
+        if (value < min) {
+            min = value;
+        }
+
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * Add all values from the other digest into this one.
+     */
+    public void merge(final TDigest other) {
+        other.flush();
+
+        for (int i = 0; i < other.centroids; i++) {
+            add(other.mean[i], other.weight[i]);
+        }
+
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Estimate the value at the given quantile.
+     *
+     * @param q quantile to estimate, between 0 and 1
+     * @return the estimated value, or {@code NaN} if the digest is empty
+     */
+    public double quantile(final double q) {
+        if (q < 0D || q > 1D) {
+            throw new IllegalArgumentException("quantile must be between 0 and 1: " + q);
+        }
+
+        flush();
+
+        if (centroids == 0) {
+            return Double.NaN;
+        }
+
+        if (centroids == 1) {
+            return mean[0];
+        }
+
+        final double index = q * totalWeight;
+
+        /* left tail, interpolate between the minimum and the first centroid */
+        final double first = weight[0] / 2;
+
+        if (index < first) {
+            return min + (mean[0] - min) * (index / first);
+        }
+
+        double cumulative = first;
+
+        for (int i = 0; i < centroids - 1; i++) {
+            final double dw = (weight[i] + weight[i + 1]) / 2;
+
+            if (cumulative + dw > index) {
+                return mean[i] + (index - cumulative) / dw * (mean[i + 1] - mean[i]);
+            }
+
+            cumulative += dw;
+        }
+
+        /* right tail, interpolate between the last centroid and the maximum */
+        final int last = centroids - 1;
+        final double half = weight[last] / 2;
+        final double z = Math.min(index - cumulative, half);
+        return mean[last] + (max - mean[last]) * (z / half);
+    }
+
+    /**
+     * Serialize the digest.
+     */
+    public byte[] toBytes() {
+        flush();
+
+        final ByteBuffer buffer = ByteBuffer.allocate(1 + 8 * 3 + 4 + 16 * centroids);
+        buffer.put(VERSION);
+        buffer.putDouble(compression);
+        buffer.putDouble(min);
+        buffer.putDouble(max);
+        buffer.putInt(centroids);
+
+        for (int i = 0; i < centroids; i++) {
+            buffer.putDouble(mean[i]);
+            buffer.putDouble(weight[i]);
+        }
+
+        return buffer.array();
+    }
+
+    /**
+     * Deserialize a digest serialized with {@link #toBytes()}.
+     */
+    public static TDigest fromBytes(final byte[] bytes) {
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        final byte version = buffer.get();
+
+        if (version != VERSION) {
+            throw new IllegalArgumentException("unsupported t-digest version: " + version);
+        }
+
+        final TDigest digest = new TDigest(buffer.getDouble());
+        final double min = buffer.getDouble();
+        final double max = buffer.getDouble();
+        final int centroids = buffer.getInt();
+
+        for (int i = 0; i < centroids; i++) {
+            final double mean = buffer.getDouble();
+            digest.add(mean, buffer.getDouble());
+        }
+
+        digest.min = Math.min(digest.min, min);
+        digest.max = Math.max(digest.max, max);
+        return digest;
+    }
+
+    /**
+     * Merge buffered values into the centroids.
+     */
+    private void flush() {
+        if (buffered == 0) {
+            return;
+        }
+
+        sort(bufferMean, bufferWeight, 0, buffered - 1);
+
+        final double total = totalWeight + bufferedWeight;
+
+        if (nextMean == null || nextMean.length < mean.length) {
+            nextMean = new double[mean.length];
+            nextWeight = new double[mean.length];
+        }
+
+        int out = -1;
+        double weightSoFar = 0D;
+        double weightLimit = total * limit(0D);
+
+        int i = 0;
+        int j = 0;
+
+        while (i < centroids || j < buffered) {
+            final double m;
+            final double w;
+
+            if (j >= buffered || (i < centroids && mean[i] <= bufferMean[j])) {
+                m = mean[i];
+                w = weight[i];
+                i++;
+            } else {
+                m = bufferMean[j];
+                w = bufferWeight[j];
+                j++;
+            }
+
+            if (out >= 0 && weightSoFar + nextWeight[out] + w <= weightLimit) {
+                nextWeight[out] += w;
+                nextMean[out] += (m - nextMean[out]) * w / nextWeight[out];
+                continue;
+            }
+
+            if (out >= 0) {
+                weightSoFar += nextWeight[out];
+                weightLimit = total * limit(weightSoFar / total);
+            }
+
+            out++;
+
+            if (out == nextMean.length) {
+                nextMean = Arrays.copyOf(nextMean, nextMean.length * 2);
+                nextWeight = Arrays.copyOf(nextWeight, nextWeight.length * 2);
+            }
+
+            nextMean[out] = m;
+            nextWeight[out] = w;
+        }
+
+        final double[] swapMean = mean;
+        final double[] swapWeight = weight;
+
+        mean = nextMean;
+        weight = nextWeight;
+        nextMean = swapMean;
+        nextWeight = swapWeight;
+
+        centroids = out + 1;
+        totalWeight = total;
+        buffered = 0;
+        bufferedWeight = 0D;
+    }
+
+    /**
+     * The largest quantile that a centroid starting at quantile {@code q} may extend to, using the
+     * k1 scale function {@code k(q) = compression / (2 * PI) * asin(2q - 1)}.
+     */
+    private double limit(final double q) {
+        final double normalizer = compression / (2 * Math.PI);
+        final double k = normalizer * Math.asin(2 * Math.min(q, 1D) - 1) + 1;
+
+        if (k >= compression / 4) {
+            return 1D;
+        }
+
+        return (Math.sin(k / normalizer) + 1) / 2;
+    }
+
+    /**
+     * Sort the given parallel arrays by the first one, in place.
+     */
+    private static void sort(final double[] keys, final double[] values, int lo, int hi) {
+        while (hi - lo > 16) {
+            final double pivot = keys[(lo + hi) >>> 1];
+
+            int i = lo;
+            int j = hi;
+
+            while (i <= j) {
+                while (keys[i] < pivot) {
+                    i++;
+                }
+
+                while (keys[j] > pivot) {
+                    j--;
+                }
+
+                if (i <= j) {
+                    swap(keys, values, i++, j--);
+                }
+            }
+
+            /* recurse into the smaller partition to bound the stack depth */
+            if (j - lo < hi - i) {
+                sort(keys, values, lo, j);
+                lo = i;
+            } else {
+                sort(keys, values, i, hi);
+                hi = j;
+            }
+        }
+
+        for (int i = lo + 1; i <= hi; i++) {
+            for (int j = i; j > lo && keys[j - 1] > keys[j]; j--) {
+                swap(keys, values, j - 1, j);
+            }
+        }
+    }
+
+    private static void swap(final double[] keys, final double[] values, final int a, final int b) {
+        final double key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+
+        final double value = values[a];
+        values[a] = values[b];
+        values[b] = value;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.aggregation.simple
+
+import com.spotify.heroic.aggregation.AbstractBucket
+import com.spotify.heroic.metric.Payload
+import com.spotify.heroic.metric.Point
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicReferenceArray
+
+/**
+ * Bucket that estimates quantiles using a [TDigest].
+ *
+ *
+ * Values are added to one of a set of striped digests picked by the updating thread, so threads
+ * feeding the same bucket rarely contend. Digest state received from distributed
+ * sub-aggregations as [Payload] is merged in when the bucket is read.
+ */
+data class TDigestQuantileBucket(
+    override val timestamp: Long,
+    val compression: Double
+) : AbstractBucket() {
+    private val stripes = AtomicReferenceArray<TDigest>(STRIPES)
+    private val states = ConcurrentLinkedQueue<ByteArray>()
+
+    override fun updatePoint(key: Map<String, String>, sample: Point) {
+        updatePoint(key, sample.timestamp, sample.value)
+    }
+
+    override fun updatePoint(key: Map<String, String>, timestamp: Long, value: Double) {
+        val digest = stripe()
+
+        synchronized(digest) {
+            digest.add(value)
+        }
+    }
+
+    override fun updatePayload(key: Map<String, String>, sample: Payload) {
+        states.add(sample.state)
+    }
+
+    /**
+     * Build a digest containing everything that has been fed into this bucket.
+     */
+    fun digest(): TDigest {
+        val result = TDigest(compression)
+
+        for (i in 0 until STRIPES) {
+            val digest = stripes.get(i) ?: continue
+
+            synchronized(digest) {
+                result.merge(digest)
+            }
+        }
+
+        for (state in states) {
+            result.merge(TDigest.fromBytes(state))
+        }
+
+        return result
+    }
+
+    private fun stripe(): TDigest {
+        val index = (Thread.currentThread().id % STRIPES).toInt()
+        val current = stripes.get(index)
+
+        if (current != null) {
+            return current
+        }
+
+        stripes.compareAndSet(index, null, TDigest(compression))
+        return stripes.get(index)
+    }
+
+    companion object {
+        private val STRIPES = Math.max(Runtime.getRuntime().availableProcessors(), 1)
+    }
+}
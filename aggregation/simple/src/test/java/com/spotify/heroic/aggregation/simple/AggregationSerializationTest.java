@@ -120,6 +120,21 @@ public class AggregationSerializationTest {
         assertSerializes(expected, new QuantileInstance(1, 2, 3.0, 4.0));
     }
 
+    @Test
+    public void testTDigestQuantileInstance() throws Exception {
+        final String expected =
+            "{\"type\":\"tdigest-quantile\",\"size\":1,\"extent\":2,\"q\":3.0," +
+                "\"compression\":4.0}";
+        assertSerializes(expected, new TDigestQuantileInstance(1, 2, 3.0, 4.0));
+    }
+
+    @Test
+    public void testDistributedTDigestInstance() throws Exception {
+        final String expected =
+            "{\"type\":\"distributed-tdigest\",\"size\":1,\"extent\":2,\"compression\":4.0}";
+        assertSerializes(expected, new DistributedTDigestInstance(1, 2, 4.0));
+    }
+
     @Test
     public void testStdDevInstance() throws Exception {
         final String expected = "{\"type\":\"stddev\",\"size\":1,\"extent\":2}";
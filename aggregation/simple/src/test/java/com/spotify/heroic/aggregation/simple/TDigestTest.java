@@ -0,0 +1,75 @@
+package com.spotify.heroic.aggregation.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.spotify.heroic.metric.Payload;
+import com.spotify.heroic.metric.Point;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class TDigestTest {
+    private static final Map<String, String> TAGS = new HashMap<>();
+    private static final double COMPRESSION = 100.0;
+
+    @Test
+    public void testEmpty() {
+        final TDigest digest = new TDigest(COMPRESSION);
+        assertTrue(Double.isNaN(digest.quantile(0.5)));
+    }
+
+    @Test
+    public void testSingle() {
+        final TDigest digest = new TDigest(COMPRESSION);
+        digest.add(1337.0);
+        assertEquals(1337.0, digest.quantile(0.5), 0.0);
+    }
+
+    @Test
+    public void testQuantiles() {
+        final TDigest digest = new TDigest(COMPRESSION);
+
+        for (int i = 1; i <= 10000; i++) {
+            digest.add(i);
+        }
+
+        assertEquals(5000.0, digest.quantile(0.5), 10000 * 0.01);
+        assertEquals(1000.0, digest.quantile(0.1), 10000 * 0.01);
+        assertEquals(9900.0, digest.quantile(0.99), 10000 * 0.001);
+        assertEquals(1.0, digest.quantile(0.0), 0.0);
+        assertEquals(10000.0, digest.quantile(1.0), 0.0);
+        assertTrue(digest.centroids() <= 2 * COMPRESSION);
+    }
+
+    @Test
+    public void testMergeSerialized() {
+        final TDigest a = new TDigest(COMPRESSION);
+        final TDigest b = new TDigest(COMPRESSION);
+
+        for (int i = 1; i <= 10000; i++) {
+            (i % 2 == 0 ? a : b).add(i);
+        }
+
+        final TDigest merged = TDigest.fromBytes(a.toBytes());
+        merged.merge(TDigest.fromBytes(b.toBytes()));
+
+        assertEquals(10000.0, merged.size(), 0.0);
+        assertEquals(5000.0, merged.quantile(0.5), 10000 * 0.01);
+        assertEquals(9900.0, merged.quantile(0.99), 10000 * 0.001);
+    }
+
+    @Test
+    public void testBucketPayloads() {
+        final TDigestQuantileBucket shard = new TDigestQuantileBucket(0, COMPRESSION);
+        final TDigestQuantileBucket reducer = new TDigestQuantileBucket(0, COMPRESSION);
+
+        for (int i = 1; i <= 5000; i++) {
+            shard.updatePoint(TAGS, new Point(0, i));
+            reducer.updatePoint(TAGS, 0, 5000 + i);
+        }
+
+        reducer.updatePayload(TAGS, new Payload(0, shard.digest().toBytes()));
+        assertEquals(5000.0, reducer.digest().quantile(0.5), 10000 * 0.01);
+    }
+}
@@ -25,6 +25,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.spotify.heroic.common.GrokProcessor;
+import com.spotify.heroic.common.SeriesInterner;
 import com.spotify.heroic.ingestion.Ingestion;
 import com.spotify.heroic.ingestion.IngestionGroup;
 import com.spotify.heroic.ingestion.Request;
@@ -46,15 +47,18 @@ public class CollectdChannelHandler extends SimpleChannelInboundHandler<Datagram
     private final IngestionGroup ingestion;
     private final Optional<GrokProcessor> hostProcessor;
     private final CollectdTypes types;
+    private final SeriesInterner interner;
 
-    @java.beans.ConstructorProperties({ "async", "ingestion", "hostProcessor", "types" })
+    @java.beans.ConstructorProperties({ "async", "ingestion", "hostProcessor", "types",
+                                        "interner" })
     public CollectdChannelHandler(final AsyncFramework async, final IngestionGroup ingestion,
                                   final Optional<GrokProcessor> hostProcessor,
-                                  final CollectdTypes types) {
+                                  final CollectdTypes types, final SeriesInterner interner) {
         this.async = async;
         this.ingestion = ingestion;
         this.hostProcessor = hostProcessor;
         this.types = types;
+        this.interner = interner;
     }
 
     @Override
@@ -84,7 +88,8 @@ public class CollectdChannelHandler extends SimpleChannelInboundHandler<Datagram
             final List<AsyncFuture<Ingestion>> futures = new ArrayList<>();
 
             for (final Request w : ingestions) {
-                futures.add(ingestion.write(w));
+                futures.add(ingestion.write(
+                    new Request(interner.intern(w.getSeries()), w.getData())));
             }
 
             async.collectAndDiscard(futures);
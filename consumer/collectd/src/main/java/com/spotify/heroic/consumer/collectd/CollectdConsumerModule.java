@@ -24,6 +24,7 @@ package com.spotify.heroic.consumer.collectd;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.spotify.heroic.common.GrokProcessor;
+import com.spotify.heroic.common.SeriesInterner;
 import com.spotify.heroic.consumer.ConsumerModule;
 import com.spotify.heroic.dagger.PrimaryComponent;
 import com.spotify.heroic.ingestion.IngestionComponent;
@@ -149,7 +150,8 @@ public class CollectdConsumerModule implements ConsumerModule {
         @Provides
         @CollectdScope
         Managed<Server> connection(
-            final AsyncFramework async, final IngestionManager ingestionManager
+            final AsyncFramework async, final IngestionManager ingestionManager,
+            final SeriesInterner interner
         ) {
             return async.managed(new ManagedSetup<Server>() {
                 @Override
@@ -161,7 +163,8 @@ public class CollectdConsumerModule implements ConsumerModule {
                     }
 
                     final CollectdChannelHandler handler =
-                        new CollectdChannelHandler(async, ingestion, hostProcessor, types);
+                        new CollectdChannelHandler(async, ingestion, hostProcessor, types,
+                            interner);
 
                     final InetAddress h = host.map(host -> {
                         try {
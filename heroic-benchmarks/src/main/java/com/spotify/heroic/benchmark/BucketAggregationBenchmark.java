@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.benchmark;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.aggregation.AggregationResult;
+import com.spotify.heroic.aggregation.Bucket;
+import com.spotify.heroic.aggregation.BucketAggregationInstance;
+import com.spotify.heroic.aggregation.BucketStrategy;
+import com.spotify.heroic.aggregation.RetainQuotaWatcher;
+import com.spotify.heroic.aggregation.StartEnd;
+import com.spotify.heroic.aggregation.simple.AverageInstance;
+import com.spotify.heroic.aggregation.simple.CountInstance;
+import com.spotify.heroic.aggregation.simple.MaxInstance;
+import com.spotify.heroic.aggregation.simple.SpreadInstance;
+import com.spotify.heroic.aggregation.simple.StdDevInstance;
+import com.spotify.heroic.aggregation.simple.SumInstance;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointArray;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the summarizing feed loop in {@link BucketAggregationInstance} against the
+ * per-sample loop it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BucketAggregationBenchmark {
+    private static final Map<String, String> KEY = ImmutableMap.of();
+    private static final Set<Series> SERIES = ImmutableSet.of();
+
+    @Param({"sum", "count", "average", "max", "stddev", "spread"})
+    public String aggregation;
+
+    @Param({"10000", "1000000"})
+    public int points;
+
+    /* number of samples per bucket */
+    @Param({"60"})
+    public int density;
+
+    private DateRange range;
+    private BucketAggregationInstance<? extends Bucket> instance;
+    private List<Point> boxed;
+    private PointArray columns;
+
+    @Setup
+    public void setup() {
+        final long cadence = 1000L;
+        final long size = cadence * density;
+
+        range = new DateRange(0L, points * cadence);
+        instance = buildInstance(aggregation, size);
+
+        final Random random = new Random(0x1234L);
+        final PointArray.Builder builder = PointArray.builder(points);
+
+        for (int i = 0; i < points; i++) {
+            builder.add(i * cadence, random.nextDouble());
+        }
+
+        columns = builder.build();
+        boxed = new ArrayList<>(columns);
+    }
+
+    @Benchmark
+    public AggregationResult summarized() {
+        final BucketAggregationInstance<? extends Bucket>.Session session = session();
+        session.updatePoints(KEY, SERIES, columns);
+        return session.result();
+    }
+
+    /**
+     * The feed loop as it was before summarizing buckets: copy the valid samples, allocate a
+     * start/end pair per sample and update each bucket through a lambda.
+     */
+    @Benchmark
+    public AggregationResult perSample() {
+        final BucketAggregationInstance<? extends Bucket>.Session session = session();
+        final List<? extends Bucket> buckets = session.getBuckets();
+        final BucketStrategy.Mapping mapping = session.getMapping();
+        final BiConsumer<Bucket, Point> consumer = (bucket, p) -> bucket.updatePoint(KEY, p);
+
+        for (final Point p : boxed.stream().filter(Point::valid).collect(Collectors.toList())) {
+            final StartEnd startEnd = mapping.map(p.getTimestamp());
+
+            for (int i = startEnd.getStart(); i < startEnd.getEnd(); i++) {
+                consumer.accept(buckets.get(i), p);
+            }
+        }
+
+        return session.result();
+    }
+
+    private BucketAggregationInstance<? extends Bucket>.Session session() {
+        return instance.session(range, RetainQuotaWatcher.NO_QUOTA, BucketStrategy.END);
+    }
+
+    static BucketAggregationInstance<? extends Bucket> buildInstance(
+        final String aggregation, final long size
+    ) {
+        switch (aggregation) {
+            case "sum":
+                return new SumInstance(size, size);
+            case "count":
+                return new CountInstance(size, size);
+            case "average":
+                return new AverageInstance(size, size);
+            case "max":
+                return new MaxInstance(size, size);
+            case "stddev":
+                return new StdDevInstance(size, size);
+            case "spread":
+                return new SpreadInstance(size, size);
+            default:
+                throw new IllegalArgumentException("aggregation: " + aggregation);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.benchmark;
+
+import com.google.common.collect.ImmutableMap;
+import com.spotify.heroic.aggregation.Bucket;
+import com.spotify.heroic.aggregation.simple.AverageBucket;
+import com.spotify.heroic.aggregation.simple.CountBucket;
+import com.spotify.heroic.aggregation.simple.MaxBucket;
+import com.spotify.heroic.aggregation.simple.MinBucket;
+import com.spotify.heroic.aggregation.simple.QuantileBucket;
+import com.spotify.heroic.aggregation.simple.SpreadBucket;
+import com.spotify.heroic.aggregation.simple.StdDevBucket;
+import com.spotify.heroic.aggregation.simple.StripedAverageBucket;
+import com.spotify.heroic.aggregation.simple.StripedCountBucket;
+import com.spotify.heroic.aggregation.simple.StripedMaxBucket;
+import com.spotify.heroic.aggregation.simple.StripedMinBucket;
+import com.spotify.heroic.aggregation.simple.StripedStdDevBucket;
+import com.spotify.heroic.aggregation.simple.StripedSum2Bucket;
+import com.spotify.heroic.aggregation.simple.StripedSumBucket;
+import com.spotify.heroic.aggregation.simple.Sum2Bucket;
+import com.spotify.heroic.aggregation.simple.SumBucket;
+import com.spotify.heroic.aggregation.simple.TDigestQuantileBucket;
+import com.spotify.heroic.metric.Point;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of updating a single bucket, both uncontended and shared across threads, for every bucket
+ * type in the simple aggregation module.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BucketBenchmark {
+    private static final Map<String, String> KEY = ImmutableMap.of();
+    private static final int POINTS = 1024;
+
+    @Param({
+        "sum", "striped-sum", "sum2", "striped-sum2", "average", "striped-average", "min",
+        "striped-min", "max", "striped-max", "stddev", "striped-stddev", "count",
+        "striped-count", "spread", "quantile", "tdigest-quantile"
+    })
+    public String bucket;
+
+    private Point[] points;
+    private Bucket shared;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(0x1234L);
+        points = new Point[POINTS];
+
+        for (int i = 0; i < POINTS; i++) {
+            points[i] = new Point(i, random.nextDouble());
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+        shared = buildBucket(bucket);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public Bucket updatePoint() {
+        final Bucket b = buildBucket(bucket);
+
+        for (final Point p : points) {
+            b.updatePoint(KEY, p);
+        }
+
+        return b;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public Bucket updatePrimitive() {
+        final Bucket b = buildBucket(bucket);
+
+        for (final Point p : points) {
+            b.updatePoint(KEY, p.getTimestamp(), p.getValue());
+        }
+
+        return b;
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(POINTS)
+    public Bucket updateContended() {
+        final Bucket b = shared;
+
+        for (final Point p : points) {
+            b.updatePoint(KEY, p);
+        }
+
+        return b;
+    }
+
+    static Bucket buildBucket(final String bucket) {
+        switch (bucket) {
+            case "sum":
+                return new SumBucket(0L);
+            case "striped-sum":
+                return new StripedSumBucket(0L);
+            case "sum2":
+                return new Sum2Bucket(0L);
+            case "striped-sum2":
+                return new StripedSum2Bucket(0L);
+            case "average":
+                return new AverageBucket(0L);
+            case "striped-average":
+                return new StripedAverageBucket(0L);
+            case "min":
+                return new MinBucket(0L);
+            case "striped-min":
+                return new StripedMinBucket(0L);
+            case "max":
+                return new MaxBucket(0L);
+            case "striped-max":
+                return new StripedMaxBucket(0L);
+            case "stddev":
+                return new StdDevBucket(0L);
+            case "striped-stddev":
+                return new StripedStdDevBucket(0L);
+            case "count":
+                return new CountBucket(0L);
+            case "striped-count":
+                return new StripedCountBucket(0L);
+            case "spread":
+                return new SpreadBucket(0L);
+            case "quantile":
+                return new QuantileBucket(0L, 0.99, 0.01);
+            case "tdigest-quantile":
+                return new TDigestQuantileBucket(0L, 100.0);
+            default:
+                throw new IllegalArgumentException("bucket: " + bucket);
+        }
+    }
+}
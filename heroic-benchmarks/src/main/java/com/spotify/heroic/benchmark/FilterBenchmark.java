@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.benchmark;
+
+import com.google.common.collect.ImmutableMap;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.filter.CompiledFilter;
+import com.spotify.heroic.filter.Filter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Applying filters over a large set of series, as done by the ingestion filter and the memory
+ * metadata and suggest backends.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterBenchmark {
+    @Param({"matchKey", "matchTag", "hasTag", "startsWith", "regex", "and", "or", "not"})
+    public String filter;
+
+    @Param({"100000"})
+    public int series;
+
+    private Filter instance;
+    private CompiledFilter compiled;
+    private List<Series> data;
+
+    @Setup
+    public void setup() {
+        instance = buildFilter(filter).optimize();
+        compiled = CompiledFilter.compile(instance);
+        data = new ArrayList<>(series);
+
+        for (int i = 0; i < series; i++) {
+            data.add(Series.of("key-" + (i % 10), ImmutableMap.of(
+                "host", "host-" + (i % 1000),
+                "role", "role-" + (i % 50),
+                "site", "site-" + (i % 4))));
+        }
+    }
+
+    @Benchmark
+    public int apply() {
+        int matches = 0;
+
+        for (final Series s : data) {
+            if (instance.apply(s)) {
+                matches++;
+            }
+        }
+
+        return matches;
+    }
+
+    @Benchmark
+    public int compiled() {
+        int matches = 0;
+
+        for (final Series s : data) {
+            if (compiled.test(s)) {
+                matches++;
+            }
+        }
+
+        return matches;
+    }
+
+    static Filter buildFilter(final String filter) {
+        switch (filter) {
+            case "matchKey":
+                return Filter.matchKey("key-1");
+            case "matchTag":
+                return Filter.matchTag("role", "role-1");
+            case "hasTag":
+                return Filter.hasTag("site");
+            case "startsWith":
+                return Filter.startsWith("host", "host-1");
+            case "regex":
+                return Filter.regex("host", "host-1.*");
+            case "and":
+                return Filter.and(Filter.matchKey("key-1"), Filter.matchTag("site", "site-1"),
+                    Filter.regex("role", "role-1.*"));
+            case "or":
+                return Filter.or(Filter.matchTag("role", "role-1"),
+                    Filter.matchTag("role", "role-2"), Filter.startsWith("host", "host-3"));
+            case "not":
+                return Filter.not(Filter.matchTag("site", "site-1"));
+            default:
+                throw new IllegalArgumentException("filter: " + filter);
+        }
+    }
+}
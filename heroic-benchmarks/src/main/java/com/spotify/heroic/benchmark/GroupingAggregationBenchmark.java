@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.benchmark;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.aggregation.AggregationResult;
+import com.spotify.heroic.aggregation.AggregationSession;
+import com.spotify.heroic.aggregation.BucketStrategy;
+import com.spotify.heroic.aggregation.GroupInstance;
+import com.spotify.heroic.aggregation.RetainQuotaWatcher;
+import com.spotify.heroic.aggregation.simple.SumInstance;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.PointArray;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Fan-out of a grouping aggregation session, where every series is routed to the session of its
+ * group.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GroupingAggregationBenchmark {
+    private static final long CADENCE = 1000L;
+
+    @Param({"10000"})
+    public int series;
+
+    @Param({"1", "100", "10000"})
+    public int groups;
+
+    @Param({"60"})
+    public int pointsPerSeries;
+
+    private DateRange range;
+    private AggregationInstance instance;
+    private List<Map<String, String>> keys;
+    private List<Set<Series>> seriesSets;
+    private List<PointArray> data;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(0x1234L);
+
+        range = new DateRange(0L, pointsPerSeries * CADENCE);
+        instance = new GroupInstance(Optional.of(ImmutableList.of("host")),
+            new SumInstance(CADENCE * 10, CADENCE * 10));
+
+        keys = new ArrayList<>(series);
+        seriesSets = new ArrayList<>(series);
+        data = new ArrayList<>(series);
+
+        for (int i = 0; i < series; i++) {
+            final Map<String, String> tags =
+                ImmutableMap.of("host", "host-" + (i % groups), "series", "series-" + i);
+
+            keys.add(tags);
+            seriesSets.add(ImmutableSet.of(Series.of("benchmark", tags)));
+
+            final PointArray.Builder builder = PointArray.builder(pointsPerSeries);
+
+            for (int p = 0; p < pointsPerSeries; p++) {
+                builder.add(p * CADENCE, random.nextDouble());
+            }
+
+            data.add(builder.build());
+        }
+    }
+
+    @Benchmark
+    public AggregationResult fanOut() {
+        final AggregationSession session =
+            instance.session(range, RetainQuotaWatcher.NO_QUOTA, BucketStrategy.END);
+
+        for (int i = 0; i < series; i++) {
+            session.updatePoints(keys.get(i), seriesSets.get(i), data.get(i));
+        }
+
+        return session.result();
+    }
+}
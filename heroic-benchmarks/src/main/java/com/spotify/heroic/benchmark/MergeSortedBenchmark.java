@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.benchmark;
+
+import com.spotify.heroic.metric.Metric;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointArray;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Merging sorted metric collections, as done when combining the rows of several backends.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MergeSortedBenchmark {
+    @Param({"1", "2", "8"})
+    public int sources;
+
+    @Param({"10000"})
+    public int pointsPerSource;
+
+    private List<List<? extends Metric>> columns;
+    private List<List<? extends Metric>> boxed;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(0x1234L);
+
+        columns = new ArrayList<>(sources);
+        boxed = new ArrayList<>(sources);
+
+        for (int s = 0; s < sources; s++) {
+            final PointArray.Builder builder = PointArray.builder(pointsPerSource);
+
+            for (int i = 0; i < pointsPerSource; i++) {
+                builder.add((long) i * sources + s, random.nextDouble());
+            }
+
+            final PointArray points = builder.build();
+            columns.add(points);
+            boxed.add(new ArrayList<Point>(points));
+        }
+    }
+
+    @Benchmark
+    public MetricCollection mergeColumns() {
+        return MetricCollection.mergeSorted(MetricType.POINT, columns);
+    }
+
+    @Benchmark
+    public MetricCollection mergeBoxed() {
+        return MetricCollection.mergeSorted(MetricType.POINT, boxed);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.HeroicMappers;
+import com.spotify.heroic.aggregation.AggregationSession;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointArray;
+import com.spotify.heroic.metric.QueryMetricsResponse;
+import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.ResultLimits;
+import com.spotify.heroic.metric.ShardedResultGroup;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serializing query responses through the same mapper as the HTTP API.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryMetricsResponseBenchmark {
+    @Param({"1", "100", "1000"})
+    public int groups;
+
+    @Param({"1000"})
+    public int pointsPerGroup;
+
+    private ObjectMapper mapper;
+    private QueryMetricsResponse columns;
+    private QueryMetricsResponse boxed;
+
+    @Setup
+    public void setup() {
+        mapper = HeroicMappers.json(null);
+
+        final Random random = new Random(0x1234L);
+        final List<ShardedResultGroup> columnGroups = new ArrayList<>(groups);
+        final List<ShardedResultGroup> boxedGroups = new ArrayList<>(groups);
+
+        for (int g = 0; g < groups; g++) {
+            final PointArray.Builder builder = PointArray.builder(pointsPerGroup);
+
+            for (int i = 0; i < pointsPerGroup; i++) {
+                builder.add(i * 1000L, random.nextDouble());
+            }
+
+            final PointArray points = builder.build();
+            final ImmutableSet<Series> series = ImmutableSet.of(
+                Series.of("benchmark", ImmutableMap.of("host", "host-" + g, "site", "site")));
+
+            columnGroups.add(new ShardedResultGroup(ImmutableMap.of(), ImmutableMap.of(), series,
+                MetricCollection.points(points), 1000L));
+            boxedGroups.add(new ShardedResultGroup(ImmutableMap.of(), ImmutableMap.of(), series,
+                new BoxedPoints(new ArrayList<Point>(points)), 1000L));
+        }
+
+        columns = response(columnGroups);
+        boxed = response(boxedGroups);
+    }
+
+    @Benchmark
+    public long serializeColumns() throws IOException {
+        return serialize(columns);
+    }
+
+    @Benchmark
+    public long serializeBoxed() throws IOException {
+        return serialize(boxed);
+    }
+
+    private long serialize(final QueryMetricsResponse response) throws IOException {
+        final CountingOutputStream out = new CountingOutputStream();
+        mapper.writeValue(out, response);
+        return out.count;
+    }
+
+    private QueryMetricsResponse response(final List<ShardedResultGroup> result) {
+        return new QueryMetricsResponse(UUID.randomUUID(), new DateRange(0L, 1000L), result,
+            ImmutableList.of(), QueryTrace.of(QueryTrace.identifier("benchmark"), 0L),
+            ResultLimits.of(), Optional.empty(), Optional.empty());
+    }
+
+    /**
+     * A point collection that keeps its points boxed, to compare against the columnar form.
+     */
+    private static class BoxedPoints implements MetricCollection {
+        private final List<Point> data;
+
+        BoxedPoints(final List<Point> data) {
+            this.data = data;
+        }
+
+        @Override
+        public List<Point> data() {
+            return data;
+        }
+
+        @Override
+        public MetricType getType() {
+            return MetricType.POINT;
+        }
+
+        @Override
+        public void updateAggregation(
+            final AggregationSession session, final Map<String, String> key,
+            final Set<Series> series
+        ) {
+            session.updatePoints(key, series, data);
+        }
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count = 0;
+
+        @Override
+        public void write(final int b) {
+            count++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            count += len;
+        }
+    }
+}
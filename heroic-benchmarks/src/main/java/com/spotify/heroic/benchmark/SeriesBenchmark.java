@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.benchmark;
+
+import com.spotify.heroic.common.Series;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Construction, hashing and comparison of {@link Series}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeriesBenchmark {
+    @Param({"2", "8", "32"})
+    public int tagCount;
+
+    private Map<String, String> tags;
+    private TreeMap<String, String> sortedTags;
+    private Map<String, String> resource;
+    private Series series;
+    private Series other;
+
+    @Setup
+    public void setup() {
+        tags = new HashMap<>();
+
+        for (int i = 0; i < tagCount; i++) {
+            tags.put("tag-" + i, "value-" + i);
+        }
+
+        sortedTags = new TreeMap<>(tags);
+
+        resource = new HashMap<>();
+        resource.put("instance", "instance-1");
+
+        series = Series.of("benchmark", tags, resource);
+        other = Series.of("benchmark", tags, resource);
+    }
+
+    @Benchmark
+    public Series of() {
+        return Series.of("benchmark", tags);
+    }
+
+    @Benchmark
+    public Series ofWithResource() {
+        return Series.of("benchmark", tags, resource);
+    }
+
+    @Benchmark
+    public Series constructSorted() {
+        return new Series("benchmark", sortedTags);
+    }
+
+    @Benchmark
+    public Series withResource() {
+        return series.withResource(new TreeMap<>(resource));
+    }
+
+    @Benchmark
+    public String hash() {
+        return series.hash();
+    }
+
+    @Benchmark
+    public boolean equalsDistinctInstance() {
+        return series.equals(other);
+    }
+
+    @Benchmark
+    public int compareTo() {
+        return series.compareTo(other);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.bigtable;
+
+import com.google.protobuf.ByteString;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cell encoding used by {@link BigtableBackend}.
+ * <p>
+ * Lives in the same package as the backend to reach its package-private codec methods.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BigtableSerializationBenchmark {
+    private static final int CELLS = 1024;
+
+    private long[] offsets;
+    private ByteString[] qualifiers;
+    private ByteString[] values;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(0x1234L);
+
+        offsets = new long[CELLS];
+        qualifiers = new ByteString[CELLS];
+        values = new ByteString[CELLS];
+
+        for (int i = 0; i < CELLS; i++) {
+            offsets[i] = (long) (random.nextDouble() * BigtableBackend.PERIOD);
+            qualifiers[i] = BigtableBackend.serializeOffset(offsets[i]);
+            values[i] = ByteString.copyFrom(ByteBuffer
+                .allocate(Double.BYTES)
+                .putLong(Double.doubleToLongBits(random.nextDouble()))
+                .array());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public long serializeOffset() {
+        long size = 0;
+
+        for (final long offset : offsets) {
+            size += BigtableBackend.serializeOffset(offset).size();
+        }
+
+        return size;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public long deserializeOffset() {
+        long sum = 0;
+
+        for (final ByteString qualifier : qualifiers) {
+            sum += BigtableBackend.deserializeOffset(qualifier);
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public double deserializeValue() {
+        double sum = 0;
+
+        for (final ByteString value : values) {
+            sum += BigtableBackend.deserializeValue(value);
+        }
+
+        return sum;
+    }
+}
@@ -30,6 +30,7 @@ import com.spotify.heroic.metadata.FindSeries;
 import com.spotify.heroic.metadata.FindTags;
 import com.spotify.heroic.metadata.WriteMetadata;
 import com.spotify.heroic.metric.QueryResult;
+import com.spotify.heroic.metric.ShardedResultGroup;
 import com.spotify.heroic.metric.WriteMetric;
 import com.spotify.heroic.querylogging.QueryContext;
 import com.spotify.heroic.suggest.KeySuggest;
@@ -40,6 +41,7 @@ import com.spotify.heroic.suggest.TagValuesSuggest;
 import eu.toolchain.async.AsyncFuture;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface QueryManager extends UsableGroupManager<QueryManager.Group> {
     QueryBuilder newQueryFromString(String query);
@@ -47,6 +49,27 @@ public interface QueryManager extends UsableGroupManager<QueryManager.Group> {
     interface Group {
         AsyncFuture<QueryResult> query(Query query, QueryContext queryContext);
 
+        /**
+         * Run a query, handing its result groups to the given consumer as soon as the shard they
+         * come from has responded, instead of collecting them into the result.
+         * <p>
+         * Groups which have to be combined across shards, like those of distributed aggregations,
+         * are handed over once every shard has responded. Streamed queries do not use the query
+         * cache.
+         *
+         * @param groups Consumer of result groups, which may be called from several threads.
+         * @return The result of the query, without any groups.
+         */
+        AsyncFuture<QueryResult> query(
+            Query query, QueryContext queryContext, Consumer<List<ShardedResultGroup>> groups
+        );
+
+        /**
+         * Start a new batch of queries, which lets queries that read the same data share their
+         * requests to each shard.
+         */
+        Batch newBatch();
+
         AsyncFuture<FindTags> findTags(final FindTags.Request request);
 
         AsyncFuture<FindKeys> findKeys(final FindKeys.Request request);
@@ -75,4 +98,20 @@ public interface QueryManager extends UsableGroupManager<QueryManager.Group> {
 
         List<ClusterShard> shards();
     }
+
+    /**
+     * A batch of queries. Shard requests for the queries in the batch are held back until
+     * {@link #execute()} is called, at which point the requests that read the same data are sent
+     * to each shard together.
+     */
+    interface Batch {
+        AsyncFuture<QueryResult> query(Query query, QueryContext queryContext);
+
+        /**
+         * Send all held back shard requests. If the query cache looks up results asynchronously,
+         * this happens once every query in the batch has finished its lookup. Queries added after
+         * the requests have been sent are sent immediately.
+         */
+        void execute();
+    }
 }
@@ -33,6 +33,11 @@ public abstract class AbstractBucket implements Bucket {
     public void updatePoint(Map<String, String> key, Point sample) {
     }
 
+    @Override
+    public void updatePoint(Map<String, String> key, long timestamp, double value) {
+        updatePoint(key, new Point(timestamp, value));
+    }
+
     @Override
     public void updateSpread(Map<String, String> key, Spread sample) {
     }
@@ -120,6 +120,17 @@ public interface AggregationInstance {
         return true;
     }
 
+    /**
+     * Indicate if the result of this aggregation over a range is the same as concatenating its
+     * results over any split of that range along cadence-aligned boundaries.
+     * <p>
+     * This holds for aggregations where each emitted sample only depends on the data inside of its
+     * own bucket, and allows results to be cached and reused in slices.
+     */
+    default boolean sliceable() {
+        return false;
+    }
+
     /**
      * Hash the aggregation to generate a key suitable for caching.
      */
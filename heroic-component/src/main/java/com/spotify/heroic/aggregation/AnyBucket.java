@@ -35,6 +35,11 @@ public interface AnyBucket extends Bucket {
         update(key, sample);
     }
 
+    @Override
+    default void updatePoint(Map<String, String> key, long timestamp, double value) {
+        update(key, new Point(timestamp, value));
+    }
+
     @Override
     default void updateSpread(Map<String, String> key, Spread sample) {
         update(key, sample);
@@ -29,6 +29,13 @@ import com.spotify.heroic.metric.Spread
 interface Bucket {
     fun updatePoint(key: Map<String, String>, sample: Point)
 
+    /**
+     * Update the bucket with a single point, without requiring a [Point] instance.
+     *
+     * Used when feeding the bucket from a [com.spotify.heroic.metric.PointArray].
+     */
+    fun updatePoint(key: Map<String, String>, timestamp: Long, value: Double)
+
     fun updateSpread(key: Map<String, String>, sample: Spread)
 
     fun updateGroup(key: Map<String, String>, sample: MetricGroup)
@@ -57,12 +57,14 @@ abstract class BucketAggregationInstance<B : Bucket>(
         val series: ConcurrentLinkedQueue<Set<Series>> = ConcurrentLinkedQueue()
         private val sampleSize: LongAdder = LongAdder()
 
+        /* if all buckets can be updated through summaries of points */
+        private val summarizing: Boolean = buckets.all { it is SummarizingBucket }
+
         override fun updatePoints(
             key: Map<String, String>, s: Set<Series>, values: List<Point>
         ) {
             series.add(s)
-            feed(MetricType.POINT, values,
-                { bucket, m -> bucket.updatePoint(key, m as Point) })
+            feedPoints(key, PointArray.copyOf(values))
         }
 
         override fun updateSpreads(
@@ -99,10 +101,14 @@ abstract class BucketAggregationInstance<B : Bucket>(
 
             var sampleSize = 0
 
-            for (m in values.filter { it.valid() }) {
-                val startEnd = mapping.map(m.timestamp)
+            for (m in values) {
+                if (!m.valid()) {
+                    continue
+                }
+
+                val end = mapping.mapEnd(m.timestamp)
 
-                for (i in startEnd.start until startEnd.end) {
+                for (i in mapping.mapStart(m.timestamp) until end) {
                     consumer(buckets[i], m)
                 }
 
@@ -112,6 +118,120 @@ abstract class BucketAggregationInstance<B : Bucket>(
             this.sampleSize.add(sampleSize.toLong())
         }
 
+        /**
+         * Feed points from their columnar representation, without materializing a [Point] per
+         * sample.
+         */
+        private fun feedPoints(key: Map<String, String>, points: PointArray) {
+            if (!input.contains(MetricType.POINT) || points.isEmpty()) {
+                return
+            }
+
+            if (summarizing) {
+                feedSummaries(key, points)
+                return
+            }
+
+            val timestamps = points.timestamps()
+            val values = points.values()
+            val offset = points.offset()
+            var sampleSize = 0
+
+            for (index in offset until offset + points.size) {
+                val value = values[index]
+
+                if (!value.isFinite()) {
+                    continue
+                }
+
+                val timestamp = timestamps[index]
+                val end = mapping.mapEnd(timestamp)
+
+                for (i in mapping.mapStart(timestamp) until end) {
+                    buckets[i].updatePoint(key, timestamp, value)
+                }
+
+                sampleSize += 1
+            }
+
+            this.sampleSize.add(sampleSize.toLong())
+        }
+
+        /**
+         * Pre-aggregate the given points into primitive per-bucket arrays, covering only the
+         * range of buckets touched by this batch, and then update each touched bucket once.
+         *
+         * This keeps the per-sample loop free of allocations, virtual bucket calls and atomic
+         * operations.
+         */
+        private fun feedSummaries(key: Map<String, String>, points: PointArray) {
+            val timestamps = points.timestamps()
+            val values = points.values()
+            val offset = points.offset()
+            val limit = offset + points.size
+
+            var minTimestamp = Long.MAX_VALUE
+            var maxTimestamp = Long.MIN_VALUE
+
+            for (index in offset until limit) {
+                val timestamp = timestamps[index]
+                minTimestamp = Math.min(minTimestamp, timestamp)
+                maxTimestamp = Math.max(maxTimestamp, timestamp)
+            }
+
+            /* bucket mapping is monotonic, so this covers every bucket touched by the batch */
+            val first = mapping.mapStart(minTimestamp)
+            val length = Math.max(mapping.mapEnd(maxTimestamp) - first, 0)
+
+            val count = LongArray(length)
+            val sum = DoubleArray(length)
+            val sum2 = DoubleArray(length)
+            val min = DoubleArray(length)
+            val max = DoubleArray(length)
+            Arrays.fill(min, java.lang.Double.POSITIVE_INFINITY)
+            Arrays.fill(max, java.lang.Double.NEGATIVE_INFINITY)
+
+            var sampleSize = 0
+
+            for (index in offset until limit) {
+                val value = values[index]
+
+                if (!value.isFinite()) {
+                    continue
+                }
+
+                val timestamp = timestamps[index]
+                val end = mapping.mapEnd(timestamp) - first
+
+                for (i in mapping.mapStart(timestamp) - first until end) {
+                    count[i] += 1
+                    sum[i] += value
+                    sum2[i] += value * value
+
+                    if (value < min[i]) {
+                        min[i] = value
+                    }
+
+                    if (value > max[i]) {
+                        max[i] = value
+                    }
+                }
+
+                sampleSize += 1
+            }
+
+            for (i in 0 until length) {
+                if (count[i] == 0L) {
+                    continue
+                }
+
+                val bucket = buckets[first + i] as SummarizingBucket
+                bucket.updateSummary(key, count[i], sum[i], sum2[i], min[i], max[i])
+            }
+
+            this.sampleSize.add(sampleSize.toLong())
+        }
+
         override fun result(): AggregationResult {
             val result = ArrayList<Metric>(buckets.size)
 
@@ -159,6 +279,13 @@ abstract class BucketAggregationInstance<B : Bucket>(
         return size
     }
 
+    /**
+     * Buckets are independent of each other as long as they don't overlap.
+     */
+    override fun sliceable(): Boolean {
+        return extent == size
+    }
+
     protected open fun bucketHashTo(hasher: ObjectHasher) {}
 
     override fun hashTo(hasher: ObjectHasher) {
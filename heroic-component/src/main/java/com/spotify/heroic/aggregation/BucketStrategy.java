@@ -101,13 +101,21 @@ public interface BucketStrategy {
              */
             @Override
             public StartEnd map(final long timestamp) {
+                return new StartEnd(mapStart(timestamp), mapEnd(timestamp));
+            }
+
+            @Override
+            public int mapStart(final long timestamp) {
                 /* adjust the timestamp to the number of buckets */
                 final long adjusted = timestamp - offset;
+                return Math.max((int) ((adjusted + (size - extent)) / size), 0);
+            }
 
-                final int start = Math.max((int) ((adjusted + (size - extent)) / size), 0);
-                final int end = Math.min((int) ((adjusted + size) / size), buckets);
-
-                return new StartEnd(start, end);
+            @Override
+            public int mapEnd(final long timestamp) {
+                /* adjust the timestamp to the number of buckets */
+                final long adjusted = timestamp - offset;
+                return Math.min((int) ((adjusted + size) / size), buckets);
             }
 
             @Override
@@ -175,13 +183,21 @@ public interface BucketStrategy {
              */
             @Override
             public StartEnd map(final long timestamp) {
+                return new StartEnd(mapStart(timestamp), mapEnd(timestamp));
+            }
+
+            @Override
+            public int mapStart(final long timestamp) {
                 /* adjust the timestamp to the number of buckets */
                 final long adjusted = timestamp - offset;
+                return Math.max((int) ((adjusted - 1) / size), 0);
+            }
 
-                final int start = Math.max((int) ((adjusted - 1) / size), 0);
-                final int end = Math.min((int) ((adjusted + extent - 1) / size), buckets);
-
-                return new StartEnd(start, end);
+            @Override
+            public int mapEnd(final long timestamp) {
+                /* adjust the timestamp to the number of buckets */
+                final long adjusted = timestamp - offset;
+                return Math.min((int) ((adjusted + extent - 1) / size), buckets);
             }
 
             @Override
@@ -199,6 +215,16 @@ public interface BucketStrategy {
     interface Mapping {
         StartEnd map(final long timestamp);
 
+        /**
+         * Same as the start of {@link #map(long)}, without allocating a {@link StartEnd}.
+         */
+        int mapStart(final long timestamp);
+
+        /**
+         * Same as the end of {@link #map(long)}, without allocating a {@link StartEnd}.
+         */
+        int mapEnd(final long timestamp);
+
         long start();
 
         int buckets();
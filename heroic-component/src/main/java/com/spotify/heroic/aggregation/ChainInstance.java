@@ -72,6 +72,14 @@ public class ChainInstance implements AggregationInstance {
             .orElse(-1L);
     }
 
+    /**
+     * A chain can only be sliced if every aggregation in it can.
+     */
+    @Override
+    public boolean sliceable() {
+        return chain.stream().allMatch(AggregationInstance::sliceable);
+    }
+
     @Override
     public AggregationInstance distributed() {
         final Iterator<AggregationInstance> it = chain.iterator();
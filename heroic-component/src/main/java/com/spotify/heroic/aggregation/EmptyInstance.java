@@ -74,6 +74,11 @@ public class EmptyInstance implements AggregationInstance {
         return 0;
     }
 
+    @Override
+    public boolean sliceable() {
+        return true;
+    }
+
     /**
      * A trivial session that collects all values provided to it.
      */
@@ -93,6 +93,11 @@ public abstract class GroupingAggregation implements AggregationInstance {
         return each.cadence();
     }
 
+    @Override
+    public boolean sliceable() {
+        return each.sliceable();
+    }
+
     @Override
     public AggregationInstance distributed() {
         return newInstance(of, each.distributed());
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.aggregation;
+
+import java.util.Map;
+
+/**
+ * A bucket that can be updated with a summary of many points at once.
+ * <p>
+ * {@link BucketAggregationInstance} pre-aggregates each batch of points into primitive per-bucket
+ * arrays and then updates each such bucket once, instead of once per sample.
+ */
+public interface SummarizingBucket extends Bucket {
+    /**
+     * Update the bucket with a summary of points.
+     *
+     * @param key key of the group being updated
+     * @param count number of points summarized, always greater than zero
+     * @param sum sum of the values of all points
+     * @param sum2 sum of the squared values of all points
+     * @param min smallest value seen
+     * @param max largest value seen
+     */
+    void updateSummary(
+        Map<String, String> key, long count, double sum, double sum2, double min, double max
+    );
+}
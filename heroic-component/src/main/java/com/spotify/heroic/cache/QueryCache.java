@@ -21,14 +21,44 @@
 
 package com.spotify.heroic.cache;
 
+import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.metric.FullQuery;
 import com.spotify.heroic.metric.QueryResult;
 import eu.toolchain.async.AsyncFuture;
 
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 public interface QueryCache {
     AsyncFuture<QueryResult> load(
         FullQuery.Request request, Supplier<AsyncFuture<QueryResult>> loader
     );
+
+    /**
+     * Load the result of a request whose aggregation is sliceable.
+     * <p>
+     * The loader can query any part of the requested range. This lets caches store results in
+     * time slices and only load the parts of a range that they don't already have. Caches that
+     * don't support this load the full range of the request.
+     *
+     * @param request request to load
+     * @param loader loader for a part of the requested range
+     * @see com.spotify.heroic.aggregation.AggregationInstance#sliceable()
+     */
+    default AsyncFuture<QueryResult> loadIncremental(
+        FullQuery.Request request, Function<DateRange, AsyncFuture<QueryResult>> loader
+    ) {
+        return load(request, () -> loader.apply(request.range()));
+    }
+
+    /**
+     * If the loader may be invoked after the load method has returned, for example once an
+     * asynchronous lookup has missed.
+     * <p>
+     * Callers which hold back the requests sent by loaders, like query batches, use this to know
+     * whether they have to wait for the lookup to finish.
+     */
+    default boolean deferredLoads() {
+        return false;
+    }
 }
@@ -37,6 +37,7 @@ import com.spotify.heroic.suggest.TagValueSuggest;
 import com.spotify.heroic.suggest.TagValuesSuggest;
 import eu.toolchain.async.AsyncFuture;
 import io.opencensus.trace.Span;
+import java.util.List;
 
 public interface ClusterNode extends UsableGroupManager<ClusterNode.Group> {
     NodeMetadata metadata();
@@ -64,6 +65,15 @@ public interface ClusterNode extends UsableGroupManager<ClusterNode.Group> {
 
         AsyncFuture<FullQuery> query(FullQuery.Request request, Span span);
 
+        /**
+         * Perform several queries in one request, sharing metadata lookups and fetches between
+         * requests that read the same data.
+         *
+         * @return one result per request, in the same order as the requests
+         * @see com.spotify.heroic.metric.MetricBackendGroup#queryBatch(List, Span)
+         */
+        AsyncFuture<List<FullQuery>> queryBatch(List<FullQuery.Request> requests, Span span);
+
         AsyncFuture<FindTags> findTags(FindTags.Request request);
 
         AsyncFuture<FindKeys> findKeys(FindKeys.Request request);
@@ -90,6 +90,24 @@ public class Series implements Comparable<Series> {
         this.hashCodeTagOnly = generateHashTagOnly();
     }
 
+    /**
+     * Package-private constructor for series which already know their hashes, like interned
+     * copies or series with a changed resource.
+     *
+     * @param hashCode The full hash of the series, or {@code null} if it should be generated.
+     */
+    Series(
+        final String key, final SortedMap<String, String> tags,
+        final SortedMap<String, String> resource, final HashCode hashCode,
+        final HashCode hashCodeTagOnly
+    ) {
+        this.key = key;
+        this.tags = checkNotNull(tags, "tags");
+        this.resource = checkNotNull(resource, "resource");
+        this.hashCode = hashCode != null ? hashCode : generateHash();
+        this.hashCodeTagOnly = hashCodeTagOnly;
+    }
+
     public String getKey() {
         return key;
     }
@@ -280,7 +298,26 @@ public class Series implements Comparable<Series> {
         TreeMap<String, String> mergedResourceTags = new TreeMap<>();
         mergedResourceTags.putAll(this.resource);
         mergedResourceTags.putAll(resource);
-        return new Series(this.key, this.tags, mergedResourceTags);
+
+        if (mergedResourceTags.equals(this.resource)) {
+            return this;
+        }
+
+        /* the tag-only hash doesn't cover the resource and can be reused */
+        return new Series(this.key, this.tags, mergedResourceTags, null, hashCodeTagOnly);
+    }
+
+    /**
+     * Build a copy of this series that uses the given, equal, maps. The hashes are reused as is.
+     */
+    Series withMaps(
+        final SortedMap<String, String> tags, final SortedMap<String, String> resource
+    ) {
+        if (this.tags == tags && this.resource == resource) {
+            return this;
+        }
+
+        return new Series(key, tags, resource, hashCode, hashCodeTagOnly);
     }
 
     @Override
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.common;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.SortedMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded interning of {@link Series} instances.
+ * <p>
+ * Identical series which are seen over and over, like the ones that are ingested every few
+ * seconds or returned from the metadata backends, are resolved to a single canonical instance.
+ * Canonical instances share equal tag and resource maps with each other and keep the hashes that
+ * were computed when they were first built.
+ * <p>
+ * Eviction is least-recently-used, bounded by the configured maximum size.
+ */
+public class SeriesInterner {
+    private static final SeriesInterner DISABLED = new SeriesInterner(null, null);
+
+    private final Cache<Series, Series> series;
+    private final Cache<SortedMap<String, String>, SortedMap<String, String>> maps;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private SeriesInterner(
+        final Cache<Series, Series> series,
+        final Cache<SortedMap<String, String>, SortedMap<String, String>> maps
+    ) {
+        this.series = series;
+        this.maps = maps;
+    }
+
+    /**
+     * An interner which returns every series as is.
+     */
+    public static SeriesInterner disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * An interner which keeps at most the given number of series, evicting the least recently
+     * used ones.
+     */
+    public static SeriesInterner lru(final long maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive");
+        }
+
+        return new SeriesInterner(CacheBuilder.newBuilder().maximumSize(maximumSize).build(),
+            CacheBuilder.newBuilder().maximumSize(maximumSize).build());
+    }
+
+    public boolean isEnabled() {
+        return series != null;
+    }
+
+    /**
+     * Resolve the canonical instance of the given series.
+     *
+     * @param series Series to intern.
+     * @return The canonical series, which is equal to the given series.
+     */
+    public Series intern(final Series series) {
+        if (this.series == null) {
+            return series;
+        }
+
+        final Series existing = this.series.getIfPresent(series);
+
+        if (existing != null) {
+            hits.increment();
+            return existing;
+        }
+
+        misses.increment();
+
+        final Series canonical = series.withMaps(internMap(series.tags),
+            internMap(series.resource));
+        final Series raced = this.series.asMap().putIfAbsent(canonical, canonical);
+        return raced != null ? raced : canonical;
+    }
+
+    /**
+     * The ratio of intern calls which resolved to an already known series.
+     */
+    public double hitRatio() {
+        final long h = hits.sum();
+        final long total = h + misses.sum();
+        return total == 0 ? 0D : (double) h / total;
+    }
+
+    /**
+     * The number of series currently interned.
+     */
+    public long size() {
+        return series == null ? 0L : series.size();
+    }
+
+    private SortedMap<String, String> internMap(final SortedMap<String, String> map) {
+        if (map.isEmpty()) {
+            return map;
+        }
+
+        final SortedMap<String, String> existing = maps.getIfPresent(map);
+
+        if (existing != null) {
+            return existing;
+        }
+
+        final SortedMap<String, String> raced = maps.asMap().putIfAbsent(map, map);
+        return raced != null ? raced : map;
+    }
+
+    @Override
+    public String toString() {
+        return "SeriesInterner(size=" + size() + ", hitRatio=" + hitRatio() + ")";
+    }
+}
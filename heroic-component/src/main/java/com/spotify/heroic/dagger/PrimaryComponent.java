@@ -26,6 +26,7 @@ import com.spotify.heroic.HeroicContext;
 import com.spotify.heroic.HeroicCoreInstance;
 import com.spotify.heroic.ShellTasks;
 import com.spotify.heroic.common.Features;
+import com.spotify.heroic.common.SeriesInterner;
 import com.spotify.heroic.conditionalfeatures.ConditionalFeatures;
 import com.spotify.heroic.grammar.QueryParser;
 import com.spotify.heroic.lifecycle.LifeCycleManager;
@@ -57,4 +58,6 @@ public interface PrimaryComponent extends EarlyComponent {
     HeroicContext context();
 
     Optional<ConditionalFeatures> conditionalFeatures();
+
+    SeriesInterner seriesInterner();
 }
@@ -51,7 +51,13 @@ public abstract class AndFilter implements Filter {
 
     @Override
     public boolean apply(Series series) {
-        return filters().stream().allMatch(s -> s.apply(series));
+        for (final Filter filter : filters()) {
+            if (!filter.apply(series)) {
+                return false;
+            }
+        }
+
+        return true;
     }
 
     @Override
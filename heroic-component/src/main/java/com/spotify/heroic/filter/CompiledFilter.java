@@ -0,0 +1,418 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.filter;
+
+import com.spotify.heroic.common.Series;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A filter compiled into a tree of predicates, for repeatedly matching a large number of series.
+ * <p>
+ * The filter is optimized with {@link Filter#optimize()} before it is compiled. Regular
+ * expressions are compiled once, and those which are plain literals or prefixes are turned into
+ * equality and prefix checks. The terms of every and/or are ordered so that the cheapest and most
+ * selective checks, like exact key and tag matches, are evaluated first.
+ * <p>
+ * Compiled filters are thread-safe, and matching a series does not allocate.
+ */
+public abstract class CompiledFilter implements Predicate<Series> {
+    private static final String REGEX_METACHARACTERS = "\\^$.|?*+()[]{}";
+
+    private static final Comparator<CompiledFilter> BY_COST =
+        Comparator.comparingInt(CompiledFilter::cost);
+
+    /**
+     * Compile the given filter.
+     */
+    public static CompiledFilter compile(final Filter filter) {
+        return filter.optimize().visit(new Compiler());
+    }
+
+    @Override
+    public boolean test(final Series series) {
+        return test(series.getKey(), series.getTags());
+    }
+
+    abstract boolean test(String key, Map<String, String> tags);
+
+    /**
+     * Relative cost of evaluating this filter, used to order terms.
+     */
+    abstract int cost();
+
+    private static class Compiler implements Filter.Visitor<CompiledFilter> {
+        @Override
+        public CompiledFilter visitTrue(final TrueFilter t) {
+            return new Constant(true);
+        }
+
+        @Override
+        public CompiledFilter visitFalse(final FalseFilter f) {
+            return new Constant(false);
+        }
+
+        @Override
+        public CompiledFilter visitMatchKey(final MatchKeyFilter matchKey) {
+            return new MatchKey(matchKey.key());
+        }
+
+        @Override
+        public CompiledFilter visitMatchTag(final MatchTagFilter matchTag) {
+            return new MatchTag(matchTag.tag(), matchTag.value());
+        }
+
+        @Override
+        public CompiledFilter visitHasTag(final HasTagFilter hasTag) {
+            return new HasTag(hasTag.tag());
+        }
+
+        @Override
+        public CompiledFilter visitStartsWith(final StartsWithFilter startsWith) {
+            return new StartsWith(startsWith.tag(), startsWith.value());
+        }
+
+        @Override
+        public CompiledFilter visitRegex(final RegexFilter regex) {
+            final String value = regex.value();
+
+            if (isLiteral(value)) {
+                return new MatchTag(regex.tag(), value);
+            }
+
+            if (value.endsWith(".*")) {
+                final String prefix = value.substring(0, value.length() - 2);
+
+                if (isLiteral(prefix)) {
+                    return new RegexPrefix(regex.tag(), prefix);
+                }
+            }
+
+            return new Regex(regex.tag(), Pattern.compile(value));
+        }
+
+        @Override
+        public CompiledFilter visitNot(final NotFilter not) {
+            final CompiledFilter inner = not.filter().visit(this);
+
+            if (inner instanceof Constant) {
+                return new Constant(!((Constant) inner).value);
+            }
+
+            return new Not(inner);
+        }
+
+        @Override
+        public CompiledFilter visitAnd(final AndFilter and) {
+            return new And(compileTerms(and.terms()));
+        }
+
+        @Override
+        public CompiledFilter visitOr(final OrFilter or) {
+            return new Or(compileTerms(or.terms()));
+        }
+
+        @Override
+        public CompiledFilter defaultAction(final Filter filter) {
+            return new Unsupported(filter);
+        }
+
+        private CompiledFilter[] compileTerms(final List<Filter> terms) {
+            final CompiledFilter[] compiled = new CompiledFilter[terms.size()];
+
+            for (int i = 0; i < compiled.length; i++) {
+                compiled[i] = terms.get(i).visit(this);
+            }
+
+            Arrays.sort(compiled, BY_COST);
+            return compiled;
+        }
+
+        private static boolean isLiteral(final String value) {
+            for (int i = 0; i < value.length(); i++) {
+                if (REGEX_METACHARACTERS.indexOf(value.charAt(i)) >= 0) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    private static final class Constant extends CompiledFilter {
+        private final boolean value;
+
+        Constant(final boolean value) {
+            this.value = value;
+        }
+
+        @Override
+        boolean test(final String key, final Map<String, String> tags) {
+            return value;
+        }
+
+        @Override
+        int cost() {
+            return 0;
+        }
+    }
+
+    private static final class MatchKey extends CompiledFilter {
+        private final String key;
+
+        MatchKey(final String key) {
+            this.key = key;
+        }
+
+        @Override
+        boolean test(final String key, final Map<String, String> tags) {
+            return this.key.equals(key);
+        }
+
+        @Override
+        int cost() {
+            return 1;
+        }
+    }
+
+    private static final class HasTag extends CompiledFilter {
+        private final String tag;
+
+        HasTag(final String tag) {
+            this.tag = tag;
+        }
+
+        @Override
+        boolean test(final String key, final Map<String, String> tags) {
+            return tags.containsKey(tag);
+        }
+
+        @Override
+        int cost() {
+            return 2;
+        }
+    }
+
+    private static final class MatchTag extends CompiledFilter {
+        private final String tag;
+        private final String value;
+
+        MatchTag(final String tag, final String value) {
+            this.tag = tag;
+            this.value = value;
+        }
+
+        @Override
+        boolean test(final String key, final Map<String, String> tags) {
+            return value.equals(tags.get(tag));
+        }
+
+        @Override
+        int cost() {
+            return 2;
+        }
+    }
+
+    private static final class StartsWith extends CompiledFilter {
+        private final String tag;
+        private final String prefix;
+
+        StartsWith(final String tag, final String prefix) {
+            this.tag = tag;
+            this.prefix = prefix;
+        }
+
+        @Override
+        boolean test(final String key, final Map<String, String> tags) {
+            final String tagValue = tags.get(tag);
+            return tagValue != null && tagValue.startsWith(prefix);
+        }
+
+        @Override
+        int cost() {
+            return 3;
+        }
+    }
+
+    /**
+     * A regular expression on the form {@code <literal>.*}.
+     * <p>
+     * Since {@code .} doesn't match line terminators, neither may the remainder of the value.
+     */
+    private static final class RegexPrefix extends CompiledFilter {
+        private final String tag;
+        private final String prefix;
+
+        RegexPrefix(final String tag, final String prefix) {
+            this.tag = tag;
+            this.prefix = prefix;
+        }
+
+        @Override
+        boolean test(final String key, final Map<String, String> tags) {
+            final String tagValue = tags.get(tag);
+
+            if (tagValue == null || !tagValue.startsWith(prefix)) {
+                return false;
+            }
+
+            for (int i = prefix.length(); i < tagValue.length(); i++) {
+                switch (tagValue.charAt(i)) {
+                    case '\n':
+                    case '\r':
+                    case '\u0085':
+                    case '\u2028':
+                    case '\u2029':
+                        return false;
+                    default:
+                        break;
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        int cost() {
+            return 4;
+        }
+    }
+
+    private static final class Regex extends CompiledFilter {
+        private final String tag;
+        private final Pattern pattern;
+        private final ThreadLocal<Matcher> matcher;
+
+        Regex(final String tag, final Pattern pattern) {
+            this.tag = tag;
+            this.pattern = pattern;
+            this.matcher = ThreadLocal.withInitial(() -> pattern.matcher(""));
+        }
+
+        @Override
+        boolean test(final String key, final Map<String, String> tags) {
+            final String tagValue = tags.get(tag);
+            return tagValue != null && matcher.get().reset(tagValue).matches();
+        }
+
+        @Override
+        int cost() {
+            return 10 + pattern.pattern().length();
+        }
+    }
+
+    private static final class Not extends CompiledFilter {
+        private final CompiledFilter filter;
+
+        Not(final CompiledFilter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        boolean test(final String key, final Map<String, String> tags) {
+            return !filter.test(key, tags);
+        }
+
+        @Override
+        int cost() {
+            return filter.cost();
+        }
+    }
+
+    private static final class And extends CompiledFilter {
+        private final CompiledFilter[] terms;
+        private final int cost;
+
+        And(final CompiledFilter[] terms) {
+            this.terms = terms;
+            this.cost = Arrays.stream(terms).mapToInt(CompiledFilter::cost).sum();
+        }
+
+        @Override
+        boolean test(final String key, final Map<String, String> tags) {
+            for (final CompiledFilter term : terms) {
+                if (!term.test(key, tags)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        int cost() {
+            return cost;
+        }
+    }
+
+    private static final class Or extends CompiledFilter {
+        private final CompiledFilter[] terms;
+        private final int cost;
+
+        Or(final CompiledFilter[] terms) {
+            this.terms = terms;
+            this.cost = Arrays.stream(terms).mapToInt(CompiledFilter::cost).sum();
+        }
+
+        @Override
+        boolean test(final String key, final Map<String, String> tags) {
+            for (final CompiledFilter term : terms) {
+                if (term.test(key, tags)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        @Override
+        int cost() {
+            return cost;
+        }
+    }
+
+    /**
+     * Filters which can't be applied to a series, like raw filters.
+     */
+    private static final class Unsupported extends CompiledFilter {
+        private final Filter filter;
+
+        Unsupported(final Filter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        boolean test(final String key, final Map<String, String> tags) {
+            return filter.apply(Series.of(key, tags));
+        }
+
+        @Override
+        int cost() {
+            return 1000;
+        }
+    }
+}
@@ -49,7 +49,13 @@ public abstract class OrFilter implements Filter {
 
     @Override
     public boolean apply(Series series) {
-        return filters().stream().anyMatch(s -> s.apply(series));
+        for (final Filter filter : filters()) {
+            if (filter.apply(series)) {
+                return true;
+            }
+        }
+
+        return false;
     }
 
     @Override
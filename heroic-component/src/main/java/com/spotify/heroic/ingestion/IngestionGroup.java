@@ -24,7 +24,15 @@ package com.spotify.heroic.ingestion;
 import com.spotify.heroic.common.Collected;
 import com.spotify.heroic.common.Grouped;
 import eu.toolchain.async.AsyncFuture;
+import java.util.List;
 
 public interface IngestionGroup extends Grouped, Collected {
     AsyncFuture<Ingestion> write(Request request);
+
+    /**
+     * Write a batch of requests, typically all metrics decoded from a single consumed message.
+     * <p>
+     * Resolves once every request in the batch has been written.
+     */
+    AsyncFuture<Ingestion> writeBatch(List<Request> requests);
 }
@@ -53,6 +53,21 @@ data class FetchData(
         val options: QueryOptions
     )
 
+    /**
+     * A fetch of several series over the same range, see [MetricBackend.fetchBatch].
+     */
+    data class BatchRequest(
+        val type: MetricType,
+        val series: List<Series>,
+        val range: DateRange,
+        val options: QueryOptions
+    ) {
+        /**
+         * Build the single-series request for one of the series in this batch.
+         */
+        fun request(series: Series): Request = Request(type, series, range, options)
+    }
+
     data class Result @JvmOverloads constructor(
         val trace: QueryTrace,
         val errors: List<RequestError> = listOf()
@@ -189,6 +189,15 @@ public abstract class FullQuery {
             return Summary.create(source(), filter(), range(), aggregation(), options());
         }
 
+        /**
+         * Check if this request reads exactly the same data as the given request, in which case
+         * both can be served by a single metadata lookup and fetch.
+         */
+        public boolean sharesFetch(final Request other) {
+            return source() == other.source() && filter().equals(other.filter()) &&
+                range().equals(other.range()) && options().equals(other.options());
+        }
+
         public void hashTo(final ObjectHasher hasher) {
             hasher.putObject(getClass(), () -> {
                 hasher.putField("source", source(), hasher.enumValue());
@@ -24,17 +24,23 @@ package com.spotify.heroic.metric;
 import com.spotify.heroic.QueryOptions;
 import com.spotify.heroic.async.AsyncObservable;
 import com.spotify.heroic.common.Collected;
+import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Grouped;
 import com.spotify.heroic.common.Initializing;
+import com.spotify.heroic.common.Series;
 import com.spotify.heroic.common.Statistics;
 
 import eu.toolchain.async.AsyncFuture;
 
 import io.opencensus.trace.Span;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 public interface MetricBackend extends Initializing, Grouped, Collected {
+    QueryTrace.Identifier FETCH_BATCH = QueryTrace.identifier(MetricBackend.class, "fetchBatch");
+
     Statistics getStatistics();
 
     /**
@@ -75,6 +81,55 @@ public interface MetricBackend extends Initializing, Grouped, Collected {
         Span parentSpan
     );
 
+    /**
+     * Query for data points of several series that share the same range.
+     * <p>
+     * Backends that are able to read many rows with a single request should override this. The
+     * default implementation starts one {@link #fetch} per series and combines their results.
+     *
+     * @param request Batched fetch request to use, must contain at least one series.
+     * @param watcher The watcher implementation to use when fetching metrics.
+     * @param metricsConsumer The consumer that receives the fetched data as it arrives, together
+     * with the series that it belongs to.
+     * @param parentSpan Used for distributed tracing
+     * @return A future containing the combined fetch result.
+     */
+    default AsyncFuture<FetchData.Result> fetchBatch(
+        FetchData.BatchRequest request,
+        FetchQuotaWatcher watcher,
+        BiConsumer<Series, MetricReadResult> metricsConsumer,
+        Span parentSpan
+    ) {
+        final List<Series> series = request.getSeries();
+
+        if (series.isEmpty()) {
+            throw new IllegalArgumentException("batch must contain at least one series");
+        }
+
+        final List<AsyncFuture<FetchData.Result>> fetches = new ArrayList<>(series.size());
+
+        for (final Series s : series) {
+            fetches.add(fetch(request.request(s), watcher, mcr -> metricsConsumer.accept(s, mcr),
+                parentSpan));
+        }
+
+        AsyncFuture<List<FetchData.Result>> results =
+            fetches.get(0).directTransform(r -> {
+                final List<FetchData.Result> list = new ArrayList<>(fetches.size());
+                list.add(r);
+                return list;
+            });
+
+        for (final AsyncFuture<FetchData.Result> fetch : fetches.subList(1, fetches.size())) {
+            results = results.lazyTransform(list -> fetch.directTransform(r -> {
+                list.add(r);
+                return list;
+            }));
+        }
+
+        return results.directTransform(FetchData.collectResult(FETCH_BATCH)::collect);
+    }
+
     /**
      * List all series directly from the database.
      * <p>
@@ -128,6 +183,16 @@ public interface MetricBackend extends Initializing, Grouped, Collected {
      */
     AsyncFuture<Long> countKey(BackendKey key, QueryOptions options);
 
+    /**
+     * Rewrite the data of the given series within the given range into the most compact storage
+     * layout supported by the backend.
+     * <p>
+     * Compaction must not change what is read back from the backend.
+     *
+     * @return The number of data points that were rewritten.
+     */
+    AsyncFuture<Long> compactSeries(Series series, DateRange range, QueryOptions options);
+
     /**
      * Fetch a complete row from the backend.
      */
@@ -23,6 +23,7 @@ package com.spotify.heroic.metric;
 
 import eu.toolchain.async.AsyncFuture;
 import io.opencensus.trace.Span;
+import java.util.List;
 
 public interface MetricBackendGroup extends MetricBackend {
     /**
@@ -31,4 +32,14 @@ public interface MetricBackendGroup extends MetricBackend {
     AsyncFuture<FullQuery> query(FullQuery.Request request);
 
     AsyncFuture<FullQuery> query(FullQuery.Request request, Span span);
+
+    /**
+     * Perform several local queries for metrics at once.
+     * <p>
+     * Requests which share their fetch (see {@link FullQuery.Request#sharesFetch}) resolve their
+     * series and read their data once, which is then fed into the aggregation of every request.
+     *
+     * @return one result per request, in the same order as the requests
+     */
+    AsyncFuture<List<FullQuery>> queryBatch(List<FullQuery.Request> requests, Span span);
 }
@@ -32,6 +32,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
 import com.spotify.heroic.aggregation.AggregationSession;
 import com.spotify.heroic.common.Series;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -158,6 +159,19 @@ public interface MetricCollection {
         return PointCollection.create(metrics);
     }
 
+    /**
+     * Build a new points collection from primitive columns.
+     * <p>
+     * The arrays are not copied, and must not be modified after being passed in.
+     *
+     * @param timestamps timestamps of the points, in ascending order
+     * @param values values of the points, in the same order as the timestamps
+     * @return a new points collection
+     */
+    static MetricCollection points(long[] timestamps, double[] values) {
+        return PointCollection.create(PointArray.of(timestamps, values));
+    }
+
     /**
      * Build a new spreads collection.
      *
@@ -210,25 +224,60 @@ public interface MetricCollection {
      * This API is not safe, checks must be performed to verify that the encapsulated data type is
      * the same as expected.
      */
+    @SuppressWarnings("unchecked")
     static MetricCollection mergeSorted(
         final MetricType type, final List<List<? extends Metric>> values
     ) {
+        if (type == MetricType.POINT) {
+            final List<PointArray> points = new ArrayList<>(values.size());
+
+            for (final List<? extends Metric> v : values) {
+                points.add(PointArray.copyOf((List<Point>) v));
+            }
+
+            return PointCollection.create(PointCollection.mergeSorted(points));
+        }
+
         final List<Metric> data = ImmutableList.copyOf(Iterators.mergeSorted(
             ImmutableList.copyOf(values.stream().map(Iterable::iterator).iterator()),
             Metric.comparator));
         return build(type, data);
     }
 
+    /**
+     * A collection of points, stored in columnar form.
+     * <p>
+     * Any list of points given to this collection is converted into a {@link PointArray}, so
+     * consumers can access timestamps and values without materializing {@link Point} instances.
+     */
     @AutoValue
     @JsonTypeName("points")
     abstract class PointCollection implements MetricCollection {
+        public static PointCollection create(final List<Point> data) {
+            return new AutoValue_MetricCollection_PointCollection(PointArray.copyOf(data));
+        }
+
         @JsonCreator
-        public static PointCollection create(@JsonProperty("data") final List<Point> data) {
+        static PointCollection fromJson(@JsonProperty("data") final PointArray data) {
             return new AutoValue_MetricCollection_PointCollection(data);
         }
 
         @JsonProperty
-        public abstract List<Point> data();
+        public abstract PointArray data();
+
+        @JsonIgnore
+        @Override
+        public Optional<Long> getAverageDistanceBetweenMetrics() {
+            final PointArray data = data();
+            final int size = data.size();
+
+            if (size <= 1) {
+                return Optional.empty();
+            }
+
+            final long timeDiff = data.getTimestamp(size - 1) - data.getTimestamp(0);
+            return Optional.of(timeDiff / (size - 1));
+        }
 
         @Override
         public MetricType getType() {
@@ -241,6 +290,58 @@ public interface MetricCollection {
         ) {
             session.updatePoints(key, series, data());
         }
+
+        /**
+         * Merge the given sorted point arrays into a single sorted point array.
+         * <p>
+         * The number of sources is expected to be small (one per backend), so the next point is
+         * picked with a linear scan over the heads of each source.
+         */
+        static PointArray mergeSorted(final List<PointArray> sources) {
+            if (sources.isEmpty()) {
+                return PointArray.empty();
+            }
+
+            if (sources.size() == 1) {
+                return sources.get(0);
+            }
+
+            int total = 0;
+
+            for (final PointArray source : sources) {
+                total += source.size();
+            }
+
+            final int count = sources.size();
+            final int[] positions = new int[count];
+            final PointArray.Builder builder = PointArray.builder(total);
+
+            while (builder.size() < total) {
+                int next = -1;
+                long nextTimestamp = Long.MAX_VALUE;
+
+                for (int i = 0; i < count; i++) {
+                    final PointArray source = sources.get(i);
+                    final int position = positions[i];
+
+                    if (position >= source.size()) {
+                        continue;
+                    }
+
+                    final long timestamp = source.getTimestamp(position);
+
+                    if (next < 0 || timestamp < nextTimestamp) {
+                        next = i;
+                        nextTimestamp = timestamp;
+                    }
+                }
+
+                final PointArray source = sources.get(next);
+                builder.add(nextTimestamp, source.getValue(positions[next]++));
+            }
+
+            return builder.build();
+        }
     }
 
     @AutoValue
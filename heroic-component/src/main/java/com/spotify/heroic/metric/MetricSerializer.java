@@ -0,0 +1,360 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric;
+
+import com.spotify.heroic.common.Series;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of metrics and series, shared by the binary cache and RPC formats.
+ * <p>
+ * Metrics are stored in columns. Timestamps are delta encoded, and strictly ordered points are
+ * stored as a {@link PointBlock}. Lengths and deltas are written as zig-zag encoded varints.
+ * <p>
+ * Any change to the layout must be accompanied by a version bump in the formats embedding it.
+ */
+public final class MetricSerializer {
+    private static final byte POINTS = 0;
+    private static final byte POINTS_RAW = 1;
+    private static final byte SPREADS = 2;
+    private static final byte GROUPS = 3;
+    private static final byte CARDINALITY = 4;
+
+    private MetricSerializer() {
+    }
+
+    public static void writeSeries(
+        final DataOutputStream out, final Series series
+    ) throws IOException {
+        writeString(out, series.getKey());
+        writeMap(out, series.getTags());
+        writeMap(out, series.getResource());
+    }
+
+    public static Series readSeries(final DataInputStream in) throws IOException {
+        return Series.of(readString(in), readMap(in), readMap(in));
+    }
+
+    public static void writeMetrics(
+        final DataOutputStream out, final MetricCollection metrics
+    ) throws IOException {
+        switch (metrics.getType()) {
+            case POINT:
+                writePoints(out, (PointArray) metrics.data());
+                break;
+            case SPREAD:
+                out.writeByte(SPREADS);
+                writeSpreads(out, metrics.getDataAs(Spread.class));
+                break;
+            case GROUP:
+                out.writeByte(GROUPS);
+                writeMetricGroups(out, metrics.getDataAs(MetricGroup.class));
+                break;
+            case CARDINALITY:
+                out.writeByte(CARDINALITY);
+                writePayloads(out, metrics.getDataAs(Payload.class));
+                break;
+            default:
+                throw new IOException("unsupported metric type: " + metrics.getType());
+        }
+    }
+
+    public static MetricCollection readMetrics(final DataInputStream in) throws IOException {
+        final byte type = in.readByte();
+
+        switch (type) {
+            case POINTS:
+                return MetricCollection.build(MetricType.POINT,
+                    PointBlock.fromBytes(readBytes(in)).decode());
+            case POINTS_RAW:
+                return MetricCollection.build(MetricType.POINT, readRawPoints(in));
+            case SPREADS:
+                return MetricCollection.spreads(readSpreads(in));
+            case GROUPS:
+                return MetricCollection.groups(readMetricGroups(in));
+            case CARDINALITY:
+                return MetricCollection.cardinality(readPayloads(in));
+            default:
+                throw new IOException("unsupported metric encoding: " + type);
+        }
+    }
+
+    /**
+     * Points are stored as a point block, unless they are not strictly ordered.
+     */
+    private static void writePoints(
+        final DataOutputStream out, final PointArray points
+    ) throws IOException {
+        if (isStrictlyAscending(points)) {
+            out.writeByte(POINTS);
+            writeBytes(out, PointBlock.encode(points).toBytes());
+            return;
+        }
+
+        out.writeByte(POINTS_RAW);
+        writeVarInt(out, points.size());
+        long last = 0;
+
+        for (int i = 0; i < points.size(); i++) {
+            writeVarLong(out, points.getTimestamp(i) - last);
+            last = points.getTimestamp(i);
+        }
+
+        for (int i = 0; i < points.size(); i++) {
+            out.writeDouble(points.getValue(i));
+        }
+    }
+
+    private static PointArray readRawPoints(final DataInputStream in) throws IOException {
+        final int size = readVarInt(in);
+        final long[] timestamps = readTimestamps(in, size);
+        final double[] values = new double[size];
+
+        for (int i = 0; i < size; i++) {
+            values[i] = in.readDouble();
+        }
+
+        return PointArray.of(timestamps, values);
+    }
+
+    private static void writeSpreads(
+        final DataOutputStream out, final List<Spread> spreads
+    ) throws IOException {
+        writeVarInt(out, spreads.size());
+        writeTimestamps(out, spreads);
+
+        for (final Spread s : spreads) {
+            writeVarLong(out, s.getCount());
+            out.writeDouble(s.getSum());
+            out.writeDouble(s.getSum2());
+            out.writeDouble(s.getMin());
+            out.writeDouble(s.getMax());
+        }
+    }
+
+    private static List<Spread> readSpreads(final DataInputStream in) throws IOException {
+        final int size = readVarInt(in);
+        final long[] timestamps = readTimestamps(in, size);
+        final List<Spread> spreads = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            spreads.add(new Spread(timestamps[i], readVarLong(in), in.readDouble(),
+                in.readDouble(), in.readDouble(), in.readDouble()));
+        }
+
+        return spreads;
+    }
+
+    private static void writeMetricGroups(
+        final DataOutputStream out, final List<MetricGroup> groups
+    ) throws IOException {
+        writeVarInt(out, groups.size());
+        writeTimestamps(out, groups);
+
+        for (final MetricGroup g : groups) {
+            writeVarInt(out, g.getGroups().size());
+
+            for (final MetricCollection c : g.getGroups()) {
+                writeMetrics(out, c);
+            }
+        }
+    }
+
+    private static List<MetricGroup> readMetricGroups(final DataInputStream in)
+        throws IOException {
+        final int size = readVarInt(in);
+        final long[] timestamps = readTimestamps(in, size);
+        final List<MetricGroup> groups = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            final int count = readVarInt(in);
+            final List<MetricCollection> collections = new ArrayList<>(count);
+
+            for (int j = 0; j < count; j++) {
+                collections.add(readMetrics(in));
+            }
+
+            groups.add(new MetricGroup(timestamps[i], collections));
+        }
+
+        return groups;
+    }
+
+    private static void writePayloads(
+        final DataOutputStream out, final List<Payload> payloads
+    ) throws IOException {
+        writeVarInt(out, payloads.size());
+        writeTimestamps(out, payloads);
+
+        for (final Payload p : payloads) {
+            writeBytes(out, p.getState());
+        }
+    }
+
+    private static List<Payload> readPayloads(final DataInputStream in) throws IOException {
+        final int size = readVarInt(in);
+        final long[] timestamps = readTimestamps(in, size);
+        final List<Payload> payloads = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            payloads.add(new Payload(timestamps[i], readBytes(in)));
+        }
+
+        return payloads;
+    }
+
+    private static boolean isStrictlyAscending(final PointArray points) {
+        for (int i = 1; i < points.size(); i++) {
+            if (points.getTimestamp(i) <= points.getTimestamp(i - 1)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static void writeTimestamps(
+        final DataOutputStream out, final List<? extends Metric> metrics
+    ) throws IOException {
+        long last = 0;
+
+        for (final Metric m : metrics) {
+            writeVarLong(out, m.getTimestamp() - last);
+            last = m.getTimestamp();
+        }
+    }
+
+    private static long[] readTimestamps(final DataInputStream in, final int size)
+        throws IOException {
+        final long[] timestamps = new long[size];
+        long last = 0;
+
+        for (int i = 0; i < size; i++) {
+            last += readVarLong(in);
+            timestamps[i] = last;
+        }
+
+        return timestamps;
+    }
+
+    public static void writeMap(
+        final DataOutputStream out, final Map<String, String> map
+    ) throws IOException {
+        writeVarInt(out, map.size());
+
+        for (final Map.Entry<String, String> e : map.entrySet()) {
+            writeString(out, e.getKey());
+            writeString(out, e.getValue());
+        }
+    }
+
+    public static Map<String, String> readMap(final DataInputStream in) throws IOException {
+        final int size = readVarInt(in);
+        final Map<String, String> map = new LinkedHashMap<>(size);
+
+        for (int i = 0; i < size; i++) {
+            map.put(readString(in), readString(in));
+        }
+
+        return map;
+    }
+
+    public static void writeString(final DataOutputStream out, final String value)
+        throws IOException {
+        writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String readString(final DataInputStream in) throws IOException {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    public static void writeBytes(final DataOutputStream out, final byte[] bytes)
+        throws IOException {
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    public static byte[] readBytes(final DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    public static void writeVarInt(final DataOutputStream out, final int value)
+        throws IOException {
+        writeVarLong(out, value);
+    }
+
+    public static int readVarInt(final DataInputStream in) throws IOException {
+        final long value = readVarLong(in);
+
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IOException("corrupt length: " + value);
+        }
+
+        return (int) value;
+    }
+
+    /**
+     * Zig-zag encoded variable-length long, so that small negative deltas stay small.
+     */
+    public static void writeVarLong(final DataOutputStream out, final long value)
+        throws IOException {
+        long v = (value << 1) ^ (value >> 63);
+
+        while ((v & ~0x7fL) != 0) {
+            out.writeByte((int) ((v & 0x7f) | 0x80));
+            v >>>= 7;
+        }
+
+        out.writeByte((int) v);
+    }
+
+    public static long readVarLong(final DataInputStream in) throws IOException {
+        long v = 0;
+        int shift = 0;
+
+        while (true) {
+            if (shift > 63) {
+                throw new IOException("malformed varint");
+            }
+
+            final byte b = in.readByte();
+            v |= (long) (b & 0x7f) << shift;
+
+            if ((b & 0x80) == 0) {
+                break;
+            }
+
+            shift += 7;
+        }
+
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A columnar, immutable list of points.
+ * <p>
+ * Timestamps and values are kept in parallel primitive arrays, and {@link Point} instances are
+ * only materialized when accessed through the {@link List} interface. Hot paths (backends,
+ * aggregations and serializers) should use {@link #getTimestamp(int)} and {@link #getValue(int)}
+ * to avoid allocating a point per sample.
+ * <p>
+ * Timestamps are expected to be sorted in ascending order, as with any other point collection.
+ */
+public final class PointArray extends AbstractList<Point> implements RandomAccess {
+    private static final long[] EMPTY_TIMESTAMPS = new long[0];
+    private static final double[] EMPTY_VALUES = new double[0];
+
+    private static final PointArray EMPTY = new PointArray(EMPTY_TIMESTAMPS, EMPTY_VALUES, 0, 0);
+
+    private final long[] timestamps;
+    private final double[] values;
+    private final int offset;
+    private final int size;
+
+    private PointArray(
+        final long[] timestamps, final double[] values, final int offset, final int size
+    ) {
+        this.timestamps = timestamps;
+        this.values = values;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    /**
+     * Get the timestamp of the point at the given index.
+     */
+    public long getTimestamp(final int index) {
+        checkIndex(index);
+        return timestamps[offset + index];
+    }
+
+    /**
+     * Get the value of the point at the given index.
+     */
+    public double getValue(final int index) {
+        checkIndex(index);
+        return values[offset + index];
+    }
+
+    /**
+     * Access the underlying timestamps without copying.
+     * <p>
+     * Only the {@link #size()} entries starting at {@link #offset()} are valid, and the array must
+     * not be modified.
+     */
+    public long[] timestamps() {
+        return timestamps;
+    }
+
+    /**
+     * Access the underlying values without copying.
+     * <p>
+     * Only the {@link #size()} entries starting at {@link #offset()} are valid, and the array must
+     * not be modified.
+     */
+    public double[] values() {
+        return values;
+    }
+
+    /**
+     * Index of the first valid entry in the underlying arrays.
+     */
+    public int offset() {
+        return offset;
+    }
+
+    /**
+     * Get a view of the given range of this array, without copying.
+     *
+     * @param from first index to include
+     * @param to first index to exclude
+     */
+    public PointArray slice(final int from, final int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException(
+                "slice: [" + from + ", " + to + "), size: " + size);
+        }
+
+        if (from == to) {
+            return EMPTY;
+        }
+
+        return new PointArray(timestamps, values, offset + from, to - from);
+    }
+
+    @Override
+    public Point get(final int index) {
+        checkIndex(index);
+        return new Point(timestamps[offset + index], values[offset + index]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (o == this) {
+            return true;
+        }
+
+        if (!(o instanceof PointArray)) {
+            return super.equals(o);
+        }
+
+        final PointArray other = (PointArray) o;
+
+        if (size != other.size) {
+            return false;
+        }
+
+        for (int i = 0; i < size; i++) {
+            final int a = offset + i;
+            final int b = other.offset + i;
+
+            if (timestamps[a] != other.timestamps[b] ||
+                Double.compare(values[a], other.values[b]) != 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+    }
+
+    public static PointArray empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Build a new point array from the given columns.
+     * <p>
+     * The arrays are not copied, and must not be modified after being passed in.
+     */
+    public static PointArray of(final long[] timestamps, final double[] values) {
+        if (timestamps.length != values.length) {
+            throw new IllegalArgumentException(
+                "timestamps and values differ in length (" + timestamps.length + " != " +
+                    values.length + ")");
+        }
+
+        return new PointArray(timestamps, values, 0, timestamps.length);
+    }
+
+    /**
+     * Build a new point array from a range of the given columns.
+     * <p>
+     * The arrays are not copied, and the given range must not be modified after being passed in.
+     */
+    public static PointArray of(
+        final long[] timestamps, final double[] values, final int offset, final int size
+    ) {
+        if (offset < 0 || size < 0 || offset + size > timestamps.length ||
+            offset + size > values.length) {
+            throw new IndexOutOfBoundsException(
+                "range [" + offset + ", " + (offset + size) + ") out of bounds");
+        }
+
+        if (size == 0) {
+            return EMPTY;
+        }
+
+        return new PointArray(timestamps, values, offset, size);
+    }
+
+    /**
+     * Convert the given list of points into a point array.
+     * <p>
+     * This is a no-op if the list already is a point array.
+     */
+    public static PointArray copyOf(final List<Point> points) {
+        if (points instanceof PointArray) {
+            return (PointArray) points;
+        }
+
+        final Builder builder = new Builder(points.size());
+
+        for (final Point p : points) {
+            builder.add(p.getTimestamp(), p.getValue());
+        }
+
+        return builder.build();
+    }
+
+    public static Builder builder() {
+        return new Builder(Builder.DEFAULT_CAPACITY);
+    }
+
+    public static Builder builder(final int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    /**
+     * Growable builder for point arrays.
+     * <p>
+     * Not thread-safe, and must not be used after {@link #build()} has been called since the
+     * built array shares storage with the builder.
+     */
+    public static final class Builder {
+        static final int DEFAULT_CAPACITY = 16;
+
+        private long[] timestamps;
+        private double[] values;
+        private int size = 0;
+
+        private Builder(final int capacity) {
+            final int initial = Math.max(capacity, 1);
+            this.timestamps = new long[initial];
+            this.values = new double[initial];
+        }
+
+        public Builder add(final long timestamp, final double value) {
+            if (size == timestamps.length) {
+                final int capacity = timestamps.length + (timestamps.length >> 1) + 1;
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+
+            timestamps[size] = timestamp;
+            values[size] = value;
+            size++;
+            return this;
+        }
+
+        public Builder addAll(final PointArray other) {
+            for (int i = other.offset; i < other.offset + other.size; i++) {
+                add(other.timestamps[i], other.values[i]);
+            }
+
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public PointArray build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+
+            return new PointArray(timestamps, values, 0, size);
+        }
+    }
+}
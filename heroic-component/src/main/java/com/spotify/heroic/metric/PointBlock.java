@@ -0,0 +1,445 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A compressed, immutable block of points.
+ * <p>
+ * Timestamps are encoded as variable-length delta-of-deltas, and values as the XOR with the
+ * previous value, storing only the meaningful bits. Series with a regular cadence and slowly
+ * changing values typically need a couple of bytes per point, compared to sixteen for the raw
+ * columns.
+ * <p>
+ * Blocks are built by appending points in strictly ascending timestamp order to a {@link Writer},
+ * and are read sequentially through a {@link Reader}.
+ * <p>
+ * See: Pelkonen et al., "Gorilla: A Fast, Scalable, In-Memory Time Series Database", VLDB 2015
+ */
+public final class PointBlock {
+    private static final byte VERSION = 1;
+
+    private static final PointBlock EMPTY = new PointBlock(new long[0], 0, 0);
+
+    private final long[] words;
+    private final int bits;
+    private final int size;
+
+    private PointBlock(final long[] words, final int bits, final int size) {
+        this.words = words;
+        this.bits = bits;
+        this.size = size;
+    }
+
+    /**
+     * Number of points in the block.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Number of bytes used to encode the points.
+     */
+    public int bytes() {
+        return (bits + 7) >>> 3;
+    }
+
+    public Reader reader() {
+        return new Reader(words, size);
+    }
+
+    /**
+     * Decode all points in the block.
+     */
+    public PointArray decode() {
+        return decode(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Decode all points with a timestamp in {@code (start, end]}.
+     * <p>
+     * Decoding stops at the first point past the end of the range.
+     */
+    public PointArray decode(final long start, final long end) {
+        final PointArray.Builder builder = PointArray.builder(size);
+        final Reader reader = reader();
+
+        while (reader.next()) {
+            final long timestamp = reader.timestamp();
+
+            if (timestamp <= start) {
+                continue;
+            }
+
+            if (timestamp > end) {
+                break;
+            }
+
+            builder.add(timestamp, reader.value());
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Serialize the block.
+     */
+    public byte[] toBytes() {
+        final int words = (bits + 63) >>> 6;
+        final ByteBuffer buffer = ByteBuffer.allocate(1 + 4 + 4 + 8 * words);
+        buffer.put(VERSION);
+        buffer.putInt(size);
+        buffer.putInt(bits);
+
+        for (int i = 0; i < words; i++) {
+            buffer.putLong(this.words[i]);
+        }
+
+        return buffer.array();
+    }
+
+    /**
+     * Deserialize a block serialized with {@link #toBytes()}.
+     */
+    public static PointBlock fromBytes(final byte[] bytes) {
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        final byte version = buffer.get();
+
+        if (version != VERSION) {
+            throw new IllegalArgumentException("unsupported point block version: " + version);
+        }
+
+        final int size = buffer.getInt();
+        final int bits = buffer.getInt();
+        final long[] words = new long[(bits + 63) >>> 6];
+
+        for (int i = 0; i < words.length; i++) {
+            words[i] = buffer.getLong();
+        }
+
+        return new PointBlock(words, bits, size);
+    }
+
+    public static PointBlock empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Encode the given points, which must have strictly ascending timestamps.
+     */
+    public static PointBlock encode(final PointArray points) {
+        final Writer writer = writer();
+
+        for (int i = 0; i < points.size(); i++) {
+            writer.add(points.getTimestamp(i), points.getValue(i));
+        }
+
+        return writer.snapshot();
+    }
+
+    public static Writer writer() {
+        return new Writer();
+    }
+
+    /**
+     * Append-only encoder for point blocks.
+     * <p>
+     * Not thread-safe.
+     */
+    public static final class Writer {
+        private long[] words = new long[4];
+        private int bits = 0;
+        private int size = 0;
+
+        private long lastTimestamp = 0L;
+        private long lastDelta = 0L;
+        private long lastValue = 0L;
+
+        /* meaningful bit window of the last stored XOR, -1 if none */
+        private int leading = -1;
+        private int trailing = 0;
+
+        /**
+         * Append a point.
+         *
+         * @throws IllegalArgumentException if the timestamp is not greater than that of the
+         * previous point
+         */
+        public void add(final long timestamp, final double value) {
+            final long valueBits = Double.doubleToRawLongBits(value);
+
+            if (size == 0) {
+                write(timestamp, 64);
+                write(valueBits, 64);
+                lastTimestamp = timestamp;
+                lastValue = valueBits;
+                size = 1;
+                return;
+            }
+
+            if (timestamp <= lastTimestamp) {
+                throw new IllegalArgumentException(
+                    "timestamp " + timestamp + " is not after " + lastTimestamp);
+            }
+
+            final long delta = timestamp - lastTimestamp;
+            writeDeltaOfDelta(delta - lastDelta);
+            writeXor(valueBits ^ lastValue);
+
+            lastTimestamp = timestamp;
+            lastDelta = delta;
+            lastValue = valueBits;
+            size += 1;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long lastTimestamp() {
+            return lastTimestamp;
+        }
+
+        /**
+         * Number of bytes allocated by the writer.
+         */
+        public long allocated() {
+            return (long) words.length * Long.BYTES;
+        }
+
+        /**
+         * Build a block of all points written so far.
+         * <p>
+         * The block shares storage with the writer, which is safe since the writer only ever
+         * appends past the end of the block.
+         */
+        public PointBlock snapshot() {
+            if (size == 0) {
+                return EMPTY;
+            }
+
+            return new PointBlock(words, bits, size);
+        }
+
+        private void writeDeltaOfDelta(final long dod) {
+            if (dod == 0) {
+                write(0b0, 1);
+            } else if (fits(dod, 7)) {
+                write(0b10, 2);
+                write(dod, 7);
+            } else if (fits(dod, 9)) {
+                write(0b110, 3);
+                write(dod, 9);
+            } else if (fits(dod, 12)) {
+                write(0b1110, 4);
+                write(dod, 12);
+            } else if (fits(dod, 32)) {
+                write(0b11110, 5);
+                write(dod, 32);
+            } else {
+                write(0b11111, 5);
+                write(dod, 64);
+            }
+        }
+
+        private void writeXor(final long xor) {
+            if (xor == 0) {
+                write(0b0, 1);
+                return;
+            }
+
+            final int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            final int trailing = Long.numberOfTrailingZeros(xor);
+
+            if (this.leading >= 0 && leading >= this.leading && trailing >= this.trailing) {
+                write(0b10, 2);
+                write(xor >>> this.trailing, 64 - this.leading - this.trailing);
+                return;
+            }
+
+            final int meaningful = 64 - leading - trailing;
+
+            write(0b11, 2);
+            write(leading, 5);
+            write(meaningful - 1, 6);
+            write(xor >>> trailing, meaningful);
+
+            this.leading = leading;
+            this.trailing = trailing;
+        }
+
+        /**
+         * Write the lowest {@code n} bits of the given value, most significant bit first.
+         */
+        private void write(final long value, final int n) {
+            final int required = (bits + n + 63) >>> 6;
+
+            if (required > words.length) {
+                words = Arrays.copyOf(words, Math.max(required, words.length * 2));
+            }
+
+            final long v = n == 64 ? value : value & ((1L << n) - 1);
+            final int index = bits >>> 6;
+            final int free = 64 - (bits & 63);
+
+            if (n <= free) {
+                words[index] |= v << (free - n);
+            } else {
+                final int overflow = n - free;
+                words[index] |= v >>> overflow;
+                words[index + 1] |= v << (64 - overflow);
+            }
+
+            bits += n;
+        }
+
+        private static boolean fits(final long value, final int n) {
+            final long bound = 1L << (n - 1);
+            return value >= -bound && value < bound;
+        }
+    }
+
+    /**
+     * Sequential decoder for point blocks.
+     */
+    public static final class Reader {
+        private final long[] words;
+        private final int size;
+
+        private int position = 0;
+        private int index = 0;
+
+        private long timestamp = 0L;
+        private long delta = 0L;
+        private long value = 0L;
+
+        private int leading = 0;
+        private int trailing = 0;
+
+        private Reader(final long[] words, final int size) {
+            this.words = words;
+            this.size = size;
+        }
+
+        /**
+         * Advance to the next point.
+         *
+         * @return {@code true} if there was another point
+         */
+        public boolean next() {
+            if (index >= size) {
+                return false;
+            }
+
+            if (index == 0) {
+                timestamp = read(64);
+                value = read(64);
+                index = 1;
+                return true;
+            }
+
+            delta += readDeltaOfDelta();
+            timestamp += delta;
+            value ^= readXor();
+            index += 1;
+            return true;
+        }
+
+        public long timestamp() {
+            return timestamp;
+        }
+
+        public double value() {
+            return Double.longBitsToDouble(value);
+        }
+
+        private long readDeltaOfDelta() {
+            if (read(1) == 0) {
+                return 0L;
+            }
+
+            if (read(1) == 0) {
+                return signed(read(7), 7);
+            }
+
+            if (read(1) == 0) {
+                return signed(read(9), 9);
+            }
+
+            if (read(1) == 0) {
+                return signed(read(12), 12);
+            }
+
+            if (read(1) == 0) {
+                return signed(read(32), 32);
+            }
+
+            return read(64);
+        }
+
+        private long readXor() {
+            if (read(1) == 0) {
+                return 0L;
+            }
+
+            if (read(1) == 1) {
+                leading = (int) read(5);
+                trailing = 64 - leading - ((int) read(6) + 1);
+            }
+
+            return read(64 - leading - trailing) << trailing;
+        }
+
+        /**
+         * Read {@code n} bits, most significant bit first.
+         */
+        private long read(final int n) {
+            final int index = position >>> 6;
+            final int offset = position & 63;
+            final int available = 64 - offset;
+
+            final long result;
+
+            if (n <= available) {
+                result = (words[index] << offset) >>> (64 - n);
+            } else {
+                final int rest = n - available;
+                final long high = (words[index] << offset) >>> offset;
+                result = (high << rest) | (words[index + 1] >>> (64 - rest));
+            }
+
+            position += n;
+            return result;
+        }
+
+        private static long signed(final long value, final int n) {
+            return (value << (64 - n)) >> (64 - n);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+
+/**
+ * Encodes a {@link QueryMetricsResponse} in a compact, column oriented binary format.
+ * <p>
+ * All numbers are big-endian. Strings are an int32 byte length followed by UTF-8 bytes, where a
+ * length of -1 means null. Maps are an int32 entry count followed by key/value pairs.
+ * <pre>
+ * response := "HQC" version:int8
+ *             header:string             JSON with queryId, range, limits, errors, etc.
+ *             groupCount:int32 group*
+ * group    := type:string hash:int32 cadence:int64
+ *             shard:map&lt;string&gt; key:string
+ *             tags:map&lt;string&gt; tagCounts:map&lt;int32&gt;
+ *             resource:map&lt;string&gt; resourceCounts:map&lt;int32&gt;
+ *             count:int32 values
+ * values   := for points, when count is positive:
+ *               first timestamp:int64, followed by count - 1 zig-zag varint deltas
+ *               count raw IEEE 754 values:float64
+ *             for any other type, count is -1 followed by the data as a JSON string
+ * </pre>
+ */
+public class QueryMetricsResponseColumnarEncoder {
+    public static final String MEDIA_TYPE = "application/vnd.heroic.columnar";
+
+    static final byte[] MAGIC = "HQC".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ObjectMapper mapper;
+
+    public QueryMetricsResponseColumnarEncoder(final ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    public void encode(final QueryMetricsResponse response, final OutputStream output)
+        throws IOException {
+        final DataOutputStream out =
+            new DataOutputStream(new BufferedOutputStream(output, BUFFER_SIZE));
+
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+
+        final Map<String, Object> header = new LinkedHashMap<>();
+        header.put("queryId", response.getQueryId());
+        header.put("range", response.getRange());
+        header.put("trace", response.getTrace());
+        header.put("limits", response.getLimits());
+        header.put("cached", response.getCache().map(CacheInfo::getCached).orElse(false));
+        header.put("cache", response.getCache());
+        header.put("preAggregationSampleSize", response.getPreAggregationSampleSize());
+        header.put("errors", response.getErrors());
+        writeBytes(out, mapper.writeValueAsBytes(header));
+
+        final List<ShardedResultGroup> result = response.getResult();
+        out.writeInt(result.size());
+
+        for (final ShardedResultGroup group : result) {
+            writeGroup(out, group);
+        }
+
+        out.flush();
+    }
+
+    private void writeGroup(final DataOutputStream out, final ShardedResultGroup group)
+        throws IOException {
+        final MetricCollection collection = group.getMetrics();
+        final SeriesValues series = SeriesValues.fromSeries(group.getSeries().iterator());
+
+        writeString(out, collection.getType().identifier());
+        out.writeInt(group.hashGroup());
+        out.writeLong(group.getCadence());
+
+        out.writeInt(group.getShard().size());
+
+        for (final Map.Entry<String, String> e : group.getShard().entrySet()) {
+            writeString(out, e.getKey());
+            writeString(out, e.getValue());
+        }
+
+        final SortedSet<String> keys = series.getKeys();
+        writeString(out, keys.size() == 1 ? keys.first() : null);
+
+        writeSingleValues(out, series.getTags());
+        writeValueCounts(out, series.getTags());
+        writeSingleValues(out, series.getResource());
+        writeValueCounts(out, series.getResource());
+
+        final List<? extends Metric> data = collection.data();
+
+        if (!(data instanceof PointArray)) {
+            out.writeInt(-1);
+            writeBytes(out, mapper.writeValueAsBytes(data));
+            return;
+        }
+
+        writePoints(out, (PointArray) data);
+    }
+
+    private void writePoints(final DataOutputStream out, final PointArray points)
+        throws IOException {
+        final long[] timestamps = points.timestamps();
+        final double[] values = points.values();
+        final int offset = points.offset();
+        final int end = offset + points.size();
+
+        out.writeInt(points.size());
+
+        if (points.isEmpty()) {
+            return;
+        }
+
+        out.writeLong(timestamps[offset]);
+
+        for (int i = offset + 1; i < end; i++) {
+            writeVarLong(out, zigZag(timestamps[i] - timestamps[i - 1]));
+        }
+
+        for (int i = offset; i < end; i++) {
+            out.writeDouble(values[i]);
+        }
+    }
+
+    private void writeSingleValues(
+        final DataOutputStream out, final Map<String, SortedSet<String>> values
+    ) throws IOException {
+        int count = 0;
+
+        for (final SortedSet<String> v : values.values()) {
+            if (v.size() == 1) {
+                count++;
+            }
+        }
+
+        out.writeInt(count);
+
+        for (final Map.Entry<String, SortedSet<String>> e : values.entrySet()) {
+            if (e.getValue().size() != 1) {
+                continue;
+            }
+
+            writeString(out, e.getKey());
+            writeString(out, e.getValue().first());
+        }
+    }
+
+    private void writeValueCounts(
+        final DataOutputStream out, final Map<String, SortedSet<String>> values
+    ) throws IOException {
+        int count = 0;
+
+        for (final SortedSet<String> v : values.values()) {
+            if (v.size() > 1) {
+                count++;
+            }
+        }
+
+        out.writeInt(count);
+
+        for (final Map.Entry<String, SortedSet<String>> e : values.entrySet()) {
+            if (e.getValue().size() <= 1) {
+                continue;
+            }
+
+            writeString(out, e.getKey());
+            out.writeInt(e.getValue().size());
+        }
+    }
+
+    private void writeString(final DataOutputStream out, final String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeBytes(final DataOutputStream out, final byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static long zigZag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static void writeVarLong(final DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        out.writeByte((int) value);
+    }
+}
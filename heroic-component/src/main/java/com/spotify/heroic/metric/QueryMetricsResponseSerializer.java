@@ -28,7 +28,6 @@ import com.google.common.collect.ImmutableMap;
 import com.spotify.heroic.common.Series;
 import java.io.IOException;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
@@ -42,10 +41,13 @@ class QueryMetricsResponseSerializer extends JsonSerializer<QueryMetricsResponse
         QueryMetricsResponse response, JsonGenerator g, SerializerProvider provider
     ) throws IOException {
         final List<ShardedResultGroup> result = response.getResult();
-        final Map<String, SortedSet<String>> commonTags =
-            calculateCommon(result, Series::getTags);
-        final Map<String, SortedSet<String>> commonResource =
-            calculateCommon(result, Series::getResource);
+        final CommonTags commonTags = new CommonTags(Series::getTags);
+        final CommonTags commonResource = new CommonTags(Series::getResource);
+
+        for (final ShardedResultGroup group : result) {
+            commonTags.add(group);
+            commonResource.add(group);
+        }
 
         g.writeStartObject();
 
@@ -58,10 +60,10 @@ class QueryMetricsResponseSerializer extends JsonSerializer<QueryMetricsResponse
         g.writeObjectField("cache", response.getCache());
 
         g.writeFieldName("commonTags");
-        serializeCommonTags(g, commonTags);
+        serializeCommonTags(g, commonTags.get());
 
         g.writeFieldName("commonResource");
-        serializeCommonTags(g, commonResource);
+        serializeCommonTags(g, commonResource.get());
 
         g.writeFieldName("result");
         serializeResult(g, result);
@@ -74,7 +76,7 @@ class QueryMetricsResponseSerializer extends JsonSerializer<QueryMetricsResponse
         g.writeEndObject();
     }
 
-    private void serializeCommonTags(
+    void serializeCommonTags(
         final JsonGenerator g, final Map<String, SortedSet<String>> common
     ) throws IOException {
         g.writeStartObject();
@@ -94,7 +96,7 @@ class QueryMetricsResponseSerializer extends JsonSerializer<QueryMetricsResponse
         g.writeEndObject();
     }
 
-    private void serializeErrors(final JsonGenerator g, final List<RequestError> errors)
+    void serializeErrors(final JsonGenerator g, final List<RequestError> errors)
         throws IOException {
         g.writeStartArray();
 
@@ -105,78 +107,75 @@ class QueryMetricsResponseSerializer extends JsonSerializer<QueryMetricsResponse
         g.writeEndArray();
     }
 
-    private Map<String, SortedSet<String>> calculateCommon(
-        final List<ShardedResultGroup> result,
-        final Function<Series, Map<String, String>> accessor
-    ) {
-        final Iterator<Map<String, SortedSet<String>>> resourcePartitions = result
-            .stream()
-            .map(r -> partitionMaps(r.getSeries().stream().map(accessor)))
-            .iterator();
-
-        if (!resourcePartitions.hasNext()) {
-            return ImmutableMap.of();
+    private void serializeResult(
+        final JsonGenerator g, final List<ShardedResultGroup> result
+    ) throws IOException {
+
+        g.writeStartArray();
+
+        for (final ShardedResultGroup group : result) {
+            serializeGroup(g, group);
         }
 
-        final Map<String, SortedSet<String>> common = resourcePartitions.next();
+        g.writeEndArray();
+    }
 
-        while (resourcePartitions.hasNext()) {
-            final Map<String, SortedSet<String>> next = resourcePartitions.next();
-            common.keySet().removeIf(k -> !next.containsKey(k));
+    void serializeGroup(final JsonGenerator g, final ShardedResultGroup group)
+        throws IOException {
+        g.writeStartObject();
 
-            if (common.isEmpty()) {
-                return common;
-            }
+        final MetricCollection collection = group.getMetrics();
+        final SeriesValues series = SeriesValues.fromSeries(group.getSeries().iterator());
 
-            for (final Map.Entry<String, SortedSet<String>> e : common.entrySet()) {
-                e.getValue().addAll(next.get(e.getKey()));
-            }
-        }
+        g.writeStringField("type", collection.getType().identifier());
+        g.writeStringField("hash", Integer.toHexString(group.hashGroup()));
+        g.writeObjectField("shard", group.getShard());
+        g.writeNumberField("cadence", group.getCadence());
+        g.writeFieldName("values");
+        serializeValues(g, collection);
 
-        return common;
-    }
+        writeKey(g, series.getKeys());
 
-    private Map<String, SortedSet<String>> partitionMaps(
-        final Stream<Map<String, String>> stream
-    ) {
-        final Map<String, SortedSet<String>> partitioned = new HashMap<>();
+        writeTags(g, series.getTags());
+        writeTagCounts(g, series.getTags());
 
-        stream.forEach(m -> {
-            for (final Map.Entry<String, String> e : m.entrySet()) {
-                partitioned.computeIfAbsent(e.getKey(), k -> new TreeSet<>()).add(e.getValue());
-            }
-        });
+        writeResource(g, series.getResource());
+        writeResourceCounts(g, series.getResource());
 
-        return partitioned;
+        g.writeEndObject();
     }
 
-    private void serializeResult(
-        final JsonGenerator g, final List<ShardedResultGroup> result
+    private void serializeValues(
+        final JsonGenerator g, final MetricCollection collection
     ) throws IOException {
+        final List<? extends Metric> data = collection.data();
 
-        g.writeStartArray();
-
-        for (final ShardedResultGroup group : result) {
-            g.writeStartObject();
+        if (!(data instanceof PointArray)) {
+            g.writeObject(data);
+            return;
+        }
 
-            final MetricCollection collection = group.getMetrics();
-            final SeriesValues series = SeriesValues.fromSeries(group.getSeries().iterator());
+        final PointArray points = (PointArray) data;
+        final long[] timestamps = points.timestamps();
+        final double[] values = points.values();
+        final int offset = points.offset();
+        final int end = offset + points.size();
 
-            g.writeStringField("type", collection.getType().identifier());
-            g.writeStringField("hash", Integer.toHexString(group.hashGroup()));
-            g.writeObjectField("shard", group.getShard());
-            g.writeNumberField("cadence", group.getCadence());
-            g.writeObjectField("values", collection.data());
+        g.writeStartArray();
 
-            writeKey(g, series.getKeys());
+        for (int i = offset; i < end; i++) {
+            g.writeStartArray();
+            g.writeNumber(timestamps[i]);
 
-            writeTags(g, series.getTags());
-            writeTagCounts(g, series.getTags());
+            final double value = values[i];
 
-            writeResource(g, series.getResource());
-            writeResourceCounts(g, series.getResource());
+            if (Double.isFinite(value)) {
+                g.writeNumber(value);
+            } else {
+                g.writeNull();
+            }
 
-            g.writeEndObject();
+            g.writeEndArray();
         }
 
         g.writeEndArray();
@@ -269,4 +268,58 @@ class QueryMetricsResponseSerializer extends JsonSerializer<QueryMetricsResponse
 
         g.writeEndObject();
     }
+
+    /**
+     * Accumulates the tags, or resource, which are present in every group added, together with
+     * all of their values.
+     */
+    static class CommonTags {
+        private final Function<Series, Map<String, String>> accessor;
+
+        private Map<String, SortedSet<String>> common = null;
+
+        CommonTags(final Function<Series, Map<String, String>> accessor) {
+            this.accessor = accessor;
+        }
+
+        void add(final ShardedResultGroup group) {
+            final Map<String, SortedSet<String>> next =
+                partitionMaps(group.getSeries().stream().map(accessor));
+
+            if (common == null) {
+                common = next;
+                return;
+            }
+
+            common.keySet().removeIf(k -> !next.containsKey(k));
+
+            for (final Map.Entry<String, SortedSet<String>> e : common.entrySet()) {
+                e.getValue().addAll(next.get(e.getKey()));
+            }
+        }
+
+        Map<String, SortedSet<String>> get() {
+            if (common == null) {
+                return ImmutableMap.of();
+            }
+
+            return common;
+        }
+
+        private static Map<String, SortedSet<String>> partitionMaps(
+            final Stream<Map<String, String>> stream
+        ) {
+            final Map<String, SortedSet<String>> partitioned = new HashMap<>();
+
+            stream.forEach(m -> {
+                for (final Map.Entry<String, String> e : m.entrySet()) {
+                    partitioned
+                        .computeIfAbsent(e.getKey(), k -> new TreeSet<>())
+                        .add(e.getValue());
+                }
+            });
+
+            return partitioned;
+        }
+    }
 }
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.spotify.heroic.metric;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spotify.heroic.common.Series;
+import eu.toolchain.async.AsyncFuture;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * Writes the response of a metrics query straight to the response stream while the query is
+ * running. Result groups are written and flushed as soon as the query hands them over, and the
+ * rest of the response is written after the groups once the query is done.
+ * <p>
+ * Groups are only held until they have been written, so the whole response is never kept in
+ * memory. The fields are the same as those of {@link QueryMetricsResponse}, but in a different
+ * order. If the query fails, only the query id, the groups written so far and the error are
+ * included.
+ */
+public class StreamingQueryMetricsResponse
+    implements StreamingOutput, Consumer<List<ShardedResultGroup>> {
+    /* marks that the query is done */
+    private static final List<ShardedResultGroup> END =
+        Collections.unmodifiableList(new ArrayList<>());
+
+    private final ObjectMapper mapper;
+    private final UUID queryId;
+    private final long timeout;
+    private final TimeUnit unit;
+
+    private final QueryMetricsResponseSerializer serializer = new QueryMetricsResponseSerializer();
+    private final BlockingQueue<List<ShardedResultGroup>> groups = new LinkedBlockingQueue<>();
+
+    private volatile AsyncFuture<QueryMetricsResponse> response = null;
+
+    /**
+     * @param timeout How long to wait for the query to be done, after which it is cancelled.
+     */
+    public StreamingQueryMetricsResponse(
+        final ObjectMapper mapper, final UUID queryId, final long timeout, final TimeUnit unit
+    ) {
+        this.mapper = mapper;
+        this.queryId = queryId;
+        this.timeout = timeout;
+        this.unit = unit;
+    }
+
+    /**
+     * Hand over result groups to be written.
+     */
+    @Override
+    public void accept(final List<ShardedResultGroup> groups) {
+        this.groups.add(groups);
+    }
+
+    /**
+     * Bind the query which this response is written for. Must be called before writing.
+     *
+     * @param response The response of the query, without any result groups.
+     */
+    public void bind(final AsyncFuture<QueryMetricsResponse> response) {
+        this.response = response;
+        response.onFinished(() -> groups.add(END));
+    }
+
+    @Override
+    public void write(final OutputStream output) throws IOException {
+        final AsyncFuture<QueryMetricsResponse> response = this.response;
+
+        if (response == null) {
+            throw new IllegalStateException("No query bound to response");
+        }
+
+        try {
+            write(mapper.getFactory().createGenerator(output), response);
+        } catch (final IOException | RuntimeException e) {
+            /* the client is gone, so there is no one to run the query for */
+            response.cancel();
+            throw e;
+        }
+    }
+
+    private void write(
+        final JsonGenerator g, final AsyncFuture<QueryMetricsResponse> response
+    ) throws IOException {
+        final QueryMetricsResponseSerializer.CommonTags commonTags =
+            new QueryMetricsResponseSerializer.CommonTags(Series::getTags);
+        final QueryMetricsResponseSerializer.CommonTags commonResource =
+            new QueryMetricsResponseSerializer.CommonTags(Series::getResource);
+
+        g.writeStartObject();
+        g.writeObjectField("queryId", queryId);
+
+        g.writeFieldName("result");
+        g.writeStartArray();
+        g.flush();
+
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        while (true) {
+            final List<ShardedResultGroup> next;
+
+            try {
+                next = groups.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for query");
+            }
+
+            if (next == null) {
+                response.cancel();
+                g.writeEndArray();
+                writeError(g, commonTags, commonResource, new QueryError("Query timed out"));
+                return;
+            }
+
+            if (next == END) {
+                break;
+            }
+
+            for (final ShardedResultGroup group : next) {
+                serializer.serializeGroup(g, group);
+                commonTags.add(group);
+                commonResource.add(group);
+            }
+
+            g.flush();
+        }
+
+        g.writeEndArray();
+
+        if (!response.isResolved()) {
+            final String message = response.isFailed() ? "Query failed: " + response.cause()
+                : "Query cancelled";
+            writeError(g, commonTags, commonResource, new QueryError(message));
+            return;
+        }
+
+        final QueryMetricsResponse r = response.getNow();
+
+        g.writeObjectField("range", r.getRange());
+        g.writeObjectField("trace", r.getTrace());
+        g.writeObjectField("limits", r.getLimits());
+        g.writeBooleanField("cached", r.getCache().map(CacheInfo::getCached).orElse(false));
+        g.writeObjectField("cache", r.getCache());
+
+        g.writeFieldName("commonTags");
+        serializer.serializeCommonTags(g, commonTags.get());
+
+        g.writeFieldName("commonResource");
+        serializer.serializeCommonTags(g, commonResource.get());
+
+        g.writeObjectField("preAggregationSampleSize", r.getPreAggregationSampleSize());
+
+        g.writeFieldName("errors");
+        serializer.serializeErrors(g, r.getErrors());
+
+        g.writeEndObject();
+        g.flush();
+    }
+
+    private void writeError(
+        final JsonGenerator g, final QueryMetricsResponseSerializer.CommonTags commonTags,
+        final QueryMetricsResponseSerializer.CommonTags commonResource, final RequestError error
+    ) throws IOException {
+        g.writeFieldName("commonTags");
+        serializer.serializeCommonTags(g, commonTags.get());
+
+        g.writeFieldName("commonResource");
+        serializer.serializeCommonTags(g, commonResource.get());
+
+        g.writeFieldName("errors");
+        g.writeStartArray();
+        g.writeObject(error);
+        g.writeEndArray();
+
+        g.writeEndObject();
+        g.flush();
+    }
+}
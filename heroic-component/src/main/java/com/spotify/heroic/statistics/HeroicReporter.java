@@ -48,4 +48,9 @@ public interface HeroicReporter {
      * Register cache size instrumentation.
      */
     void registerCacheSize(String id, Supplier<Long> cacheSize);
+
+    /**
+     * Register cache hit ratio instrumentation.
+     */
+    void registerCacheHitRatio(String id, Supplier<Double> hitRatio);
 }
@@ -30,5 +30,13 @@ public interface MetadataBackendReporter {
 
     FutureReporter.Context setupBackendWriteReporter();
 
+    /**
+     * Report a bulk write to the backend.
+     *
+     * @param actions Number of writes in the bulk request.
+     * @param latencyMillis Time it took to complete the bulk request.
+     */
+    void reportBulkWrite(int actions, long latencyMillis);
+
     MetadataBackend decorate(MetadataBackend backend);
 }
@@ -31,4 +31,12 @@ public interface MetricBackendReporter {
     FutureReporter.Context reportFindSeries();
 
     FutureReporter.Context reportQueryMetrics();
+
+    /**
+     * Report a batch of points written to the backend.
+     *
+     * @param points Number of points in the batch.
+     * @param latencyMillis Time it took to complete the batch.
+     */
+    void reportWriteBatch(int points, long latencyMillis);
 }
@@ -41,4 +41,26 @@ public interface QueryReporter {
     void reportClusterNodeRpcError();
 
     void reportClusterNodeRpcCancellation();
+
+    /**
+     * Report that a query was served from the query cache.
+     */
+    void reportCacheHit();
+
+    /**
+     * Report that a query was not available in the query cache and had to be loaded.
+     */
+    void reportCacheMiss();
+
+    /**
+     * Report that a result was evicted from the query cache to stay within its size bound.
+     */
+    void reportCacheEviction();
+
+    /**
+     * Report how long it took to load a result into the query cache.
+     *
+     * @param duration Duration of the load, in ms
+     */
+    void reportCacheLoadLatency(long duration);
 }
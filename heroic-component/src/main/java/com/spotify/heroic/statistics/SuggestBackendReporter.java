@@ -31,4 +31,12 @@ public interface SuggestBackendReporter {
     void reportWriteDroppedByDuplicate();
 
     FutureReporter.Context setupWriteReporter();
+
+    /**
+     * Report a bulk write to the backend.
+     *
+     * @param actions Number of writes in the bulk request.
+     * @param latencyMillis Time it took to complete the bulk request.
+     */
+    void reportBulkWrite(int actions, long latencyMillis);
 }
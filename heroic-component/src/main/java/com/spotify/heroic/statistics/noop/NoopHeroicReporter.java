@@ -84,6 +84,10 @@ public class NoopHeroicReporter implements HeroicReporter {
     public void registerCacheSize(final String id, final Supplier<Long> cacheSize) {
     }
 
+    @Override
+    public void registerCacheHitRatio(final String id, final Supplier<Double> hitRatio) {
+    }
+
 
     private static final NoopHeroicReporter instance = new NoopHeroicReporter();
 
@@ -49,6 +49,10 @@ public class NoopMetadataBackendReporter implements MetadataBackendReporter {
         return NoopFutureReporterContext.get();
     }
 
+    @Override
+    public void reportBulkWrite(final int actions, final long latencyMillis) {
+    }
+
     private static final NoopMetadataBackendReporter instance = new NoopMetadataBackendReporter();
 
     public static NoopMetadataBackendReporter get() {
@@ -51,4 +51,20 @@ public class NoopQueryReporter implements QueryReporter {
     @Override
     public void reportClusterNodeRpcCancellation() {
     }
+
+    @Override
+    public void reportCacheHit() {
+    }
+
+    @Override
+    public void reportCacheMiss() {
+    }
+
+    @Override
+    public void reportCacheEviction() {
+    }
+
+    @Override
+    public void reportCacheLoadLatency(final long duration) {
+    }
 }
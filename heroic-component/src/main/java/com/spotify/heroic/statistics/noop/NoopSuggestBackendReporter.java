@@ -47,6 +47,10 @@ public class NoopSuggestBackendReporter implements SuggestBackendReporter {
         return NoopFutureReporterContext.get();
     }
 
+    @Override
+    public void reportBulkWrite(final int actions, final long latencyMillis) {
+    }
+
     private static final NoopSuggestBackendReporter instance = new NoopSuggestBackendReporter();
 
     public static NoopSuggestBackendReporter get() {
@@ -25,6 +25,11 @@ public class AnyBucketTest {
             verify(any).update(tags, point);
         }
 
+        {
+            any.updatePoint(tags, 1L, 2.0);
+            verify(any).update(tags, new Point(1L, 2.0));
+        }
+
         {
             final Spread spread = new Spread(0, 0, 0, 0, 0, 0);
             any.updateSpread(tags, spread);
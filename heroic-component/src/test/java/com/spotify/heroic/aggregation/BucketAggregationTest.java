@@ -51,11 +51,39 @@ public class BucketAggregationTest {
         }
     }
 
+    public static class SummarizingTestBucket extends TestBucket implements SummarizingBucket {
+        SummarizingTestBucket(long timestamp) {
+            super(timestamp);
+        }
+
+        @Override
+        public void updatePoint(Map<String, String> key, Point d) {
+            throw new IllegalStateException("expected summaries only");
+        }
+
+        @Override
+        public void updateSummary(
+            Map<String, String> key, long count, double sum, double sum2, double min, double max
+        ) {
+            super.updatePoint(key, new Point(getTimestamp(), sum));
+        }
+    }
+
     public BucketAggregationInstance<TestBucket> setup(long sampling, long extent) {
+        return setup(sampling, extent, false);
+    }
+
+    public BucketAggregationInstance<TestBucket> setup(
+        long sampling, long extent, boolean summarizing
+    ) {
         return new BucketAggregationInstance<TestBucket>(sampling, extent,
             ImmutableSet.of(MetricType.POINT), MetricType.POINT) {
             @Override
             protected TestBucket buildBucket(long timestamp) {
+                if (summarizing) {
+                    return new SummarizingTestBucket(timestamp);
+                }
+
                 return new TestBucket(timestamp);
             }
 
@@ -100,6 +128,28 @@ public class BucketAggregationTest {
             result.getResult().get(0).getMetrics().data());
     }
 
+    @Test
+    public void testSummarizing() {
+        final BucketAggregationInstance<TestBucket> a = setup(10, 20, true);
+        final AggregationSession session = setupSession(a, new DateRange(10, 30));
+
+        session.updatePoints(group, series, build()
+            .add(0, 1000.0)
+            .add(1, 3.0)
+            .add(2, 4.0)
+            .add(11, 3.0)
+            .add(12, 4.0)
+            .add(13, Double.NaN)
+            .add(31, 1000.0)
+            .result());
+
+        final AggregationResult result = session.result();
+
+        assertEquals(build().add(20, 14.0).add(30, 7.0).result(),
+            result.getResult().get(0).getMetrics().data());
+        assertEquals(6L, result.getStatistics().get(AggregationInstance.SAMPLE_SIZE, 0L));
+    }
+
     @Test
     public void testLongerExtent() {
         final BucketAggregationInstance<TestBucket> a = setup(10, 20);
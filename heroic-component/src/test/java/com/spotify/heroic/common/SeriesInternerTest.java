@@ -0,0 +1,71 @@
+package com.spotify.heroic.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import org.junit.Test;
+
+public class SeriesInternerTest {
+    @Test
+    public void testIntern() {
+        final SeriesInterner interner = SeriesInterner.lru(10);
+
+        final Series a = Series.of("foo", ImmutableMap.of("role", "api"));
+        final Series b = Series.of("foo", ImmutableMap.of("role", "api"));
+        assertNotSame(a, b);
+
+        assertSame(a, interner.intern(a));
+        assertSame(a, interner.intern(b));
+        assertEquals(1L, interner.size());
+        assertEquals(0.5D, interner.hitRatio(), 0D);
+    }
+
+    @Test
+    public void testSharedMaps() {
+        final SeriesInterner interner = SeriesInterner.lru(10);
+
+        final Series a = interner.intern(Series.of("foo", ImmutableMap.of("role", "api")));
+        final Series b = interner.intern(Series.of("bar", ImmutableMap.of("role", "api")));
+
+        assertSame(a.getTags(), b.getTags());
+        assertEquals(Series.of("bar", ImmutableMap.of("role", "api")).hash(), b.hash());
+    }
+
+    @Test
+    public void testEviction() {
+        final SeriesInterner interner = SeriesInterner.lru(1);
+
+        final Series a = Series.of("foo");
+        final Series b = Series.of("bar");
+
+        assertSame(a, interner.intern(a));
+        assertSame(b, interner.intern(b));
+        assertNotSame(a, interner.intern(Series.of("foo")));
+    }
+
+    @Test
+    public void testDisabled() {
+        final SeriesInterner interner = SeriesInterner.disabled();
+
+        final Series a = Series.of("foo");
+        final Series b = Series.of("foo");
+
+        assertSame(a, interner.intern(a));
+        assertSame(b, interner.intern(b));
+        assertEquals(0D, interner.hitRatio(), 0D);
+    }
+
+    @Test
+    public void testWithResourceReusesTagHash() {
+        final Series a = Series.of("foo", ImmutableMap.of("role", "api"));
+        final Series b = a.withResource(ImmutableSortedMap.of("instance", "a"));
+
+        assertSame(a, a.withResource(ImmutableSortedMap.of()));
+        assertEquals(a.getHashCodeTagOnly(), b.getHashCodeTagOnly());
+        assertEquals(Series.of("foo", ImmutableMap.of("role", "api"),
+            ImmutableMap.of("instance", "a")).hash(), b.hash());
+    }
+}
@@ -0,0 +1,62 @@
+package com.spotify.heroic.filter;
+
+import static com.spotify.heroic.filter.Filter.and;
+import static com.spotify.heroic.filter.Filter.hasTag;
+import static com.spotify.heroic.filter.Filter.matchKey;
+import static com.spotify.heroic.filter.Filter.matchTag;
+import static com.spotify.heroic.filter.Filter.not;
+import static com.spotify.heroic.filter.Filter.or;
+import static com.spotify.heroic.filter.Filter.regex;
+import static com.spotify.heroic.filter.Filter.startsWith;
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.spotify.heroic.common.Series;
+import java.util.List;
+import org.junit.Test;
+
+public class CompiledFilterTest {
+    private final List<Series> series = ImmutableList.of(
+        Series.of("a", ImmutableMap.of("host", "foo-1", "role", "db")),
+        Series.of("a", ImmutableMap.of("host", "foo-2\nbar", "role", "web")),
+        Series.of("b", ImmutableMap.of("host", "bar-1")),
+        Series.of("b", ImmutableMap.of("role", "db")),
+        Series.of("c", ImmutableMap.of()));
+
+    private final List<Filter> filters = ImmutableList.of(
+        TrueFilter.get(),
+        FalseFilter.get(),
+        matchKey("a"),
+        matchTag("role", "db"),
+        hasTag("host"),
+        startsWith("host", "foo"),
+        regex("host", "foo-1"),
+        regex("host", "foo.*"),
+        regex("host", "(foo|bar)-\\d"),
+        regex("role", ".*"),
+        not(matchTag("role", "db")),
+        not(TrueFilter.get()),
+        and(matchKey("a"), regex("host", "foo.*"), hasTag("role")),
+        or(matchKey("c"), startsWith("host", "bar"), regex("role", "w.b")),
+        and(matchKey("b"), not(or(hasTag("host"), matchKey("a")))));
+
+    /**
+     * A compiled filter must always agree with the filter it was compiled from.
+     */
+    @Test
+    public void testSameAsApply() {
+        for (final Filter filter : filters) {
+            final CompiledFilter compiled = CompiledFilter.compile(filter);
+
+            for (final Series s : series) {
+                assertEquals(filter + " on " + s, filter.apply(s), compiled.test(s));
+            }
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testRawUnsupported() {
+        CompiledFilter.compile(RawFilter.create("foo")).test(series.get(0));
+    }
+}
@@ -0,0 +1,45 @@
+package com.spotify.heroic.metric;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import com.spotify.heroic.QueryOptions;
+import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.aggregation.EmptyInstance;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Features;
+import com.spotify.heroic.filter.TrueFilter;
+import com.spotify.heroic.querylogging.QueryContext;
+import org.junit.Test;
+
+public class FullQueryTest {
+    private final DateRange range = new DateRange(0L, 1000L);
+
+    @Test
+    public void testSharesFetchWithDifferentAggregation() {
+        final FullQuery.Request a = request(MetricType.POINT, range, EmptyInstance.INSTANCE);
+        final FullQuery.Request b =
+            request(MetricType.POINT, range, mock(AggregationInstance.class));
+
+        assertTrue(a.sharesFetch(b));
+        assertTrue(b.sharesFetch(a));
+    }
+
+    @Test
+    public void testDoesNotShareFetch() {
+        final FullQuery.Request a = request(MetricType.POINT, range, EmptyInstance.INSTANCE);
+
+        assertFalse(a.sharesFetch(
+            request(MetricType.SPREAD, range, EmptyInstance.INSTANCE)));
+        assertFalse(a.sharesFetch(
+            request(MetricType.POINT, new DateRange(0L, 2000L), EmptyInstance.INSTANCE)));
+    }
+
+    private FullQuery.Request request(
+        final MetricType source, final DateRange range, final AggregationInstance aggregation
+    ) {
+        return FullQuery.Request.create(source, TrueFilter.get(), range, aggregation,
+            QueryOptions.defaults(), QueryContext.empty(), Features.empty());
+    }
+}
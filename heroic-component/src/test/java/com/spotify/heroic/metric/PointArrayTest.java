@@ -0,0 +1,81 @@
+package com.spotify.heroic.metric;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import org.junit.Test;
+
+public class PointArrayTest {
+    @Test
+    public void testBuilder() {
+        final PointArray.Builder builder = PointArray.builder(1);
+
+        for (int i = 0; i < 100; i++) {
+            builder.add(i, i * 2.0);
+        }
+
+        final PointArray points = builder.build();
+
+        assertEquals(100, points.size());
+        assertEquals(42L, points.getTimestamp(42));
+        assertEquals(84.0, points.getValue(42), 0.0);
+        assertEquals(new Point(42L, 84.0), points.get(42));
+    }
+
+    @Test
+    public void testEqualsList() {
+        final List<Point> list = ImmutableList.of(new Point(1L, 1.0), new Point(2L, 2.0));
+        final PointArray points = PointArray.of(new long[]{1L, 2L}, new double[]{1.0, 2.0});
+
+        assertEquals(list, points);
+        assertEquals(points, list);
+        assertEquals(list.hashCode(), points.hashCode());
+        assertEquals(points, PointArray.copyOf(list));
+        assertSame(points, PointArray.copyOf(points));
+    }
+
+    @Test
+    public void testEmpty() {
+        assertTrue(PointArray.builder().build().isEmpty());
+        assertSame(PointArray.empty(), PointArray.copyOf(ImmutableList.of()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMismatchedColumns() {
+        PointArray.of(new long[]{1L}, new double[0]);
+    }
+
+    @Test
+    public void testSlice() {
+        final PointArray points =
+            PointArray.of(new long[]{1L, 2L, 3L, 4L}, new double[]{1.0, 2.0, 3.0, 4.0});
+        final PointArray slice = points.slice(1, 3);
+
+        assertEquals(2, slice.size());
+        assertEquals(2L, slice.getTimestamp(0));
+        assertEquals(3.0, slice.getValue(1), 0.0);
+        assertSame(points.timestamps(), slice.timestamps());
+        assertEquals(ImmutableList.of(new Point(2L, 2.0), new Point(3L, 3.0)), slice);
+        assertEquals(slice,
+            PointArray.of(new long[]{0L, 2L, 3L}, new double[]{0.0, 2.0, 3.0}, 1, 2));
+        assertSame(PointArray.empty(), points.slice(2, 2));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testSliceOutOfBounds() {
+        PointArray.of(new long[]{1L}, new double[]{1.0}).slice(0, 2);
+    }
+
+    @Test
+    public void testMergeSorted() {
+        final MetricCollection merged = MetricCollection.mergeSorted(MetricType.POINT,
+            ImmutableList.of(ImmutableList.of(new Point(1L, 1.0), new Point(4L, 4.0)),
+                PointArray.of(new long[]{2L, 3L, 5L}, new double[]{2.0, 3.0, 5.0})));
+
+        assertEquals(PointArray.of(new long[]{1L, 2L, 3L, 4L, 5L},
+            new double[]{1.0, 2.0, 3.0, 4.0, 5.0}), merged.data());
+    }
+}
@@ -0,0 +1,91 @@
+package com.spotify.heroic.metric;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import org.junit.Test;
+
+public class PointBlockTest {
+    @Test
+    public void testRoundTrip() {
+        final Random random = new Random(0x1337);
+        final PointArray.Builder builder = PointArray.builder();
+
+        long timestamp = 1_500_000_000_000L;
+        double value = 0.0;
+
+        for (int i = 0; i < 10000; i++) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    timestamp += 10000;
+                    break;
+                case 1:
+                    timestamp += 1 + random.nextInt(1 << 20);
+                    value = random.nextDouble();
+                    break;
+                case 2:
+                    timestamp += 1 + (random.nextLong() >>> 24);
+                    value = Double.NaN;
+                    break;
+                default:
+                    timestamp += 60000;
+                    value += 1;
+                    break;
+            }
+
+            builder.add(timestamp, value);
+        }
+
+        final PointArray points = builder.build();
+        final PointBlock block = PointBlock.encode(points);
+
+        assertEquals(points, block.decode());
+        assertEquals(points, PointBlock.fromBytes(block.toBytes()).decode());
+        assertEquals(points.slice(11, 9000),
+            block.decode(points.getTimestamp(10), points.getTimestamp(8999)));
+    }
+
+    @Test
+    public void testCompression() {
+        final PointBlock.Writer writer = PointBlock.writer();
+
+        for (int i = 0; i < 10000; i++) {
+            writer.add(1_500_000_000_000L + i * 10000L, 42.0 + i % 10);
+        }
+
+        /* regular cadence and few distinct values should take a couple of bytes per point */
+        assertTrue(writer.snapshot().bytes() < 10000 * 3);
+    }
+
+    @Test
+    public void testSnapshotIsStable() {
+        final PointBlock.Writer writer = PointBlock.writer();
+        writer.add(1L, 1.0);
+        writer.add(2L, 2.0);
+
+        final PointBlock snapshot = writer.snapshot();
+
+        for (int i = 3; i < 1000; i++) {
+            writer.add(i, i);
+        }
+
+        assertEquals(PointArray.of(new long[]{1L, 2L}, new double[]{1.0, 2.0}),
+            snapshot.decode());
+        assertEquals(999, writer.snapshot().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOutOfOrder() {
+        final PointBlock.Writer writer = PointBlock.writer();
+        writer.add(2L, 1.0);
+        writer.add(2L, 1.0);
+    }
+
+    @Test
+    public void testEmpty() {
+        assertSame(PointBlock.empty(), PointBlock.writer().snapshot());
+        assertTrue(PointBlock.empty().decode().isEmpty());
+    }
+}
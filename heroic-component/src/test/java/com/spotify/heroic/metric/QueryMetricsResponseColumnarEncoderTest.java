@@ -0,0 +1,137 @@
+package com.spotify.heroic.metric;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Series;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QueryMetricsResponseColumnarEncoderTest {
+    private final byte[] header = "{}".getBytes(StandardCharsets.UTF_8);
+
+    private QueryMetricsResponseColumnarEncoder encoder;
+
+    @Before
+    public void setup() throws Exception {
+        final ObjectMapper mapper = mock(ObjectMapper.class);
+        doReturn(header).when(mapper).writeValueAsBytes(any());
+        encoder = new QueryMetricsResponseColumnarEncoder(mapper);
+    }
+
+    @Test
+    public void testEncodePoints() throws IOException {
+        final Series a = Series.of("key", ImmutableMap.of("host", "a", "role", "db"));
+        final Series b = Series.of("key", ImmutableMap.of("host", "b", "role", "db"));
+
+        final ShardedResultGroup group =
+            new ShardedResultGroup(ImmutableMap.of("site", "lon"), ImmutableMap.of(),
+                ImmutableSet.of(a, b),
+                MetricCollection.points(new long[]{1000L, 2000L, 1500L},
+                    new double[]{1.0, Double.NaN, -2.5}), 10L);
+
+        final DataInputStream in = encode(ImmutableList.of(group));
+
+        final byte[] magic = new byte[3];
+        in.readFully(magic);
+        assertArrayEquals(QueryMetricsResponseColumnarEncoder.MAGIC, magic);
+        assertEquals(QueryMetricsResponseColumnarEncoder.VERSION, in.readByte());
+        assertEquals("{}", readString(in));
+
+        assertEquals(1, in.readInt());
+        assertEquals("points", readString(in));
+        assertEquals(group.hashGroup(), in.readInt());
+        assertEquals(10L, in.readLong());
+
+        assertEquals(1, in.readInt());
+        assertEquals("site", readString(in));
+        assertEquals("lon", readString(in));
+
+        assertEquals("key", readString(in));
+
+        assertEquals(1, in.readInt());
+        assertEquals("role", readString(in));
+        assertEquals("db", readString(in));
+
+        assertEquals(1, in.readInt());
+        assertEquals("host", readString(in));
+        assertEquals(2, in.readInt());
+
+        assertEquals(0, in.readInt());
+        assertEquals(0, in.readInt());
+
+        assertEquals(3, in.readInt());
+        assertEquals(1000L, in.readLong());
+        assertEquals(1000L, readZigZagVarLong(in));
+        assertEquals(-500L, readZigZagVarLong(in));
+        assertEquals(1.0, in.readDouble(), 0.0);
+        assertEquals(Double.NaN, in.readDouble(), 0.0);
+        assertEquals(-2.5, in.readDouble(), 0.0);
+
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void testEncodeEmpty() throws IOException {
+        final DataInputStream in = encode(ImmutableList.of());
+
+        in.readFully(new byte[3]);
+        in.readByte();
+        assertEquals("{}", readString(in));
+        assertEquals(0, in.readInt());
+        assertEquals(-1, in.read());
+    }
+
+    private DataInputStream encode(final ImmutableList<ShardedResultGroup> groups)
+        throws IOException {
+        final QueryMetricsResponse response =
+            new QueryMetricsResponse(UUID.randomUUID(), new DateRange(0L, 3000L), groups,
+                ImmutableList.of(), QueryTrace.PASSIVE, ResultLimits.of(), Optional.empty(),
+                Optional.empty());
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.encode(response, out);
+        return new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private String readString(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+
+        if (length < 0) {
+            return null;
+        }
+
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private long readZigZagVarLong(final DataInputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+
+        do {
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
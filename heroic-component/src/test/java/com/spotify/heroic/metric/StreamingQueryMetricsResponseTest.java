@@ -0,0 +1,141 @@
+package com.spotify.heroic.metric;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Series;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.async.TinyAsync;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.After;
+import org.junit.Test;
+
+public class StreamingQueryMetricsResponseTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final AsyncFramework async = TinyAsync.builder().build();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private final UUID queryId = UUID.randomUUID();
+
+    @After
+    public void teardown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSameFieldsAsBuffered() throws Exception {
+        final List<ShardedResultGroup> groups = groups(3);
+
+        final StreamingQueryMetricsResponse streaming = streaming();
+        streaming.accept(groups.subList(0, 1));
+        streaming.accept(groups.subList(1, 3));
+        streaming.bind(async.resolved(response(ImmutableList.of())));
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        streaming.write(out);
+
+        assertEquals(mapper.readTree(mapper.writeValueAsBytes(response(groups))),
+            mapper.readTree(out.toByteArray()));
+    }
+
+    @Test
+    public void testWritesGroupsBeforeQueryIsDone() throws Exception {
+        final ResolvableFuture<QueryMetricsResponse> response = async.future();
+        final CountDownLatch flushed = new CountDownLatch(2);
+
+        final StreamingQueryMetricsResponse streaming = streaming();
+        streaming.bind(response);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void flush() throws IOException {
+                flushed.countDown();
+            }
+        };
+
+        final Future<?> write = executor.submit(() -> {
+            streaming.write(out);
+            return null;
+        });
+
+        /* the opening of the response, and then the first groups */
+        streaming.accept(groups(1));
+        assertTrue(flushed.await(10, TimeUnit.SECONDS));
+        assertTrue(out.toString().contains("\"values\""));
+
+        response.resolve(response(ImmutableList.of()));
+        write.get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, mapper.readTree(out.toByteArray()).get("result").size());
+    }
+
+    @Test
+    public void testFailedQuery() throws Exception {
+        final StreamingQueryMetricsResponse streaming = streaming();
+        streaming.accept(groups(2));
+        streaming.bind(async.failed(new RuntimeException("shard is down")));
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        streaming.write(out);
+
+        final JsonNode result = mapper.readTree(out.toByteArray());
+        assertEquals(queryId.toString(), result.get("queryId").asText());
+        assertEquals(2, result.get("result").size());
+        assertEquals(1, result.get("errors").size());
+        assertTrue(result.get("errors").get(0).get("error").asText().contains("shard is down"));
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        final ResolvableFuture<QueryMetricsResponse> response = async.future();
+
+        final StreamingQueryMetricsResponse streaming =
+            new StreamingQueryMetricsResponse(mapper, queryId, 10, TimeUnit.MILLISECONDS);
+        streaming.bind(response);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        streaming.write(out);
+
+        assertTrue(response.isCancelled());
+        assertEquals(1, mapper.readTree(out.toByteArray()).get("errors").size());
+    }
+
+    private StreamingQueryMetricsResponse streaming() {
+        return new StreamingQueryMetricsResponse(mapper, queryId, 10, TimeUnit.SECONDS);
+    }
+
+    private QueryMetricsResponse response(final List<ShardedResultGroup> groups) {
+        return new QueryMetricsResponse(queryId, new DateRange(0L, 3000L), groups,
+            ImmutableList.of(), QueryTrace.PASSIVE, ResultLimits.of(), Optional.of(6L),
+            Optional.empty());
+    }
+
+    private List<ShardedResultGroup> groups(final int groups) {
+        return IntStream
+            .range(0, groups)
+            .mapToObj(i -> new ShardedResultGroup(ImmutableMap.of("site", "lon"),
+                ImmutableMap.of(),
+                ImmutableSet.of(Series.of("key", ImmutableMap.of("host", "h" + i, "role", "db"))),
+                MetricCollection.points(new long[]{1000L, 2000L}, new double[]{i, Double.NaN}),
+                10L))
+            .collect(Collectors.toList());
+    }
+}
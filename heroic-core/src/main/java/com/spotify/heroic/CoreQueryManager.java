@@ -26,7 +26,10 @@ import static io.opencensus.trace.AttributeValue.longAttributeValue;
 import static io.opencensus.trace.AttributeValue.stringAttributeValue;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Lists;
 import com.spotify.heroic.aggregation.Aggregation;
 import com.spotify.heroic.aggregation.AggregationCombiner;
 import com.spotify.heroic.aggregation.AggregationContext;
@@ -66,6 +69,9 @@ import com.spotify.heroic.metric.MetricType;
 import com.spotify.heroic.metric.QueryResult;
 import com.spotify.heroic.metric.QueryResultPart;
 import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.ResultLimit;
+import com.spotify.heroic.metric.ResultLimits;
+import com.spotify.heroic.metric.ShardedResultGroup;
 import com.spotify.heroic.metric.Tracing;
 import com.spotify.heroic.metric.WriteMetric;
 import com.spotify.heroic.querylogging.QueryContext;
@@ -82,15 +88,21 @@ import com.spotify.heroic.tracing.EndSpanFutureReporter;
 import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
 import eu.toolchain.async.Collector;
+import eu.toolchain.async.FutureDone;
+import eu.toolchain.async.ResolvableFuture;
 import eu.toolchain.async.Transform;
 import io.opencensus.trace.Span;
 import io.opencensus.trace.Tracer;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.SortedSet;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -216,6 +228,30 @@ public class CoreQueryManager implements QueryManager {
 
         @Override
         public AsyncFuture<QueryResult> query(final Query q, final QueryContext queryContext) {
+            return query(q, queryContext, this::queryShard, Optional.empty());
+        }
+
+        @Override
+        public AsyncFuture<QueryResult> query(
+            final Query q, final QueryContext queryContext,
+            final Consumer<List<ShardedResultGroup>> groups
+        ) {
+            return query(q, queryContext, this::queryShard, Optional.of(groups));
+        }
+
+        @Override
+        public QueryManager.Batch newBatch() {
+            return new Batch();
+        }
+
+        /**
+         * @param groups If present, result groups are handed to this consumer instead of being
+         * collected into the result.
+         */
+        private AsyncFuture<QueryResult> query(
+            final Query q, final QueryContext queryContext, final ShardQuery shardQuery,
+            final Optional<Consumer<List<ShardedResultGroup>>> groups
+        ) {
             final QueryOptions options = q.getOptions().orElseGet(QueryOptions::defaults);
             final Tracing tracing = options.tracing();
 
@@ -225,8 +261,6 @@ public class CoreQueryManager implements QueryManager {
 
             queryLogger.logQuery(queryContext, q);
 
-            final List<AsyncFuture<QueryResultPart>> futures = new ArrayList<>();
-
             final MetricType source = q.getSource().orElse(MetricType.POINT);
 
             final Aggregation aggregation = q.getAggregation().orElse(Empty.INSTANCE);
@@ -266,23 +300,35 @@ public class CoreQueryManager implements QueryManager {
                 .orElseGet(() -> features.withFeature(Feature.END_BUCKET, () -> BucketStrategy.END,
                     () -> BucketStrategy.START));
 
-            final AggregationCombiner combiner;
-
-            if (isDistributed) {
-                combiner = DistributedAggregationCombiner.create(root, range, bucketStrategy);
-            } else {
-                combiner = AggregationCombiner.DEFAULT;
-            }
-
             final FullQuery.Request request =
                 FullQuery.Request.create(source, filter, range, aggregationInstance, options,
                     queryContext, features);
 
             queryLogger.logOutgoingRequestToShards(queryContext, request);
 
+            final OptionalLimit limit = options.groupLimit().orElse(groupLimit);
+
+            final Optional<GroupStream> stream = groups.map(c -> new GroupStream(c, limit));
+            /* groups of distributed aggregations can only be streamed once they are combined */
+            final Optional<GroupStream> partStream =
+                isDistributed ? Optional.empty() : stream;
 
             final Span rootSpan = tracer.spanBuilder("coreQueryManager.query").startSpan();
-            final AsyncFuture<QueryResult> query = queryCache.load(request, () -> {
+            final Function<DateRange, AsyncFuture<QueryResult>> loader = loadRange -> {
+                final FullQuery.Request loadRequest = loadRange.equals(range) ? request
+                    : FullQuery.Request.create(source, filter, loadRange, aggregationInstance,
+                        options, queryContext, features);
+
+                final AggregationCombiner combiner;
+
+                if (isDistributed) {
+                    combiner =
+                        DistributedAggregationCombiner.create(root, loadRange, bucketStrategy);
+                } else {
+                    combiner = AggregationCombiner.DEFAULT;
+                }
+
+                final List<AsyncFuture<QueryResultPart>> futures = new ArrayList<>();
 
                 for (final ClusterShard shard : shards) {
                     final Span shardSpan = tracer.spanBuilderWithExplicitParent(
@@ -293,15 +339,18 @@ public class CoreQueryManager implements QueryManager {
                     final QueryTrace.NamedWatch shardLocalWatch = shardWatch.extendIdentifier(
                         shard.getShard().toString());
 
-                    final AsyncFuture<QueryResultPart> queryPart = shard
-                        .apply(g ->
-                            g.query(request, shardSpan), getStoreTracesTransform(shardLocalWatch))
+                    final Optional<GroupStream> shardStream =
+                        shard.isDarkload() ? Optional.empty() : partStream;
+
+                    final AsyncFuture<QueryResultPart> queryPart = shardQuery
+                        .query(shard, loadRequest, shardSpan, shardLocalWatch)
                         .catchFailed(FullQuery.shardError(shardLocalWatch, shard))
                         .directTransform(fullQuery -> {
                             queryLogger.logIncomingResponseFromShard(queryContext, fullQuery);
                             return fullQuery;
                         })
                         .directTransform(QueryResultPart.fromResultGroup(shard))
+                        .directTransform(part -> shardStream.map(s -> s.emit(part)).orElse(part))
                         .onDone(new EndSpanFutureReporter(shardSpan));
 
                     if (!shard.isDarkload()) {
@@ -311,14 +360,26 @@ public class CoreQueryManager implements QueryManager {
                     }
                 }
 
-                final OptionalLimit limit = options.groupLimit().orElse(groupLimit);
+                shardQuery.sent();
 
                 return async.collect(futures,
-                    QueryResult.collectParts(QUERY, range, combiner, limit));
-            });
+                    QueryResult.collectParts(QUERY, loadRange, combiner, limit));
+            };
+
+            final AsyncFuture<QueryResult> query;
+
+            if (partStream.isPresent()) {
+                /* the groups are not kept, so there is nothing to cache */
+                query = loader.apply(range);
+            } else if (root.sliceable()) {
+                query = queryCache.loadIncremental(request, loader);
+            } else {
+                query = queryCache.load(request, () -> loader.apply(range));
+            }
 
 
           return query
+              .directTransform(result -> stream.map(s -> s.end(result)).orElse(result))
               .directTransform(result -> {
                   reportCompletedQuery(result, fullQueryWatch);
                   if (result.getErrors().size() > 0) {
@@ -334,6 +395,13 @@ public class CoreQueryManager implements QueryManager {
               .onDone(new EndSpanFutureReporter(rootSpan));
         }
 
+        private AsyncFuture<FullQuery> queryShard(
+            final ClusterShard shard, final FullQuery.Request request, final Span span,
+            final QueryTrace.NamedWatch watch
+        ) {
+            return shard.apply(g -> g.query(request, span), getStoreTracesTransform(watch));
+        }
+
         private void reportCompletedQuery(
             final QueryResult result, final Stopwatch fullQueryWatch
         ) {
@@ -468,6 +536,324 @@ public class CoreQueryManager implements QueryManager {
                 return fullQuery.withTrace(newTrace);
             };
         }
+
+        /**
+         * Holds back shard requests until executed, and then sends the requests to the same shard
+         * which share their fetch as a single batch.
+         * <p>
+         * If the query cache looks up results asynchronously, see {@link
+         * QueryCache#deferredLoads()}, requests are held back until every query in the batch has
+         * finished its cache lookup, so that requests loaded after a miss are batched as well.
+         */
+        private class Batch implements QueryManager.Batch {
+            private final List<PendingShardQuery> pending = new ArrayList<>();
+            /* number of queries whose cache lookup has not finished */
+            private int lookups = 0;
+            private boolean executed = false;
+            private boolean flushed = false;
+
+            @Override
+            public AsyncFuture<QueryResult> query(
+                final Query q, final QueryContext queryContext
+            ) {
+                final Lookup lookup = new Lookup();
+
+                synchronized (this) {
+                    lookups++;
+                }
+
+                final AsyncFuture<QueryResult> future;
+
+                try {
+                    future = Group.this.query(q, queryContext, lookup, Optional.empty());
+                } catch (final RuntimeException e) {
+                    lookup.finish();
+                    throw e;
+                }
+
+                if (queryCache.deferredLoads()) {
+                    future.onFinished(lookup::finish);
+                } else {
+                    lookup.finish();
+                }
+
+                return future;
+            }
+
+            @Override
+            public void execute() {
+                synchronized (this) {
+                    executed = true;
+
+                    if (!readyToFlush()) {
+                        return;
+                    }
+                }
+
+                flush();
+            }
+
+            private void lookupFinished() {
+                synchronized (this) {
+                    lookups--;
+
+                    if (!readyToFlush()) {
+                        return;
+                    }
+                }
+
+                flush();
+            }
+
+            /**
+             * Must be called while synchronized. Marks the batch as flushed if it is ready.
+             */
+            private boolean readyToFlush() {
+                if (!executed || lookups > 0 || flushed) {
+                    return false;
+                }
+
+                flushed = true;
+                return true;
+            }
+
+            private void flush() {
+                final List<PendingShardQuery> pending;
+
+                synchronized (this) {
+                    pending = new ArrayList<>(this.pending);
+                    this.pending.clear();
+                }
+
+                final Map<ClusterShard, List<PendingShardQuery>> byShard = new LinkedHashMap<>();
+
+                for (final PendingShardQuery p : pending) {
+                    byShard.computeIfAbsent(p.shard, s -> new ArrayList<>()).add(p);
+                }
+
+                for (final List<PendingShardQuery> shardQueries : byShard.values()) {
+                    for (final List<PendingShardQuery> shared : groupBySharedFetch(shardQueries)) {
+                        send(shared);
+                    }
+                }
+            }
+
+            private AsyncFuture<FullQuery> queryShard(
+                final ClusterShard shard, final FullQuery.Request request, final Span span,
+                final QueryTrace.NamedWatch watch
+            ) {
+                synchronized (this) {
+                    if (!flushed) {
+                        final ResolvableFuture<FullQuery> future = async.future();
+                        pending.add(new PendingShardQuery(shard, request, span, watch, future));
+                        return future;
+                    }
+                }
+
+                return Group.this.queryShard(shard, request, span, watch);
+            }
+
+            private List<List<PendingShardQuery>> groupBySharedFetch(
+                final List<PendingShardQuery> shardQueries
+            ) {
+                final List<List<PendingShardQuery>> groups = new ArrayList<>();
+
+                for (final PendingShardQuery p : shardQueries) {
+                    final Optional<List<PendingShardQuery>> group = groups
+                        .stream()
+                        .filter(g -> g.get(0).request.sharesFetch(p.request))
+                        .findFirst();
+
+                    if (group.isPresent()) {
+                        group.get().add(p);
+                    } else {
+                        groups.add(new ArrayList<>(ImmutableList.of(p)));
+                    }
+                }
+
+                return groups;
+            }
+
+            private void send(final List<PendingShardQuery> shared) {
+                final PendingShardQuery first = shared.get(0);
+
+                if (shared.size() == 1) {
+                    Group.this
+                        .queryShard(first.shard, first.request, first.span, first.watch)
+                        .directTransform(result -> ImmutableList.of(result))
+                        .onDone(complete(shared));
+                    return;
+                }
+
+                final List<FullQuery.Request> requests =
+                    ImmutableList.copyOf(Lists.transform(shared, p -> p.request));
+
+                first.shard.apply(g -> g.queryBatch(requests, first.span),
+                    (results, traces) -> {
+                        final List<FullQuery> withTraces = new ArrayList<>(results.size());
+
+                        for (int i = 0; i < results.size(); i++) {
+                            withTraces.add(getStoreTracesTransform(shared.get(i).watch).apply(
+                                results.get(i), traces));
+                        }
+
+                        return withTraces;
+                    }).onDone(complete(shared));
+            }
+
+            /**
+             * Tracks the cache lookup of a single query in the batch.
+             */
+            private class Lookup implements ShardQuery {
+                private final AtomicBoolean finished = new AtomicBoolean();
+
+                @Override
+                public AsyncFuture<FullQuery> query(
+                    final ClusterShard shard, final FullQuery.Request request, final Span span,
+                    final QueryTrace.NamedWatch watch
+                ) {
+                    return queryShard(shard, request, span, watch);
+                }
+
+                @Override
+                public void sent() {
+                    /* a deferred load is only invoked once the lookup has missed */
+                    if (queryCache.deferredLoads()) {
+                        finish();
+                    }
+                }
+
+                private void finish() {
+                    if (finished.compareAndSet(false, true)) {
+                        lookupFinished();
+                    }
+                }
+            }
+
+            private FutureDone<List<FullQuery>> complete(final List<PendingShardQuery> shared) {
+                return new FutureDone<List<FullQuery>>() {
+                    @Override
+                    public void resolved(final List<FullQuery> results) {
+                        for (int i = 0; i < results.size(); i++) {
+                            shared.get(i).future.resolve(results.get(i));
+                        }
+                    }
+
+                    @Override
+                    public void failed(final Throwable cause) {
+                        shared.forEach(p -> p.future.fail(cause));
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        shared.forEach(p -> p.future.cancel());
+                    }
+                };
+            }
+        }
+    }
+
+    /**
+     * Hands the result groups of a streamed query to its consumer, up to the group limit.
+     */
+    private static class GroupStream {
+        private final Consumer<List<ShardedResultGroup>> consumer;
+        private final OptionalLimit limit;
+
+        private long count = 0;
+
+        private GroupStream(
+            final Consumer<List<ShardedResultGroup>> consumer, final OptionalLimit limit
+        ) {
+            this.consumer = consumer;
+            this.limit = limit;
+        }
+
+        /**
+         * Emit the groups of a shard.
+         *
+         * @return The part without its groups.
+         */
+        QueryResultPart emit(final QueryResultPart part) {
+            /* parts without data are left out of collected results as well */
+            if (!part.isEmpty()) {
+                emit(part.getGroups());
+            }
+
+            return new QueryResultPart(ImmutableList.of(), part.getErrors(),
+                part.getQueryTrace(), part.getLimits(), part.getPreAggregationSampleSize());
+        }
+
+        /**
+         * Emit any groups left in the result, and mark it as limited if the group limit was hit.
+         *
+         * @return The result without its groups.
+         */
+        QueryResult end(final QueryResult result) {
+            emit(result.getGroups());
+
+            final ImmutableSet.Builder<ResultLimit> limits =
+                ImmutableSet.<ResultLimit>builder().addAll(result.getLimits().getLimits());
+
+            synchronized (this) {
+                if (limit.isGreaterOrEqual(count)) {
+                    limits.add(ResultLimit.GROUP);
+                }
+            }
+
+            return new QueryResult(result.getRange(), ImmutableList.of(), result.getErrors(),
+                result.getTrace(), new ResultLimits(limits.build()),
+                result.getPreAggregationSampleSize(), result.getCache());
+        }
+
+        private synchronized void emit(final List<ShardedResultGroup> groups) {
+            final List<ShardedResultGroup> emitted = new ArrayList<>(groups.size());
+
+            for (final ShardedResultGroup group : groups) {
+                if (limit.isGreaterOrEqual(count)) {
+                    break;
+                }
+
+                emitted.add(group);
+                count++;
+            }
+
+            if (!emitted.isEmpty()) {
+                consumer.accept(emitted);
+            }
+        }
+    }
+
+    private static class PendingShardQuery {
+        private final ClusterShard shard;
+        private final FullQuery.Request request;
+        private final Span span;
+        private final QueryTrace.NamedWatch watch;
+        private final ResolvableFuture<FullQuery> future;
+
+        private PendingShardQuery(
+            final ClusterShard shard, final FullQuery.Request request, final Span span,
+            final QueryTrace.NamedWatch watch, final ResolvableFuture<FullQuery> future
+        ) {
+            this.shard = shard;
+            this.request = request;
+            this.span = span;
+            this.watch = watch;
+            this.future = future;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ShardQuery {
+        AsyncFuture<FullQuery> query(
+            ClusterShard shard, FullQuery.Request request, Span span, QueryTrace.NamedWatch watch
+        );
+
+        /**
+         * Called each time a load has sent its requests to every shard.
+         */
+        default void sent() {
+        }
     }
 
     private Features requestFeatures(final Query q, final QueryContext context) {
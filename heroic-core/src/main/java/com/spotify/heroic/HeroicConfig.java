@@ -98,6 +98,7 @@ public abstract class HeroicConfig {
         Optional<ConditionalFeatures> conditionalFeatures,
         TracingConfig tracing,
         UsageTrackingModule usageTracking,
+        Optional<Long> seriesInternerSize,
         String version,
         String service,
         String commit
@@ -105,7 +106,8 @@ public abstract class HeroicConfig {
         return new AutoValue_HeroicConfig(id, startTimeout, stopTimeout, host, port, connectors,
             enableCors, corsAllowOrigin, features, cluster, metric, metadata,
             suggest, cache, ingestion, consumers, shellServer, analytics, generator, statistics,
-            queryLogging, conditionalFeatures, tracing, usageTracking, version, service, commit);
+            queryLogging, conditionalFeatures, tracing, usageTracking, seriesInternerSize, version,
+            service, commit);
     }
 
     private static final org.slf4j.Logger log = LoggerFactory.getLogger(HeroicConfig.class);
@@ -154,6 +156,11 @@ public abstract class HeroicConfig {
     public abstract TracingConfig tracing();
     public abstract UsageTrackingModule usageTracking();
 
+    /**
+     * The maximum number of series to intern, interning is disabled if absent.
+     */
+    public abstract Optional<Long> seriesInternerSize();
+
     public abstract String version();
     public abstract String service();
     public abstract String commit();
@@ -234,6 +241,7 @@ public abstract class HeroicConfig {
         private Optional<ConditionalFeatures> conditionalFeatures = empty();
         private Optional<TracingConfig> tracing = empty();
         private Optional<UsageTrackingModule.Builder> usageTracking = empty();
+        private Optional<Long> seriesInternerSize = empty();
 
         private Optional<String> version = empty();
         private Optional<String> service = empty();
@@ -267,6 +275,7 @@ public abstract class HeroicConfig {
             @JsonProperty("conditionalFeatures") Optional<ConditionalFeatures> conditionalFeatures,
             @JsonProperty("tracing") Optional<TracingConfig> tracing,
             @JsonProperty("usageTracking") Optional<UsageTrackingModule.Builder> usageTracking,
+            @JsonProperty("seriesInternerSize") Optional<Long> seriesInternerSize,
             @JsonProperty("version") Optional<String> version,
             @JsonProperty("service") Optional<String> service
         ) {
@@ -294,6 +303,7 @@ public abstract class HeroicConfig {
             this.conditionalFeatures = conditionalFeatures;
             this.tracing = tracing;
             this.usageTracking = usageTracking;
+            this.seriesInternerSize = seriesInternerSize;
             this.version = version;
             this.service = service;
         }
@@ -399,6 +409,11 @@ public abstract class HeroicConfig {
             return this;
         }
 
+        public Builder seriesInternerSize(long seriesInternerSize) {
+            this.seriesInternerSize = of(seriesInternerSize);
+            return this;
+        }
+
         public Builder merge(Builder o) {
             // @formatter:off
             return new Builder(
@@ -426,6 +441,7 @@ public abstract class HeroicConfig {
                 pickOptional(conditionalFeatures, o.conditionalFeatures),
                 pickOptional(tracing, o.tracing),
                 pickOptional(usageTracking, o.usageTracking),
+                pickOptional(seriesInternerSize, o.seriesInternerSize),
                 pickOptional(version, o.version),
                 pickOptional(service, o.service)
             );
@@ -471,6 +487,7 @@ public abstract class HeroicConfig {
                 usageTracking.orElseGet(GoogleAnalyticsModule.Builder::new)
                     .version(version, commit)
                     .build(),
+                seriesInternerSize,
                 version,
                 service.orElse(DEFAULT_SERVICE),
                 commit
@@ -464,7 +464,7 @@ public class HeroicCore implements HeroicConfiguration {
             .builder()
             .coreEarlyComponent(early)
             .primaryModule(new PrimaryModule(instance, config.features(), reporter,
-                config.conditionalFeature()))
+                config.conditionalFeature(), config.seriesInternerSize()))
             .build();
 
         final QueryLoggingComponent queryLogging = config.queryLogging().component(primary);
@@ -53,6 +53,8 @@ import com.spotify.heroic.metric.MetricModule;
 import com.spotify.heroic.metric.MetricType;
 import com.spotify.heroic.metric.MetricTypeSerialization;
 import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointArray;
+import com.spotify.heroic.metric.PointArraySerialization;
 import com.spotify.heroic.metric.PointSerialization;
 import com.spotify.heroic.metric.Spread;
 import com.spotify.heroic.metric.SpreadSerialization;
@@ -139,6 +141,9 @@ public final class HeroicMappers {
         module.addSerializer(Point.class, new PointSerialization.Serializer());
         module.addDeserializer(Point.class, new PointSerialization.Deserializer());
 
+        module.addSerializer(PointArray.class, new PointArraySerialization.Serializer());
+        module.addDeserializer(PointArray.class, new PointArraySerialization.Deserializer());
+
         module.addSerializer(Spread.class, new SpreadSerialization.Serializer());
         module.addDeserializer(Spread.class, new SpreadSerialization.Deserializer());
 
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.cache.memcached;
+
+import static com.spotify.heroic.metric.MetricSerializer.readMap;
+import static com.spotify.heroic.metric.MetricSerializer.readMetrics;
+import static com.spotify.heroic.metric.MetricSerializer.readSeries;
+import static com.spotify.heroic.metric.MetricSerializer.readString;
+import static com.spotify.heroic.metric.MetricSerializer.readVarInt;
+import static com.spotify.heroic.metric.MetricSerializer.writeMap;
+import static com.spotify.heroic.metric.MetricSerializer.writeMetrics;
+import static com.spotify.heroic.metric.MetricSerializer.writeSeries;
+import static com.spotify.heroic.metric.MetricSerializer.writeString;
+import static com.spotify.heroic.metric.MetricSerializer.writeVarInt;
+
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.MetricSerializer;
+import com.spotify.heroic.metric.ResultLimit;
+import com.spotify.heroic.metric.ResultLimits;
+import com.spotify.heroic.metric.ShardedResultGroup;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.xerial.snappy.Snappy;
+
+/**
+ * Compact, versioned binary encoding of {@link CachedResult}.
+ * <p>
+ * Metrics are encoded with {@link MetricSerializer}. Payloads larger than
+ * {@link #COMPRESSION_THRESHOLD} are compressed with Snappy.
+ * <p>
+ * The encoding starts with a version byte, which must be bumped whenever the layout changes.
+ */
+public final class CachedResultSerializer {
+    static final byte VERSION = 1;
+
+    static final int COMPRESSION_THRESHOLD = 1024;
+
+    private static final byte FLAG_SNAPPY = 0x1;
+
+    private CachedResultSerializer() {
+    }
+
+    public static byte[] serialize(final CachedResult result) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+
+        writeRange(out, result.getRange());
+        out.writeLong(result.getPreAggregationSampleSize());
+
+        final Set<ResultLimit> limits =
+            result.getLimits() == null ? EnumSet.noneOf(ResultLimit.class)
+                : result.getLimits().getLimits();
+        writeVarInt(out, limits.size());
+
+        for (final ResultLimit limit : limits) {
+            writeString(out, limit.name());
+        }
+
+        final List<ShardedResultGroup> groups = result.getGroups();
+        writeVarInt(out, groups == null ? 0 : groups.size());
+
+        if (groups != null) {
+            for (final ShardedResultGroup group : groups) {
+                writeGroup(out, group);
+            }
+        }
+
+        out.flush();
+
+        byte[] payload = bytes.toByteArray();
+        byte flags = 0;
+
+        if (payload.length > COMPRESSION_THRESHOLD) {
+            payload = Snappy.compress(payload);
+            flags |= FLAG_SNAPPY;
+        }
+
+        final byte[] encoded = new byte[payload.length + 2];
+        encoded[0] = VERSION;
+        encoded[1] = flags;
+        System.arraycopy(payload, 0, encoded, 2, payload.length);
+        return encoded;
+    }
+
+    public static CachedResult deserialize(final byte[] encoded) throws IOException {
+        if (encoded.length < 2) {
+            throw new IOException("truncated cached result");
+        }
+
+        if (encoded[0] != VERSION) {
+            throw new IOException("unsupported cached result version: " + encoded[0]);
+        }
+
+        byte[] payload = new byte[encoded.length - 2];
+        System.arraycopy(encoded, 2, payload, 0, payload.length);
+
+        if ((encoded[1] & FLAG_SNAPPY) != 0) {
+            payload = Snappy.uncompress(payload);
+        }
+
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+
+        final DateRange range = readRange(in);
+        final long preAggregationSampleSize = in.readLong();
+
+        final int limitCount = readVarInt(in);
+        final Set<ResultLimit> limits = EnumSet.noneOf(ResultLimit.class);
+
+        for (int i = 0; i < limitCount; i++) {
+            limits.add(ResultLimit.valueOf(readString(in)));
+        }
+
+        final int groupCount = readVarInt(in);
+        final List<ShardedResultGroup> groups = new ArrayList<>(groupCount);
+
+        for (int i = 0; i < groupCount; i++) {
+            groups.add(readGroup(in));
+        }
+
+        return new CachedResult(range, groups, preAggregationSampleSize, new ResultLimits(limits));
+    }
+
+    private static void writeGroup(
+        final DataOutputStream out, final ShardedResultGroup group
+    ) throws IOException {
+        writeMap(out, group.getShard());
+        writeMap(out, group.getKey());
+        writeVarInt(out, group.getSeries().size());
+
+        for (final Series series : group.getSeries()) {
+            writeSeries(out, series);
+        }
+
+        out.writeLong(group.getCadence());
+        writeMetrics(out, group.getMetrics());
+    }
+
+    private static ShardedResultGroup readGroup(final DataInputStream in) throws IOException {
+        final Map<String, String> shard = readMap(in);
+        final Map<String, String> key = readMap(in);
+        final int seriesCount = readVarInt(in);
+        final Set<Series> series = new HashSet<>(seriesCount);
+
+        for (int i = 0; i < seriesCount; i++) {
+            series.add(readSeries(in));
+        }
+
+        final long cadence = in.readLong();
+        return new ShardedResultGroup(shard, key, series, readMetrics(in), cadence);
+    }
+
+    private static void writeRange(
+        final DataOutputStream out, final DateRange range
+    ) throws IOException {
+        out.writeBoolean(range != null);
+
+        if (range != null) {
+            out.writeLong(range.start());
+            out.writeLong(range.end());
+        }
+    }
+
+    private static DateRange readRange(final DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+
+        return new DateRange(in.readLong(), in.readLong());
+    }
+}
@@ -53,10 +53,14 @@ public class MemcachedCacheModule implements CacheModule {
 
     private final List<String> addresses;
     private final Optional<Duration> maxTtl;
+    private final boolean legacyLookup;
 
-    public MemcachedCacheModule(final List<String> addresses, final Optional<Duration> maxTtl) {
+    public MemcachedCacheModule(
+        final List<String> addresses, final Optional<Duration> maxTtl, final boolean legacyLookup
+    ) {
         this.addresses = addresses;
         this.maxTtl = maxTtl;
+        this.legacyLookup = legacyLookup;
     }
 
     @Override
@@ -135,6 +139,13 @@ public class MemcachedCacheModule implements CacheModule {
         return maxTtl;
     }
 
+    @Provides
+    @Named("legacyLookup")
+    @CacheScope
+    public boolean legacyLookup() {
+        return legacyLookup;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -142,6 +153,7 @@ public class MemcachedCacheModule implements CacheModule {
     public static class Builder implements CacheModule.Builder {
         private Optional<List<String>> addresses = Optional.empty();
         private Optional<Duration> maxTtl = Optional.empty();
+        private Optional<Boolean> legacyLookup = Optional.empty();
 
         public Builder() {
         }
@@ -149,10 +161,12 @@ public class MemcachedCacheModule implements CacheModule {
         @JsonCreator
         public Builder(
             @JsonProperty("addresses") final Optional<List<String>> addresses,
-            @JsonProperty("maxTtl") Optional<Duration> maxTtl
+            @JsonProperty("maxTtl") Optional<Duration> maxTtl,
+            @JsonProperty("legacyLookup") Optional<Boolean> legacyLookup
         ) {
             this.addresses = addresses;
             this.maxTtl = maxTtl;
+            this.legacyLookup = legacyLookup;
         }
 
         public Builder addresses(final List<String> addresses) {
@@ -165,11 +179,16 @@ public class MemcachedCacheModule implements CacheModule {
             return this;
         }
 
+        public Builder legacyLookup(final boolean legacyLookup) {
+            this.legacyLookup = Optional.of(legacyLookup);
+            return this;
+        }
+
         @Override
         public CacheModule build() {
             final List<String> addresses =
                 this.addresses.orElseGet(() -> Collections.singletonList(DEFAULT_ADDRESS));
-            return new MemcachedCacheModule(addresses, maxTtl);
+            return new MemcachedCacheModule(addresses, maxTtl, legacyLookup.orElse(false));
         }
     }
 }
@@ -45,20 +45,29 @@ import eu.toolchain.async.FutureDone;
 import eu.toolchain.async.Managed;
 import eu.toolchain.async.ResolvableFuture;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.util.Optional;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 import javax.inject.Inject;
 import javax.inject.Named;
 import org.slf4j.Logger;
 
+/**
+ * Query cache backed by memcached.
+ * <p>
+ * Results are stored using {@link CachedResultSerializer} under the {@code query.bin/} prefix.
+ * If {@code legacyLookup} is enabled, entries written by earlier versions as gzip'd JSON under
+ * {@code query.gz/} are read on a miss, until {@code maxTtl} has passed since startup and they
+ * have all expired. Encoding and decoding happens on the async framework's executor, and not on
+ * the memcached client's event thread.
+ */
 @CacheScope
 public class MemcachedQueryCache implements QueryCache {
-    private static final String PREFIX = "query.gz/";
+    private static final String PREFIX = "query.bin/";
+    private static final String LEGACY_PREFIX = "query.gz/";
 
     private static final QueryTrace.Identifier IDENTIFIER =
         QueryTrace.identifier(MemcachedQueryCache.class);
@@ -71,6 +80,8 @@ public class MemcachedQueryCache implements QueryCache {
     private final AsyncFramework async;
     private final Clock clock;
     private final Optional<Integer> maxTtlSeconds;
+    /* legacy entries are looked up before this time, in milliseconds */
+    private final long legacyLookupUntil;
 
     @Inject
     public MemcachedQueryCache(
@@ -78,13 +89,22 @@ public class MemcachedQueryCache implements QueryCache {
         @Named(HeroicMappers.APPLICATION_JSON_INTERNAL) final ObjectMapper mapper,
         final AsyncFramework async,
         final Clock clock,
-        @Named("maxTtl") final Optional<Duration> maxTtl
+        @Named("maxTtl") final Optional<Duration> maxTtl,
+        @Named("legacyLookup") final boolean legacyLookup
     ) {
         this.client = client;
         this.mapper = mapper;
         this.async = async;
         this.clock = clock;
         this.maxTtlSeconds = maxTtl.map(d -> (int) d.convert(TimeUnit.SECONDS));
+
+        if (legacyLookup) {
+            final long now = clock.currentTimeMillis();
+            this.legacyLookupUntil =
+                maxTtl.map(d -> now + d.toMilliseconds()).orElse(Long.MAX_VALUE);
+        } else {
+            this.legacyLookupUntil = Long.MIN_VALUE;
+        }
     }
 
     @Override
@@ -108,7 +128,7 @@ public class MemcachedQueryCache implements QueryCache {
             return loader.get();
         }
 
-        final String key = buildCacheKey(request);
+        final String key = buildCacheKey(PREFIX, request);
 
         final QueryTrace.NamedWatch watch =
             request.options().tracing().watch(IDENTIFIER.extend(key));
@@ -120,21 +140,79 @@ public class MemcachedQueryCache implements QueryCache {
 
             client.get(key).toCompletableFuture().thenAccept(result -> {
                 if (result == null) {
-                    cacheSet(future, loader, key, cadence);
+                    if (clock.currentTimeMillis() < legacyLookupUntil) {
+                        legacyLookup(client, future, loader, key,
+                            buildCacheKey(LEGACY_PREFIX, request), cadence, watch);
+                    } else {
+                        cacheSet(future, loader, key, cadence);
+                    }
+
                     return;
                 }
-                final CachedResult cachedResult;
 
+                decode(future, loader, key, cadence, watch,
+                    () -> CachedResultSerializer.deserialize(result));
+            }).exceptionally(t -> {
+                log.error("{}: failed to load value from cache", key, t);
+                // fallback to regular request
+                cacheSet(future, loader, key, cadence);
+                return null;
+            });
+            return future;
+        });
+    }
+
+    @Override
+    public boolean deferredLoads() {
+        return true;
+    }
+
+    /**
+     * Look up a value stored by an earlier version of the cache, before falling back to loading
+     * the value.
+     */
+    private void legacyLookup(
+        final MemcacheClient<byte[]> client, final ResolvableFuture<QueryResult> future,
+        final Supplier<AsyncFuture<QueryResult>> loader, final String key, final String legacyKey,
+        final long cadence, final QueryTrace.NamedWatch watch
+    ) {
+        client.get(legacyKey).toCompletableFuture().thenAccept(result -> {
+            if (result == null) {
+                cacheSet(future, loader, key, cadence);
+                return;
+            }
+
+            decode(future, loader, key, cadence, watch, () -> {
                 try (final InputStream input = new GZIPInputStream(
                     new ByteArrayInputStream(result))) {
-                    cachedResult = mapper.readValue(input, CachedResult.class);
-                } catch (final Exception e) {
-                    log.error("{}: failed to deserialize value from cache", key, e);
-                    // fallback to regular request
-                    cacheSet(future, loader, key, cadence);
-                    return;
+                    return mapper.readValue(input, CachedResult.class);
                 }
+            });
+        }).exceptionally(t -> {
+            log.error("{}: failed to load legacy value from cache", legacyKey, t);
+            cacheSet(future, loader, key, cadence);
+            return null;
+        });
+    }
 
+    /**
+     * Decode a cached value on the async executor, and resolve the future with it.
+     */
+    private void decode(
+        final ResolvableFuture<QueryResult> future,
+        final Supplier<AsyncFuture<QueryResult>> loader, final String key, final long cadence,
+        final QueryTrace.NamedWatch watch, final Callable<CachedResult> decoder
+    ) {
+        async.call(decoder).onDone(new FutureDone<CachedResult>() {
+            @Override
+            public void failed(final Throwable cause) throws Exception {
+                log.error("{}: failed to deserialize value from cache", key, cause);
+                // fallback to regular request
+                cacheSet(future, loader, key, cadence);
+            }
+
+            @Override
+            public void resolved(final CachedResult cachedResult) throws Exception {
                 final int ttl = calculateTtl(cadence);
                 final CacheInfo cache = new CacheInfo(true, ttl, key);
 
@@ -144,13 +222,12 @@ public class MemcachedQueryCache implements QueryCache {
                         cachedResult.getPreAggregationSampleSize(), Optional.of(cache));
 
                 future.resolve(queryResult);
-            }).exceptionally(t -> {
-                log.error("{}: failed to load value from cache", key, t);
-                // fallback to regular request
-                cacheSet(future, loader, key, cadence);
-                return null;
-            });
-            return future;
+            }
+
+            @Override
+            public void cancelled() throws Exception {
+                future.cancel();
+            }
         });
     }
 
@@ -205,17 +282,25 @@ public class MemcachedQueryCache implements QueryCache {
             new CachedResult(queryResult.getRange(), queryResult.getGroups(),
                 queryResult.getPreAggregationSampleSize(), queryResult.getLimits());
 
-        final ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
+        async.call(() -> CachedResultSerializer.serialize(cachedResult)).onDone(
+            new FutureDone<byte[]>() {
+                @Override
+                public void failed(final Throwable cause) throws Exception {
+                    log.error("failed to serialize cached results", cause);
+                }
 
-        try (final GZIPOutputStream out = new GZIPOutputStream(bytesOut)) {
-            mapper.writeValue(out, cachedResult);
-        } catch (final Exception e) {
-            log.error("failed to serialize cached results", e);
-            return;
-        }
+                @Override
+                public void resolved(final byte[] bytes) throws Exception {
+                    store(key, ttl, bytes);
+                }
 
-        final byte[] bytes = bytesOut.toByteArray();
+                @Override
+                public void cancelled() throws Exception {
+                }
+            });
+    }
 
+    private void store(final String key, final int ttl, final byte[] bytes) {
         final Borrowed<MemcacheClient<byte[]>> borrowed = client.borrow();
 
         if (!borrowed.isValid()) {
@@ -243,9 +328,9 @@ public class MemcachedQueryCache implements QueryCache {
         return maxTtlSeconds.map(max -> Math.min(max, candidate)).orElse(candidate);
     }
 
-    private String buildCacheKey(final FullQuery.Request request) {
+    private String buildCacheKey(final String prefix, final FullQuery.Request request) {
         final Hasher hasher = HASH_FUNCTION.newHasher();
         request.hashTo(new ObjectHasher(hasher));
-        return PREFIX + hasher.hash().toString();
+        return prefix + hasher.hash().toString();
     }
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.cache.memory;
+
+/**
+ * A count-min sketch of 4-bit counters, estimating how often a key has been requested.
+ * <p>
+ * This is the frequency filter used for TinyLFU-style admission in {@link MemoryQueryCache}.
+ * Counters are periodically halved, so that the estimate favors recent popularity over all-time
+ * popularity.
+ * <p>
+ * Updates are deliberately not atomic. Increments lost under contention only make the estimate
+ * slightly lower, which is acceptable for admission decisions and keeps the sketch off the hot
+ * path's critical section.
+ */
+class FrequencySketch {
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+
+    private int additions = 0;
+
+    /**
+     * Create a new sketch.
+     *
+     * @param expectedEntries the number of entries the sketch should be able to tell apart
+     */
+    FrequencySketch(final int expectedEntries) {
+        final int size = Integer.highestOneBit(Math.max(expectedEntries, 16) - 1) << 1;
+        this.table = new long[size];
+        this.tableMask = size - 1;
+        this.sampleSize = 10 * size;
+    }
+
+    /**
+     * Record an access to the given key.
+     */
+    void increment(final long key) {
+        final int start = (spread(key) & 3) << 2;
+        boolean added = false;
+
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(key, i), start + i);
+        }
+
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * Estimate how many times the given key has been accessed recently, saturating at 15.
+     */
+    int frequency(final long key) {
+        final int start = (spread(key) & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+
+        for (int i = 0; i < 4; i++) {
+            final int offset = (start + i) << 2;
+            final int count = (int) ((table[indexOf(key, i)] >>> offset) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+
+        return frequency;
+    }
+
+    private boolean incrementAt(final int index, final int counter) {
+        final int offset = counter << 2;
+        final long mask = 0xfL << offset;
+
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+
+        return false;
+    }
+
+    private int indexOf(final long key, final int depth) {
+        long hash = (key + SEEDS[depth]) * SEEDS[depth];
+        hash += hash >>> 32;
+        return ((int) hash) & tableMask;
+    }
+
+    /**
+     * Halve all counters, so that old accesses gradually stop counting.
+     */
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+
+        additions = additions >>> 1;
+    }
+
+    private static int spread(final long key) {
+        long x = key;
+        x = (x ^ (x >>> 33)) * 0xff51afd7ed558ccdL;
+        x = x ^ (x >>> 33);
+        return (int) x;
+    }
+}
@@ -21,33 +21,143 @@
 
 package com.spotify.heroic.cache.memory;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.spotify.heroic.cache.CacheComponent;
 import com.spotify.heroic.cache.CacheModule;
 import com.spotify.heroic.cache.CacheScope;
+import com.spotify.heroic.common.Duration;
 import com.spotify.heroic.dagger.PrimaryComponent;
+import com.spotify.heroic.statistics.HeroicReporter;
+import com.spotify.heroic.statistics.QueryReporter;
 import dagger.Component;
+import dagger.Module;
+import dagger.Provides;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Named;
 
+@Module
 public class MemoryCacheModule implements CacheModule {
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024L * 1024L;
+    public static final Duration DEFAULT_SLICE_TTL = Duration.of(1, TimeUnit.HOURS);
+    public static final Duration DEFAULT_SLICE_DELAY = Duration.of(5, TimeUnit.MINUTES);
+
+    private final long maxBytes;
+    private final Optional<Duration> sliceSize;
+    private final Duration sliceTtl;
+    private final Duration sliceDelay;
+
+    public MemoryCacheModule(
+        final long maxBytes, final Optional<Duration> sliceSize, final Duration sliceTtl,
+        final Duration sliceDelay
+    ) {
+        this.maxBytes = maxBytes;
+        this.sliceSize = sliceSize;
+        this.sliceTtl = sliceTtl;
+        this.sliceDelay = sliceDelay;
+    }
+
     @Override
     public CacheComponent module(PrimaryComponent primary) {
-        return DaggerMemoryCacheModule_C.builder().primaryComponent(primary).build();
+        return DaggerMemoryCacheModule_C
+            .builder()
+            .primaryComponent(primary)
+            .memoryCacheModule(this)
+            .build();
     }
 
     @CacheScope
-    @Component(dependencies = PrimaryComponent.class)
+    @Component(modules = MemoryCacheModule.class, dependencies = PrimaryComponent.class)
     interface C extends CacheComponent {
         @Override
         MemoryQueryCache queryCache();
     }
 
+    @Provides
+    @Named("maxBytes")
+    @CacheScope
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    @Provides
+    @Named("sliceSize")
+    @CacheScope
+    public Optional<Duration> sliceSize() {
+        return sliceSize;
+    }
+
+    @Provides
+    @Named("sliceTtl")
+    @CacheScope
+    public Duration sliceTtl() {
+        return sliceTtl;
+    }
+
+    @Provides
+    @Named("sliceDelay")
+    @CacheScope
+    public Duration sliceDelay() {
+        return sliceDelay;
+    }
+
+    @Provides
+    @CacheScope
+    public QueryReporter queryReporter(final HeroicReporter heroicReporter) {
+        return heroicReporter.newQueryReporter();
+    }
+
     public static Builder builder() {
         return new Builder();
     }
 
     public static class Builder implements CacheModule.Builder {
+        private Optional<Long> maxBytes = Optional.empty();
+        private Optional<Duration> sliceSize = Optional.empty();
+        private Optional<Duration> sliceTtl = Optional.empty();
+        private Optional<Duration> sliceDelay = Optional.empty();
+
+        public Builder() {
+        }
+
+        @JsonCreator
+        public Builder(
+            @JsonProperty("maxBytes") final Optional<Long> maxBytes,
+            @JsonProperty("sliceSize") final Optional<Duration> sliceSize,
+            @JsonProperty("sliceTtl") final Optional<Duration> sliceTtl,
+            @JsonProperty("sliceDelay") final Optional<Duration> sliceDelay
+        ) {
+            this.maxBytes = maxBytes;
+            this.sliceSize = sliceSize;
+            this.sliceTtl = sliceTtl;
+            this.sliceDelay = sliceDelay;
+        }
+
+        public Builder maxBytes(final long maxBytes) {
+            this.maxBytes = Optional.of(maxBytes);
+            return this;
+        }
+
+        public Builder sliceSize(final Duration sliceSize) {
+            this.sliceSize = Optional.of(sliceSize);
+            return this;
+        }
+
+        public Builder sliceTtl(final Duration sliceTtl) {
+            this.sliceTtl = Optional.of(sliceTtl);
+            return this;
+        }
+
+        public Builder sliceDelay(final Duration sliceDelay) {
+            this.sliceDelay = Optional.of(sliceDelay);
+            return this;
+        }
+
         @Override
         public CacheModule build() {
-            return new MemoryCacheModule();
+            return new MemoryCacheModule(maxBytes.orElse(DEFAULT_MAX_BYTES), sliceSize,
+                sliceTtl.orElse(DEFAULT_SLICE_TTL), sliceDelay.orElse(DEFAULT_SLICE_DELAY));
         }
     }
 }
@@ -21,58 +21,586 @@
 
 package com.spotify.heroic.cache.memory;
 
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.spotify.heroic.ObjectHasher;
 import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.aggregation.BucketStrategy;
 import com.spotify.heroic.cache.CacheScope;
 import com.spotify.heroic.cache.QueryCache;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Duration;
 import com.spotify.heroic.metric.FullQuery;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.Payload;
 import com.spotify.heroic.metric.QueryResult;
+import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.ShardedResultGroup;
+import com.spotify.heroic.statistics.QueryReporter;
+import com.spotify.heroic.time.Clock;
+import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
-import net.jodah.expiringmap.ExpirationPolicy;
-import net.jodah.expiringmap.ExpiringMap;
-
-import javax.inject.Inject;
-import java.util.concurrent.TimeUnit;
+import eu.toolchain.async.FutureDone;
+import eu.toolchain.async.ResolvableFuture;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import javax.inject.Inject;
+import javax.inject.Named;
 
+/**
+ * An in-memory query cache, bounded by the estimated size of the results it holds.
+ * <p>
+ * Loads are single-flight per query: concurrent requests for the same query share one pending
+ * future, without any lock being held across queries. Only successful results without errors are
+ * retained, failed or cancelled loads are dropped as soon as they complete.
+ * <p>
+ * When the cache grows beyond its size bound, victims are picked in insertion order with a second
+ * chance for recently read entries. A new result is only admitted over a victim if it has been
+ * requested at least as often recently, as estimated by a {@link FrequencySketch}.
+ * <p>
+ * If a slice size is configured, incremental loads store results in time slices aligned to a
+ * multiple of the aggregation cadence. Only the parts of a range that are not covered by cached
+ * slices are queried, typically the head and tail of a sliding dashboard window. Slices are only
+ * cached once they are older than the slice delay, since recent data might still be arriving, and
+ * are reloaded after the slice ttl to pick up late writes.
+ */
 @CacheScope
 public class MemoryQueryCache implements QueryCache {
-    private final ExpiringMap<FullQuery.Request, AsyncFuture<QueryResult>> cache;
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+    private static final QueryTrace.Identifier IDENTIFIER =
+        QueryTrace.identifier(MemoryQueryCache.class);
+
+    /**
+     * Distinguishes slice keys from the keys of full results over the same range.
+     */
+    private static final int SLICE_MARKER = 1;
 
-    private final Object lock = new Object();
+    /**
+     * Rough estimate of the average size of a cached result, used to size the frequency sketch.
+     */
+    private static final long EXPECTED_ENTRY_BYTES = 64 * 1024;
+    private static final int MAX_SKETCH_ENTRIES = 1 << 20;
+
+    private static final long GROUP_OVERHEAD_BYTES = 256;
+    private static final long SERIES_BYTES = 128;
+    private static final long POINT_BYTES = 16;
+    private static final long METRIC_BYTES = 64;
+
+    private final AsyncFramework async;
+    private final Clock clock;
+    private final QueryReporter reporter;
+    private final long maxBytes;
+    private final long sliceSize;
+    private final long sliceTtl;
+    private final long sliceDelay;
+
+    private final ConcurrentHashMap<HashCode, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> order = new ConcurrentLinkedQueue<>();
+    private final AtomicLong bytes = new AtomicLong();
+    private final FrequencySketch sketch;
 
     @Inject
-    public MemoryQueryCache() {
-        this.cache = ExpiringMap.builder().variableExpiration().build();
+    public MemoryQueryCache(
+        final AsyncFramework async, final Clock clock, final QueryReporter reporter,
+        @Named("maxBytes") final long maxBytes,
+        @Named("sliceSize") final Optional<Duration> sliceSize,
+        @Named("sliceTtl") final Duration sliceTtl,
+        @Named("sliceDelay") final Duration sliceDelay
+    ) {
+        this.async = async;
+        this.clock = clock;
+        this.reporter = reporter;
+        this.maxBytes = maxBytes;
+        this.sliceSize = sliceSize.map(Duration::toMilliseconds).orElse(0L);
+        this.sliceTtl = sliceTtl.toMilliseconds();
+        this.sliceDelay = sliceDelay.toMilliseconds();
+        this.sketch = new FrequencySketch(
+            (int) Math.min(Math.max(maxBytes / EXPECTED_ENTRY_BYTES, 1), MAX_SKETCH_ENTRIES));
     }
 
     @Override
     public AsyncFuture<QueryResult> load(
         FullQuery.Request request, Supplier<AsyncFuture<QueryResult>> loader
     ) {
-        final AggregationInstance aggregation = request.aggregation();
+        final long cadence = request.aggregation().cadence();
 
         /* can't be cached :( */
-        if (aggregation.cadence() <= 0) {
+        if (cadence <= 0) {
             return loader.get();
         }
 
-        final AsyncFuture<QueryResult> result = cache.get(request);
+        final HashCode key = buildCacheKey(request);
+        final long now = clock.currentTimeMillis();
+
+        sketch.increment(key.asLong());
+
+        final Entry current = entries.get(key);
+
+        if (current != null) {
+            if (!current.isExpired(now)) {
+                current.access(now);
+                reporter.reportCacheHit();
+                return current.future;
+            }
+
+            remove(current);
+        }
+
+        final Entry candidate = new Entry(key, async.future(), cadence, now);
+        final Entry existing = entries.putIfAbsent(key, candidate);
+
+        if (existing != null) {
+            existing.access(now);
+            reporter.reportCacheHit();
+            return existing.future;
+        }
+
+        reporter.reportCacheMiss();
+
+        final AsyncFuture<QueryResult> next;
+
+        try {
+            next = loader.get();
+        } catch (final Exception e) {
+            remove(candidate);
+            candidate.future.fail(e);
+            return candidate.future;
+        }
+
+        candidate.future.onCancelled(() -> {
+            remove(candidate);
+            next.cancel();
+        });
+
+        next.onDone(new FutureDone<QueryResult>() {
+            @Override
+            public void failed(final Throwable cause) throws Exception {
+                remove(candidate);
+                candidate.future.fail(cause);
+            }
+
+            @Override
+            public void resolved(final QueryResult result) throws Exception {
+                reporter.reportCacheLoadLatency(clock.currentTimeMillis() - now);
+
+                // only retain results if there are no errors
+                if (result.getErrors().isEmpty()) {
+                    admit(candidate, estimateBytes(result));
+                } else {
+                    remove(candidate);
+                }
+
+                candidate.future.resolve(result);
+            }
+
+            @Override
+            public void cancelled() throws Exception {
+                remove(candidate);
+                candidate.future.cancel();
+            }
+        });
+
+        return candidate.future;
+    }
+
+    @Override
+    public AsyncFuture<QueryResult> loadIncremental(
+        final FullQuery.Request request, final Function<DateRange, AsyncFuture<QueryResult>> loader
+    ) {
+        final AggregationInstance aggregation = request.aggregation();
+        final long cadence = aggregation.cadence();
+        final DateRange range = request.range();
+
+        if (sliceSize <= 0 || cadence <= 0 || !aggregation.sliceable() ||
+            !(QuerySlices.bucketStrategy(request) instanceof BucketStrategy.End) ||
+            range.start() % cadence != 0 || range.end() % cadence != 0) {
+            return QueryCache.super.loadIncremental(request, loader);
+        }
+
+        final long now = clock.currentTimeMillis();
+        final long span = QuerySlices.span(cadence, sliceSize);
+        final long first = (range.start() + span - 1) / span * span;
+        final long last = Math.min(range.end(), now - sliceDelay) / span * span;
+
+        // no complete slices in range.
+        if (first >= last) {
+            return QueryCache.super.loadIncremental(request, loader);
+        }
+
+        final List<Segment> segments = new ArrayList<>();
+
+        if (range.start() < first) {
+            segments.add(new Segment(new DateRange(range.start(), first), null, false));
+        }
+
+        for (long start = first; start < last; start += span) {
+            segments.add(slice(request, new DateRange(start, start + span), now));
+        }
+
+        if (last < range.end()) {
+            segments.add(new Segment(new DateRange(last, range.end()), null, false));
+        }
+
+        final List<AsyncFuture<QueryResult>> parts = new ArrayList<>(segments.size());
+        final List<AsyncFuture<QueryResult>> loads = new ArrayList<>();
+
+        int index = 0;
+
+        while (index < segments.size()) {
+            final Segment segment = segments.get(index);
+
+            if (segment.hit) {
+                parts.add(segment.entry.future);
+                index++;
+                continue;
+            }
+
+            // coalesce adjacent segments which have to be loaded into a single load.
+            int end = index + 1;
+
+            while (end < segments.size() && !segments.get(end).hit) {
+                end++;
+            }
+
+            final List<Segment> run = segments.subList(index, end);
+            final AsyncFuture<QueryResult> load = loadSegments(run, loader);
+
+            for (final Segment s : run) {
+                parts.add(s.entry != null ? s.entry.future
+                    : load.directTransform(result -> QuerySlices.slice(result, s.range)));
+            }
 
-        if (result != null) {
-            return result;
+            loads.add(load);
+            index = end;
         }
 
-        synchronized (lock) {
-            final AsyncFuture<QueryResult> candidate = cache.get(request);
+        final QueryTrace.NamedWatch watch = request.options().tracing().watch(IDENTIFIER);
+
+        return async.collect(parts).lazyTransform(stitched -> async
+            .collect(loads)
+            .directTransform(loaded -> {
+                final List<QueryTrace> traces = new ArrayList<>(loaded.size());
+                long preAggregationSampleSize = 0;
+
+                for (final QueryResult result : loaded) {
+                    traces.add(result.getTrace());
+                    preAggregationSampleSize += result.getPreAggregationSampleSize();
+                }
+
+                return QuerySlices.stitch(range, stitched, watch.end(traces),
+                    preAggregationSampleSize);
+            }));
+    }
+
+    /**
+     * Current estimated size of all results held by the cache, in bytes.
+     */
+    public long bytes() {
+        return bytes.get();
+    }
+
+    /**
+     * Number of entries currently held by the cache, including pending loads.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Look up the given slice, or claim it to be loaded by the caller.
+     */
+    private Segment slice(final FullQuery.Request request, final DateRange range, final long now) {
+        final HashCode key = buildSliceKey(request, range);
+        sketch.increment(key.asLong());
 
-            if (candidate != null) {
-                return candidate;
+        final Entry current = entries.get(key);
+
+        if (current != null) {
+            if (!current.isExpired(now)) {
+                current.reference();
+                reporter.reportCacheHit();
+                return new Segment(range, current, true);
             }
 
-            final AsyncFuture<QueryResult> next = loader.get();
-            cache.put(request, next, ExpirationPolicy.ACCESSED, aggregation.cadence(),
-                TimeUnit.MILLISECONDS);
-            return next;
+            remove(current);
+        }
+
+        final Entry candidate = new Entry(key, async.future(), sliceTtl, now);
+        final Entry existing = entries.putIfAbsent(key, candidate);
+
+        if (existing != null) {
+            existing.reference();
+            reporter.reportCacheHit();
+            return new Segment(range, existing, true);
+        }
+
+        reporter.reportCacheMiss();
+        return new Segment(range, candidate, false);
+    }
+
+    /**
+     * Load a contiguous run of segments, and resolve the slices claimed by them.
+     */
+    private AsyncFuture<QueryResult> loadSegments(
+        final List<Segment> run, final Function<DateRange, AsyncFuture<QueryResult>> loader
+    ) {
+        final DateRange range =
+            new DateRange(run.get(0).range.start(), run.get(run.size() - 1).range.end());
+        final long start = clock.currentTimeMillis();
+
+        AsyncFuture<QueryResult> load;
+
+        try {
+            load = loader.apply(range);
+        } catch (final Exception e) {
+            load = async.failed(e);
+        }
+
+        load.onDone(new FutureDone<QueryResult>() {
+            @Override
+            public void failed(final Throwable cause) throws Exception {
+                for (final Segment s : run) {
+                    if (s.entry != null) {
+                        remove(s.entry);
+                        s.entry.future.fail(cause);
+                    }
+                }
+            }
+
+            @Override
+            public void resolved(final QueryResult result) throws Exception {
+                reporter.reportCacheLoadLatency(clock.currentTimeMillis() - start);
+
+                // only retain slices if there are no errors, and the result is complete
+                final boolean retain =
+                    result.getErrors().isEmpty() && result.getLimits().getLimits().isEmpty();
+
+                for (final Segment s : run) {
+                    if (s.entry == null) {
+                        continue;
+                    }
+
+                    final QueryResult slice = QuerySlices.slice(result, s.range);
+
+                    if (retain) {
+                        admit(s.entry, estimateBytes(slice));
+                    } else {
+                        remove(s.entry);
+                    }
+
+                    s.entry.future.resolve(slice);
+                }
+            }
+
+            @Override
+            public void cancelled() throws Exception {
+                for (final Segment s : run) {
+                    if (s.entry != null) {
+                        remove(s.entry);
+                        s.entry.future.cancel();
+                    }
+                }
+            }
+        });
+
+        return load;
+    }
+
+    /**
+     * Account for a resolved entry and evict entries until the cache is within its bound again.
+     */
+    private void admit(final Entry candidate, final long weight) {
+        if (weight > maxBytes) {
+            remove(candidate);
+            reporter.reportCacheEviction();
+            return;
+        }
+
+        candidate.weight.set(weight);
+        bytes.addAndGet(weight);
+
+        // entry was removed while it was being accounted for.
+        if (entries.get(candidate.key) != candidate) {
+            release(candidate);
+            return;
+        }
+
+        order.offer(candidate);
+        evict(candidate);
+    }
+
+    private void evict(final Entry candidate) {
+        final long now = clock.currentTimeMillis();
+        // every entry can at most be given a second chance once per pass.
+        int budget = 2 * order.size() + 1;
+
+        while (bytes.get() > maxBytes && budget-- > 0) {
+            final Entry victim = order.poll();
+
+            if (victim == null) {
+                return;
+            }
+
+            // stale, already removed.
+            if (entries.get(victim.key) != victim) {
+                continue;
+            }
+
+            if (victim == candidate || victim.isExpired(now)) {
+                if (remove(victim)) {
+                    reporter.reportCacheEviction();
+                }
+
+                continue;
+            }
+
+            if (victim.referenced) {
+                victim.referenced = false;
+                order.offer(victim);
+                continue;
+            }
+
+            if (sketch.frequency(candidate.key.asLong()) < sketch.frequency(victim.key.asLong())) {
+                order.offer(victim);
+
+                if (remove(candidate)) {
+                    reporter.reportCacheEviction();
+                }
+
+                return;
+            }
+
+            if (remove(victim)) {
+                reporter.reportCacheEviction();
+            }
+        }
+    }
+
+    /**
+     * Remove the given entry, if it is still the current entry for its key.
+     *
+     * @return {@code true} if the entry was removed by this call
+     */
+    private boolean remove(final Entry entry) {
+        if (entries.remove(entry.key, entry)) {
+            release(entry);
+            return true;
+        }
+
+        return false;
+    }
+
+    private void release(final Entry entry) {
+        bytes.addAndGet(-entry.weight.getAndSet(0));
+    }
+
+    private HashCode buildCacheKey(final FullQuery.Request request) {
+        final Hasher hasher = HASH_FUNCTION.newHasher();
+        request.hashTo(new ObjectHasher(hasher));
+        return hasher.hash();
+    }
+
+    private HashCode buildSliceKey(final FullQuery.Request request, final DateRange range) {
+        final FullQuery.Request slice = FullQuery.Request.create(request.source(),
+            request.filter(), range, request.aggregation(), request.options(), request.context(),
+            request.features());
+
+        final Hasher hasher = HASH_FUNCTION.newHasher();
+        hasher.putInt(SLICE_MARKER);
+        slice.hashTo(new ObjectHasher(hasher));
+        return hasher.hash();
+    }
+
+    /**
+     * Estimate the number of bytes retained by the given result.
+     */
+    static long estimateBytes(final QueryResult result) {
+        long size = 0;
+
+        for (final ShardedResultGroup group : result.getGroups()) {
+            size += GROUP_OVERHEAD_BYTES + group.getSeries().size() * SERIES_BYTES;
+            size += estimateBytes(group.getMetrics());
+        }
+
+        return size;
+    }
+
+    private static long estimateBytes(final MetricCollection metrics) {
+        if (metrics.getType() == MetricType.POINT) {
+            return metrics.size() * POINT_BYTES;
+        }
+
+        if (metrics.getType() == MetricType.CARDINALITY) {
+            long size = 0;
+
+            for (final Payload payload : metrics.getDataAs(Payload.class)) {
+                size += METRIC_BYTES + payload.getState().length;
+            }
+
+            return size;
+        }
+
+        return metrics.size() * METRIC_BYTES;
+    }
+
+    private static class Segment {
+        private final DateRange range;
+        /* the cached or claimed slice, if this segment is a slice */
+        private final Entry entry;
+        private final boolean hit;
+
+        Segment(final DateRange range, final Entry entry, final boolean hit) {
+            this.range = range;
+            this.entry = entry;
+            this.hit = hit;
+        }
+    }
+
+    private static class Entry {
+        private final HashCode key;
+        private final ResolvableFuture<QueryResult> future;
+        private final long ttl;
+        private final AtomicLong weight = new AtomicLong();
+
+        private volatile long accessed;
+        private volatile boolean referenced = false;
+
+        Entry(
+            final HashCode key, final ResolvableFuture<QueryResult> future, final long ttl,
+            final long now
+        ) {
+            this.key = key;
+            this.future = future;
+            this.ttl = ttl;
+            this.accessed = now;
+        }
+
+        void access(final long now) {
+            accessed = now;
+            referenced = true;
+        }
+
+        /**
+         * Mark the entry as used, without extending its lifetime.
+         */
+        void reference() {
+            referenced = true;
+        }
+
+        /**
+         * Pending loads never expire, they are removed when they complete unsuccessfully.
+         */
+        boolean isExpired(final long now) {
+            return future.isDone() && now - accessed > ttl;
         }
     }
 }
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.cache.memory;
+
+import com.google.common.collect.ImmutableList;
+import com.spotify.heroic.aggregation.BucketStrategy;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Feature;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.FullQuery;
+import com.spotify.heroic.metric.Metric;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.PointArray;
+import com.spotify.heroic.metric.QueryResult;
+import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.RequestError;
+import com.spotify.heroic.metric.ResultLimits;
+import com.spotify.heroic.metric.ShardedResultGroup;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Utilities for splitting query results into time slices, and stitching them back together.
+ * <p>
+ * Slicing relies on the {@link BucketStrategy#END} strategy, where the sample at timestamp
+ * {@code t} covers the data in {@code (t - cadence, t]}. A query over the range {@code [a, b)}
+ * then produces exactly the samples with timestamps in {@code (a, b]}, which matches the
+ * {@code (start, end]} range that metric backends fetch.
+ */
+final class QuerySlices {
+    private QuerySlices() {
+    }
+
+    /**
+     * Get the bucket strategy that will be used by the given request.
+     */
+    static BucketStrategy bucketStrategy(final FullQuery.Request request) {
+        return request
+            .options()
+            .bucketStrategy()
+            .orElseGet(() -> request.features().withFeature(Feature.END_BUCKET,
+                () -> BucketStrategy.END, () -> BucketStrategy.START));
+    }
+
+    /**
+     * Get the span of slices for the given cadence.
+     *
+     * @return the smallest multiple of the cadence that is at least as long as the slice size
+     */
+    static long span(final long cadence, final long sliceSize) {
+        return Math.max((sliceSize + cadence - 1) / cadence, 1) * cadence;
+    }
+
+    /**
+     * Get the part of a result that was sampled in the given range.
+     * <p>
+     * The data is copied, so that the slice doesn't retain the full result. Errors and limits are
+     * kept, since they apply to every part of the result.
+     */
+    static QueryResult slice(final QueryResult result, final DateRange range) {
+        final List<ShardedResultGroup> groups = new ArrayList<>(result.getGroups().size());
+
+        for (final ShardedResultGroup g : result.getGroups()) {
+            groups.add(new ShardedResultGroup(g.getShard(), g.getKey(), g.getSeries(),
+                slice(g.getMetrics(), range), g.getCadence()));
+        }
+
+        return new QueryResult(range, groups, result.getErrors(), QueryTrace.PASSIVE,
+            result.getLimits(), 0, Optional.empty());
+    }
+
+    /**
+     * Stitch together results of adjacent ranges, in order.
+     * <p>
+     * Groups with the same shard and key are merged, with their samples concatenated.
+     *
+     * @param range the range covered by all parts
+     * @param parts parts to stitch together, ordered by their range
+     * @param trace trace for the stitched result
+     * @param preAggregationSampleSize number of samples that were read to build the result
+     */
+    static QueryResult stitch(
+        final DateRange range, final Collection<QueryResult> parts, final QueryTrace trace,
+        final long preAggregationSampleSize
+    ) {
+        final Map<GroupKey, List<ShardedResultGroup>> groups = new LinkedHashMap<>();
+        final Set<RequestError> errors = new LinkedHashSet<>();
+        ResultLimits limits = ResultLimits.of();
+
+        for (final QueryResult part : parts) {
+            for (final ShardedResultGroup g : part.getGroups()) {
+                final GroupKey key =
+                    new GroupKey(g.getShard(), g.getKey(), g.getMetrics().getType());
+                groups.computeIfAbsent(key, k -> new ArrayList<>()).add(g);
+            }
+
+            errors.addAll(part.getErrors());
+            limits = limits.join(part.getLimits());
+        }
+
+        final List<ShardedResultGroup> stitched = new ArrayList<>(groups.size());
+
+        for (final Map.Entry<GroupKey, List<ShardedResultGroup>> e : groups.entrySet()) {
+            stitched.add(merge(e.getKey(), e.getValue()));
+        }
+
+        return new QueryResult(range, stitched, ImmutableList.copyOf(errors), trace, limits,
+            preAggregationSampleSize, Optional.empty());
+    }
+
+    private static ShardedResultGroup merge(
+        final GroupKey key, final List<ShardedResultGroup> groups
+    ) {
+        final ShardedResultGroup first = groups.get(0);
+
+        if (groups.size() == 1) {
+            return first;
+        }
+
+        final Set<Series> series = new HashSet<>();
+        final List<List<? extends Metric>> data = new ArrayList<>(groups.size());
+
+        for (final ShardedResultGroup g : groups) {
+            series.addAll(g.getSeries());
+            data.add(g.getMetrics().data());
+        }
+
+        return new ShardedResultGroup(key.shard, key.key, series,
+            MetricCollection.mergeSorted(key.type, data), first.getCadence());
+    }
+
+    private static MetricCollection slice(
+        final MetricCollection metrics, final DateRange range
+    ) {
+        final List<? extends Metric> data = metrics.data();
+        final int from = upperBound(data, range.start());
+        final int to = upperBound(data, range.end());
+
+        if (data instanceof PointArray) {
+            final PointArray slice = ((PointArray) data).slice(from, to);
+            return MetricCollection.build(MetricType.POINT,
+                PointArray.builder(slice.size()).addAll(slice).build());
+        }
+
+        return MetricCollection.build(metrics.getType(),
+            ImmutableList.copyOf(data.subList(from, to)));
+    }
+
+    /**
+     * Find the index of the first metric which has a timestamp after the given timestamp.
+     */
+    private static int upperBound(final List<? extends Metric> data, final long timestamp) {
+        int low = 0;
+        int high = data.size();
+
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+
+            if (timestamp(data, mid) <= timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    private static long timestamp(final List<? extends Metric> data, final int index) {
+        if (data instanceof PointArray) {
+            return ((PointArray) data).getTimestamp(index);
+        }
+
+        return data.get(index).getTimestamp();
+    }
+
+    private static class GroupKey {
+        private final Map<String, String> shard;
+        private final Map<String, String> key;
+        private final MetricType type;
+
+        GroupKey(
+            final Map<String, String> shard, final Map<String, String> key, final MetricType type
+        ) {
+            this.shard = shard;
+            this.key = key;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof GroupKey)) {
+                return false;
+            }
+
+            final GroupKey other = (GroupKey) o;
+            return shard.equals(other.shard) && key.equals(other.key) && type == other.type;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(shard, key, type);
+        }
+    }
+}
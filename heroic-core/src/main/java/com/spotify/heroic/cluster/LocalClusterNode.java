@@ -43,6 +43,7 @@ import com.spotify.heroic.suggest.TagValuesSuggest;
 import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
 import io.opencensus.trace.Span;
+import java.util.List;
 import java.util.Optional;
 import javax.inject.Inject;
 
@@ -113,6 +114,13 @@ public class LocalClusterNode implements ClusterNode {
             return metrics().query(request, span);
         }
 
+        @Override
+        public AsyncFuture<List<FullQuery>> queryBatch(
+            final List<FullQuery.Request> requests, final Span span
+        ) {
+            return metrics().queryBatch(requests, span);
+        }
+
         @Override
         public AsyncFuture<FindTags> findTags(final FindTags.Request request) {
             return metadata().findTags(request);
@@ -36,7 +36,10 @@ import com.spotify.heroic.suggest.TagSuggest;
 import com.spotify.heroic.suggest.TagValueSuggest;
 import com.spotify.heroic.suggest.TagValuesSuggest;
 import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.Transform;
 import io.opencensus.trace.Span;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 public class TracingClusterNode implements ClusterNode {
@@ -95,6 +98,23 @@ public class TracingClusterNode implements ClusterNode {
                 request, span).directTransform(FullQuery.trace(queryIdentifier));
         }
 
+        @Override
+        public AsyncFuture<List<FullQuery>> queryBatch(
+            List<FullQuery.Request> requests, Span span
+        ) {
+            final Transform<FullQuery, FullQuery> trace = FullQuery.trace(queryIdentifier);
+
+            return delegateGroup.queryBatch(requests, span).directTransform(results -> {
+                final List<FullQuery> traced = new ArrayList<>(results.size());
+
+                for (final FullQuery result : results) {
+                    traced.add(trace.transform(result));
+                }
+
+                return traced;
+            });
+        }
+
         @Override
         public AsyncFuture<FindTags> findTags(FindTags.Request request) {
             return delegateGroup.findTags(request);
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.common;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.std.DelegatingDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import java.io.IOException;
+
+/**
+ * Interns every {@link Series} read by an ObjectMapper, like the ones in RPC responses.
+ */
+public class SeriesInternerSerialization {
+    public static Module module(final SeriesInterner interner) {
+        final SimpleModule module = new SimpleModule("seriesInterner");
+
+        module.setDeserializerModifier(new BeanDeserializerModifier() {
+            @Override
+            public JsonDeserializer<?> modifyDeserializer(
+                final DeserializationConfig config, final BeanDescription beanDesc,
+                final JsonDeserializer<?> deserializer
+            ) {
+                if (beanDesc.getBeanClass() != Series.class) {
+                    return deserializer;
+                }
+
+                return new Deserializer(deserializer, interner);
+            }
+        });
+
+        return module;
+    }
+
+    public static class Deserializer extends DelegatingDeserializer {
+        private final SeriesInterner interner;
+
+        public Deserializer(final JsonDeserializer<?> delegate, final SeriesInterner interner) {
+            super(delegate);
+            this.interner = interner;
+        }
+
+        @Override
+        protected JsonDeserializer<?> newDelegatingInstance(final JsonDeserializer<?> delegate) {
+            return new Deserializer(delegate, interner);
+        }
+
+        @Override
+        public Object deserialize(final JsonParser p, final DeserializationContext c)
+            throws IOException {
+            return interner.intern((Series) super.deserialize(p, c));
+        }
+    }
+}
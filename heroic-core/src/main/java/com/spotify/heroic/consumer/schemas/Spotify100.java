@@ -32,6 +32,7 @@ import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.module.kotlin.KotlinModule;
 import com.google.common.collect.ImmutableList;
 import com.spotify.heroic.common.Series;
+import com.spotify.heroic.common.SeriesInterner;
 import com.spotify.heroic.consumer.ConsumerSchema;
 import com.spotify.heroic.consumer.ConsumerSchemaException;
 import com.spotify.heroic.consumer.ConsumerSchemaValidationException;
@@ -72,12 +73,17 @@ public class Spotify100 implements ConsumerSchema {
         private final Clock clock;
         private final IngestionGroup ingestion;
         private final ConsumerReporter reporter;
+        private final SeriesInterner interner;
 
         @Inject
-        public Consumer(Clock clock, IngestionGroup ingestion, ConsumerReporter reporter) {
+        public Consumer(
+            Clock clock, IngestionGroup ingestion, ConsumerReporter reporter,
+            SeriesInterner interner
+        ) {
             this.clock = clock;
             this.ingestion = ingestion;
             this.reporter = reporter;
+            this.interner = interner;
         }
 
         @Override
@@ -170,7 +176,7 @@ public class Spotify100 implements ConsumerSchema {
 
             final Map<String, String> resource = new HashMap<>(metric.getResource());
 
-            final Series series = Series.of(metric.getKey(), tags, resource);
+            final Series series = interner.intern(Series.of(metric.getKey(), tags, resource));
             final Point p = new Point(metric.getTime(), metric.getValue());
             final List<Point> points = ImmutableList.of(p);
 
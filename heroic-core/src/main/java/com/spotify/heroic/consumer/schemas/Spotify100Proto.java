@@ -21,13 +21,16 @@
 
 package com.spotify.heroic.consumer.schemas;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.spotify.heroic.common.Series;
+import com.spotify.heroic.common.SeriesInterner;
 import com.spotify.heroic.consumer.ConsumerSchema;
 import com.spotify.heroic.consumer.ConsumerSchemaException;
 import com.spotify.heroic.consumer.ConsumerSchemaValidationException;
 import com.spotify.heroic.consumer.SchemaScope;
-import com.spotify.heroic.ingestion.Ingestion;
 import com.spotify.heroic.ingestion.IngestionGroup;
 import com.spotify.heroic.ingestion.Request;
 import com.spotify.heroic.metric.MetricCollection;
@@ -41,6 +44,8 @@ import eu.toolchain.async.AsyncFuture;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import javax.inject.Inject;
 import org.xerial.snappy.Snappy;
 
@@ -55,23 +60,32 @@ public class Spotify100Proto implements ConsumerSchema {
 
   @SchemaScope
   public static class Consumer implements ConsumerSchema.Consumer {
+    /* upper bound of series kept for reuse across batches */
+    static final long SERIES_CACHE_SIZE = 100000;
 
     private final Clock clock;
     private final IngestionGroup ingestion;
     private final ConsumerReporter reporter;
     private final AsyncFramework async;
+    private final SeriesInterner interner;
+
+    /* series keyed on the raw key, tags and resource of a metric */
+    private final Cache<SeriesKey, Series> series =
+      CacheBuilder.newBuilder().maximumSize(SERIES_CACHE_SIZE).build();
 
     @Inject
     public Consumer(
       Clock clock,
       IngestionGroup ingestion,
       ConsumerReporter reporter,
-      AsyncFramework async
+      AsyncFramework async,
+      SeriesInterner interner
     ) {
       this.clock = clock;
       this.ingestion = ingestion;
       this.reporter = reporter;
       this.async = async;
+      this.interner = interner;
     }
 
     @Override
@@ -83,7 +97,9 @@ public class Spotify100Proto implements ConsumerSchema {
         throw new ConsumerSchemaValidationException("Invalid batch of metrics", e);
       }
 
-      final List<AsyncFuture<Ingestion>> ingestions = new ArrayList<>();
+      final long now = clock.currentTimeMillis();
+      final List<Request> requests = new ArrayList<>(metrics.size());
+
       for (Spotify100.Metric metric : metrics) {
 
         if (metric.getTime() <= 0) {
@@ -91,20 +107,81 @@ public class Spotify100Proto implements ConsumerSchema {
             "time: field must be a positive number: " + metric.toString());
         }
 
-        final Series s = Series.of(metric.getKey(), metric.getTagsMap(), metric.getResourceMap());
+        final Series s = series(metric);
         final Point p = new Point(metric.getTime(), metric.getValue());
         final List<Point> points = ImmutableList.of(p);
 
-        reporter.reportMessageDrift(clock.currentTimeMillis() - p.getTimestamp());
+        reporter.reportMessageDrift(now - p.getTimestamp());
 
-        ingestions.add(ingestion.write(new Request(s, MetricCollection.points(points))));
+        requests.add(new Request(s, MetricCollection.points(points)));
       }
 
       reporter.reportMetricsIn(metrics.size());
 
       // Return Void future, to not leak unnecessary information from the backend but just
       // allow monitoring of when the consumption is done.
-      return async.collectAndDiscard(ingestions);
+      return ingestion.writeBatch(requests).directTransform(ignore -> null);
+    }
+
+    /**
+     * Resolve the series of a metric, reusing the one built for an equal key, tags and resource
+     * to avoid sorting its maps and computing its hashes again.
+     */
+    private Series series(final Spotify100.Metric metric) {
+      final Series cached = series.getIfPresent(
+        new SeriesKey(metric.getKey(), metric.getTagsMap(), metric.getResourceMap()));
+
+      if (cached != null) {
+        return cached;
+      }
+
+      final Series s = interner.intern(
+        Series.of(metric.getKey(), metric.getTagsMap(), metric.getResourceMap()));
+
+      /* copy the maps, the cache should not hold on to the ones owned by the message */
+      series.put(new SeriesKey(metric.getKey(), ImmutableMap.copyOf(metric.getTagsMap()),
+        ImmutableMap.copyOf(metric.getResourceMap())), s);
+      return s;
+    }
+  }
+
+  /**
+   * The raw identity of a consumed series. Map equality does not depend on the order in which
+   * tags were added.
+   */
+  static class SeriesKey {
+    private final String key;
+    private final Map<String, String> tags;
+    private final Map<String, String> resource;
+    private final int hashCode;
+
+    SeriesKey(
+      final String key, final Map<String, String> tags, final Map<String, String> resource
+    ) {
+      this.key = key;
+      this.tags = tags;
+      this.resource = resource;
+      this.hashCode = Objects.hash(key, tags, resource);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+
+      if (!(obj instanceof SeriesKey)) {
+        return false;
+      }
+
+      final SeriesKey o = (SeriesKey) obj;
+      return hashCode == o.hashCode && key.equals(o.key) && tags.equals(o.tags) &&
+        resource.equals(o.resource);
     }
   }
 
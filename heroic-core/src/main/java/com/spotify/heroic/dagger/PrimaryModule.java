@@ -33,6 +33,8 @@ import com.spotify.heroic.ShellTasks;
 import com.spotify.heroic.aggregation.AggregationRegistry;
 import com.spotify.heroic.common.FeatureSet;
 import com.spotify.heroic.common.Features;
+import com.spotify.heroic.common.SeriesInterner;
+import com.spotify.heroic.common.SeriesInternerSerialization;
 import com.spotify.heroic.conditionalfeatures.ConditionalFeatures;
 import com.spotify.heroic.grammar.CoreQueryParser;
 import com.spotify.heroic.grammar.QueryParser;
@@ -57,15 +59,18 @@ public class PrimaryModule {
     private final FeatureSet features;
     private final HeroicReporter reporter;
     private final Optional<ConditionalFeatures> conditionalFeatures;
+    private final Optional<Long> seriesInternerSize;
 
     public PrimaryModule(final HeroicCoreInstance instance,
                          final FeatureSet features,
                          final HeroicReporter reporter,
-                         final Optional<ConditionalFeatures> conditionalFeatures) {
+                         final Optional<ConditionalFeatures> conditionalFeatures,
+                         final Optional<Long> seriesInternerSize) {
         this.instance = instance;
         this.features = features;
         this.reporter = reporter;
         this.conditionalFeatures = conditionalFeatures;
+        this.seriesInternerSize = seriesInternerSize;
     }
 
     @Provides
@@ -109,13 +114,17 @@ public class PrimaryModule {
     @Named(HeroicMappers.APPLICATION_JSON_INTERNAL)
     @PrimaryScope
     ObjectMapper internalMapper(
-        QueryParser parser, AggregationRegistry aggregation
+        QueryParser parser, AggregationRegistry aggregation, SeriesInterner seriesInterner
     ) {
         final ObjectMapper m = HeroicMappers.json(parser);
 
         /* configuration determined at runtime, unsuitable for testing */
         m.registerModule(aggregation.module());
 
+        if (seriesInterner.isEnabled()) {
+            m.registerModule(SeriesInternerSerialization.module(seriesInterner));
+        }
+
         return m;
     }
 
@@ -126,6 +135,17 @@ public class PrimaryModule {
         return mapper;
     }
 
+    @Provides
+    @PrimaryScope
+    SeriesInterner seriesInterner(HeroicReporter reporter) {
+        return seriesInternerSize.map(size -> {
+            final SeriesInterner interner = SeriesInterner.lru(size);
+            reporter.registerCacheSize("series-interner", interner::size);
+            reporter.registerCacheHitRatio("series-interner", interner::hitRatio);
+            return interner;
+        }).orElseGet(SeriesInterner::disabled);
+    }
+
     @Provides
     @PrimaryScope
     QueryParser queryParser(CoreQueryParser queryParser) {
@@ -30,8 +30,10 @@ import com.spotify.heroic.dagger.CoreComponent;
 import com.spotify.heroic.http.tracing.OpenCensusFeature;
 import com.spotify.heroic.jetty.JettyJSONErrorHandler;
 import com.spotify.heroic.jetty.JettyServerConnector;
+import com.spotify.heroic.jetty.StreamingGzipHandler;
 import com.spotify.heroic.lifecycle.LifeCycleRegistry;
 import com.spotify.heroic.lifecycle.LifeCycles;
+import com.spotify.heroic.metric.QueryMetricsResponseColumnarEncoder;
 import com.spotify.heroic.servlet.ShutdownFilter;
 import com.spotify.heroic.tracing.TracingConfig;
 import eu.toolchain.async.AsyncFramework;
@@ -204,10 +206,11 @@ public class HttpServer implements LifeCycles {
             new ServletContextHandler(ServletContextHandler.NO_SESSIONS);
         context.setContextPath("/");
 
-        GzipHandler gzip = new GzipHandler();
+        GzipHandler gzip = new StreamingGzipHandler();
         gzip.setIncludedMethods("POST");
         gzip.setMinGzipSize(860);
-        gzip.setIncludedMimeTypes("application/json");
+        gzip.setIncludedMimeTypes("application/json",
+            QueryMetricsResponseColumnarEncoder.MEDIA_TYPE);
         context.setGzipHandler(gzip);
 
         context.addServlet(jerseyServlet, "/*");
@@ -21,6 +21,7 @@
 
 package com.spotify.heroic.http.query;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableMap;
 import com.spotify.heroic.Query;
 import com.spotify.heroic.QueryManager;
@@ -28,7 +29,9 @@ import com.spotify.heroic.common.JavaxRestFramework;
 import com.spotify.heroic.http.CoreHttpContextFactory;
 import com.spotify.heroic.metric.QueryMetrics;
 import com.spotify.heroic.metric.QueryMetricsResponse;
+import com.spotify.heroic.metric.QueryMetricsResponseColumnarEncoder;
 import com.spotify.heroic.metric.QueryResult;
+import com.spotify.heroic.metric.StreamingQueryMetricsResponse;
 import com.spotify.heroic.querylogging.HttpContext;
 import com.spotify.heroic.querylogging.QueryContext;
 import com.spotify.heroic.querylogging.QueryLogger;
@@ -44,6 +47,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.POST;
@@ -54,6 +58,8 @@ import javax.ws.rs.container.AsyncResponse;
 import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Variant;
 import org.apache.commons.lang3.tuple.Triple;
 
 @Path("query")
@@ -64,26 +70,41 @@ public class QueryResource {
     private final QueryManager query;
     private final AsyncFramework async;
     private final QueryLogger queryLogger;
+    private final ObjectMapper mapper;
     private static final Tracer tracer = Tracing.getTracer();
 
+    /* the columnar encoding is only used when explicitly asked for */
+    private static final String COLUMNAR =
+        QueryMetricsResponseColumnarEncoder.MEDIA_TYPE + ";qs=0.5";
+    private static final MediaType COLUMNAR_TYPE =
+        MediaType.valueOf(QueryMetricsResponseColumnarEncoder.MEDIA_TYPE);
+    /* the variants produced by the metrics endpoints */
+    private static final List<Variant> METRICS_VARIANTS =
+        Variant.mediaTypes(MediaType.APPLICATION_JSON_TYPE, MediaType.valueOf(COLUMNAR)).build();
+
 
     @Inject
     public QueryResource(
         final JavaxRestFramework httpAsync, final QueryManager query, final AsyncFramework async,
-        final QueryLoggerFactory queryLoggerFactory
+        final QueryLoggerFactory queryLoggerFactory,
+        @Named(MediaType.APPLICATION_JSON) final ObjectMapper mapper
     ) {
         this.httpAsync = httpAsync;
         this.query = query;
         this.async = async;
         this.queryLogger = queryLoggerFactory.create("QueryResource");
+        this.mapper = mapper;
     }
 
     @POST
     @Path("metrics")
     @Consumes(MediaType.TEXT_PLAIN)
+    @Produces({MediaType.APPLICATION_JSON, COLUMNAR})
     public void metricsText(
         @Suspended final AsyncResponse response, @QueryParam("group") String group,
-        @Context final HttpServletRequest servletReq, final String query
+        @QueryParam("stream") final boolean stream,
+        @Context final HttpServletRequest servletReq, @Context final Request request,
+        final String query
     ) {
         final HttpContext httpContext = CoreHttpContextFactory.create(servletReq);
         final QueryContext queryContext = QueryContext.create(Optional.empty(), httpContext);
@@ -92,18 +113,20 @@ public class QueryResource {
         final Query q = this.query.newQueryFromString(query).build();
 
         final QueryManager.Group g = this.query.useOptionalGroup(Optional.ofNullable(group));
-        final AsyncFuture<QueryResult> callback = g.query(q, queryContext);
 
-        bindMetricsResponse(response, callback, queryContext);
+        queryMetrics(response, g, q, queryContext, stream && !isColumnarNegotiated(request));
     }
 
     @POST
     @Path("metrics")
     @Consumes(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, COLUMNAR})
     public void metrics(
         @Suspended final AsyncResponse response,
         @QueryParam("group") String group,
+        @QueryParam("stream") final boolean stream,
         @Context final HttpServletRequest servletReq,
+        @Context final Request request,
         final QueryMetrics query
     ) {
         final HttpContext httpContext = CoreHttpContextFactory.create(servletReq);
@@ -113,9 +136,8 @@ public class QueryResource {
         final Query q = query.toQueryBuilder(this.query::newQueryFromString).build();
 
         final QueryManager.Group g = this.query.useOptionalGroup(Optional.ofNullable(group));
-        final AsyncFuture<QueryResult> callback = g.query(q, queryContext);
 
-        bindMetricsResponse(response, callback, queryContext);
+        queryMetrics(response, g, q, queryContext, stream && !isColumnarNegotiated(request));
     }
 
     @POST
@@ -128,6 +150,7 @@ public class QueryResource {
     ) {
         final HttpContext httpContext = CoreHttpContextFactory.create(servletReq);
         final QueryManager.Group g = this.query.useOptionalGroup(Optional.ofNullable(group));
+        final QueryManager.Batch batch = g.newBatch();
 
         final List<AsyncFuture<Triple<String, QueryContext, QueryResult>>> futures =
             new ArrayList<>();
@@ -152,13 +175,15 @@ public class QueryResource {
                     QueryContext.create(qm.clientContext(), httpContext);
                 queryLogger.logHttpQueryJson(queryContext, qm);
 
-                futures.add(g
+                futures.add(batch
                     .query(q, queryContext)
                     .directTransform(r -> Triple.of(queryKey, queryContext, r))
                     .onFinished(span::end));
             }
         });
 
+        batch.execute();
+
         final AsyncFuture<QueryBatchResponse> future =
             async.collect(futures).directTransform(entries -> {
                 final ImmutableMap.Builder<String, QueryMetricsResponse> results =
@@ -186,20 +211,57 @@ public class QueryResource {
         httpAsync.bind(response, future);
     }
 
-    private void bindMetricsResponse(
+    /**
+     * Run a metrics query and bind its result to the response.
+     *
+     * @param stream If set, result groups are written directly to the output stream as soon as
+     * the shards they come from have responded, instead of handing the complete response over to
+     * the regular entity writer. This always writes JSON, so it must not be set when the
+     * columnar media type is negotiated.
+     */
+    private void queryMetrics(
         final AsyncResponse response,
-        final AsyncFuture<QueryResult> callback,
-        final QueryContext queryContext
+        final QueryManager.Group g,
+        final Query q,
+        final QueryContext queryContext,
+        final boolean stream
     ) {
-        response.setTimeout(300, TimeUnit.SECONDS);
+        if (!stream) {
+            response.setTimeout(300, TimeUnit.SECONDS);
+            httpAsync.bind(response, g.query(q, queryContext),
+                r -> metricsResponse(queryContext, r));
+            return;
+        }
 
-        httpAsync.bind(response, callback, r -> {
-            final QueryMetricsResponse qmr =
-                new QueryMetricsResponse(queryContext.queryId(), r.getRange(), r.getGroups(),
-                    r.getErrors(), r.getTrace(), r.getLimits(),
-                    Optional.of(r.getPreAggregationSampleSize()), r.getCache());
-            queryLogger.logFinalResponse(queryContext, qmr);
-            return qmr;
-        });
+        final StreamingQueryMetricsResponse streaming =
+            new StreamingQueryMetricsResponse(mapper, queryContext.queryId(), 300,
+                TimeUnit.SECONDS);
+
+        streaming.bind(g
+            .query(q, queryContext, streaming)
+            .directTransform(r -> metricsResponse(queryContext, r)));
+
+        /* the response is written by this thread while the query is running */
+        response.resume(streaming);
+    }
+
+    private QueryMetricsResponse metricsResponse(
+        final QueryContext queryContext, final QueryResult r
+    ) {
+        final QueryMetricsResponse qmr =
+            new QueryMetricsResponse(queryContext.queryId(), r.getRange(), r.getGroups(),
+                r.getErrors(), r.getTrace(), r.getLimits(),
+                Optional.of(r.getPreAggregationSampleSize()), r.getCache());
+        queryLogger.logFinalResponse(queryContext, qmr);
+        return qmr;
+    }
+
+    /**
+     * Check if the columnar media type is negotiated for the metrics endpoints, using the same
+     * selection as the one Jersey makes for the response entity.
+     */
+    static boolean isColumnarNegotiated(final Request request) {
+        final Variant variant = request.selectVariant(METRICS_VARIANTS);
+        return variant != null && variant.getMediaType().isCompatible(COLUMNAR_TYPE);
     }
 }
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.ingestion;
+
+import com.spotify.heroic.common.Groups;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.Metric;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.FutureDone;
+import eu.toolchain.async.ResolvableFuture;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An ingestion group that coalesces writes for the same series before writing them.
+ * <p>
+ * Consumers typically write a single point per request, which costs a write permit, a filter
+ * check and a write to every metric, metadata and suggest backend for each point. Requests are
+ * instead buffered per series until the buffer is flushed, either periodically or when it holds
+ * too many points, and then written as one request per series. This lets metric backends batch
+ * the points of a series into as few mutations as they can, and writes metadata and suggestions
+ * once per series and flush.
+ * <p>
+ * The future of every buffered request resolves with the result of the write it was coalesced
+ * into, so callers only acknowledge data once it has been written. Once the group is closed, the
+ * remaining buffer is written and further requests are written as is.
+ */
+public class CoalescingIngestionGroup implements IngestionGroup {
+    private final AsyncFramework async;
+    private final CoreIngestionGroup delegate;
+    private final LongAdder ingested;
+    private final int maxPoints;
+
+    private final Object lock = new Object();
+    private Map<Series, Pending> pending = new HashMap<>();
+    private int size = 0;
+    private boolean closed = false;
+
+    public CoalescingIngestionGroup(
+        final AsyncFramework async,
+        final CoreIngestionGroup delegate,
+        final LongAdder ingested,
+        final int maxPoints
+    ) {
+        this.async = async;
+        this.delegate = delegate;
+        this.ingested = ingested;
+        this.maxPoints = maxPoints;
+    }
+
+    @Override
+    public Groups groups() {
+        return delegate.groups();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return delegate.isEmpty();
+    }
+
+    @Override
+    public AsyncFuture<Ingestion> write(final Request request) {
+        ingested.increment();
+
+        final MetricType type = request.getData().getType();
+        final ResolvableFuture<Ingestion> future = async.future();
+        final boolean coalesced;
+        Map<Series, Pending> full = null;
+
+        synchronized (lock) {
+            final Pending p = closed ? null
+                : pending.computeIfAbsent(request.getSeries(), s -> new Pending(type));
+
+            // a series switching type within a window is rare, such requests are written as is
+            coalesced = p != null && p.type == type;
+
+            if (coalesced) {
+                p.add(request, future);
+                size += request.getData().size();
+
+                if (size >= maxPoints) {
+                    full = swap();
+                }
+            }
+        }
+
+        if (!coalesced) {
+            return delegate.syncWrite(request);
+        }
+
+        if (full != null) {
+            write(full);
+        }
+
+        return future;
+    }
+
+    @Override
+    public AsyncFuture<Ingestion> writeBatch(final List<Request> requests) {
+        final List<AsyncFuture<Ingestion>> futures = new ArrayList<>(requests.size());
+
+        for (final Request request : requests) {
+            futures.add(write(request));
+        }
+
+        return async.collect(futures, Ingestion.reduce());
+    }
+
+    /**
+     * Write all buffered requests.
+     *
+     * @return A future which resolves once all buffered requests have been written, whether the
+     * writes succeeded or not.
+     */
+    public AsyncFuture<Void> flush() {
+        final Map<Series, Pending> flushed;
+
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return async.resolved();
+            }
+
+            flushed = swap();
+        }
+
+        return write(flushed);
+    }
+
+    /**
+     * Write all buffered requests, and stop buffering new ones.
+     *
+     * @return A future which resolves once all buffered requests have been written.
+     */
+    public AsyncFuture<Void> close() {
+        final Map<Series, Pending> flushed;
+
+        synchronized (lock) {
+            closed = true;
+            flushed = swap();
+        }
+
+        return write(flushed);
+    }
+
+    private Map<Series, Pending> swap() {
+        final Map<Series, Pending> flushed = pending;
+        pending = new HashMap<>();
+        size = 0;
+        return flushed;
+    }
+
+    private AsyncFuture<Void> write(final Map<Series, Pending> flushed) {
+        final List<AsyncFuture<Void>> done = new ArrayList<>(flushed.size());
+
+        for (final Map.Entry<Series, Pending> e : flushed.entrySet()) {
+            final Pending p = e.getValue();
+            final Request request =
+                new Request(e.getKey(), MetricCollection.build(p.type, p.data));
+
+            final ResolvableFuture<Void> written = async.future();
+            done.add(written);
+
+            final AsyncFuture<Ingestion> write;
+
+            try {
+                write = delegate.syncWrite(request);
+            } catch (final Exception ex) {
+                p.futures.forEach(f -> f.fail(ex));
+                written.resolve(null);
+                continue;
+            }
+
+            write.onDone(new FutureDone<Ingestion>() {
+                @Override
+                public void failed(final Throwable cause) {
+                    p.futures.forEach(f -> f.fail(cause));
+                    written.resolve(null);
+                }
+
+                @Override
+                public void resolved(final Ingestion result) {
+                    p.futures.forEach(f -> f.resolve(result));
+                    written.resolve(null);
+                }
+
+                @Override
+                public void cancelled() {
+                    p.futures.forEach(ResolvableFuture::cancel);
+                    written.resolve(null);
+                }
+            });
+        }
+
+        return async.collectAndDiscard(done);
+    }
+
+    private static class Pending {
+        private final MetricType type;
+        private final List<Metric> data = new ArrayList<>();
+        private final List<ResolvableFuture<Ingestion>> futures = new ArrayList<>();
+
+        Pending(final MetricType type) {
+            this.type = type;
+        }
+
+        void add(final Request request, final ResolvableFuture<Ingestion> future) {
+            data.addAll(request.getData().data());
+            futures.add(future);
+        }
+    }
+}
@@ -26,11 +26,14 @@ import com.spotify.heroic.common.Collected;
 import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Grouped;
 import com.spotify.heroic.common.Groups;
-import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.filter.CompiledFilter;
 import com.spotify.heroic.metadata.MetadataBackend;
 import com.spotify.heroic.metadata.WriteMetadata;
 import com.spotify.heroic.metric.Metric;
 import com.spotify.heroic.metric.MetricBackend;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
 import com.spotify.heroic.metric.WriteMetric;
 import com.spotify.heroic.statistics.IngestionManagerReporter;
 import com.spotify.heroic.suggest.SuggestBackend;
@@ -38,13 +41,17 @@ import com.spotify.heroic.suggest.WriteSuggest;
 import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
 import io.opencensus.common.Scope;
+import io.opencensus.trace.AttributeValue;
 import io.opencensus.trace.Span;
 import io.opencensus.trace.Status;
 import io.opencensus.trace.Tracer;
 import io.opencensus.trace.Tracing;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.LongAdder;
@@ -54,7 +61,7 @@ public class CoreIngestionGroup implements IngestionGroup {
     private final Tracer tracer = Tracing.getTracer();
 
     private final AsyncFramework async;
-    private final Supplier<Filter> filter;
+    private final Supplier<CompiledFilter> filter;
     private final Semaphore writePermits;
     private final IngestionManagerReporter reporter;
     private final LongAdder ingested;
@@ -65,7 +72,7 @@ public class CoreIngestionGroup implements IngestionGroup {
 
     public CoreIngestionGroup(
         final AsyncFramework async,
-        final Supplier<Filter> filter,
+        final Supplier<CompiledFilter> filter,
         final Semaphore writePermits,
         final IngestionManagerReporter reporter,
         final LongAdder ingested,
@@ -96,6 +103,12 @@ public class CoreIngestionGroup implements IngestionGroup {
         return syncWrite(request);
     }
 
+    @Override
+    public AsyncFuture<Ingestion> writeBatch(final List<Request> requests) {
+        ingested.add(requests.size());
+        return syncWriteBatch(requests);
+    }
+
     @Override
     public boolean isEmpty() {
         return metric.map(Collected::isEmpty).orElse(true) &&
@@ -106,7 +119,7 @@ public class CoreIngestionGroup implements IngestionGroup {
     protected AsyncFuture<Ingestion> syncWrite(final Request request) {
         final Span span = tracer.spanBuilder("CoreIngestionGroup.syncWrite").startSpan();
 
-        if (!filter.get().apply(request.getSeries())) {
+        if (!filter.get().test(request.getSeries())) {
             reporter.reportDroppedByFilter();
             span.setStatus(Status.FAILED_PRECONDITION.withDescription("Dropped by filter"));
             span.end();
@@ -135,6 +148,94 @@ public class CoreIngestionGroup implements IngestionGroup {
         }
     }
 
+    /**
+     * Write a batch of requests, filtering it and acquiring a write permit once for the whole
+     * batch rather than once per request.
+     */
+    protected AsyncFuture<Ingestion> syncWriteBatch(final List<Request> requests) {
+        final Span span = tracer.spanBuilder("CoreIngestionGroup.syncWriteBatch").startSpan();
+        span.putAttribute("requests", AttributeValue.longAttributeValue(requests.size()));
+
+        final CompiledFilter compiled = filter.get();
+        final List<Request> accepted = new ArrayList<>(requests.size());
+
+        for (final Request request : requests) {
+            if (compiled.test(request.getSeries())) {
+                accepted.add(request);
+            } else {
+                reporter.reportDroppedByFilter();
+            }
+        }
+
+        if (accepted.isEmpty()) {
+            span.setStatus(Status.FAILED_PRECONDITION.withDescription("Dropped by filter"));
+            span.end();
+            return async.resolved(Ingestion.of(ImmutableList.of()));
+        }
+
+        try {
+            span.addAnnotation("Acquiring write lock");
+            writePermits.acquire();
+        } catch (final InterruptedException e) {
+            String error = "Failed to acquire semaphore for bounded request";
+            span.setStatus(Status.INTERNAL.withDescription(error));
+            span.end();
+            return async.failed(new Exception(error, e));
+        }
+
+        span.addAnnotation("Acquired write lock");
+        reporter.incrementConcurrentWrites();
+
+        try (Scope ws = tracer.withSpan(span)) {
+            final List<AsyncFuture<Ingestion>> futures = new ArrayList<>();
+
+            for (final Request request : mergeBySeries(accepted)) {
+                futures.add(doWrite(request));
+            }
+
+            return async.collect(futures, Ingestion.reduce()).onFinished(() -> {
+                writePermits.release();
+                reporter.decrementConcurrentWrites();
+                span.end();
+            });
+        }
+    }
+
+    /**
+     * Merge requests for the same series and type, so that each series is written once per
+     * batch.
+     */
+    static List<Request> mergeBySeries(final List<Request> requests) {
+        final Map<Series, List<Request>> bySeries = new LinkedHashMap<>();
+
+        for (final Request request : requests) {
+            bySeries.computeIfAbsent(request.getSeries(), s -> new ArrayList<>()).add(request);
+        }
+
+        if (bySeries.size() == requests.size()) {
+            return requests;
+        }
+
+        final List<Request> merged = new ArrayList<>(bySeries.size());
+
+        for (final Map.Entry<Series, List<Request>> e : bySeries.entrySet()) {
+            final Map<MetricType, List<Metric>> byType = new EnumMap<>(MetricType.class);
+
+            for (final Request request : e.getValue()) {
+                byType
+                    .computeIfAbsent(request.getData().getType(), t -> new ArrayList<>())
+                    .addAll(request.getData().data());
+            }
+
+            for (final Map.Entry<MetricType, List<Metric>> data : byType.entrySet()) {
+                merged.add(new Request(e.getKey(),
+                    MetricCollection.build(data.getKey(), data.getValue())));
+            }
+        }
+
+        return merged;
+    }
+
     protected AsyncFuture<Ingestion> doWrite(final Request request) {
         final Span span = tracer.spanBuilder("CoreIngestionGroup.doWrite").startSpan();
         final List<AsyncFuture<Ingestion>> futures = new ArrayList<>();
@@ -21,8 +21,12 @@
 
 package com.spotify.heroic.ingestion;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.spotify.heroic.common.Statistics;
+import com.spotify.heroic.filter.CompiledFilter;
 import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.lifecycle.LifeCycleRegistry;
+import com.spotify.heroic.lifecycle.LifeCycles;
 import com.spotify.heroic.metadata.MetadataBackend;
 import com.spotify.heroic.metadata.MetadataManager;
 import com.spotify.heroic.metric.MetricBackend;
@@ -35,15 +39,27 @@ import eu.toolchain.async.AsyncFuture;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
-public class IngestionManagerImpl implements IngestionManager {
+@IngestionScope
+public class IngestionManagerImpl implements IngestionManager, LifeCycles {
+    private static final Logger log = LoggerFactory.getLogger(IngestionManagerImpl.class);
+
     final AsyncFramework async;
     final MetadataManager metadata;
     final MetricManager metric;
@@ -53,18 +69,35 @@ public class IngestionManagerImpl implements IngestionManager {
     private final boolean updateMetrics;
     private final boolean updateMetadata;
     private final boolean updateSuggestions;
+    private final long coalesceIntervalMillis;
+    private final int coalesceMaxPoints;
 
     private volatile Filter filter;
+    private volatile CompiledFilter compiledFilter;
 
     private final Semaphore writePermits;
 
     private final LongAdder ingested = new LongAdder();
 
+    /* coalescing groups are long-lived, since they buffer writes between flushes */
+    private final ConcurrentMap<Optional<String>, CoalescingIngestionGroup> coalescing =
+        new ConcurrentHashMap<>();
+
+    /* flushes block on write permits, so they get a thread of their own instead of the shared
+     * scheduler */
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("heroic-ingestion-flush-%d").setDaemon(true)
+            .build());
+
     /**
      * @param updateMetrics Ingested metrics will update metric backends.
      * @param updateMetadata Ingested metrics will update metadata backends.
      * @param updateSuggestions Ingested metrics will update suggest backends.
      * @param maxConcurrentWrites Limit the number of concurrent writes, 0 means no limit at all
+     * @param coalesceIntervalMillis Interval at which coalesced writes are flushed, 0 disables
+     * coalescing
+     * @param coalesceMaxPoints Number of buffered points at which coalesced writes are flushed
+     * early
      */
     @Inject
     public IngestionManagerImpl(
@@ -73,7 +106,9 @@ public class IngestionManagerImpl implements IngestionManager {
         @Named("updateMetrics") final boolean updateMetrics,
         @Named("updateMetadata") final boolean updateMetadata,
         @Named("updateSuggestions") final boolean updateSuggestions,
-        @Named("maxConcurrentWrites") final int maxConcurrentWrites, final Filter filter
+        @Named("maxConcurrentWrites") final int maxConcurrentWrites,
+        @Named("coalesceIntervalMillis") final long coalesceIntervalMillis,
+        @Named("coalesceMaxPoints") final int coalesceMaxPoints, final Filter filter
     ) {
         this.async = async;
         this.metadata = metadata;
@@ -84,20 +119,70 @@ public class IngestionManagerImpl implements IngestionManager {
         this.updateMetrics = updateMetrics;
         this.updateMetadata = updateMetadata;
         this.updateSuggestions = updateSuggestions;
+        this.coalesceIntervalMillis = coalesceIntervalMillis;
+        this.coalesceMaxPoints = coalesceMaxPoints;
         this.filter = filter;
+        this.compiledFilter = CompiledFilter.compile(filter);
 
         this.writePermits = new Semaphore(maxConcurrentWrites);
     }
 
     @Override
     public IngestionGroup useOptionalGroup(final Optional<String> group) {
-        return buildGroup(group, metric::useOptionalGroup, metadata::useOptionalGroup,
-            suggest::useOptionalGroup);
+        if (coalesceIntervalMillis <= 0) {
+            return buildGroup(group, metric::useOptionalGroup, metadata::useOptionalGroup,
+                suggest::useOptionalGroup);
+        }
+
+        return coalescing.computeIfAbsent(group, g -> {
+            final CoalescingIngestionGroup coalesced = new CoalescingIngestionGroup(async,
+                buildGroup(g, metric::useOptionalGroup, metadata::useOptionalGroup,
+                    suggest::useOptionalGroup), ingested, coalesceMaxPoints);
+
+            flusher.scheduleWithFixedDelay(() -> flush(coalesced), coalesceIntervalMillis,
+                coalesceIntervalMillis, TimeUnit.MILLISECONDS);
+
+            return coalesced;
+        });
+    }
+
+    @Override
+    public void register(final LifeCycleRegistry registry) {
+        registry.stop(this::stop);
+    }
+
+    private void flush(final CoalescingIngestionGroup group) {
+        try {
+            group.flush();
+        } catch (final Exception e) {
+            /* an exception would suppress all future flushes */
+            log.error("Failed to flush coalesced writes", e);
+        }
+    }
+
+    /**
+     * Stop the periodic flushes, then write what every coalescing group still buffers.
+     */
+    private AsyncFuture<Void> stop() {
+        return async.call(() -> {
+            flusher.shutdown();
+            flusher.awaitTermination(1, TimeUnit.MINUTES);
+            return null;
+        }).lazyTransform(ignore -> {
+            final List<AsyncFuture<Void>> closed = new ArrayList<>();
+
+            for (final CoalescingIngestionGroup group : coalescing.values()) {
+                closed.add(group.close());
+            }
+
+            return async.collectAndDiscard(closed);
+        });
     }
 
     @Override
     public AsyncFuture<Void> setFilter(Filter filter) {
-        this.filter = checkNotNull(filter, "filter");
+        this.compiledFilter = CompiledFilter.compile(checkNotNull(filter, "filter"));
+        this.filter = filter;
         return async.resolved();
     }
 
@@ -112,14 +197,14 @@ public class IngestionManagerImpl implements IngestionManager {
             writePermits.availablePermits());
     }
 
-    private <I> IngestionGroup buildGroup(
+    private <I> CoreIngestionGroup buildGroup(
         final I input, Function<I, MetricBackend> metric, Function<I, MetadataBackend> metadata,
         Function<I, SuggestBackend> suggest
     ) {
         // @formatter:off
         return new CoreIngestionGroup(
             async,
-            () -> filter,
+            () -> compiledFilter,
             writePermits,
             reporter,
             ingested,
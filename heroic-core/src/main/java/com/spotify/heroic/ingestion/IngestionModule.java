@@ -33,6 +33,8 @@ import com.spotify.heroic.dagger.PrimaryComponent;
 import com.spotify.heroic.filter.Filter;
 import com.spotify.heroic.filter.TrueFilter;
 import com.spotify.heroic.grammar.QueryParser;
+import com.spotify.heroic.lifecycle.LifeCycle;
+import com.spotify.heroic.lifecycle.LifeCycleManager;
 import com.spotify.heroic.metadata.MetadataComponent;
 import com.spotify.heroic.metric.MetricComponent;
 import com.spotify.heroic.statistics.HeroicReporter;
@@ -51,11 +53,15 @@ public class IngestionModule {
     public static final boolean DEFAULT_UPDATE_METADATA = true;
     public static final boolean DEFAULT_UPDATE_SUGGESTIONS = true;
     public static final int DEFAULT_MAX_CONCURRENT_WRITES = 50000;
+    public static final long DEFAULT_COALESCE_INTERVAL_MILLIS = 0;
+    public static final int DEFAULT_COALESCE_MAX_POINTS = 10000;
 
     private final boolean updateMetrics;
     private final boolean updateMetadata;
     private final boolean updateSuggestions;
     private final int maxConcurrentWrites;
+    private final long coalesceIntervalMillis;
+    private final int coalesceMaxPoints;
     private final Optional<String> filter;
 
     public IngestionModule(
@@ -63,12 +69,16 @@ public class IngestionModule {
         final boolean updateMetadata,
         final boolean updateSuggestions,
         final int maxConcurrentWrites,
+        final long coalesceIntervalMillis,
+        final int coalesceMaxPoints,
         final Optional<String> filter
     ) {
         this.updateMetrics = updateMetrics;
         this.updateMetadata = updateMetadata;
         this.updateSuggestions = updateSuggestions;
         this.maxConcurrentWrites = maxConcurrentWrites;
+        this.coalesceIntervalMillis = coalesceIntervalMillis;
+        this.coalesceMaxPoints = coalesceMaxPoints;
         this.filter = filter;
     }
 
@@ -95,10 +105,23 @@ public class IngestionModule {
     interface C extends IngestionComponent {
         @Override
         IngestionManagerImpl ingestionManager();
+
+        @Override
+        @Named("ingestion")
+        LifeCycle ingestionLife();
     }
 
     @Module
     class M {
+        @Provides
+        @IngestionScope
+        @Named("ingestion")
+        public LifeCycle ingestionLife(
+            final LifeCycleManager manager, final IngestionManagerImpl ingestion
+        ) {
+            return manager.build(ingestion);
+        }
+
         @Provides
         @IngestionScope
         public IngestionManagerReporter reporter(HeroicReporter reporter) {
@@ -133,6 +156,20 @@ public class IngestionModule {
             return maxConcurrentWrites;
         }
 
+        @Provides
+        @Named("coalesceIntervalMillis")
+        @IngestionScope
+        public long coalesceIntervalMillis() {
+            return coalesceIntervalMillis;
+        }
+
+        @Provides
+        @Named("coalesceMaxPoints")
+        @IngestionScope
+        public int coalesceMaxPoints() {
+            return coalesceMaxPoints;
+        }
+
         @Provides
         @IngestionScope
         public Filter filter(
@@ -154,6 +191,8 @@ public class IngestionModule {
         private Optional<Boolean> updateMetadata = empty();
         private Optional<Boolean> updateSuggestions = empty();
         private Optional<Integer> maxConcurrentWrites = empty();
+        private Optional<Long> coalesceIntervalMillis = empty();
+        private Optional<Integer> coalesceMaxPoints = empty();
         private Optional<String> filter = empty();
 
         private Builder() {
@@ -165,12 +204,16 @@ public class IngestionModule {
             @JsonProperty("updateMetadata") final Optional<Boolean> updateMetadata,
             @JsonProperty("updateSuggestions") final Optional<Boolean> updateSuggestions,
             @JsonProperty("maxConcurrentWrites") final Optional<Integer> maxConcurrentWrites,
+            @JsonProperty("coalesceIntervalMillis") final Optional<Long> coalesceIntervalMillis,
+            @JsonProperty("coalesceMaxPoints") final Optional<Integer> coalesceMaxPoints,
             @JsonProperty("filter") final Optional<String> filter
         ) {
             this.updateMetrics = updateMetrics;
             this.updateMetadata = updateMetadata;
             this.updateSuggestions = updateSuggestions;
             this.maxConcurrentWrites = maxConcurrentWrites;
+            this.coalesceIntervalMillis = coalesceIntervalMillis;
+            this.coalesceMaxPoints = coalesceMaxPoints;
             this.filter = filter;
         }
 
@@ -201,6 +244,16 @@ public class IngestionModule {
             return this;
         }
 
+        public Builder coalesceIntervalMillis(long coalesceIntervalMillis) {
+            this.coalesceIntervalMillis = of(coalesceIntervalMillis);
+            return this;
+        }
+
+        public Builder coalesceMaxPoints(int coalesceMaxPoints) {
+            this.coalesceMaxPoints = of(coalesceMaxPoints);
+            return this;
+        }
+
         public Builder merge(final Builder o) {
             // @formatter:off
             return new Builder(
@@ -208,6 +261,8 @@ public class IngestionModule {
                 pickOptional(updateMetadata, o.updateMetadata),
                 pickOptional(updateSuggestions, o.updateSuggestions),
                 pickOptional(maxConcurrentWrites, o.maxConcurrentWrites),
+                pickOptional(coalesceIntervalMillis, o.coalesceIntervalMillis),
+                pickOptional(coalesceMaxPoints, o.coalesceMaxPoints),
                 pickOptional(filter, o.filter)
             );
             // @formatter:on
@@ -220,6 +275,8 @@ public class IngestionModule {
                 updateMetadata.orElse(DEFAULT_UPDATE_METADATA),
                 updateSuggestions.orElse(DEFAULT_UPDATE_SUGGESTIONS),
                 maxConcurrentWrites.orElse(DEFAULT_MAX_CONCURRENT_WRITES),
+                coalesceIntervalMillis.orElse(DEFAULT_COALESCE_INTERVAL_MILLIS),
+                coalesceMaxPoints.orElse(DEFAULT_COALESCE_MAX_POINTS),
                 filter
             );
             // @formatter:on
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.jetty;
+
+import java.io.IOException;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.gzip.GzipHandler;
+
+/**
+ * Gzip handler which sync flushes the compressed output of streamed responses every time they
+ * are flushed, so that each flush reaches the client. Other responses are only flushed once
+ * they are complete, and are compressed without sync flushes.
+ * <p>
+ * A response is streamed if the request has the query parameter {@code stream=true}.
+ */
+public class StreamingGzipHandler extends GzipHandler {
+    public static final String STREAM_PARAMETER = "stream";
+
+    /* the sync flush mode of the request being handled on this thread, if any */
+    private final ThreadLocal<Boolean> syncFlush = new ThreadLocal<>();
+
+    @Override
+    public void handle(
+        String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response
+    ) throws IOException, ServletException {
+        syncFlush.set(Boolean.parseBoolean(request.getParameter(STREAM_PARAMETER)));
+
+        try {
+            super.handle(target, baseRequest, request, response);
+        } finally {
+            syncFlush.remove();
+        }
+    }
+
+    /**
+     * Read when the compressing interceptor for a request is installed.
+     */
+    @Override
+    public boolean isSyncFlush() {
+        final Boolean sync = syncFlush.get();
+
+        if (sync == null) {
+            return super.isSyncFlush();
+        }
+
+        return sync;
+    }
+}
@@ -29,6 +29,7 @@ import com.google.common.collect.ConcurrentHashMultiset;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.spotify.heroic.QueryOptions;
 import com.spotify.heroic.aggregation.AggregationInstance;
 import com.spotify.heroic.aggregation.AggregationOutput;
@@ -66,7 +67,9 @@ import io.opencensus.trace.BlankSpan;
 import io.opencensus.trace.Span;
 import io.opencensus.trace.Tracer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -75,8 +78,10 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import javax.inject.Inject;
 import javax.inject.Named;
 import org.apache.commons.lang3.NotImplementedException;
@@ -98,6 +103,7 @@ public class LocalMetricManager implements MetricManager {
     private final OptionalLimit dataLimit;
     private final int concurrentQueriesBackoff;
     private final int fetchParallelism;
+    private final int fetchBatchSize;
     private final boolean failOnLimits;
 
     private final AsyncFramework async;
@@ -114,6 +120,7 @@ public class LocalMetricManager implements MetricManager {
      * may produce.
      * @param dataLimit The maximum number of samples a single query is allowed to fetch.
      * @param fetchParallelism How many fetches that are allowed to be performed in parallel.
+     * @param fetchBatchSize How many series are read from a backend with a single batched fetch.
      */
     @Inject
     public LocalMetricManager(
@@ -123,6 +130,7 @@ public class LocalMetricManager implements MetricManager {
         @Named("dataLimit") final OptionalLimit dataLimit,
         @Named("concurrentQueriesBackoff") final OptionalLimit concurrentQueriesBackoff,
         @Named("fetchParallelism") final int fetchParallelism,
+        @Named("fetchBatchSize") final int fetchBatchSize,
         @Named("failOnLimits") final boolean failOnLimits,
         final AsyncFramework async,
         final GroupSet<MetricBackend> groupSet,
@@ -136,6 +144,7 @@ public class LocalMetricManager implements MetricManager {
         this.dataLimit = dataLimit;
         this.concurrentQueriesBackoff = concurrentQueriesBackoff.asMaxInteger(Integer.MAX_VALUE);
         this.fetchParallelism = fetchParallelism;
+        this.fetchBatchSize = Math.max(1, fetchBatchSize);
         this.failOnLimits = failOnLimits;
         this.async = async;
         this.groupSet = groupSet;
@@ -185,30 +194,37 @@ public class LocalMetricManager implements MetricManager {
                    + ")";
         }
 
-        private class Transform implements LazyTransform<FindSeries, FullQuery> {
-            private final AggregationInstance aggregation;
+        private class Transform implements LazyTransform<FindSeries, List<FullQuery>> {
+            private final List<FullQuery.Request> requests;
             private final boolean failOnLimits;
             private final OptionalLimit seriesLimit;
             private final OptionalLimit groupLimit;
             private final QueryTrace.NamedWatch namedWatch;
-            private final QuotaWatcher quotaWatcher;
-            private final BucketStrategy bucketStrategy;
+            private final DataQuotaWatcher dataQuotaWatcher;
+            private final List<QuotaWatcher> quotaWatchers;
             private final DateRange range;
             private final QueryOptions options;
             private final DataInMemoryReporter dataInMemoryReporter;
             private final Span parentSpan;
             private final MetricType source;
 
+            /**
+             * @param requests Requests to serve, all of which must share their fetch.
+             * @param quotaWatchers The quota of each request, sharing the quota of the fetch.
+             */
             private Transform(
-                final FullQuery.Request request,
+                final List<FullQuery.Request> requests,
                 final boolean failOnLimits,
                 final OptionalLimit seriesLimit,
                 final OptionalLimit groupLimit,
-                final QuotaWatcher quotaWatcher,
+                final DataQuotaWatcher dataQuotaWatcher,
+                final List<QuotaWatcher> quotaWatchers,
                 final DataInMemoryReporter dataInMemoryReporter,
                 final Span parentSpan
             ) {
-                this.aggregation = request.aggregation();
+                final FullQuery.Request request = requests.get(0);
+
+                this.requests = requests;
                 this.range = request.range();
                 this.options = request.options();
                 this.source = request.source();
@@ -218,21 +234,16 @@ public class LocalMetricManager implements MetricManager {
                 this.groupLimit = groupLimit;
 
                 this.namedWatch = QueryTrace.watch(QUERY);
-                this.quotaWatcher = quotaWatcher;
+                this.dataQuotaWatcher = dataQuotaWatcher;
+                this.quotaWatchers = quotaWatchers;
 
                 this.dataInMemoryReporter = dataInMemoryReporter;
                 this.parentSpan = parentSpan;
-
-                final Features features = request.features();
-                this.bucketStrategy = options
-                    .bucketStrategy()
-                    .orElseGet(
-                        () -> features.withFeature(Feature.END_BUCKET, () -> BucketStrategy.END,
-                            () -> BucketStrategy.START));
             }
 
             @Override
-            public AsyncFuture<FullQuery> transform(final FindSeries result) throws Exception {
+            public AsyncFuture<List<FullQuery>> transform(final FindSeries result)
+                throws Exception {
                 final Span fetchSpan = tracer.spanBuilderWithExplicitParent(
                     "localMetricsManager.fetch", parentSpan).startSpan();
                 final ResultLimits limits;
@@ -247,8 +258,8 @@ public class LocalMetricManager implements MetricManager {
                         fetchSpan.putAttribute("quotaViolation", booleanAttributeValue(true));
                         fetchSpan.end();
 
-                        return async.resolved(FullQuery.limitsError(namedWatch.end(), error,
-                            ResultLimits.of(ResultLimit.SERIES)));
+                        return async.resolved(each(() -> FullQuery.limitsError(namedWatch.end(),
+                            error, ResultLimits.of(ResultLimit.SERIES))));
                     }
 
                     limits = ResultLimits.of(ResultLimit.SERIES);
@@ -258,31 +269,96 @@ public class LocalMetricManager implements MetricManager {
 
                 /* if empty, there are not time series on this shard */
                 if (result.isEmpty()) {
-                    return async.resolved(FullQuery.empty(namedWatch.end(), limits));
+                    return async.resolved(each(() -> FullQuery.empty(namedWatch.end(), limits)));
                 }
 
-                final AggregationSession session;
-                try {
-                    session = aggregation.session(range, quotaWatcher, bucketStrategy);
-                } catch (QuotaViolationException e) {
-                    String error = format(
-                        "aggregation needs to retain more data then what is allowed: %d",
-                        aggregationLimit.asLong().get());
-                    fetchSpan.addAnnotation(error);
-                    fetchSpan.putAttribute("quotaViolation", booleanAttributeValue(true));
+                /* one collector per request, or the result of a request which failed up front */
+                final List<RequestCollector> collectors = new ArrayList<>(requests.size());
+                boolean anyCollector = false;
+
+                for (int i = 0; i < requests.size(); i++) {
+                    final FullQuery.Request request = requests.get(i);
+                    final QuotaWatcher quotaWatcher = quotaWatchers.get(i);
+                    final AggregationSession session;
+
+                    try {
+                        session = request
+                            .aggregation()
+                            .session(range, quotaWatcher, bucketStrategy(request));
+                    } catch (QuotaViolationException e) {
+                        String error = format(
+                            "aggregation needs to retain more data then what is allowed: %d",
+                            aggregationLimit.asLong().get());
+                        fetchSpan.addAnnotation(error);
+                        fetchSpan.putAttribute("quotaViolation", booleanAttributeValue(true));
+                        collectors.add(new ResolvedCollector(FullQuery.limitsError(namedWatch.end(),
+                            new QueryError(error), ResultLimits.of(ResultLimit.AGGREGATION))));
+                        continue;
+                    }
+
+                    collectors.add(
+                        collector(request.aggregation(), session, quotaWatcher, limits));
+                    anyCollector = true;
+                }
+
+                final BatchCollector collector = new BatchCollector(collectors,
+                    dataInMemoryReporter);
+
+                if (!anyCollector) {
                     fetchSpan.end();
-                    return async.resolved(FullQuery.limitsError(namedWatch.end(),
-                        new QueryError(error),
-                        ResultLimits.of(ResultLimit.AGGREGATION)));
+                    return async.resolved(collector.end(0, 0, 0));
+                }
+
+                final List<List<Series>> batches =
+                    Lists.partition(ImmutableList.copyOf(result.getSeries()), fetchBatchSize);
+
+                final List<Callable<AsyncFuture<FetchData.Result>>> fetches = new ArrayList<>();
+                accept(metricBackend -> {
+                    for (final List<Series> batch : batches) {
+                        final Span fetchBatch = tracer.spanBuilderWithExplicitParent(
+                            "localMetricsManager.fetchBatch", fetchSpan).startSpan();
+                        fetchBatch.putAttribute("seriesCount", longAttributeValue(batch.size()));
+                        fetches.add(() -> metricBackend.fetchBatch(
+                            new FetchData.BatchRequest(source, batch, range, options),
+                            dataQuotaWatcher,
+                            collector::acceptMetricsCollection,
+                            fetchBatch
+                        ).onDone(new EndSpanFutureReporter(fetchBatch)));
+                    }
+                });
+                return async
+                    .eventuallyCollect(fetches, collector, fetchParallelism)
+                    .onDone(new EndSpanFutureReporter(fetchSpan));
+            }
+
+            private List<FullQuery> each(final Supplier<FullQuery> result) {
+                final List<FullQuery> results = new ArrayList<>(requests.size());
+
+                for (int i = 0; i < requests.size(); i++) {
+                    results.add(result.get());
                 }
 
-                /* setup collector */
-                final ResultCollector collector;
+                return results;
+            }
+
+            private BucketStrategy bucketStrategy(final FullQuery.Request request) {
+                final Features features = request.features();
+
+                return options
+                    .bucketStrategy()
+                    .orElseGet(
+                        () -> features.withFeature(Feature.END_BUCKET, () -> BucketStrategy.END,
+                            () -> BucketStrategy.START));
+            }
 
+            private ResultCollector collector(
+                final AggregationInstance aggregation, final AggregationSession session,
+                final QuotaWatcher quotaWatcher, final ResultLimits limits
+            ) {
                 if (options.tracing().isEnabled(Tracing.DETAILED)) {
                     // tracing enabled, keeps track of each individual FetchData trace.
-                    collector = new ResultCollector(quotaWatcher, dataInMemoryReporter, aggregation,
-                        session, limits, groupLimit, failOnLimits) {
+                    return new ResultCollector(quotaWatcher, aggregation, session, limits,
+                        groupLimit, failOnLimits) {
                         final ConcurrentLinkedQueue<QueryTrace> traces =
                             new ConcurrentLinkedQueue<>();
 
@@ -297,34 +373,16 @@ public class LocalMetricManager implements MetricManager {
                             return namedWatch.end(ImmutableList.copyOf(traces));
                         }
                     };
-                } else {
-                    // very limited tracing, does not collected each individual FetchData trace.
-                    collector = new ResultCollector(quotaWatcher, dataInMemoryReporter, aggregation,
-                        session, limits, groupLimit, failOnLimits) {
-                        @Override
-                        public QueryTrace buildTrace() {
-                            return namedWatch.end();
-                        }
-                    };
                 }
 
-                final List<Callable<AsyncFuture<FetchData.Result>>> fetches = new ArrayList<>();
-                accept(metricBackend -> {
-                    for (final Series series : result.getSeries()) {
-                        final Span fetchSeries = tracer.spanBuilderWithExplicitParent(
-                            "localMetricsManager.fetchSeries", fetchSpan).startSpan();
-                        fetchSeries.addAnnotation(series.toString());
-                        fetches.add(() -> metricBackend.fetch(
-                            new FetchData.Request(source, series, range, options),
-                            quotaWatcher,
-                            mcr -> collector.acceptMetricsCollection(series, mcr),
-                            fetchSeries
-                        ).onDone(new EndSpanFutureReporter(fetchSeries)));
+                // very limited tracing, does not collected each individual FetchData trace.
+                return new ResultCollector(quotaWatcher, aggregation, session, limits,
+                    groupLimit, failOnLimits) {
+                    @Override
+                    public QueryTrace buildTrace() {
+                        return namedWatch.end();
                     }
-                });
-                return async
-                    .eventuallyCollect(fetches, collector, fetchParallelism)
-                    .onDone(new EndSpanFutureReporter(fetchSpan));
+                };
             }
         }
 
@@ -335,6 +393,39 @@ public class LocalMetricManager implements MetricManager {
 
         @Override
         public AsyncFuture<FullQuery> query(final FullQuery.Request request, final Span span) {
+            return queryBatch(ImmutableList.of(request), span).directTransform(r -> r.get(0));
+        }
+
+        @Override
+        public AsyncFuture<List<FullQuery>> queryBatch(
+            final List<FullQuery.Request> requests, final Span span
+        ) {
+            final List<List<Integer>> shared = groupBySharedFetch(requests);
+
+            if (shared.size() > 1) {
+                final List<AsyncFuture<List<FullQuery>>> parts = new ArrayList<>(shared.size());
+
+                for (final List<Integer> part : shared) {
+                    parts.add(queryBatch(
+                        ImmutableList.copyOf(Lists.transform(part, requests::get)), span));
+                }
+
+                return async.collect(parts).directTransform(results -> {
+                    final FullQuery[] ordered = new FullQuery[requests.size()];
+                    final Iterator<List<Integer>> indexes = shared.iterator();
+
+                    for (final List<FullQuery> partResults : results) {
+                        final Iterator<Integer> index = indexes.next().iterator();
+
+                        for (final FullQuery result : partResults) {
+                            ordered[index.next()] = result;
+                        }
+                    }
+
+                    return Arrays.asList(ordered);
+                });
+            }
+
             if (!concurrentQueries.tryAcquire()) {
                 // There's currently too many concurrent queries. Fail now so that the QueryManager
                 // gets an opportunity to try another node in the same shard instead.
@@ -347,27 +438,66 @@ public class LocalMetricManager implements MetricManager {
             }
 
             try {
-                return protectedQuery(request, span).onFinished(concurrentQueries::release);
+                return protectedQuery(requests, span).onFinished(concurrentQueries::release);
             } catch (Exception e) {
                 concurrentQueries.release();
                 throw new RuntimeException(e);
             }
         }
 
-        private AsyncFuture<FullQuery> protectedQuery(
-            final FullQuery.Request request, final Span parentSpan) {
+        /**
+         * Group the indexes of the given requests by which requests share their fetch.
+         */
+        private List<List<Integer>> groupBySharedFetch(final List<FullQuery.Request> requests) {
+            final List<List<Integer>> groups = new ArrayList<>();
+
+            for (int i = 0; i < requests.size(); i++) {
+                final FullQuery.Request request = requests.get(i);
+
+                final Optional<List<Integer>> group = groups
+                    .stream()
+                    .filter(g -> requests.get(g.get(0)).sharesFetch(request))
+                    .findFirst();
+
+                if (group.isPresent()) {
+                    group.get().add(i);
+                } else {
+                    groups.add(new ArrayList<>(ImmutableList.of(i)));
+                }
+            }
+
+            return groups;
+        }
+
+        /**
+         * Query a batch of requests which all share their fetch. The series are looked up and
+         * read once, and every request aggregates the same data.
+         */
+        private AsyncFuture<List<FullQuery>> protectedQuery(
+            final List<FullQuery.Request> requests, final Span parentSpan) {
+            final FullQuery.Request request = requests.get(0);
             final QueryOptions options = request.options();
-            final QueryContext queryContext = request.context();
 
-            queryLogger.logIncomingRequestAtNode(queryContext, request);
+            for (final FullQuery.Request r : requests) {
+                queryLogger.logIncomingRequestAtNode(r.context(), r);
+            }
 
             final DataInMemoryReporter dataInMemoryReporter = reporter.newDataInMemoryReporter();
 
-            final QuotaWatcher quotaWatcher = new QuotaWatcher(
+            /* the shared fetch is bound by the data limit as if it was a single query, while
+             * every aggregation may retain up to the aggregation limit on its own */
+            final DataQuotaWatcher dataQuotaWatcher = new DataQuotaWatcher(
                 options.dataLimit().orElse(dataLimit).asLong().orElse(Long.MAX_VALUE),
-                options.aggregationLimit().orElse(aggregationLimit).asLong().orElse(Long.MAX_VALUE),
-                dataInMemoryReporter
-            );
+                dataInMemoryReporter);
+
+            final long retainLimit =
+                options.aggregationLimit().orElse(aggregationLimit).asLong().orElse(Long.MAX_VALUE);
+
+            final List<QuotaWatcher> quotaWatchers = new ArrayList<>(requests.size());
+
+            for (int i = 0; i < requests.size(); i++) {
+                quotaWatchers.add(dataQuotaWatcher.newRequest(retainLimit));
+            }
 
             final OptionalLimit seriesLimit =
                 options.seriesLimit().orElse(LocalMetricManager.this.seriesLimit);
@@ -382,12 +512,13 @@ public class LocalMetricManager implements MetricManager {
                 "localMetricsManager.findSeries", parentSpan).startSpan();
 
             // Transform that takes the result from ES metadata lookup to fetch from backend
-            final LazyTransform<FindSeries, FullQuery> transform =
-                new Transform(request,
+            final LazyTransform<FindSeries, List<FullQuery>> transform =
+                new Transform(requests,
                     failOnLimits,
                     seriesLimit,
                     groupLimit,
-                    quotaWatcher,
+                    dataQuotaWatcher,
+                    quotaWatchers,
                     dataInMemoryReporter,
                     findSeriesSpan);
 
@@ -398,9 +529,13 @@ public class LocalMetricManager implements MetricManager {
                     "seriesCount", longAttributeValue(t.getSeries().size())))
                 .onDone(new EndSpanFutureReporter(findSeriesSpan))
                 .lazyTransform(transform)
-                .directTransform(fullQuery -> {
-                    queryLogger.logOutgoingResponseAtNode(queryContext, fullQuery);
-                    return fullQuery;
+                .directTransform(fullQueries -> {
+                    for (int i = 0; i < fullQueries.size(); i++) {
+                        queryLogger.logOutgoingResponseAtNode(requests.get(i).context(),
+                            fullQueries.get(i));
+                    }
+
+                    return fullQueries;
                 })
                 .onDone(reporter.reportQueryMetrics());
         }
@@ -429,6 +564,18 @@ public class LocalMetricManager implements MetricManager {
             return async.collect(callbacks, FetchData.collectResult(FETCH));
         }
 
+        @Override
+        public AsyncFuture<FetchData.Result> fetchBatch(
+            final FetchData.BatchRequest request,
+            final FetchQuotaWatcher watcher,
+            final BiConsumer<Series, MetricReadResult> metricsConsumer,
+            final Span parentSpan
+        ) {
+            final List<AsyncFuture<FetchData.Result>> callbacks =
+                map(b -> b.fetchBatch(request, watcher, metricsConsumer, parentSpan));
+            return async.collect(callbacks, FetchData.collectResult(FETCH));
+        }
+
         @Override
         public AsyncFuture<WriteMetric> write(final WriteMetric.Request request) {
             return write(request, io.opencensus.trace.Tracing.getTracer().getCurrentSpan());
@@ -501,6 +648,24 @@ public class LocalMetricManager implements MetricManager {
             });
         }
 
+        @Override
+        public AsyncFuture<Long> compactSeries(
+            Series series, DateRange range, QueryOptions options
+        ) {
+            final List<AsyncFuture<Long>> compacted =
+                map(b -> b.compactSeries(series, range, options));
+
+            return async.collect(compacted).directTransform(result -> {
+                long count = 0;
+
+                for (final long c : result) {
+                    count += c;
+                }
+
+                return count;
+            });
+        }
+
         @Override
         public AsyncFuture<MetricCollection> fetchRow(final BackendKey key) {
             final List<AsyncFuture<MetricCollection>> callbacks = map(b -> b.fetchRow(key));
@@ -530,15 +695,54 @@ public class LocalMetricManager implements MetricManager {
         }
     }
 
-    private abstract static class ResultCollector
-        implements StreamCollector<FetchData.Result, FullQuery> {
+    /**
+     * Collects the result of a single request in a batch.
+     */
+    private interface RequestCollector extends StreamCollector<FetchData.Result, FullQuery> {
+        void acceptMetricsCollection(Series series, MetricReadResult readResult);
+    }
+
+    /**
+     * The result of a request which was known before anything was fetched.
+     */
+    private static class ResolvedCollector implements RequestCollector {
+        private final FullQuery result;
+
+        private ResolvedCollector(final FullQuery result) {
+            this.result = result;
+        }
+
+        @Override
+        public void acceptMetricsCollection(
+            final Series series, final MetricReadResult readResult
+        ) {
+        }
+
+        @Override
+        public void resolved(final FetchData.Result result) throws Exception {
+        }
+
+        @Override
+        public void failed(final Throwable cause) throws Exception {
+        }
+
+        @Override
+        public void cancelled() throws Exception {
+        }
+
+        @Override
+        public FullQuery end(int resolved, int failed, int cancelled) throws Exception {
+            return result;
+        }
+    }
+
+    private abstract static class ResultCollector implements RequestCollector {
         private static final String ROWS_ACCESSED = "rowsAccessed";
 
         final ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
         final ConcurrentLinkedQueue<RequestError> requestErrors = new ConcurrentLinkedQueue<>();
 
         final QuotaWatcher watcher;
-        final DataInMemoryReporter dataInMemoryReporter;
         final AggregationInstance aggregation;
         final AggregationSession session;
         final ResultLimits limits;
@@ -549,7 +753,6 @@ public class LocalMetricManager implements MetricManager {
 
         private ResultCollector(
             final QuotaWatcher watcher,
-            final DataInMemoryReporter dataInMemoryReporter,
             final AggregationInstance aggregation,
             final AggregationSession session,
             final ResultLimits limits,
@@ -557,7 +760,6 @@ public class LocalMetricManager implements MetricManager {
             final boolean failOnLimits
         ) {
             this.watcher = watcher;
-            this.dataInMemoryReporter = dataInMemoryReporter;
             this.aggregation = aggregation;
             this.session = session;
             this.limits = limits;
@@ -570,17 +772,22 @@ public class LocalMetricManager implements MetricManager {
             requestErrors.addAll(result.getErrors());
         }
 
-        void acceptMetricsCollection(final Series series, final MetricReadResult readResult) {
+        @Override
+        public void acceptMetricsCollection(
+            final Series series, final MetricReadResult readResult
+        ) {
+            if (watcher.isRetainQuotaViolated()) {
+                return;
+            }
+
             final MetricCollection metrics = readResult.getMetrics();
             final Map<String, String> aggregationKey = buildAggregationKey(series, readResult);
 
             metrics.updateAggregation(session, aggregationKey,
                 ImmutableSet.of(series.withResource(readResult.getResource())));
-            dataInMemoryReporter.reportDataNoLongerNeeded(metrics.size());
 
             metrics.getAverageDistanceBetweenMetrics().ifPresent(msBetweenSamples -> {
                 final double metricsPerSecond = 1000.0 / msBetweenSamples;
-                dataInMemoryReporter.reportRowDensity(metricsPerSecond);
                 final long metricsPerMegaSecond = (long) (metricsPerSecond * 1_000_000);
                 rowDensityData.add(metricsPerMegaSecond);
             });
@@ -615,9 +822,6 @@ public class LocalMetricManager implements MetricManager {
             final ImmutableList.Builder<RequestError> errorsBuilder = ImmutableList.builder();
             errorsBuilder.addAll(requestErrors);
 
-            // Signal that we're done processing this
-            dataInMemoryReporter.reportOperationEnded();
-
             final ImmutableSet.Builder<ResultLimit> limitsBuilder =
                 ImmutableSet.<ResultLimit>builder().addAll(this.limits.getLimits());
 
@@ -702,23 +906,100 @@ public class LocalMetricManager implements MetricManager {
         }
     }
 
-    private static class QuotaWatcher implements FetchQuotaWatcher, RetainQuotaWatcher {
+    /**
+     * Feeds the results of a single fetch into the collectors of every request in a batch.
+     */
+    private static class BatchCollector
+        implements StreamCollector<FetchData.Result, List<FullQuery>> {
+        private final List<RequestCollector> collectors;
+        private final DataInMemoryReporter dataInMemoryReporter;
+
+        private BatchCollector(
+            final List<RequestCollector> collectors,
+            final DataInMemoryReporter dataInMemoryReporter
+        ) {
+            this.collectors = collectors;
+            this.dataInMemoryReporter = dataInMemoryReporter;
+        }
+
+        void acceptMetricsCollection(final Series series, final MetricReadResult readResult) {
+            for (final RequestCollector collector : collectors) {
+                try {
+                    collector.acceptMetricsCollection(series, readResult);
+                } catch (final QuotaViolationException e) {
+                    /* only this request has retained too much, which it reports when it ends */
+                }
+            }
+
+            final MetricCollection metrics = readResult.getMetrics();
+            dataInMemoryReporter.reportDataNoLongerNeeded(metrics.size());
+
+            metrics.getAverageDistanceBetweenMetrics().ifPresent(msBetweenSamples -> {
+                dataInMemoryReporter.reportRowDensity(1000.0 / msBetweenSamples);
+            });
+        }
+
+        @Override
+        public void resolved(final FetchData.Result result) throws Exception {
+            for (final RequestCollector collector : collectors) {
+                collector.resolved(result);
+            }
+        }
+
+        @Override
+        public void failed(final Throwable cause) throws Exception {
+            for (final RequestCollector collector : collectors) {
+                collector.failed(cause);
+            }
+        }
+
+        @Override
+        public void cancelled() throws Exception {
+        }
+
+        @Override
+        public List<FullQuery> end(int resolved, int failed, int cancelled) throws Exception {
+            // Signal that we're done processing this
+            dataInMemoryReporter.reportOperationEnded();
+
+            final List<FullQuery> results = new ArrayList<>(collectors.size());
+
+            for (final RequestCollector collector : collectors) {
+                results.add(collector.end(resolved, failed, cancelled));
+            }
+
+            return results;
+        }
+    }
+
+    /**
+     * Quota of the data read by a fetch, which is shared by every request in a batch.
+     */
+    private static class DataQuotaWatcher implements FetchQuotaWatcher {
         private final long dataLimit;
-        private final long retainLimit;
         private final DataInMemoryReporter dataInMemoryReporter;
 
         private final AtomicLong read = new AtomicLong();
-        private final AtomicLong retained = new AtomicLong();
-
         private final LongAdder rowsAccessed = new LongAdder();
 
-        private QuotaWatcher(final long dataLimit, final long retainLimit,
-                             final DataInMemoryReporter dataInMemoryReporter) {
+        private final List<QuotaWatcher> requests = new ArrayList<>();
+
+        private DataQuotaWatcher(
+            final long dataLimit, final DataInMemoryReporter dataInMemoryReporter
+        ) {
             this.dataLimit = dataLimit;
-            this.retainLimit = retainLimit;
             this.dataInMemoryReporter = dataInMemoryReporter;
         }
 
+        /**
+         * Set up the quota of a request reading from this fetch. Must be called before fetching.
+         */
+        QuotaWatcher newRequest(final long retainLimit) {
+            final QuotaWatcher watcher = new QuotaWatcher(this, retainLimit);
+            requests.add(watcher);
+            return watcher;
+        }
+
         @Override
         public void readData(long n) {
             read.addAndGet(n);
@@ -727,20 +1008,12 @@ public class LocalMetricManager implements MetricManager {
             dataInMemoryReporter.reportDataHasBeenRead(n);
         }
 
-        @Override
-        public void retainData(final long n) {
-            retained.addAndGet(n);
-            throwIfViolated();
-        }
-
+        /**
+         * Data may be read as long as the data quota holds, and some request may still retain it.
+         */
         @Override
         public boolean mayReadData() {
-            return !isReadQuotaViolated() && !isRetainQuotaViolated();
-        }
-
-        @Override
-        public boolean mayRetainMoreData() {
-            return mayReadData();
+            return !isReadQuotaViolated() && anyMayRetainMoreData();
         }
 
         @Override
@@ -758,37 +1031,87 @@ public class LocalMetricManager implements MetricManager {
             return rowsAccessed.longValue();
         }
 
+        private void throwIfViolated() {
+            if (!mayReadData()) {
+                throw new QuotaViolationException();
+            }
+        }
+
+        boolean isReadQuotaViolated() {
+            return read.get() >= dataLimit;
+        }
+
+        private boolean anyMayRetainMoreData() {
+            for (final QuotaWatcher request : requests) {
+                if (!request.isRetainQuotaViolated()) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * Quota of a single request in a batch, with its own retain limit.
+     */
+    private static class QuotaWatcher implements RetainQuotaWatcher {
+        private final DataQuotaWatcher data;
+        private final long retainLimit;
+
+        private final AtomicLong retained = new AtomicLong();
+
+        private QuotaWatcher(final DataQuotaWatcher data, final long retainLimit) {
+            this.data = data;
+            this.retainLimit = retainLimit;
+        }
+
+        @Override
+        public void retainData(final long n) {
+            retained.addAndGet(n);
+            throwIfViolated();
+        }
+
+        @Override
+        public boolean mayRetainMoreData() {
+            return !isReadQuotaViolated() && !isRetainQuotaViolated();
+        }
+
         @Override
         public int getRetainQuota() {
             return getLeft(retainLimit, retained.get());
         }
 
+        public long getRowsAccessed() {
+            return data.getRowsAccessed();
+        }
+
         private void throwIfViolated() {
-            if (isReadQuotaViolated() || isRetainQuotaViolated()) {
+            if (!mayRetainMoreData()) {
                 throw new QuotaViolationException();
             }
         }
 
         boolean isReadQuotaViolated() {
-            return read.get() >= dataLimit;
+            return data.isReadQuotaViolated();
         }
 
         boolean isRetainQuotaViolated() {
             return retained.get() >= retainLimit;
         }
+    }
 
-        private static int getLeft(long limit, long current) {
-            final long left = limit - current;
-
-            if (left < 0) {
-                return 0;
-            }
+    private static int getLeft(long limit, long current) {
+        final long left = limit - current;
 
-            if (left > Integer.MAX_VALUE) {
-                throw new IllegalStateException("quota too large");
-            }
+        if (left < 0) {
+            return 0;
+        }
 
-            return (int) left;
+        if (left > Integer.MAX_VALUE) {
+            throw new IllegalStateException("quota too large");
         }
+
+        return (int) left;
     }
 }
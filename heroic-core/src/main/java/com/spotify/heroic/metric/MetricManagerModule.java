@@ -49,6 +49,7 @@ import javax.inject.Named;
 @Module
 public class MetricManagerModule {
     public static final int DEFAULT_FETCH_PARALLELISM = 100;
+    public static final int DEFAULT_FETCH_BATCH_SIZE = 1;
     public static final boolean DEFAULT_FAIL_ON_LIMITS = false;
     public static final long DEFAULT_SMALL_QUERY_THRESHOLD = 200000;
 
@@ -86,6 +87,11 @@ public class MetricManagerModule {
      */
     private final int fetchParallelism;
 
+    /**
+     * How many series are read from a backend with a single batched fetch.
+     */
+    private final int fetchBatchSize;
+
     /**
      * If {@code true}, will cause any limits applied to be reported as a failure.
      */
@@ -105,6 +111,7 @@ public class MetricManagerModule {
         OptionalLimit dataLimit,
         OptionalLimit concurrentQueriesBackoff,
         int fetchParallelism,
+        int fetchBatchSize,
         boolean failOnLimits,
         long smallQueryThreshold
     ) {
@@ -116,6 +123,7 @@ public class MetricManagerModule {
         this.dataLimit = dataLimit;
         this.concurrentQueriesBackoff = concurrentQueriesBackoff;
         this.fetchParallelism = fetchParallelism;
+        this.fetchBatchSize = fetchBatchSize;
         this.failOnLimits = failOnLimits;
         this.smallQueryThreshold = smallQueryThreshold;
     }
@@ -216,6 +224,13 @@ public class MetricManagerModule {
         return fetchParallelism;
     }
 
+    @Provides
+    @MetricScope
+    @Named("fetchBatchSize")
+    public int fetchBatchSize() {
+        return fetchBatchSize;
+    }
+
     @Provides
     @MetricScope
     @Named("failOnLimits")
@@ -243,6 +258,7 @@ public class MetricManagerModule {
         private OptionalLimit dataLimit = OptionalLimit.empty();
         private OptionalLimit concurrentQueriesBackoff = OptionalLimit.empty();
         private Optional<Integer> fetchParallelism = empty();
+        private Optional<Integer> fetchBatchSize = empty();
         private Optional<Boolean> failOnLimits = empty();
         private Optional<Long> smallQueryThreshold = empty();
 
@@ -259,6 +275,7 @@ public class MetricManagerModule {
             @JsonProperty("dataLimit") OptionalLimit dataLimit,
             @JsonProperty("concurrentQueriesBackoff") OptionalLimit concurrentQueriesBackoff,
             @JsonProperty("fetchParallelism") Optional<Integer> fetchParallelism,
+            @JsonProperty("fetchBatchSize") Optional<Integer> fetchBatchSize,
             @JsonProperty("failOnLimits") Optional<Boolean> failOnLimits,
             @JsonProperty("smallQueryThreshold") Optional<Long> smallQueryThreshold
         ) {
@@ -270,6 +287,7 @@ public class MetricManagerModule {
             this.dataLimit = dataLimit;
             this.concurrentQueriesBackoff = concurrentQueriesBackoff;
             this.fetchParallelism = fetchParallelism;
+            this.fetchBatchSize = fetchBatchSize;
             this.failOnLimits = failOnLimits;
             this.smallQueryThreshold = smallQueryThreshold;
         }
@@ -314,6 +332,11 @@ public class MetricManagerModule {
             return this;
         }
 
+        public Builder fetchBatchSize(Integer fetchBatchSize) {
+            this.fetchBatchSize = of(fetchBatchSize);
+            return this;
+        }
+
         public Builder failOnLimits(boolean failOnLimits) {
             this.failOnLimits = of(failOnLimits);
             return this;
@@ -335,6 +358,7 @@ public class MetricManagerModule {
                 dataLimit.orElse(o.dataLimit),
                 concurrentQueriesBackoff.orElse(o.concurrentQueriesBackoff),
                 pickOptional(fetchParallelism, o.fetchParallelism),
+                pickOptional(fetchBatchSize, o.fetchBatchSize),
                 pickOptional(failOnLimits, o.failOnLimits),
                 pickOptional(smallQueryThreshold, o.smallQueryThreshold)
             );
@@ -352,6 +376,7 @@ public class MetricManagerModule {
                 dataLimit,
                 concurrentQueriesBackoff,
                 fetchParallelism.orElse(DEFAULT_FETCH_PARALLELISM),
+                fetchBatchSize.orElse(DEFAULT_FETCH_BATCH_SIZE),
                 failOnLimits.orElse(DEFAULT_FAIL_ON_LIMITS),
                 smallQueryThreshold.orElse(DEFAULT_SMALL_QUERY_THRESHOLD)
             );
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.shell.task;
+
+import com.google.common.collect.ImmutableList;
+import com.spotify.heroic.QueryOptions;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.OptionalLimit;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.dagger.CoreComponent;
+import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.filter.TrueFilter;
+import com.spotify.heroic.grammar.QueryParser;
+import com.spotify.heroic.metadata.FindSeries;
+import com.spotify.heroic.metadata.MetadataManager;
+import com.spotify.heroic.metric.MetricBackendGroup;
+import com.spotify.heroic.metric.MetricManager;
+import com.spotify.heroic.metric.Tracing;
+import com.spotify.heroic.shell.AbstractShellTaskParams;
+import com.spotify.heroic.shell.ShellIO;
+import com.spotify.heroic.shell.ShellTask;
+import com.spotify.heroic.shell.TaskName;
+import com.spotify.heroic.shell.TaskParameters;
+import com.spotify.heroic.shell.TaskUsage;
+import com.spotify.heroic.shell.Tasks;
+import com.spotify.heroic.time.Clock;
+import dagger.Component;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.StreamCollector;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.inject.Inject;
+import org.apache.commons.lang3.StringUtils;
+import org.kohsuke.args4j.Argument;
+import org.kohsuke.args4j.Option;
+
+@TaskUsage("Compact stored data of series matching the given query")
+@TaskName("compact-data")
+public class CompactData implements ShellTask {
+    private final Clock clock;
+    private final MetricManager metrics;
+    private final MetadataManager metadata;
+    private final QueryParser parser;
+    private final AsyncFramework async;
+
+    @Inject
+    public CompactData(
+        Clock clock, MetricManager metrics, MetadataManager metadata, QueryParser parser,
+        AsyncFramework async
+    ) {
+        this.clock = clock;
+        this.metrics = metrics;
+        this.metadata = metadata;
+        this.parser = parser;
+        this.async = async;
+    }
+
+    @Override
+    public TaskParameters params() {
+        return new Parameters();
+    }
+
+    @Override
+    public AsyncFuture<Void> run(final ShellIO io, final TaskParameters base) throws Exception {
+        final Parameters params = (Parameters) base;
+        final long now = clock.currentTimeMillis();
+
+        final long end = params.end.map(t -> Tasks.parseInstant(t, now)).orElse(now);
+        final long start = params.start
+            .map(t -> Tasks.parseInstant(t, now))
+            .orElseGet(() -> end - TimeUnit.MILLISECONDS.convert(7, TimeUnit.DAYS));
+
+        final DateRange range = new DateRange(start, end);
+
+        final Filter filter = params.query.isEmpty() ? TrueFilter.get()
+            : parser.parseFilter(StringUtils.join(params.query, " "));
+
+        final MetricBackendGroup group = metrics.useOptionalGroup(params.group);
+
+        final QueryOptions options =
+            QueryOptions.builder().tracing(Tracing.fromBoolean(params.tracing)).build();
+
+        return metadata
+            .useOptionalGroup(params.metadataGroup)
+            .findSeries(new FindSeries.Request(filter, range, params.limit))
+            .lazyTransform(result -> {
+                final ImmutableList.Builder<Callable<AsyncFuture<Long>>> futures =
+                    ImmutableList.builder();
+
+                for (final Series series : result.getSeries()) {
+                    futures.add(() -> group.compactSeries(series, range, options));
+                }
+
+                final List<Callable<AsyncFuture<Long>>> f = futures.build();
+
+                io.out().println("Compacting " + f.size() + " series");
+                io.out().flush();
+
+                final long dot = f.size() / 100;
+
+                return async.eventuallyCollect(f, new StreamCollector<Long, Void>() {
+                    final AtomicLong finished = new AtomicLong();
+                    final AtomicLong count = new AtomicLong();
+
+                    @Override
+                    public void resolved(Long result) throws Exception {
+                        count.addAndGet(result);
+
+                        check();
+                    }
+
+                    @Override
+                    public void failed(Throwable cause) throws Exception {
+                        io.out().println("Compaction Failed: " + cause);
+                        cause.printStackTrace(io.out());
+                        io.out().flush();
+
+                        check();
+                    }
+
+                    @Override
+                    public void cancelled() throws Exception {
+                        check();
+                    }
+
+                    @Override
+                    public Void end(int resolved, int failed, int cancelled) throws Exception {
+                        io.out().println();
+                        io
+                            .out()
+                            .println("Finished (resolved: " + resolved + ", failed: " + failed +
+                                ", cancelled: " + cancelled + ")");
+                        io.out().println("Total Compacted: " + count.get());
+                        io.out().flush();
+                        return null;
+                    }
+
+                    private void check() {
+                        final long fin = finished.incrementAndGet();
+
+                        if (dot <= 0) {
+                            return;
+                        }
+
+                        if (fin % dot == 0) {
+                            io.out().print(".");
+                            io.out().flush();
+                        }
+                    }
+                }, params.parallelism);
+            });
+    }
+
+    private static class Parameters extends AbstractShellTaskParams {
+        @Option(name = "--start", usage = "Start date (default: 7 days before end)",
+            metaVar = "<datetime>")
+        private Optional<String> start = Optional.empty();
+
+        @Option(name = "--end", usage = "End date (default: now)", metaVar = "<datetime>")
+        private Optional<String> end = Optional.empty();
+
+        @Option(name = "-g", aliases = {"--group"}, usage = "Backend group to use",
+            metaVar = "<group>")
+        private Optional<String> group = Optional.empty();
+
+        @Option(name = "--metadata-group", usage = "Metadata group to find series in",
+            metaVar = "<group>")
+        private Optional<String> metadataGroup = Optional.empty();
+
+        @Option(name = "--limit", usage = "Limit the number of series to compact")
+        private OptionalLimit limit = OptionalLimit.empty();
+
+        @Option(name = "--tracing", usage = "Enable extensive tracing")
+        private boolean tracing = false;
+
+        @Option(name = "--parallelism",
+            usage = "Configure how many series to compact in parallel", metaVar = "<number>")
+        private int parallelism = 20;
+
+        @Argument
+        private List<String> query = new ArrayList<>();
+    }
+
+    public static CompactData setup(final CoreComponent core) {
+        return DaggerCompactData_C.builder().coreComponent(core).build().task();
+    }
+
+    @Component(dependencies = CoreComponent.class)
+    interface C {
+        CompactData task();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.ws;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spotify.heroic.metric.QueryMetricsResponse;
+import com.spotify.heroic.metric.QueryMetricsResponseColumnarEncoder;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+
+/**
+ * Writes query responses using {@link QueryMetricsResponseColumnarEncoder}, for clients that
+ * accept the columnar media type.
+ */
+public class ColumnarMessageBodyWriter implements MessageBodyWriter<QueryMetricsResponse> {
+    private static final MediaType COLUMNAR_TYPE =
+        MediaType.valueOf(QueryMetricsResponseColumnarEncoder.MEDIA_TYPE);
+
+    private final QueryMetricsResponseColumnarEncoder encoder;
+
+    @Inject
+    public ColumnarMessageBodyWriter(@Named("application/json") ObjectMapper mapper) {
+        this.encoder = new QueryMetricsResponseColumnarEncoder(mapper);
+    }
+
+    @Override
+    public boolean isWriteable(
+        final Class<?> type, final Type genericType, final Annotation[] annotations,
+        final MediaType mediaType
+    ) {
+        return QueryMetricsResponse.class.isAssignableFrom(type) &&
+            COLUMNAR_TYPE.getType().equalsIgnoreCase(mediaType.getType()) &&
+            COLUMNAR_TYPE.getSubtype().equalsIgnoreCase(mediaType.getSubtype());
+    }
+
+    @Override
+    public long getSize(
+        final QueryMetricsResponse response, final Class<?> type, final Type genericType,
+        final Annotation[] annotations, final MediaType mediaType
+    ) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(
+        final QueryMetricsResponse response, final Class<?> type, final Type genericType,
+        final Annotation[] annotations, final MediaType mediaType,
+        final MultivaluedMap<String, Object> httpHeaders, final OutputStream out
+    ) throws IOException, WebApplicationException {
+        encoder.encode(response, out);
+    }
+}
@@ -1,23 +1,52 @@
 package com.spotify.heroic;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.spotify.heroic.aggregation.Aggregation;
 import com.spotify.heroic.aggregation.AggregationFactory;
+import com.spotify.heroic.aggregation.AggregationInstance;
 import com.spotify.heroic.cache.QueryCache;
 import com.spotify.heroic.cluster.ClusterManager;
+import com.spotify.heroic.cluster.ClusterNode;
+import com.spotify.heroic.cluster.ClusterShard;
 import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Features;
 import com.spotify.heroic.common.OptionalLimit;
 import com.spotify.heroic.grammar.QueryParser;
+import com.spotify.heroic.metric.FullQuery;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.QueryResult;
+import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.ResultLimits;
+import com.spotify.heroic.querylogging.QueryContext;
 import com.spotify.heroic.querylogging.QueryLogger;
 import com.spotify.heroic.querylogging.QueryLoggerFactory;
+import com.spotify.heroic.statistics.FutureReporter;
 import com.spotify.heroic.statistics.QueryReporter;
 import com.spotify.heroic.time.Clock;
 import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.TinyAsync;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -43,16 +72,30 @@ public class CoreQueryManagerTest {
     @Mock
     private AggregationFactory aggregations;
 
+    @Mock
+    private QueryReporter queryReporter;
+
+    private final AsyncFramework tinyAsync = TinyAsync.builder().build();
+
+    @Mock
+    private ClusterShard shard;
+
+    @Mock
+    private ClusterNode.Group node;
+
     @Before
     public void setup() {
-        QueryReporter queryReporter = mock(QueryReporter.class);
+        manager = newManager(async);
+    }
+
+    private CoreQueryManager newManager(final AsyncFramework async) {
         long smallQueryThreshold = 0;
 
         QueryLogger queryLogger = mock(QueryLogger.class);
         QueryLoggerFactory queryLoggerFactory = mock(QueryLoggerFactory.class);
         when(queryLoggerFactory.create(any())).thenReturn(queryLogger);
 
-        manager = new CoreQueryManager(Features.empty(), async, Clock.system(), cluster, parser,
+        return new CoreQueryManager(Features.empty(), async, Clock.system(), cluster, parser,
             queryCache, aggregations, OptionalLimit.empty(), smallQueryThreshold, queryReporter,
             Optional.empty(), queryLoggerFactory);
     }
@@ -99,4 +142,93 @@ public class CoreQueryManagerTest {
 
         manager.buildShiftedRange(range, 5_000, 40_000L);
     }
+
+    @Test
+    public void testBatchGroupsSharedShardRequests() throws Exception {
+        final QueryManager.Batch batch = setupBatch();
+
+        doAnswer(invocation -> ((Supplier<?>) invocation.getArgument(1)).get())
+            .when(queryCache)
+            .load(any(), any());
+
+        final List<AsyncFuture<QueryResult>> results = ImmutableList.of(
+            batch.query(query(MetricType.POINT), QueryContext.empty()),
+            batch.query(query(MetricType.SPREAD), QueryContext.empty()),
+            batch.query(query(MetricType.POINT), QueryContext.empty()));
+
+        /* held back until executed */
+        verify(shard, never()).apply(any(), any());
+
+        batch.execute();
+
+        verify(node, times(1)).queryBatch(argThat(requests -> requests.size() == 2), any());
+        verify(node, times(1)).query(argThat(r -> r.source() == MetricType.SPREAD), any());
+
+        for (final AsyncFuture<QueryResult> result : results) {
+            assertTrue(result.get().getErrors().isEmpty());
+        }
+    }
+
+    @Test
+    public void testBatchWaitsForDeferredLoads() throws Exception {
+        final QueryManager.Batch batch = setupBatch();
+        final List<Supplier<AsyncFuture<QueryResult>>> loaders = new ArrayList<>();
+
+        doReturn(true).when(queryCache).deferredLoads();
+        doAnswer(invocation -> {
+            loaders.add(invocation.getArgument(1));
+            return tinyAsync.future();
+        }).when(queryCache).load(any(), any());
+
+        batch.query(query(MetricType.POINT), QueryContext.empty());
+        batch.query(query(MetricType.POINT), QueryContext.empty());
+        batch.execute();
+
+        /* the loaders are invoked once the cache lookups have missed */
+        loaders.get(0).get();
+        verify(shard, never()).apply(any(), any());
+
+        loaders.get(1).get();
+        verify(node, times(1)).queryBatch(argThat(requests -> requests.size() == 2), any());
+    }
+
+    private QueryManager.Batch setupBatch() {
+        final CoreQueryManager manager = newManager(tinyAsync);
+
+        doReturn(mock(FutureReporter.Context.class)).when(queryReporter).reportQuery();
+        doReturn(ImmutableMap.of("site", "lon")).when(shard).getShard();
+
+        doAnswer(invocation -> {
+            final Function<ClusterNode.Group, AsyncFuture<Object>> function =
+                invocation.getArgument(0);
+            final BiFunction<Object, List<QueryTrace>, Object> transform =
+                invocation.getArgument(1);
+
+            return function
+                .apply(node)
+                .directTransform(result -> transform.apply(result, ImmutableList.of()));
+        }).when(shard).apply(any(), any());
+
+        lenient().doAnswer(invocation -> tinyAsync.resolved(
+            FullQuery.empty(QueryTrace.PASSIVE, ResultLimits.of()))).when(node).query(any(), any());
+
+        doAnswer(invocation -> {
+            final List<FullQuery.Request> requests = invocation.getArgument(0);
+            return tinyAsync.resolved(Collections.nCopies(requests.size(),
+                FullQuery.empty(QueryTrace.PASSIVE, ResultLimits.of())));
+        }).when(node).queryBatch(any(), any());
+
+        return manager.new Group(ImmutableList.of(shard)).newBatch();
+    }
+
+    private Query query(final MetricType source) {
+        final Aggregation aggregation = mock(Aggregation.class);
+        doReturn(mock(AggregationInstance.class)).when(aggregation).apply(any());
+
+        return new QueryBuilder()
+            .source(Optional.of(source))
+            .range(Optional.of(new QueryDateRange.Absolute(0L, 1000L)))
+            .aggregation(Optional.of(aggregation))
+            .build();
+    }
 }
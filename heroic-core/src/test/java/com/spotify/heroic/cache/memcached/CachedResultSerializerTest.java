@@ -0,0 +1,113 @@
+package com.spotify.heroic.cache.memcached;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricGroup;
+import com.spotify.heroic.metric.Payload;
+import com.spotify.heroic.metric.ResultLimit;
+import com.spotify.heroic.metric.ResultLimits;
+import com.spotify.heroic.metric.ShardedResultGroup;
+import com.spotify.heroic.metric.Spread;
+import java.util.List;
+import org.junit.Test;
+
+public class CachedResultSerializerTest {
+    private static final Series SERIES =
+        Series.of("foo", ImmutableMap.of("host", "a"), ImmutableMap.of("pod", "b"));
+
+    @Test
+    public void testPoints() throws Exception {
+        final MetricCollection points =
+            MetricCollection.points(new long[]{10, 20, 30}, new double[]{1.0, 2.0, Double.NaN});
+
+        assertRoundTrip(result(points));
+    }
+
+    @Test
+    public void testUnorderedPoints() throws Exception {
+        final MetricCollection points =
+            MetricCollection.points(new long[]{30, 10, 10}, new double[]{1.0, 2.0, 3.0});
+
+        assertRoundTrip(result(points));
+    }
+
+    @Test
+    public void testSpreads() throws Exception {
+        final MetricCollection spreads = MetricCollection.spreads(
+            ImmutableList.of(new Spread(10, 2, 3.0, 5.0, 1.0, 2.0),
+                new Spread(20, 1, 1.0, 1.0, 1.0, 1.0)));
+
+        assertRoundTrip(result(spreads));
+    }
+
+    @Test
+    public void testGroups() throws Exception {
+        final MetricCollection groups = MetricCollection.groups(ImmutableList.of(
+            new MetricGroup(10, ImmutableList.of(
+                MetricCollection.points(new long[]{1, 2}, new double[]{3.0, 4.0})))));
+
+        assertRoundTrip(result(groups));
+    }
+
+    @Test
+    public void testCardinality() throws Exception {
+        final byte[] state = new byte[]{1, 2, 3};
+        final CachedResult result = result(
+            MetricCollection.cardinality(ImmutableList.of(new Payload(10, state))));
+
+        final CachedResult decoded =
+            CachedResultSerializer.deserialize(CachedResultSerializer.serialize(result));
+
+        final List<Payload> payloads =
+            decoded.getGroups().get(0).getMetrics().getDataAs(Payload.class);
+
+        assertEquals(1, payloads.size());
+        assertEquals(10, payloads.get(0).getTimestamp());
+        assertArrayEquals(state, payloads.get(0).getState());
+    }
+
+    @Test
+    public void testLargeResultIsCompressed() throws Exception {
+        final int size = 10000;
+        final long[] timestamps = new long[size];
+        final double[] values = new double[size];
+
+        for (int i = 0; i < size; i++) {
+            timestamps[i] = 1000L * i;
+            values[i] = i % 10;
+        }
+
+        final CachedResult result = result(MetricCollection.points(timestamps, values));
+        final byte[] encoded = CachedResultSerializer.serialize(result);
+
+        assertTrue(encoded.length < size * 16);
+        assertEquals(result, CachedResultSerializer.deserialize(encoded));
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        assertRoundTrip(new CachedResult(null, ImmutableList.of(), 0, ResultLimits.of()));
+    }
+
+    private CachedResult result(final MetricCollection metrics) {
+        final ShardedResultGroup group =
+            new ShardedResultGroup(ImmutableMap.of("site", "lon"), ImmutableMap.of("host", "a"),
+                ImmutableSet.of(SERIES), metrics, 10);
+
+        return new CachedResult(new DateRange(0, 100), ImmutableList.of(group), 42,
+            ResultLimits.of(ResultLimit.SERIES, ResultLimit.QUOTA));
+    }
+
+    private void assertRoundTrip(final CachedResult result) throws Exception {
+        assertEquals(result,
+            CachedResultSerializer.deserialize(CachedResultSerializer.serialize(result)));
+    }
+}
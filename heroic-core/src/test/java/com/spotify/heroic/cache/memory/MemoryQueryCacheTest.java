@@ -0,0 +1,374 @@
+package com.spotify.heroic.cache.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.QueryOptions;
+import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Duration;
+import com.spotify.heroic.common.Feature;
+import com.spotify.heroic.common.Features;
+import com.spotify.heroic.filter.TrueFilter;
+import com.spotify.heroic.metric.FullQuery;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.QueryError;
+import com.spotify.heroic.metric.QueryResult;
+import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.ResultLimits;
+import com.spotify.heroic.metric.ShardedResultGroup;
+import com.spotify.heroic.querylogging.QueryContext;
+import com.spotify.heroic.statistics.QueryReporter;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.async.TinyAsync;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MemoryQueryCacheTest {
+    private static final long CADENCE = 1000;
+
+    private final AsyncFramework async = TinyAsync.builder().build();
+    private final AtomicLong now = new AtomicLong(0);
+
+    private AggregationInstance aggregation;
+    private QueryReporter reporter;
+
+    @Before
+    public void setup() {
+        aggregation = mock(AggregationInstance.class);
+        doReturn(CADENCE).when(aggregation).cadence();
+        doReturn(true).when(aggregation).sliceable();
+        reporter = mock(QueryReporter.class);
+    }
+
+    @Test
+    public void testSingleFlight() throws Exception {
+        final MemoryQueryCache cache = newCache(1024 * 1024);
+        final ResolvableFuture<QueryResult> pending = async.future();
+        final AtomicInteger loads = new AtomicInteger();
+
+        final AsyncFuture<QueryResult> first = cache.load(request(0), () -> {
+            loads.incrementAndGet();
+            return pending;
+        });
+
+        final AsyncFuture<QueryResult> second = cache.load(request(0), () -> {
+            loads.incrementAndGet();
+            return pending;
+        });
+
+        assertEquals(1, loads.get());
+        assertFalse(second.isDone());
+
+        final QueryResult result = result(10);
+        pending.resolve(result);
+
+        assertSame(result, first.get());
+        assertSame(result, second.get());
+        assertEquals(MemoryQueryCache.estimateBytes(result), cache.bytes());
+
+        verify(reporter).reportCacheMiss();
+        verify(reporter).reportCacheHit();
+    }
+
+    @Test
+    public void testFailedLoadIsNotCached() throws Exception {
+        final MemoryQueryCache cache = newCache(1024 * 1024);
+
+        final AsyncFuture<QueryResult> failed =
+            cache.load(request(0), () -> async.failed(new RuntimeException("boom")));
+
+        assertTrue(failed.isFailed());
+        assertEquals(0, cache.size());
+
+        final QueryResult result = result(10);
+        assertSame(result, cache.load(request(0), () -> async.resolved(result)).get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testErroredResultIsNotCached() throws Exception {
+        final MemoryQueryCache cache = newCache(1024 * 1024);
+
+        final QueryResult errored = QueryResult.error(range(0), "error", QueryTrace.PASSIVE);
+        assertSame(errored, cache.load(request(0), () -> async.resolved(errored)).get());
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.bytes());
+    }
+
+    @Test
+    public void testExpiresAfterCadence() throws Exception {
+        final MemoryQueryCache cache = newCache(1024 * 1024);
+        final AtomicInteger loads = new AtomicInteger();
+
+        cache.load(request(0), () -> {
+            loads.incrementAndGet();
+            return async.resolved(result(10));
+        });
+
+        now.addAndGet(CADENCE);
+
+        cache.load(request(0), () -> {
+            loads.incrementAndGet();
+            return async.resolved(result(10));
+        });
+
+        assertEquals(1, loads.get());
+
+        now.addAndGet(CADENCE + 1);
+
+        cache.load(request(0), () -> {
+            loads.incrementAndGet();
+            return async.resolved(result(10));
+        });
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testBoundedBySize() throws Exception {
+        final long entryBytes = MemoryQueryCache.estimateBytes(result(100));
+        final MemoryQueryCache cache = newCache(entryBytes * 4);
+
+        for (int i = 0; i < 16; i++) {
+            cache.load(request(i), () -> async.resolved(result(100))).get();
+            assertTrue(cache.bytes() <= entryBytes * 4);
+        }
+
+        assertEquals(4, cache.size());
+        verify(reporter, times(12)).reportCacheEviction();
+    }
+
+    @Test
+    public void testFrequentlyUsedEntriesAreRetained() throws Exception {
+        final long entryBytes = MemoryQueryCache.estimateBytes(result(100));
+        final MemoryQueryCache cache = newCache(entryBytes * 2);
+        final AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 4; i++) {
+            cache.load(request(0), () -> {
+                loads.incrementAndGet();
+                return async.resolved(result(100));
+            }).get();
+        }
+
+        // a scan of one-off queries should not push out the popular one.
+        for (int i = 1; i < 16; i++) {
+            cache.load(request(i), () -> async.resolved(result(100))).get();
+        }
+
+        cache.load(request(0), () -> {
+            loads.incrementAndGet();
+            return async.resolved(result(100));
+        }).get();
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testContextIsNotPartOfKey() throws Exception {
+        final MemoryQueryCache cache = newCache(1024 * 1024);
+        final AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            final FullQuery.Request request = FullQuery.Request.create(MetricType.POINT,
+                TrueFilter.get(), range(0), aggregation, QueryOptions.defaults(),
+                QueryContext.create(Optional.empty()), Features.empty());
+
+            cache.load(request, () -> {
+                loads.incrementAndGet();
+                return async.resolved(result(10));
+            }).get();
+        }
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testIncrementalLoadOnlyQueriesMissingRanges() throws Exception {
+        final MemoryQueryCache cache = newSlicedCache(4 * CADENCE);
+        final List<DateRange> loaded = new ArrayList<>();
+        now.set(100 * CADENCE);
+
+        final QueryResult first = cache
+            .loadIncremental(slicedRequest(2, 22), r -> {
+                loaded.add(r);
+                return async.resolved(result(r));
+            })
+            .get();
+
+        assertEquals(ImmutableList.of(range(2, 22)), loaded);
+        assertPoints(first, 3, 22);
+
+        loaded.clear();
+
+        final QueryResult second = cache
+            .loadIncremental(slicedRequest(3, 23), r -> {
+                loaded.add(r);
+                return async.resolved(result(r));
+            })
+            .get();
+
+        // only the head and the tail are loaded, the slices in between come from the cache.
+        assertEquals(ImmutableList.of(range(3, 4), range(20, 23)), loaded);
+        assertPoints(second, 4, 23);
+        assertEquals(range(3, 23), second.getRange());
+    }
+
+    @Test
+    public void testIncrementalLoadDoesNotCacheRecentSlices() throws Exception {
+        final MemoryQueryCache cache = newSlicedCache(4 * CADENCE);
+        final List<DateRange> loaded = new ArrayList<>();
+        // slices ending after 11 are too recent to be cached.
+        now.set(16 * CADENCE);
+
+        for (int i = 0; i < 2; i++) {
+            cache.loadIncremental(slicedRequest(0, 16), r -> {
+                loaded.add(r);
+                return async.resolved(result(r));
+            }).get();
+        }
+
+        assertEquals(ImmutableList.of(range(0, 16), range(8, 16)), loaded);
+    }
+
+    @Test
+    public void testIncrementalLoadDoesNotCacheErrors() throws Exception {
+        final MemoryQueryCache cache = newSlicedCache(4 * CADENCE);
+        final AtomicInteger loads = new AtomicInteger();
+        now.set(100 * CADENCE);
+
+        for (int i = 0; i < 2; i++) {
+            final QueryResult result = cache.loadIncremental(slicedRequest(0, 8), r -> {
+                loads.incrementAndGet();
+                return async.resolved(QueryResult.error(r, "error", QueryTrace.PASSIVE));
+            }).get();
+
+            assertEquals(1, result.getErrors().size());
+        }
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testIncrementalLoadFallsBackForStartBuckets() throws Exception {
+        final MemoryQueryCache cache = newSlicedCache(4 * CADENCE);
+        final List<DateRange> loaded = new ArrayList<>();
+        now.set(100 * CADENCE);
+
+        final FullQuery.Request request = FullQuery.Request.create(MetricType.POINT,
+            TrueFilter.get(), range(2, 22), aggregation, QueryOptions.defaults(),
+            QueryContext.empty(), Features.empty());
+
+        cache.loadIncremental(request, r -> {
+            loaded.add(r);
+            return async.resolved(result(r));
+        }).get();
+
+        assertEquals(ImmutableList.of(range(2, 22)), loaded);
+    }
+
+    private void assertPoints(final QueryResult result, final int first, final int last) {
+        assertEquals(1, result.getGroups().size());
+
+        final List<Long> expected = new ArrayList<>();
+
+        for (long i = first; i <= last; i++) {
+            expected.add(i * CADENCE);
+        }
+
+        final List<Long> actual = new ArrayList<>();
+        result.getGroups().get(0).getMetrics().data().forEach(m -> actual.add(m.getTimestamp()));
+
+        assertEquals(expected, actual);
+    }
+
+    private MemoryQueryCache newCache(final long maxBytes) {
+        return new MemoryQueryCache(async, now::get, reporter, maxBytes, Optional.empty(),
+            MemoryCacheModule.DEFAULT_SLICE_TTL, MemoryCacheModule.DEFAULT_SLICE_DELAY);
+    }
+
+    private MemoryQueryCache newSlicedCache(final long sliceSize) {
+        return new MemoryQueryCache(async, now::get, reporter, 1024 * 1024,
+            Optional.of(Duration.of(sliceSize, TimeUnit.MILLISECONDS)),
+            MemoryCacheModule.DEFAULT_SLICE_TTL, Duration.of(5, TimeUnit.SECONDS));
+    }
+
+    private FullQuery.Request slicedRequest(final int start, final int end) {
+        return FullQuery.Request.create(MetricType.POINT, TrueFilter.get(), range(start, end),
+            aggregation, QueryOptions.defaults(), QueryContext.empty(),
+            Features.of(Feature.END_BUCKET));
+    }
+
+    private FullQuery.Request request(final int index) {
+        return FullQuery.Request.create(MetricType.POINT, TrueFilter.get(), range(index),
+            aggregation, QueryOptions.defaults(), QueryContext.empty(), Features.empty());
+    }
+
+    private DateRange range(final int index) {
+        return range(index, index + 1);
+    }
+
+    private DateRange range(final int start, final int end) {
+        return new DateRange(start * CADENCE, end * CADENCE);
+    }
+
+    /**
+     * Build a result with one sample for every bucket in the given range, using the end bucket
+     * strategy.
+     */
+    private QueryResult result(final DateRange range) {
+        final int size = (int) (range.diff() / CADENCE);
+        final long[] timestamps = new long[size];
+        final double[] values = new double[size];
+
+        for (int i = 0; i < size; i++) {
+            timestamps[i] = range.start() + (i + 1) * CADENCE;
+            values[i] = i;
+        }
+
+        final ShardedResultGroup group =
+            new ShardedResultGroup(ImmutableMap.of(), ImmutableMap.of(), ImmutableSet.of(),
+                MetricCollection.points(timestamps, values), CADENCE);
+
+        return new QueryResult(range, ImmutableList.of(group), ImmutableList.<QueryError>of(),
+            QueryTrace.PASSIVE, ResultLimits.of(), size, Optional.empty());
+    }
+
+    private QueryResult result(final int points) {
+        final long[] timestamps = new long[points];
+        final double[] values = new double[points];
+
+        for (int i = 0; i < points; i++) {
+            timestamps[i] = i;
+            values[i] = i;
+        }
+
+        final ShardedResultGroup group =
+            new ShardedResultGroup(ImmutableMap.of(), ImmutableMap.of(), ImmutableSet.of(),
+                MetricCollection.points(timestamps, values), CADENCE);
+
+        return new QueryResult(range(0), ImmutableList.of(group), ImmutableList.<QueryError>of(),
+            QueryTrace.PASSIVE, ResultLimits.of(), 0, Optional.empty());
+    }
+}
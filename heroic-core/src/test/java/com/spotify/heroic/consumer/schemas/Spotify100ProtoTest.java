@@ -21,12 +21,17 @@
 
 package com.spotify.heroic.consumer.schemas;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.common.collect.ImmutableList;
 import com.spotify.heroic.common.Series;
+import com.spotify.heroic.common.SeriesInterner;
 import com.spotify.heroic.consumer.ConsumerSchemaValidationException;
 import com.spotify.heroic.ingestion.Ingestion;
 import com.spotify.heroic.ingestion.IngestionGroup;
@@ -45,6 +50,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.xerial.snappy.Snappy;
@@ -75,8 +81,9 @@ public class Spotify100ProtoTest {
   @Before
   public void setup() {
     when(clock.currentTimeMillis()).thenReturn(1542830485000L);
-    when(ingestion.write(any(Request.class))).thenReturn(resolved);
-    consumer = new Spotify100Proto.Consumer(clock, ingestion, reporter, async);
+    when(ingestion.writeBatch(any())).thenReturn(resolved);
+    consumer =
+      new Spotify100Proto.Consumer(clock, ingestion, reporter, async, SeriesInterner.disabled());
   }
 
   @Test
@@ -98,7 +105,7 @@ public class Spotify100ProtoTest {
     final List<Point> points = ImmutableList.of(p);
 
     verify(reporter).reportMessageDrift(5000);
-    verify(ingestion).write(new Request(s, MetricCollection.points(points)));
+    verify(ingestion).writeBatch(ImmutableList.of(new Request(s, MetricCollection.points(points))));
   }
 
   @Test
@@ -133,7 +140,44 @@ public class Spotify100ProtoTest {
     final Series s = Series.of(metric.getKey(), metric.getTagsMap(), metric.getResourceMap());
     final Point p = new Point(metric.getTime(), metric.getValue());
     final List<Point> points = ImmutableList.of(p);
-    verify(ingestion).write(new Request(s, MetricCollection.points(points)));
+    verify(ingestion).writeBatch(ImmutableList.of(new Request(s, MetricCollection.points(points))));
+  }
+
+  @Test
+  public void testSeriesIsReused() throws Exception {
+    final Metric first = Metric.newBuilder()
+      .setKey("foo")
+      .setValue(1.0)
+      .setTime(1542830480000L)
+      .putTags("tag1", "foo")
+      .putTags("tag2", "bar")
+      .build();
+    final Metric second = first.toBuilder().setValue(2.0).setTime(1542830481000L).build();
+    /* equal tags, added in a different order */
+    final Metric third = Metric.newBuilder()
+      .setKey("foo")
+      .setValue(3.0)
+      .setTime(1542830482000L)
+      .putTags("tag2", "bar")
+      .putTags("tag1", "foo")
+      .build();
+
+    final Batch batch =
+      Batch.newBuilder().addMetric(first).addMetric(second).addMetric(third).build();
+
+    final SeriesInterner interner = spy(SeriesInterner.disabled());
+    consumer = new Spotify100Proto.Consumer(clock, ingestion, reporter, async, interner);
+    consumer.consume(Snappy.compress(batch.toByteArray()));
+
+    final ArgumentCaptor<List<Request>> requests = ArgumentCaptor.forClass(List.class);
+    verify(ingestion).writeBatch(requests.capture());
+
+    assertEquals(3, requests.getValue().size());
+    assertSame(requests.getValue().get(0).getSeries(), requests.getValue().get(1).getSeries());
+    assertSame(requests.getValue().get(0).getSeries(), requests.getValue().get(2).getSeries());
+
+    /* only the first metric builds a series */
+    verify(interner, times(1)).intern(any(Series.class));
   }
 
 }
@@ -0,0 +1,143 @@
+package com.spotify.heroic.http.query;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.spotify.heroic.QueryBuilder;
+import com.spotify.heroic.QueryManager;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.JavaxRestFramework;
+import com.spotify.heroic.metric.QueryMetricsResponse;
+import com.spotify.heroic.metric.QueryResult;
+import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.ResultLimits;
+import com.spotify.heroic.metric.StreamingQueryMetricsResponse;
+import com.spotify.heroic.querylogging.QueryLogger;
+import com.spotify.heroic.querylogging.QueryLoggerFactory;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.TinyAsync;
+import java.net.URI;
+import java.util.Optional;
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class QueryResourceTest {
+    private static final String COLUMNAR = "application/vnd.heroic.columnar";
+
+    @Mock
+    private JavaxRestFramework httpAsync;
+
+    @Mock
+    private QueryManager queryManager;
+
+    @Mock
+    private QueryManager.Group group;
+
+    private final AsyncFramework async = TinyAsync.builder().build();
+
+    @Mock
+    private QueryLoggerFactory queryLoggerFactory;
+
+    @Mock
+    private QueryLogger queryLogger;
+
+    @Mock
+    private AsyncResponse response;
+
+    @Mock
+    private HttpServletRequest servletReq;
+
+    private QueryResource resource;
+
+    @Before
+    public void setup() {
+        doReturn(queryLogger).when(queryLoggerFactory).create(any());
+
+        resource = new QueryResource(httpAsync, queryManager, async, queryLoggerFactory,
+            new ObjectMapper());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testStreamWithColumnar() throws Exception {
+        /* columnar responses must reach the columnar writer, and not be streamed as JSON */
+        doReturn(async.future()).when(group).query(any(), any());
+
+        metrics(request(COLUMNAR));
+
+        final ArgumentCaptor<JavaxRestFramework.Resume<QueryResult, Object>> resume =
+            ArgumentCaptor.forClass(JavaxRestFramework.Resume.class);
+        verify(httpAsync).bind(eq(response), any(), resume.capture());
+
+        assertTrue(resume.getValue().resume(new QueryResult(new DateRange(0L, 1000L),
+            ImmutableList.of(), ImmutableList.of(), QueryTrace.PASSIVE, ResultLimits.of(), 0L,
+            Optional.empty())) instanceof QueryMetricsResponse);
+    }
+
+    @Test
+    public void testStreamWithJson() throws Exception {
+        doReturn(async.future()).when(group).query(any(), any(), any());
+
+        metrics(request(MediaType.APPLICATION_JSON));
+
+        /* the query must hand its groups over to the response that is being written */
+        final ArgumentCaptor<Object> resume = ArgumentCaptor.forClass(Object.class);
+        verify(response).resume(resume.capture());
+        assertTrue(resume.getValue() instanceof StreamingQueryMetricsResponse);
+        verify(group).query(any(), any(), eq((StreamingQueryMetricsResponse) resume.getValue()));
+        verify(httpAsync, never()).bind(any(), any(), any());
+    }
+
+    @Test
+    public void testIsColumnarNegotiated() {
+        assertTrue(QueryResource.isColumnarNegotiated(request(COLUMNAR)));
+        assertTrue(QueryResource.isColumnarNegotiated(
+            request(COLUMNAR + ", application/json;q=0.9")));
+
+        /* JSON has the higher source quality, so it wins ties */
+        assertFalse(QueryResource.isColumnarNegotiated(
+            request(COLUMNAR + ", " + MediaType.APPLICATION_JSON)));
+        assertFalse(QueryResource.isColumnarNegotiated(request(MediaType.WILDCARD)));
+        assertFalse(QueryResource.isColumnarNegotiated(request(null)));
+    }
+
+    private ContainerRequest request(final String accept) {
+        final ContainerRequest request =
+            new ContainerRequest(URI.create("http://localhost/"),
+                URI.create("http://localhost/query/metrics"), "POST", null,
+                new MapPropertiesDelegate());
+
+        if (accept != null) {
+            request.header(HttpHeaders.ACCEPT, accept);
+        }
+
+        return request;
+    }
+
+    private void metrics(final ContainerRequest request) throws Exception {
+        doReturn(new QueryBuilder()).when(queryManager).newQueryFromString(any());
+        doReturn(group).when(queryManager).useOptionalGroup(any());
+        doReturn("127.0.0.1").when(servletReq).getRemoteAddr();
+        doReturn("localhost").when(servletReq).getRemoteHost();
+
+        resource.metricsText(response, null, true, servletReq, request, "*");
+    }
+}
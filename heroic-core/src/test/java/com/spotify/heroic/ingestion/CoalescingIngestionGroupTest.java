@@ -0,0 +1,124 @@
+package com.spotify.heroic.ingestion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.Point;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.async.TinyAsync;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CoalescingIngestionGroupTest {
+    private final AsyncFramework async = TinyAsync.builder().build();
+
+    private final Series a = Series.of("a", ImmutableMap.of("host", "a"));
+    private final Series b = Series.of("b", ImmutableMap.of("host", "b"));
+
+    private final Map<Series, Request> written = new HashMap<>();
+    private final Map<Series, ResolvableFuture<Ingestion>> writes = new HashMap<>();
+
+    private CoreIngestionGroup delegate;
+    private LongAdder ingested;
+
+    @Before
+    public void setup() {
+        delegate = mock(CoreIngestionGroup.class);
+        ingested = new LongAdder();
+
+        doAnswer(invocation -> {
+            final Request request = invocation.getArgument(0);
+            final ResolvableFuture<Ingestion> future = async.future();
+            written.put(request.getSeries(), request);
+            writes.put(request.getSeries(), future);
+            return future;
+        }).when(delegate).syncWrite(any(Request.class));
+    }
+
+    @Test
+    public void testCoalesceUntilFlush() {
+        final CoalescingIngestionGroup group =
+            new CoalescingIngestionGroup(async, delegate, ingested, 100);
+
+        final AsyncFuture<Ingestion> a1 = group.write(request(a, 1L, 1D));
+        final AsyncFuture<Ingestion> a2 = group.write(request(a, 2L, 2D));
+        final AsyncFuture<Ingestion> b1 = group.write(request(b, 1L, 3D));
+
+        verify(delegate, never()).syncWrite(any(Request.class));
+        assertEquals(3, ingested.sum());
+
+        group.flush();
+
+        assertEquals(MetricCollection.points(
+            ImmutableList.of(new Point(1L, 1D), new Point(2L, 2D))), written.get(a).getData());
+        assertEquals(MetricCollection.points(ImmutableList.of(new Point(1L, 3D))),
+            written.get(b).getData());
+
+        final Ingestion result = Ingestion.of(1L);
+        writes.get(a).resolve(result);
+
+        assertSame(result, a1.getNow());
+        assertSame(result, a2.getNow());
+        assertFalse(b1.isDone());
+
+        writes.get(b).fail(new RuntimeException("failed"));
+        assertTrue(b1.isFailed());
+    }
+
+    @Test
+    public void testFlushWhenFull() {
+        final CoalescingIngestionGroup group =
+            new CoalescingIngestionGroup(async, delegate, ingested, 2);
+
+        group.write(request(a, 1L, 1D));
+        verify(delegate, never()).syncWrite(any(Request.class));
+
+        group.write(request(b, 1L, 1D));
+        assertEquals(2, written.size());
+
+        written.clear();
+        group.flush();
+        assertTrue(written.isEmpty());
+    }
+
+    @Test
+    public void testClose() {
+        final CoalescingIngestionGroup group =
+            new CoalescingIngestionGroup(async, delegate, ingested, 100);
+
+        final AsyncFuture<Ingestion> a1 = group.write(request(a, 1L, 1D));
+        final AsyncFuture<Void> closed = group.close();
+
+        assertEquals(1, written.size());
+        assertFalse(closed.isDone());
+
+        writes.get(a).resolve(Ingestion.of(1L));
+        assertTrue(a1.isResolved());
+        assertTrue(closed.isResolved());
+
+        /* writes after closing are not buffered */
+        group.write(request(b, 1L, 1D));
+        assertEquals(2, written.size());
+    }
+
+    private Request request(final Series series, final long timestamp, final double value) {
+        return new Request(series,
+            MetricCollection.points(ImmutableList.of(new Point(timestamp, value))));
+    }
+}
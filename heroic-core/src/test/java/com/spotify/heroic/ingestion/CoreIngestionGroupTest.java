@@ -17,9 +17,11 @@ import static org.mockito.Mockito.verify;
 import com.google.common.collect.ImmutableList;
 import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Series;
-import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.filter.CompiledFilter;
 import com.spotify.heroic.metadata.MetadataBackend;
 import com.spotify.heroic.metric.MetricBackend;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.Point;
 import com.spotify.heroic.statistics.IngestionManagerReporter;
 import com.spotify.heroic.suggest.SuggestBackend;
 import eu.toolchain.async.AsyncFramework;
@@ -42,11 +44,11 @@ public class CoreIngestionGroupTest {
     @Mock
     private AsyncFramework async;
     @Mock
-    private Supplier<Filter> filterSupplier;
+    private Supplier<CompiledFilter> filterSupplier;
     @Mock
     private Supplier<DateRange> rangeSupplier;
     @Mock
-    private Filter filter;
+    private CompiledFilter filter;
     @Mock
     private Semaphore writePermits;
     @Mock
@@ -118,7 +120,7 @@ public class CoreIngestionGroupTest {
         final CoreIngestionGroup group = setupIngestionGroup(empty(), empty(), empty());
 
         doReturn(filter).when(filterSupplier).get();
-        doReturn(true).when(filter).apply(series);
+        doReturn(true).when(filter).test(series);
         doNothing().when(writePermits).acquire();
         doNothing().when(writePermits).release();
         doReturn(expected).when(group).doWrite(request);
@@ -141,7 +143,7 @@ public class CoreIngestionGroupTest {
 
         doReturn(filter).when(filterSupplier).get();
         doReturn(expected).when(async).resolved(any(Ingestion.class));
-        doReturn(false).when(filter).apply(series);
+        doReturn(false).when(filter).test(series);
 
         assertEquals(expected, group.syncWrite(request));
 
@@ -164,7 +166,7 @@ public class CoreIngestionGroupTest {
 
         doReturn(filter).when(filterSupplier).get();
         doReturn(expected).when(async).failed(any(Throwable.class));
-        doReturn(true).when(filter).apply(series);
+        doReturn(true).when(filter).test(series);
         doThrow(e).when(writePermits).acquire();
 
         assertEquals(expected, group.syncWrite(request));
@@ -221,4 +223,21 @@ public class CoreIngestionGroupTest {
         verify(group).doSuggestWrite(eq(suggest), eq(request), eq(range), any());
         verify(rangeSupplier, times(1)).get();
     }
+
+    @Test
+    public void testMergeBySeries() {
+        final Series a = Series.of("a");
+        final Series b = Series.of("b");
+
+        final List<Request> requests = ImmutableList.of(
+            new Request(a, MetricCollection.points(ImmutableList.of(new Point(1L, 1D)))),
+            new Request(b, MetricCollection.points(ImmutableList.of(new Point(1L, 2D)))),
+            new Request(a, MetricCollection.points(ImmutableList.of(new Point(2L, 3D)))));
+
+        assertEquals(ImmutableList.of(
+            new Request(a, MetricCollection.points(
+                ImmutableList.of(new Point(1L, 1D), new Point(2L, 3D)))),
+            new Request(b, MetricCollection.points(ImmutableList.of(new Point(1L, 2D))))),
+            CoreIngestionGroup.mergeBySeries(requests));
+    }
 }
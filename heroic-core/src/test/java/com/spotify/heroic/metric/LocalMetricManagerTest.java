@@ -1,22 +1,51 @@
 package com.spotify.heroic.metric;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.QueryOptions;
+import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.aggregation.AggregationResult;
+import com.spotify.heroic.aggregation.AggregationSession;
+import com.spotify.heroic.aggregation.EmptyInstance;
+import com.spotify.heroic.aggregation.GroupInstance;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Features;
 import com.spotify.heroic.common.GroupSet;
 import com.spotify.heroic.common.Groups;
 import com.spotify.heroic.common.OptionalLimit;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.common.Statistics;
+import com.spotify.heroic.filter.TrueFilter;
+import com.spotify.heroic.metadata.FindSeries;
+import com.spotify.heroic.metadata.MetadataBackend;
 import com.spotify.heroic.metadata.MetadataManager;
+import com.spotify.heroic.querylogging.QueryContext;
 import com.spotify.heroic.querylogging.QueryLogger;
 import com.spotify.heroic.querylogging.QueryLoggerFactory;
+import com.spotify.heroic.statistics.DataInMemoryReporter;
+import com.spotify.heroic.statistics.FutureReporter;
 import com.spotify.heroic.statistics.MetricBackendReporter;
 import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.TinyAsync;
+import io.opencensus.trace.BlankSpan;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -48,8 +77,17 @@ public class LocalMetricManagerTest {
     @Mock
     private AsyncFuture<FetchData> fetchDataFuture;
 
+    @Mock
+    private MetadataBackend metadataBackend;
+
+    private final AsyncFramework tinyAsync = TinyAsync.builder().build();
+
     @Before
     public void setup() {
+        manager = newManager(async, 1);
+    }
+
+    private LocalMetricManager newManager(final AsyncFramework async, final int fetchBatchSize) {
         final OptionalLimit groupLimit = OptionalLimit.empty();
         final OptionalLimit seriesLimit = OptionalLimit.empty();
         final OptionalLimit aggregationLimit = OptionalLimit.empty();
@@ -66,13 +104,130 @@ public class LocalMetricManagerTest {
         final QueryLoggerFactory queryLoggerFactory = mock(QueryLoggerFactory.class);
         when(queryLoggerFactory.create(any())).thenReturn(queryLogger);
 
-        manager = new LocalMetricManager(groupLimit, seriesLimit, aggregationLimit, dataLimit,
-            concurrentQueriesBackoff, fetchParallelism, failOnLimits, async, groupSet, metadata,
-            reporter, queryLoggerFactory);
+        return new LocalMetricManager(groupLimit, seriesLimit, aggregationLimit, dataLimit,
+            concurrentQueriesBackoff, fetchParallelism, fetchBatchSize, failOnLimits, async,
+            groupSet, metadata, reporter, queryLoggerFactory);
     }
 
     @Test
     public void testUseDefaultBackend() {
         assertNotNull(manager.useDefaultGroup());
     }
+
+    @Test
+    public void testQueryBatchSharesFetch() throws Exception {
+        final LocalMetricManager manager = newManager(tinyAsync, 10);
+
+        final DateRange shared = new DateRange(0L, 10000L);
+        final DateRange other = new DateRange(0L, 20000L);
+
+        final Series a = Series.of("key", ImmutableMap.of("host", "a", "role", "db"));
+        final Series b = Series.of("key", ImmutableMap.of("host", "a", "role", "web"));
+        final Series c = Series.of("key", ImmutableMap.of("host", "b", "role", "db"));
+
+        doReturn(metadataBackend).when(metadata).useDefaultGroup();
+        doReturn(mock(DataInMemoryReporter.class)).when(reporter).newDataInMemoryReporter();
+        doReturn(mock(FutureReporter.Context.class)).when(reporter).reportFindSeries();
+        doReturn(mock(FutureReporter.Context.class)).when(reporter).reportQueryMetrics();
+
+        doAnswer(invocation -> {
+            final FindSeries.Request request = invocation.getArgument(0);
+            return tinyAsync.resolved(request.getRange().equals(shared) ? new FindSeries(
+                ImmutableSet.of(a, b, c), false) : new FindSeries(ImmutableSet.of(a), false));
+        }).when(metadataBackend).findSeries(any());
+
+        stubFetchBatch();
+
+        /* the first and last request share their fetch, but aggregate differently */
+        final List<FullQuery> results = manager
+            .useDefaultGroup()
+            .queryBatch(ImmutableList.of(request(shared, EmptyInstance.INSTANCE),
+                request(other, EmptyInstance.INSTANCE), request(shared,
+                    new GroupInstance(Optional.of(ImmutableList.of("host")),
+                        EmptyInstance.INSTANCE))), BlankSpan.INSTANCE)
+            .get();
+
+        assertEquals(3, results.size());
+        assertEquals(3, results.get(0).groups().size());
+        assertEquals(1, results.get(1).groups().size());
+        assertEquals(2, results.get(2).groups().size());
+
+        verify(metadataBackend, times(1)).findSeries(
+            new FindSeries.Request(TrueFilter.get(), shared, OptionalLimit.empty()));
+        verify(metadataBackend, times(2)).findSeries(any());
+        verify(metricBackend, times(1)).fetchBatch(
+            argThat(request -> request.getRange().equals(shared)), any(), any(), any());
+        verify(metricBackend, times(2)).fetchBatch(any(), any(), any(), any());
+    }
+
+    @Test
+    public void testQueryBatchRetainsPerRequest() throws Exception {
+        final LocalMetricManager manager = newManager(tinyAsync, 10);
+
+        final DateRange range = new DateRange(0L, 10000L);
+        final QueryOptions options = QueryOptions.builder().aggregationLimit(3).build();
+
+        final Series a = Series.of("key", ImmutableMap.of("host", "a"));
+        final Series b = Series.of("key", ImmutableMap.of("host", "b"));
+        final Series c = Series.of("key", ImmutableMap.of("host", "c"));
+
+        doReturn(metadataBackend).when(metadata).useDefaultGroup();
+        doReturn(mock(DataInMemoryReporter.class)).when(reporter).newDataInMemoryReporter();
+        doReturn(mock(FutureReporter.Context.class)).when(reporter).reportFindSeries();
+        doReturn(mock(FutureReporter.Context.class)).when(reporter).reportQueryMetrics();
+        doReturn(tinyAsync.resolved(new FindSeries(ImmutableSet.of(a, b, c), false)))
+            .when(metadataBackend)
+            .findSeries(any());
+        stubFetchBatch();
+
+        /* an aggregation which retains nothing */
+        final AggregationSession session = mock(AggregationSession.class);
+        doReturn(new AggregationResult(ImmutableList.of(), Statistics.empty()))
+            .when(session)
+            .result();
+        final AggregationInstance summary = mock(AggregationInstance.class);
+        doReturn(session).when(summary).session(any(), any(), any());
+
+        /* the first request retains every point, which is more than its limit */
+        final List<FullQuery> results = manager
+            .useDefaultGroup()
+            .queryBatch(ImmutableList.of(request(range, EmptyInstance.INSTANCE, options),
+                request(range, summary, options)), BlankSpan.INSTANCE)
+            .get();
+
+        assertEquals(2, results.size());
+        assertTrue(results.get(0).limits().getLimits().contains(ResultLimit.AGGREGATION));
+        assertEquals(1, results.get(0).errors().size());
+        assertEquals(ImmutableSet.of(), results.get(1).limits().getLimits());
+        assertEquals(ImmutableList.of(), results.get(1).errors());
+
+        verify(metricBackend, times(1)).fetchBatch(any(), any(), any(), any());
+    }
+
+    private void stubFetchBatch() {
+        doAnswer(invocation -> {
+            final FetchData.BatchRequest request = invocation.getArgument(0);
+            final BiConsumer<Series, MetricReadResult> consumer = invocation.getArgument(2);
+
+            for (final Series series : request.getSeries()) {
+                consumer.accept(series, new MetricReadResult(
+                    MetricCollection.points(ImmutableList.of(new Point(1000L, 1.0)))));
+            }
+
+            return tinyAsync.resolved(new FetchData.Result(QueryTrace.PASSIVE));
+        }).when(metricBackend).fetchBatch(any(), any(), any(), any());
+    }
+
+    private FullQuery.Request request(
+        final DateRange range, final AggregationInstance aggregation
+    ) {
+        return request(range, aggregation, QueryOptions.defaults());
+    }
+
+    private FullQuery.Request request(
+        final DateRange range, final AggregationInstance aggregation, final QueryOptions options
+    ) {
+        return FullQuery.Request.create(MetricType.POINT, TrueFilter.get(), range, aggregation,
+            options, QueryContext.empty(), Features.empty());
+    }
 }
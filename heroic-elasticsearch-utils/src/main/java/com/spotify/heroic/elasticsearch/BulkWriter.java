@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.elasticsearch;
+
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.FutureDone;
+import eu.toolchain.async.Managed;
+import eu.toolchain.async.ResolvableFuture;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+
+/**
+ * Groups index requests into bulk requests.
+ * <p>
+ * A bulk request is sent when the given number of actions are pending, or when {@link #flush()}
+ * is called, which is expected to happen periodically. At most the given number of bulk requests
+ * are in flight at a time, the rest are queued up.
+ * <p>
+ * The future of every index request is completed with the outcome of its item in the bulk
+ * response, so a failing item fails only the write it originated from.
+ */
+public class BulkWriter {
+    private final AsyncFramework async;
+    private final Managed<Connection> connection;
+    private final Reporter reporter;
+    private final int maxActions;
+    private final int maxInFlight;
+
+    private final Object lock = new Object();
+    private final Deque<List<Item>> queued = new ArrayDeque<>();
+    private List<Item> pending = new ArrayList<>();
+    private int inFlight = 0;
+
+    public BulkWriter(
+        final AsyncFramework async, final Managed<Connection> connection,
+        final Reporter reporter, final int maxActions, final int maxInFlight
+    ) {
+        if (maxActions <= 0) {
+            throw new IllegalArgumentException("maxActions must be positive");
+        }
+
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+
+        this.async = async;
+        this.connection = connection;
+        this.reporter = reporter;
+        this.maxActions = maxActions;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Add an index request to the next bulk request.
+     *
+     * @return A future which is completed when the request has been written.
+     */
+    public AsyncFuture<Void> add(final IndexRequest request) {
+        final ResolvableFuture<Void> future = async.future();
+        final List<Item> ready;
+
+        synchronized (lock) {
+            pending.add(new Item(request, future));
+
+            if (pending.size() < maxActions) {
+                return future;
+            }
+
+            ready = pending;
+            pending = new ArrayList<>();
+        }
+
+        submit(ready);
+        return future;
+    }
+
+    /**
+     * Send all pending index requests.
+     */
+    public void flush() {
+        final List<Item> ready;
+
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            ready = pending;
+            pending = new ArrayList<>();
+        }
+
+        submit(ready);
+    }
+
+    private void submit(final List<Item> batch) {
+        synchronized (lock) {
+            if (inFlight >= maxInFlight) {
+                queued.add(batch);
+                return;
+            }
+
+            inFlight++;
+        }
+
+        send(batch);
+    }
+
+    private void send(final List<Item> batch) {
+        final List<IndexRequest> requests = new ArrayList<>(batch.size());
+
+        for (final Item item : batch) {
+            requests.add(item.request);
+        }
+
+        final long start = System.nanoTime();
+
+        connection.doto(c -> c.bulk(requests)).onDone(new FutureDone<BulkResponse>() {
+            @Override
+            public void failed(final Throwable cause) {
+                for (final Item item : batch) {
+                    item.future.fail(cause);
+                }
+
+                next();
+            }
+
+            @Override
+            public void resolved(final BulkResponse response) {
+                reporter.reportBulkWrite(batch.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+                for (final BulkItemResponse itemResponse : response.getItems()) {
+                    final Item item = batch.get(itemResponse.getItemId());
+
+                    if (itemResponse.isFailed()) {
+                        item.future.fail(itemResponse.getFailure().getCause());
+                    } else {
+                        item.future.resolve(null);
+                    }
+                }
+
+                next();
+            }
+
+            @Override
+            public void cancelled() {
+                for (final Item item : batch) {
+                    item.future.cancel();
+                }
+
+                next();
+            }
+        });
+    }
+
+    /**
+     * Send the next queued bulk request, if any, in place of the one that just completed.
+     */
+    private void next() {
+        final List<Item> batch;
+
+        synchronized (lock) {
+            batch = queued.poll();
+
+            if (batch == null) {
+                inFlight--;
+                return;
+            }
+        }
+
+        send(batch);
+    }
+
+    public interface Reporter {
+        void reportBulkWrite(int actions, long latencyMillis);
+    }
+
+    private static class Item {
+        private final IndexRequest request;
+        private final ResolvableFuture<Void> future;
+
+        Item(final IndexRequest request, final ResolvableFuture<Void> future) {
+            this.request = request;
+            this.future = future;
+        }
+    }
+}
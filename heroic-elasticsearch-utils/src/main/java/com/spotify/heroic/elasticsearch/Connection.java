@@ -33,7 +33,10 @@ import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.ListenableActionFuture;
 import org.elasticsearch.action.admin.indices.template.put.PutIndexTemplateRequestBuilder;
 import org.elasticsearch.action.admin.indices.template.put.PutIndexTemplateResponse;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.delete.DeleteRequestBuilder;
+import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.index.IndexRequestBuilder;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchScrollRequestBuilder;
@@ -134,6 +137,33 @@ public class Connection {
         return client.getClient().prepareIndex(index, type);
     }
 
+    /**
+     * Send the given index requests as a single bulk request.
+     */
+    public AsyncFuture<BulkResponse> bulk(final List<IndexRequest> requests) {
+        final BulkRequestBuilder bulk = client.getClient().prepareBulk();
+
+        for (final IndexRequest request : requests) {
+            bulk.add(request);
+        }
+
+        final ResolvableFuture<BulkResponse> future = async.future();
+
+        bulk.execute(new ActionListener<BulkResponse>() {
+            @Override
+            public void onResponse(final BulkResponse response) {
+                future.resolve(response);
+            }
+
+            @Override
+            public void onFailure(final Exception e) {
+                future.fail(e);
+            }
+        });
+
+        return future;
+    }
+
     public SearchScrollRequestBuilder prepareSearchScroll(String scrollId) {
         return client.getClient().prepareSearchScroll(scrollId);
     }
@@ -0,0 +1,124 @@
+package com.spotify.heroic.elasticsearch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.Managed;
+import eu.toolchain.async.ManagedAction;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.async.TinyAsync;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BulkWriterTest {
+    private final AsyncFramework async = TinyAsync.builder().build();
+
+    @Mock
+    private Managed<Connection> managed;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private BulkWriter.Reporter reporter;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() throws Exception {
+        doAnswer(invocation -> {
+            final ManagedAction<Connection, Object> action = invocation.getArgument(0);
+            return action.action(connection);
+        }).when(managed).doto(any());
+    }
+
+    @Test
+    public void testFlushOnMaxActions() {
+        final ResolvableFuture<BulkResponse> response = async.future();
+        doReturn(response).when(connection).bulk(anyList());
+
+        final BulkWriter writer = new BulkWriter(async, managed, reporter, 2, 1);
+
+        final AsyncFuture<Void> first = writer.add(new IndexRequest("index"));
+        verify(connection, never()).bulk(anyList());
+
+        final AsyncFuture<Void> second = writer.add(new IndexRequest("index"));
+        verify(connection).bulk(anyList());
+
+        response.resolve(new BulkResponse(new BulkItemResponse[]{success(0), success(1)}, 10L));
+
+        assertTrue(first.isResolved());
+        assertTrue(second.isResolved());
+        verify(reporter).reportBulkWrite(eq(2), anyLong());
+    }
+
+    @Test
+    public void testItemFailure() {
+        final Exception cause = new RuntimeException("rejected");
+
+        doReturn(async.resolved(new BulkResponse(
+            new BulkItemResponse[]{success(0), failure(1, cause)}, 10L))).when(connection)
+            .bulk(anyList());
+
+        final BulkWriter writer = new BulkWriter(async, managed, reporter, 10, 1);
+
+        final AsyncFuture<Void> first = writer.add(new IndexRequest("index"));
+        final AsyncFuture<Void> second = writer.add(new IndexRequest("index"));
+        writer.flush();
+
+        assertTrue(first.isResolved());
+        assertTrue(second.isFailed());
+        assertEquals(cause, second.cause());
+    }
+
+    @Test
+    public void testMaxInFlight() {
+        final ResolvableFuture<BulkResponse> response = async.future();
+        doReturn(response).when(connection).bulk(anyList());
+
+        final BulkWriter writer = new BulkWriter(async, managed, reporter, 1, 1);
+
+        writer.add(new IndexRequest("index"));
+        final AsyncFuture<Void> queued = writer.add(new IndexRequest("index"));
+        verify(connection, times(1)).bulk(anyList());
+        assertFalse(queued.isDone());
+
+        doReturn(async.resolved(new BulkResponse(new BulkItemResponse[]{success(0)}, 10L)))
+            .when(connection)
+            .bulk(anyList());
+        response.resolve(new BulkResponse(new BulkItemResponse[]{success(0)}, 10L));
+
+        verify(connection, times(2)).bulk(anyList());
+        assertTrue(queued.isResolved());
+    }
+
+    private BulkItemResponse success(final int id) {
+        return new BulkItemResponse(id, DocWriteRequest.OpType.INDEX, mock(IndexResponse.class));
+    }
+
+    private BulkItemResponse failure(final int id, final Exception cause) {
+        return new BulkItemResponse(id, DocWriteRequest.OpType.INDEX,
+            new BulkItemResponse.Failure("index", "series", null, cause));
+    }
+}
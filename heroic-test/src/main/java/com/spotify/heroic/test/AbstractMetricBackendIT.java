@@ -57,6 +57,7 @@ import java.util.Random;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -87,6 +88,7 @@ public abstract class AbstractMetricBackendIT {
     protected boolean brokenSegmentsPr208 = false;
     protected boolean eventSupport = false;
     protected Optional<Integer> maxBatchSize = Optional.empty();
+    protected boolean compactSupport = false;
 
     @Rule
     public TestRule setupBackend = (base, description) -> new Statement() {
@@ -386,6 +388,93 @@ public abstract class AbstractMetricBackendIT {
         assertEqualMetrics(mc, fetchMetrics(request, true));
     }
 
+    @Test
+    public void testWriteAndFetchBatch() throws Exception {
+        final Series b1 = new Series("b1", ImmutableSortedMap.of("id", "b1"),
+            ImmutableSortedMap.of("resource", "a"));
+        final Series b2 = new Series("b2", ImmutableSortedMap.of("id", "b2"),
+            ImmutableSortedMap.of("resource", "a"));
+        final Series empty = new Series("b3", ImmutableSortedMap.of("id", "b3"),
+            ImmutableSortedMap.of("resource", "a"));
+
+        final MetricCollection p1 = Data.points().p(100000L, 1D).p(100001L, 2D).build();
+        final MetricCollection p2 = Data.points().p(100000L, 3D).build();
+
+        backend.write(new WriteMetric.Request(b1, p1)).get();
+        backend.write(new WriteMetric.Request(b2, p2)).get();
+
+        final Map<Series, List<MetricCollection>> fetched = new ConcurrentHashMap<>();
+
+        final FetchData.BatchRequest request =
+            new FetchData.BatchRequest(MetricType.POINT, ImmutableList.of(b1, b2, empty),
+                new DateRange(10000L, 200000L), QueryOptions.builder().build());
+
+        backend
+            .fetchBatch(request,
+                FetchQuotaWatcher.NO_QUOTA,
+                (series, mcr) -> fetched
+                    .computeIfAbsent(series, s -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(mcr.getMetrics()),
+                BlankSpan.INSTANCE)
+            .get();
+
+        assertEqualMetrics(p1, fetched.get(b1));
+        assertEqualMetrics(p2, fetched.get(b2));
+        fetched.getOrDefault(empty, ImmutableList.of())
+            .forEach(mc -> assertEquals(0, mc.size()));
+    }
+
+    @Test
+    public void testCompactAndFetch() throws Exception {
+        assumeTrue("compaction is supported", compactSupport);
+
+        final Series c1 = new Series("c1", ImmutableSortedMap.of("id", "c1"),
+            ImmutableSortedMap.of("resource", "a"));
+        final DateRange range = new DateRange(10000L, 30000000L);
+
+        backend.write(new WriteMetric.Request(c1,
+            Data.points().p(100000L, 1D).p(100001L, 2D).p(16777221L, 4D).p(20000000L, 5D).build()))
+            .get();
+
+        assertEquals(4L, (long) backend.compactSeries(c1, range, QueryOptions.defaults()).get());
+
+        // written after compaction, one new sample and one replacing a compacted one
+        backend.write(new WriteMetric.Request(c1,
+            Data.points().p(100001L, 7D).p(100002L, 3D).build())).get();
+
+        final MetricCollection expected = Data
+            .points()
+            .p(100000L, 1D)
+            .p(100001L, 7D)
+            .p(100002L, 3D)
+            .p(16777221L, 4D)
+            .p(20000000L, 5D)
+            .build();
+
+        final FetchData.Request request =
+            new FetchData.Request(MetricType.POINT, c1, range, QueryOptions.builder().build());
+
+        assertCompactedMetrics(expected, fetchMetrics(request, true));
+
+        assertEquals(2L, (long) backend.compactSeries(c1, range, QueryOptions.defaults()).get());
+        assertCompactedMetrics(expected, fetchMetrics(request, true));
+
+        final FetchData.Request partial =
+            new FetchData.Request(MetricType.POINT, c1, new DateRange(100000L, 16777221L),
+                QueryOptions.builder().build());
+
+        assertCompactedMetrics(
+            Data.points().p(100001L, 7D).p(100002L, 3D).p(16777221L, 4D).build(),
+            fetchMetrics(partial, true));
+    }
+
+    private static void assertCompactedMetrics(
+        MetricCollection expected, List<MetricCollection> actual
+    ) {
+        assertEquals(expected.size(), actual.stream().mapToInt(MetricCollection::size).sum());
+        assertEqualMetrics(expected, actual);
+    }
+
     private List<MetricCollection> fetchMetrics(FetchData.Request request, boolean slicedFetch)
         throws Exception {
         if (slicedFetch) {
@@ -44,6 +44,7 @@ import com.spotify.heroic.common.Groups;
 import com.spotify.heroic.common.ModuleId;
 import com.spotify.heroic.dagger.PrimaryComponent;
 import com.spotify.heroic.elasticsearch.BackendType;
+import com.spotify.heroic.elasticsearch.BulkWriter;
 import com.spotify.heroic.elasticsearch.Connection;
 import com.spotify.heroic.elasticsearch.ConnectionModule;
 import com.spotify.heroic.elasticsearch.DefaultRateLimitedCache;
@@ -55,11 +56,14 @@ import com.spotify.heroic.lifecycle.LifeCycle;
 import com.spotify.heroic.lifecycle.LifeCycleManager;
 import com.spotify.heroic.metadata.MetadataBackend;
 import com.spotify.heroic.metadata.MetadataModule;
+import com.spotify.heroic.scheduler.Scheduler;
 import com.spotify.heroic.statistics.HeroicReporter;
+import com.spotify.heroic.statistics.MetadataBackendReporter;
 import dagger.Component;
 import dagger.Lazy;
 import dagger.Module;
 import dagger.Provides;
+import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.Managed;
 import java.util.HashMap;
 import java.util.List;
@@ -80,6 +84,10 @@ public final class ElasticsearchMetadataModule implements MetadataModule, Dynami
     private static final int DEFAULT_WRITE_CACHE_CONCURRENCY = 4;
     private static final long DEFAULT_WRITE_CACHE_MAX_SIZE = 30_000_000L;
 
+    private static final int DEFAULT_BULK_ACTIONS = 1000;
+    private static final long DEFAULT_BULK_FLUSH_INTERVAL_MILLIS = 100L;
+    private static final int DEFAULT_BULK_MAX_IN_FLIGHT = 4;
+
     private static final String DEFAULT_GROUP = "elasticsearch";
     private static final String DEFAULT_TEMPLATE_NAME = "heroic-metadata";
 
@@ -95,6 +103,9 @@ public final class ElasticsearchMetadataModule implements MetadataModule, Dynami
     private final String distributedCacheSrvRecord;
     private final int deleteParallelism;
     private final boolean configure;
+    private final int bulkActions;
+    private final long bulkFlushIntervalMillis;
+    private final int bulkMaxInFlight;
 
     private static Supplier<BackendType> defaultSetup = MetadataBackendKV::backendType;
 
@@ -125,7 +136,10 @@ public final class ElasticsearchMetadataModule implements MetadataModule, Dynami
         @JsonProperty("deleteParallelism") Optional<Integer> deleteParallelism,
         @JsonProperty("templateName") Optional<String> templateName,
         @JsonProperty("backendType") Optional<String> backendType,
-        @JsonProperty("configure") Optional<Boolean> configure
+        @JsonProperty("configure") Optional<Boolean> configure,
+        @JsonProperty("bulkActions") Optional<Integer> bulkActions,
+        @JsonProperty("bulkFlushIntervalMillis") Optional<Long> bulkFlushIntervalMillis,
+        @JsonProperty("bulkMaxInFlight") Optional<Integer> bulkMaxInFlight
     ) {
         this.id = id;
         this.groups = groups.orElseGet(Groups::empty).or(DEFAULT_GROUP);
@@ -146,6 +160,10 @@ public final class ElasticsearchMetadataModule implements MetadataModule, Dynami
         this.backendTypeBuilder =
             backendType.flatMap(bt -> ofNullable(backendTypes.get(bt))).orElse(defaultSetup);
         this.configure = configure.orElse(false);
+        this.bulkActions = bulkActions.orElse(DEFAULT_BULK_ACTIONS);
+        this.bulkFlushIntervalMillis =
+            bulkFlushIntervalMillis.orElse(DEFAULT_BULK_FLUSH_INTERVAL_MILLIS);
+        this.bulkMaxInFlight = bulkMaxInFlight.orElse(DEFAULT_BULK_MAX_IN_FLIGHT);
     }
 
     @Override
@@ -261,6 +279,19 @@ public final class ElasticsearchMetadataModule implements MetadataModule, Dynami
                 RateLimiter.create(writesPerSecond, rateLimitSlowStartSeconds, TimeUnit.SECONDS));
         }
 
+        @Provides
+        @ElasticsearchScope
+        public BulkWriter bulkWriter(
+            AsyncFramework async, Managed<Connection> connection,
+            MetadataBackendReporter reporter, Scheduler scheduler
+        ) {
+            final BulkWriter writer = new BulkWriter(async, connection, reporter::reportBulkWrite,
+                bulkActions, bulkMaxInFlight);
+            scheduler.periodically("elasticsearch-metadata-bulk-flush", bulkFlushIntervalMillis,
+                TimeUnit.MILLISECONDS, writer::flush);
+            return writer;
+        }
+
         @Provides
         @ElasticsearchScope
         MetadataBackend backend(Lazy<MetadataBackendKV> kv) {
@@ -292,6 +323,9 @@ public final class ElasticsearchMetadataModule implements MetadataModule, Dynami
         private Optional<String> templateName = empty();
         private Optional<String> backendType = empty();
         private Optional<Boolean> configure = empty();
+        private Optional<Integer> bulkActions = empty();
+        private Optional<Long> bulkFlushIntervalMillis = empty();
+        private Optional<Integer> bulkMaxInFlight = empty();
 
         public Builder id(final String id) {
             checkNotNull(id, "id");
@@ -365,6 +399,21 @@ public final class ElasticsearchMetadataModule implements MetadataModule, Dynami
             return this;
         }
 
+        public Builder bulkActions(final int bulkActions) {
+            this.bulkActions = of(bulkActions);
+            return this;
+        }
+
+        public Builder bulkFlushIntervalMillis(final long bulkFlushIntervalMillis) {
+            this.bulkFlushIntervalMillis = of(bulkFlushIntervalMillis);
+            return this;
+        }
+
+        public Builder bulkMaxInFlight(final int bulkMaxInFlight) {
+            this.bulkMaxInFlight = of(bulkMaxInFlight);
+            return this;
+        }
+
         public ElasticsearchMetadataModule build() {
             return new ElasticsearchMetadataModule(
               id,
@@ -379,7 +428,10 @@ public final class ElasticsearchMetadataModule implements MetadataModule, Dynami
               deleteParallelism,
               templateName,
               backendType,
-              configure
+              configure,
+              bulkActions,
+              bulkFlushIntervalMillis,
+              bulkMaxInFlight
             );
         }
     }
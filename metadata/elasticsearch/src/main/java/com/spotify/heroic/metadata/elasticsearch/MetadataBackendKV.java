@@ -33,8 +33,10 @@ import com.spotify.heroic.common.Groups;
 import com.spotify.heroic.common.OptionalLimit;
 import com.spotify.heroic.common.RequestTimer;
 import com.spotify.heroic.common.Series;
+import com.spotify.heroic.common.SeriesInterner;
 import com.spotify.heroic.common.Statistics;
 import com.spotify.heroic.elasticsearch.AbstractElasticsearchMetadataBackend;
+import com.spotify.heroic.elasticsearch.BulkWriter;
 import com.spotify.heroic.elasticsearch.BackendType;
 import com.spotify.heroic.elasticsearch.Connection;
 import com.spotify.heroic.elasticsearch.LimitedSet;
@@ -135,12 +137,15 @@ public class MetadataBackendKV extends AbstractElasticsearchMetadataBackend
     private final RateLimitedCache<Pair<String, HashCode>> writeCache;
     private final boolean configure;
     private final int deleteParallelism;
+    private final SeriesInterner interner;
+    private final BulkWriter bulk;
 
     @Inject
     public MetadataBackendKV(
         Groups groups, MetadataBackendReporter reporter, AsyncFramework async,
         Managed<Connection> connection, RateLimitedCache<Pair<String, HashCode>> writeCache,
-        @Named("configure") boolean configure, @Named("deleteParallelism") int deleteParallelism
+        @Named("configure") boolean configure, @Named("deleteParallelism") int deleteParallelism,
+        SeriesInterner interner, BulkWriter bulk
     ) {
         super(async, TYPE_METADATA);
         this.groups = groups;
@@ -150,6 +155,8 @@ public class MetadataBackendKV extends AbstractElasticsearchMetadataBackend
         this.writeCache = writeCache;
         this.configure = configure;
         this.deleteParallelism = deleteParallelism;
+        this.interner = interner;
+        this.bulk = bulk;
     }
 
     @Override
@@ -245,7 +252,7 @@ public class MetadataBackendKV extends AbstractElasticsearchMetadataBackend
                     final Span writeSpan = tracer
                         .spanBuilder(indexSpanName + ".writeIndex")
                         .startSpan();
-                    AsyncFuture<WriteMetadata> result = bind(builder.execute())
+                    AsyncFuture<WriteMetadata> result = bulk.add(builder.request())
                         .directTransform(response -> timer.end())
                         .catchFailed(handleVersionConflict(WriteMetadata::new,
                             reporter::reportWriteDroppedByDuplicate))
@@ -392,7 +399,7 @@ public class MetadataBackendKV extends AbstractElasticsearchMetadataBackend
         final String key = (String) source.get(KEY);
         final Iterator<Map.Entry<String, String>> tags =
             ((List<String>) source.get(TAGS)).stream().map(this::buildTag).iterator();
-        return Series.of(key, tags);
+        return interner.intern(Series.of(key, tags));
     }
 
     private <T, O> AsyncFuture<O> entries(
@@ -501,6 +508,8 @@ public class MetadataBackendKV extends AbstractElasticsearchMetadataBackend
     }
 
     AsyncFuture<Void> stop() {
+        /* the connection waits for any bulk request in flight before it stops */
+        bulk.flush();
         return connection.stop();
     }
 
@@ -27,6 +27,7 @@ import com.spotify.heroic.async.AsyncObservable;
 import com.spotify.heroic.common.Groups;
 import com.spotify.heroic.common.OptionalLimit;
 import com.spotify.heroic.common.Series;
+import com.spotify.heroic.common.SeriesInterner;
 import com.spotify.heroic.filter.Filter;
 import com.spotify.heroic.metadata.CountSeries;
 import com.spotify.heroic.metadata.DeleteSeries;
@@ -48,21 +49,23 @@ import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.inject.Inject;
-import javax.inject.Named;
 
 @MemoryScope
 public class MemoryBackend implements MetadataBackend {
     private final AsyncFramework async;
     private final Groups groups;
-    private final Set<Series> storage;
+    private final MemoryIndex index;
+    private final SeriesInterner interner;
 
     @Inject
     public MemoryBackend(
-        final AsyncFramework async, final Groups groups, @Named("storage") final Set<Series> storage
+        final AsyncFramework async, final Groups groups, final MemoryIndex index,
+        final SeriesInterner interner
     ) {
         this.async = async;
         this.groups = groups;
-        this.storage = storage;
+        this.index = index;
+        this.interner = interner;
     }
 
     @Override
@@ -82,7 +85,7 @@ public class MemoryBackend implements MetadataBackend {
 
     @Override
     public AsyncFuture<WriteMetadata> write(final WriteMetadata.Request request) {
-        this.storage.add(request.getSeries());
+        this.index.add(interner.intern(request.getSeries()));
         return async.resolved(new WriteMetadata());
     }
 
@@ -159,13 +162,13 @@ public class MemoryBackend implements MetadataBackend {
     @Override
     public AsyncFuture<CountSeries> countSeries(final CountSeries.Request request) {
         return async.resolved(
-            new CountSeries(ImmutableList.of(), lookupFilter(request.getFilter()).count(), false));
+            new CountSeries(ImmutableList.of(), index.count(request.getFilter()), false));
     }
 
     @Override
     public AsyncFuture<DeleteSeries> deleteSeries(final DeleteSeries.Request request) {
         final int deletes = (int) lookup(request.getFilter(), request.getLimit())
-            .map(storage::remove)
+            .map(index::remove)
             .filter(b -> b)
             .count();
 
@@ -188,13 +191,8 @@ public class MemoryBackend implements MetadataBackend {
             .onFinished(observer::end);
     }
 
-    private Stream<Series> lookupFilter(final Filter filter) {
-        return storage.stream().filter(filter::apply);
-    }
-
     private Stream<Series> lookup(final Filter filter, final OptionalLimit limit) {
-        final Stream<Series> series = lookupFilter(filter);
-        return limit.asLong().map(series::limit).orElse(series);
+        return index.find(filter, limit).stream();
     }
 
     public String toString() {
@@ -0,0 +1,377 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metadata.memory;
+
+import com.spotify.heroic.common.OptionalLimit;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.filter.AndFilter;
+import com.spotify.heroic.filter.FalseFilter;
+import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.filter.HasTagFilter;
+import com.spotify.heroic.filter.MatchKeyFilter;
+import com.spotify.heroic.filter.MatchTagFilter;
+import com.spotify.heroic.filter.NotFilter;
+import com.spotify.heroic.filter.OrFilter;
+import com.spotify.heroic.filter.RegexFilter;
+import com.spotify.heroic.filter.StartsWithFilter;
+import com.spotify.heroic.filter.TrueFilter;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * An inverted index of series.
+ * <p>
+ * Every series is assigned an ordinal, and the index keeps a bitmap of ordinals for every key,
+ * for every tag and for every value of every tag. Filters are evaluated as set operations on
+ * those bitmaps. Tag values are kept sorted, so that prefix and regular expression filters only
+ * need to look at the values of a single tag, not at every series.
+ */
+class MemoryIndex {
+    private static final String REGEX_METACHARACTERS = "\\^$.|?*+()[]{}";
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /* series by ordinal, null for removed series */
+    private final List<Series> series = new ArrayList<>();
+    private final Map<Series, Integer> ordinals = new HashMap<>();
+    /* ordinals of all series in the index */
+    private final BitSet live = new BitSet();
+    /* ordinals of removed series, which are reused to keep the bitmaps small */
+    private final BitSet free = new BitSet();
+
+    private final Map<String, BitSet> keys = new HashMap<>();
+    private final Map<String, BitSet> tags = new HashMap<>();
+    private final Map<String, NavigableMap<String, BitSet>> values = new HashMap<>();
+
+    /**
+     * Add the given series to the index.
+     *
+     * @return {@code true} if the series was not already indexed.
+     */
+    public boolean add(final Series s) {
+        final Lock write = lock.writeLock();
+        write.lock();
+
+        try {
+            if (ordinals.containsKey(s)) {
+                return false;
+            }
+
+            final int ordinal = free.nextSetBit(0);
+
+            if (ordinal < 0) {
+                add(series.size(), s);
+                series.add(s);
+            } else {
+                free.clear(ordinal);
+                add(ordinal, s);
+                series.set(ordinal, s);
+            }
+
+            return true;
+        } finally {
+            write.unlock();
+        }
+    }
+
+    /**
+     * Remove the given series from the index.
+     *
+     * @return {@code true} if the series was indexed.
+     */
+    public boolean remove(final Series s) {
+        final Lock write = lock.writeLock();
+        write.lock();
+
+        try {
+            final Integer ordinal = ordinals.remove(s);
+
+            if (ordinal == null) {
+                return false;
+            }
+
+            final Series existing = series.set(ordinal, null);
+            live.clear(ordinal);
+            free.set(ordinal);
+
+            clear(keys, existing.getKey(), ordinal);
+
+            for (final Map.Entry<String, String> tag : existing.getTags().entrySet()) {
+                clear(tags, tag.getKey(), ordinal);
+
+                final NavigableMap<String, BitSet> tagValues = values.get(tag.getKey());
+
+                if (tagValues != null) {
+                    clear(tagValues, tag.getValue(), ordinal);
+
+                    if (tagValues.isEmpty()) {
+                        values.remove(tag.getKey());
+                    }
+                }
+            }
+
+            return true;
+        } finally {
+            write.unlock();
+        }
+    }
+
+    /**
+     * Find all series matching the given filter, in ordinal order.
+     */
+    public List<Series> find(final Filter filter, final OptionalLimit limit) {
+        final Lock read = lock.readLock();
+        read.lock();
+
+        try {
+            final BitSet matches = evaluate(filter);
+            final List<Series> result = new ArrayList<>();
+
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                if (limit.isGreaterOrEqual(result.size())) {
+                    break;
+                }
+
+                result.add(series.get(i));
+            }
+
+            return result;
+        } finally {
+            read.unlock();
+        }
+    }
+
+    /**
+     * Count the number of series matching the given filter.
+     */
+    public int count(final Filter filter) {
+        final Lock read = lock.readLock();
+        read.lock();
+
+        try {
+            return evaluate(filter).cardinality();
+        } finally {
+            read.unlock();
+        }
+    }
+
+    private void add(final int ordinal, final Series s) {
+        ordinals.put(s, ordinal);
+        live.set(ordinal);
+
+        keys.computeIfAbsent(s.getKey(), k -> new BitSet()).set(ordinal);
+
+        for (final Map.Entry<String, String> tag : s.getTags().entrySet()) {
+            tags.computeIfAbsent(tag.getKey(), k -> new BitSet()).set(ordinal);
+            values
+                .computeIfAbsent(tag.getKey(), k -> new TreeMap<>())
+                .computeIfAbsent(tag.getValue(), v -> new BitSet())
+                .set(ordinal);
+        }
+    }
+
+    private static void clear(final Map<String, BitSet> postings, final String k, final int o) {
+        final BitSet posting = postings.get(k);
+
+        if (posting == null) {
+            return;
+        }
+
+        posting.clear(o);
+
+        if (posting.isEmpty()) {
+            postings.remove(k);
+        }
+    }
+
+    /**
+     * Evaluate the given filter into a new bitmap which is owned by the caller.
+     */
+    private BitSet evaluate(final Filter filter) {
+        return filter.optimize().visit(new Evaluator());
+    }
+
+    private class Evaluator implements Filter.Visitor<BitSet> {
+        @Override
+        public BitSet visitTrue(final TrueFilter t) {
+            return (BitSet) live.clone();
+        }
+
+        @Override
+        public BitSet visitFalse(final FalseFilter f) {
+            return new BitSet();
+        }
+
+        @Override
+        public BitSet visitMatchKey(final MatchKeyFilter matchKey) {
+            return copy(keys.get(matchKey.key()));
+        }
+
+        @Override
+        public BitSet visitHasTag(final HasTagFilter hasTag) {
+            return copy(tags.get(hasTag.tag()));
+        }
+
+        @Override
+        public BitSet visitMatchTag(final MatchTagFilter matchTag) {
+            final NavigableMap<String, BitSet> tagValues = values.get(matchTag.tag());
+            return copy(tagValues == null ? null : tagValues.get(matchTag.value()));
+        }
+
+        @Override
+        public BitSet visitStartsWith(final StartsWithFilter startsWith) {
+            final BitSet result = new BitSet();
+            final String prefix = startsWith.value();
+
+            for (final Map.Entry<String, BitSet> e : withPrefix(startsWith.tag(), prefix)) {
+                if (!e.getKey().startsWith(prefix)) {
+                    break;
+                }
+
+                result.or(e.getValue());
+            }
+
+            return result;
+        }
+
+        @Override
+        public BitSet visitRegex(final RegexFilter regex) {
+            final BitSet result = new BitSet();
+            final Pattern pattern = Pattern.compile(regex.value());
+            final String prefix = literalPrefix(regex.value());
+
+            for (final Map.Entry<String, BitSet> e : withPrefix(regex.tag(), prefix)) {
+                if (!e.getKey().startsWith(prefix)) {
+                    break;
+                }
+
+                if (pattern.matcher(e.getKey()).matches()) {
+                    result.or(e.getValue());
+                }
+            }
+
+            return result;
+        }
+
+        @Override
+        public BitSet visitNot(final NotFilter not) {
+            final BitSet result = (BitSet) live.clone();
+            result.andNot(not.filter().visit(this));
+            return result;
+        }
+
+        @Override
+        public BitSet visitAnd(final AndFilter and) {
+            BitSet result = null;
+
+            for (final Filter term : and.terms()) {
+                final BitSet next = term.visit(this);
+
+                if (result == null) {
+                    result = next;
+                } else {
+                    result.and(next);
+                }
+
+                if (result.isEmpty()) {
+                    break;
+                }
+            }
+
+            return result == null ? (BitSet) live.clone() : result;
+        }
+
+        @Override
+        public BitSet visitOr(final OrFilter or) {
+            final BitSet result = new BitSet();
+
+            for (final Filter term : or.terms()) {
+                result.or(term.visit(this));
+            }
+
+            return result;
+        }
+
+        /**
+         * Filters which can't be resolved through the index are applied to every series.
+         */
+        @Override
+        public BitSet defaultAction(final Filter filter) {
+            final BitSet result = new BitSet();
+
+            for (int i = live.nextSetBit(0); i >= 0; i = live.nextSetBit(i + 1)) {
+                if (filter.apply(series.get(i))) {
+                    result.set(i);
+                }
+            }
+
+            return result;
+        }
+
+        private Iterable<Map.Entry<String, BitSet>> withPrefix(
+            final String tag, final String prefix
+        ) {
+            final NavigableMap<String, BitSet> tagValues = values.get(tag);
+
+            if (tagValues == null) {
+                return new TreeMap<String, BitSet>().entrySet();
+            }
+
+            return tagValues.tailMap(prefix, true).entrySet();
+        }
+
+        private BitSet copy(final BitSet posting) {
+            return posting == null ? new BitSet() : (BitSet) posting.clone();
+        }
+    }
+
+    /**
+     * The literal prefix that every value matching the given regular expression starts with.
+     */
+    static String literalPrefix(final String regex) {
+        if (regex.indexOf('|') >= 0) {
+            return "";
+        }
+
+        int end = 0;
+
+        while (end < regex.length() && REGEX_METACHARACTERS.indexOf(regex.charAt(end)) < 0) {
+            end++;
+        }
+
+        /* a quantifier applies to the last literal character, which is then optional */
+        if (end < regex.length() && end > 0 && "?*+{".indexOf(regex.charAt(end)) >= 0) {
+            end--;
+        }
+
+        return regex.substring(0, end);
+    }
+}
@@ -30,18 +30,12 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.spotify.heroic.common.DynamicModuleId;
 import com.spotify.heroic.common.Groups;
 import com.spotify.heroic.common.ModuleId;
-import com.spotify.heroic.common.Series;
 import com.spotify.heroic.dagger.PrimaryComponent;
 import com.spotify.heroic.metadata.MetadataModule;
 import dagger.Component;
 import dagger.Module;
 import dagger.Provides;
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.Optional;
-import java.util.Set;
-import java.util.concurrent.ConcurrentSkipListSet;
-import javax.inject.Named;
 
 @ModuleId("memory")
 public final class MemoryMetadataModule implements MetadataModule, DynamicModuleId {
@@ -49,7 +43,6 @@ public final class MemoryMetadataModule implements MetadataModule, DynamicModule
 
     private final Optional<String> id;
     private final Groups groups;
-    private final boolean synchronizedStorage;
 
     @JsonCreator
     public MemoryMetadataModule(
@@ -59,7 +52,7 @@ public final class MemoryMetadataModule implements MetadataModule, DynamicModule
     ) {
         this.id = id;
         this.groups = groups.orElseGet(Groups::empty).or(DEFAULT_GROUP);
-        this.synchronizedStorage = synchronizedStorage.orElse(false);
+        /* synchronizedStorage is accepted for compatibility, the index is always synchronized */
     }
 
     @Override
@@ -94,13 +87,8 @@ public final class MemoryMetadataModule implements MetadataModule, DynamicModule
 
         @MemoryScope
         @Provides
-        @Named("storage")
-        public Set<Series> storage() {
-            if (synchronizedStorage) {
-                return Collections.synchronizedSet(new HashSet<>());
-            } else {
-                return new ConcurrentSkipListSet<>();
-            }
+        public MemoryIndex index() {
+            return new MemoryIndex();
         }
     }
 
@@ -0,0 +1,93 @@
+package com.spotify.heroic.metadata.memory;
+
+import static com.spotify.heroic.filter.Filter.and;
+import static com.spotify.heroic.filter.Filter.hasTag;
+import static com.spotify.heroic.filter.Filter.matchKey;
+import static com.spotify.heroic.filter.Filter.matchTag;
+import static com.spotify.heroic.filter.Filter.not;
+import static com.spotify.heroic.filter.Filter.or;
+import static com.spotify.heroic.filter.Filter.regex;
+import static com.spotify.heroic.filter.Filter.startsWith;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.common.OptionalLimit;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.filter.TrueFilter;
+import java.util.List;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MemoryIndexTest {
+    private final Series a = Series.of("cpu", ImmutableMap.of("host", "web-1", "role", "web"));
+    private final Series b = Series.of("cpu", ImmutableMap.of("host", "web-2", "role", "web"));
+    private final Series c = Series.of("cpu", ImmutableMap.of("host", "db-1"));
+    private final Series d = Series.of("memory", ImmutableMap.of("host", "web-1", "role", "web"));
+
+    private MemoryIndex index;
+
+    @Before
+    public void setup() {
+        index = new MemoryIndex();
+
+        for (final Series s : ImmutableList.of(a, b, c, d)) {
+            assertTrue(index.add(s));
+        }
+    }
+
+    @Test
+    public void testFilters() {
+        assertFind(ImmutableSet.of(a, b, c, d), TrueFilter.get());
+        assertFind(ImmutableSet.of(a, b, c), matchKey("cpu"));
+        assertFind(ImmutableSet.of(a, d), matchTag("host", "web-1"));
+        assertFind(ImmutableSet.of(a, b, d), hasTag("role"));
+        assertFind(ImmutableSet.of(a, b), and(matchKey("cpu"), startsWith("host", "web-")));
+        assertFind(ImmutableSet.of(c, d), or(matchKey("memory"), regex("host", "db-.*")));
+        assertFind(ImmutableSet.of(a, d), regex("host", "web-[1]"));
+        assertFind(ImmutableSet.of(c), not(hasTag("role")));
+        assertFind(ImmutableSet.of(), matchTag("missing", "value"));
+    }
+
+    @Test
+    public void testLimitAndCount() {
+        assertEquals(2, index.find(matchKey("cpu"), OptionalLimit.of(2L)).size());
+        assertEquals(3, index.count(matchKey("cpu")));
+    }
+
+    @Test
+    public void testRemove() {
+        assertFalse(index.add(a));
+        assertTrue(index.remove(a));
+        assertFalse(index.remove(a));
+
+        assertFind(ImmutableSet.of(d), matchTag("host", "web-1"));
+        assertEquals(3, index.count(TrueFilter.get()));
+
+        /* the ordinal of the removed series is reused */
+        final Series e = Series.of("disk", ImmutableMap.of("host", "db-2"));
+        assertTrue(index.add(e));
+        assertFind(ImmutableSet.of(c, e), startsWith("host", "db"));
+        assertFind(ImmutableSet.of(b, c, d, e), TrueFilter.get());
+    }
+
+    @Test
+    public void testLiteralPrefix() {
+        assertEquals("web-", MemoryIndex.literalPrefix("web-.*"));
+        assertEquals("we", MemoryIndex.literalPrefix("web?"));
+        assertEquals("", MemoryIndex.literalPrefix("web|db"));
+        assertEquals("", MemoryIndex.literalPrefix("(?i)web"));
+        assertEquals("web", MemoryIndex.literalPrefix("web"));
+    }
+
+    private void assertFind(final Set<Series> expected, final Filter filter) {
+        final List<Series> result = index.find(filter, OptionalLimit.empty());
+        assertEquals(expected, ImmutableSet.copyOf(result));
+        assertEquals(expected.size(), result.size());
+    }
+}
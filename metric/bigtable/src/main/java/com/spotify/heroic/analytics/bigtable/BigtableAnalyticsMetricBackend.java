@@ -23,7 +23,9 @@ package com.spotify.heroic.analytics.bigtable;
 
 import com.spotify.heroic.QueryOptions;
 import com.spotify.heroic.async.AsyncObservable;
+import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Groups;
+import com.spotify.heroic.common.Series;
 import com.spotify.heroic.common.Statistics;
 import com.spotify.heroic.metric.BackendEntry;
 import com.spotify.heroic.metric.BackendKey;
@@ -39,6 +41,7 @@ import eu.toolchain.async.AsyncFuture;
 import io.opencensus.trace.Span;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 class BigtableAnalyticsMetricBackend implements MetricBackend {
@@ -88,6 +91,22 @@ class BigtableAnalyticsMetricBackend implements MetricBackend {
         return backend.fetch(request, watcher, metricsConsumer, parentSpan);
     }
 
+    @Override
+    public AsyncFuture<FetchData.Result> fetchBatch(
+        final FetchData.BatchRequest request,
+        final FetchQuotaWatcher watcher,
+        final BiConsumer<Series, MetricReadResult> metricsConsumer,
+        final Span parentSpan
+    ) {
+        final LocalDate now = LocalDate.now();
+
+        for (final Series series : request.getSeries()) {
+            analytics.reportFetchSeries(now, series);
+        }
+
+        return backend.fetchBatch(request, watcher, metricsConsumer, parentSpan);
+    }
+
     @Override
     public Iterable<BackendEntry> listEntries() {
         return backend.listEntries();
@@ -127,6 +146,11 @@ class BigtableAnalyticsMetricBackend implements MetricBackend {
         return backend.countKey(key, options);
     }
 
+    @Override
+    public AsyncFuture<Long> compactSeries(Series series, DateRange range, QueryOptions options) {
+        return backend.compactSeries(series, range, options);
+    }
+
     @Override
     public AsyncFuture<MetricCollection> fetchRow(BackendKey key) {
         return backend.fetchRow(key);
@@ -53,6 +53,7 @@ public class BigtableAnalyticsModule implements AnalyticsModule {
     public static final int DEFAULT_MAX_PENDING_REPORTS = 1000;
     public static final boolean DEFAULT_DISABLE_BULK_MUTATIONS = false;
     public static final int DEFAULT_FLUSH_INTERVAL_SECONDS = 2;
+    public static final int DEFAULT_READ_THREADS = 4;
 
     private final String project;
     private final String cluster;
@@ -93,7 +94,7 @@ public class BigtableAnalyticsModule implements AnalyticsModule {
                 return async.call(
                     new BigtableConnectionBuilder(project, cluster, credentials, async,
                         DEFAULT_DISABLE_BULK_MUTATIONS, DEFAULT_FLUSH_INTERVAL_SECONDS,
-                        Optional.empty()));
+                        Optional.empty(), DEFAULT_READ_THREADS));
             }
 
             @Override
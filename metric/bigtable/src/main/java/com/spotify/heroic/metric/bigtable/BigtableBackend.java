@@ -25,12 +25,13 @@ import static io.opencensus.trace.AttributeValue.longAttributeValue;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.cloud.bigtable.grpc.scanner.FlatRow;
 import com.google.cloud.bigtable.util.RowKeyUtil;
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.protobuf.ByteString;
+import com.spotify.heroic.QueryOptions;
+import com.spotify.heroic.async.AsyncObserver;
 import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Groups;
 import com.spotify.heroic.common.RequestTimer;
@@ -47,12 +48,14 @@ import com.spotify.heroic.metric.MetricCollection;
 import com.spotify.heroic.metric.MetricReadResult;
 import com.spotify.heroic.metric.MetricType;
 import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointArray;
 import com.spotify.heroic.metric.QueryError;
 import com.spotify.heroic.metric.QueryTrace;
 import com.spotify.heroic.metric.WriteMetric;
 import com.spotify.heroic.metric.bigtable.api.BigtableDataClient;
 import com.spotify.heroic.metric.bigtable.api.BigtableTableAdminClient;
 import com.spotify.heroic.metric.bigtable.api.ColumnFamily;
+import com.spotify.heroic.metric.bigtable.api.Family;
 import com.spotify.heroic.metric.bigtable.api.Mutations;
 import com.spotify.heroic.metric.bigtable.api.ReadRowsRequest;
 import com.spotify.heroic.metric.bigtable.api.RowFilter;
@@ -64,6 +67,7 @@ import com.spotify.heroic.tracing.EndSpanFutureReporter;
 import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
 import eu.toolchain.async.Managed;
+import eu.toolchain.async.ResolvableFuture;
 import eu.toolchain.async.RetryPolicy;
 import eu.toolchain.async.RetryResult;
 import eu.toolchain.serializer.Serializer;
@@ -82,7 +86,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.SortedMap;
-import java.util.function.BiFunction;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import javax.inject.Inject;
@@ -103,6 +109,9 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
     public static final QueryTrace.Identifier FETCH =
         QueryTrace.identifier(BigtableBackend.class, "fetch");
 
+    /* maximum number of row ranges sent with a single multi-range read */
+    public static final int MAX_ROW_RANGES = 1000;
+
     public static final String POINTS = "points";
     public static final String EVENTS = "events";
     public static final long PERIOD = 0x100_000_000L;
@@ -115,6 +124,8 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
     private final Groups groups;
     private final String table;
     private final boolean configure;
+    /* if compacted blocks are read and may be written, see PointCells */
+    private final boolean compactedBlocks;
     private final MetricBackendReporter reporter;
     private final ObjectMapper mapper;
     private final Tracer tracer = Tracing.getTracer();
@@ -134,6 +145,7 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
         final Groups groups,
         @Named("table") final String table,
         @Named("configure") final boolean configure,
+        @Named("compactedBlocks") final boolean compactedBlocks,
         MetricBackendReporter reporter,
         @Named("application/json") ObjectMapper mapper
     ) {
@@ -146,6 +158,7 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
         this.groups = groups;
         this.table = table;
         this.configure = configure;
+        this.compactedBlocks = compactedBlocks;
         this.reporter = reporter;
         this.mapper = mapper;
     }
@@ -251,10 +264,7 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
     }
 
     private List<PreparedQuery> pointsRanges(final FetchData.Request request) throws IOException {
-        return ranges(request.getSeries(), request.getRange(), POINTS, (t, d) -> {
-            final double value = deserializeValue(d);
-            return new Point(t, value);
-        });
+        return ranges(request.getSeries(), request.getRange(), POINTS);
     }
 
     @Override
@@ -273,8 +283,7 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
 
             switch (type) {
                 case POINT:
-                    return fetchBatch(
-                        watcher, type, pointsRanges(request), c, consumer, parentSpan);
+                    return fetchBatch(watcher, pointsRanges(request), c, consumer, parentSpan);
                 default:
                     return async.resolved(new FetchData.Result(QueryTrace.of(FETCH),
                         new QueryError("unsupported source: " + request.getType())));
@@ -282,6 +291,74 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
         });
     }
 
+    /**
+     * Read all series of a batch with as few requests as possible.
+     * <p>
+     * Row keys for the same base share their column range, so all rows of a base are read with a
+     * single multi-range request. Rows are mapped back to their series through their row key.
+     */
+    @Override
+    public AsyncFuture<FetchData.Result> fetchBatch(
+        final FetchData.BatchRequest request,
+        final FetchQuotaWatcher watcher,
+        final BiConsumer<Series, MetricReadResult> consumer,
+        final Span parentSpan
+    ) {
+        return connection.doto(c -> {
+            final MetricType type = request.getType();
+
+            if (!watcher.mayReadData()) {
+                throw new IllegalArgumentException("query violated data limit");
+            }
+
+            switch (type) {
+                case POINT:
+                    return fetchMultiRange(watcher, request, c, consumer, parentSpan);
+                default:
+                    return async.resolved(new FetchData.Result(QueryTrace.of(FETCH),
+                        new QueryError("unsupported source: " + request.getType())));
+            }
+        });
+    }
+
+    /**
+     * Pack the samples of all rows of the series overlapping the range into compressed blocks.
+     * <p>
+     * Rows are compacted in full, one atomic mutation per block, so this is safe to run against
+     * rows that are being written to and read from. Only the sample versions that were read are
+     * deleted, so samples written or rewritten during or after compaction stay single cells until
+     * the next compaction.
+     */
+    @Override
+    public AsyncFuture<Long> compactSeries(
+        final Series series, final DateRange range, final QueryOptions options
+    ) {
+        if (!compactedBlocks) {
+            return async.failed(new IllegalStateException(
+                "compacted blocks are not enabled for this backend (compactedBlocks: false)"));
+        }
+
+        return connection.doto(c -> {
+            final BigtableDataClient client = c.dataClient();
+            final List<AsyncFuture<Long>> compactions = new ArrayList<>();
+
+            for (final PreparedQuery p : pointsRanges(
+                new FetchData.Request(MetricType.POINT, series, range, options))) {
+                compactions.add(compactRows(client, p));
+            }
+
+            return async.collect(compactions).directTransform(result -> {
+                long count = 0;
+
+                for (final long compacted : result) {
+                    count += compacted;
+                }
+
+                return count;
+            });
+        });
+    }
+
     @Override
     public Iterable<BackendEntry> listEntries() {
         return ImmutableList.of();
@@ -424,7 +501,6 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
 
     private AsyncFuture<FetchData.Result> fetchBatch(
         final FetchQuotaWatcher watcher,
-        final MetricType type,
         final List<PreparedQuery> prepared,
         final BigtableConnection c,
         final Consumer<MetricReadResult> metricsConsumer,
@@ -439,50 +515,15 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
         final List<AsyncFuture<FetchData.Result>> fetches = new ArrayList<>(prepared.size());
 
         for (final PreparedQuery p : prepared) {
-            Span readRowsSpan = tracer.spanBuilderWithExplicitParent(
-                "bigtable.readRows", fetchBatchSpan).startSpan();
-            readRowsSpan.putAttribute("rowKeyBaseTimestamp", longAttributeValue(p.base));
-
-            final Function<FlatRow.Cell, Metric> transform =
-                cell -> p.deserialize(cell.getQualifier(), cell.getValue());
-
-            QueryTrace.NamedWatch fs = QueryTrace.watch(FETCH_SEGMENT);
-            final AsyncFuture<List<FlatRow>> readRows =
-              client.readRows(
-                  table,
-                  ReadRowsRequest.builder()
-                      .range(new RowRange(Optional.of(p.rowKeyStart), Optional.of(p.rowKeyEnd)))
-                      .filter(
-                          RowFilter.chain(
-                              Arrays.asList(
-                                  RowFilter.newColumnRangeBuilder(p.columnFamily)
-                                      .startQualifierOpen(p.startQualifierOpen)
-                                      .endQualifierClosed(p.endQualifierClosed)
-                                      .build(),
-                                  RowFilter.onlyLatestCell())))
-                      .build()
-              ).onDone(new EndSpanFutureReporter(readRowsSpan));
-
-            fetches.add(readRows.directTransform(result -> {
-                final Span transformSpan = tracer.spanBuilderWithExplicitParent(
-                    "bigtable.transform", readRowsSpan).startSpan();
-                transformSpan.putAttribute("rowsReturned", longAttributeValue(result.size()));
-
-                for (final FlatRow row : result) {
-                    SortedMap<String, String> resource = parseResourceFromRowKey(row.getRowKey());
-
-                    watcher.readData(row.getCells().size());
-
-                    final List<Metric> metrics = Lists.transform(row.getCells(), transform);
-                    final MetricCollection mc = MetricCollection.build(type, metrics);
-                    final MetricReadResult readResult = new MetricReadResult(mc, resource);
-
-                    metricsConsumer.accept(readResult);
-                }
-                transformSpan.end();
-
-                return new FetchData.Result(fs.end());
-            }));
+            final ReadRowsRequest request = p
+                .requestBuilder()
+                .range(new RowRange(Optional.of(p.rowKeyStart), Optional.of(p.rowKeyEnd)))
+                .build();
+
+            fetches.add(readPoints(client, request, p, 1, watcher,
+                (rowKey, mc) -> metricsConsumer.accept(
+                    new MetricReadResult(mc, rowKey.getSeries().getResource())),
+                fetchBatchSpan));
         }
 
         return async.collect(fetches, FetchData
@@ -496,12 +537,180 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
             });
     }
 
-    private SortedMap<String, String> parseResourceFromRowKey(final ByteString rowKey)
-        throws IOException {
-        return rowKeySerializer
-            .deserializeFull(ByteBuffer.wrap(rowKey.toByteArray()))
-            .getSeries()
-            .getResource();
+    private AsyncFuture<FetchData.Result> fetchMultiRange(
+        final FetchQuotaWatcher watcher,
+        final FetchData.BatchRequest request,
+        final BigtableConnection c,
+        final BiConsumer<Series, MetricReadResult> metricsConsumer,
+        final Span parentSpan
+    ) throws IOException {
+        final BigtableDataClient client = c.dataClient();
+
+        final Map<RowKeyMinimal.Series, Series> lookup = new HashMap<>();
+        final SortedMap<Long, List<PreparedQuery>> bases = new TreeMap<>();
+
+        for (final Series series : request.getSeries()) {
+            lookup.put(RowKeyMinimal.Series.create(series), series);
+
+            for (final PreparedQuery p : pointsRanges(request.request(series))) {
+                bases.computeIfAbsent(p.base, b -> new ArrayList<>()).add(p);
+            }
+        }
+
+        final Span fetchSpan =
+            tracer.spanBuilderWithExplicitParent("bigtable.fetchMultiRange", parentSpan)
+                .startSpan();
+        fetchSpan.putAttribute("seriesCount", longAttributeValue(lookup.size()));
+
+        final List<AsyncFuture<FetchData.Result>> fetches = new ArrayList<>();
+        int preparedSize = 0;
+
+        for (final List<PreparedQuery> prepared : bases.values()) {
+            prepared.sort((a, b) -> compareRowKeys(a.rowKeyStart, b.rowKeyStart));
+            preparedSize += prepared.size();
+
+            for (final List<PreparedQuery> chunk : Lists.partition(prepared, MAX_ROW_RANGES)) {
+                /* all queries in a chunk share base and column range */
+                final PreparedQuery p = chunk.get(0);
+                final ReadRowsRequest.Builder builder = p.requestBuilder();
+
+                for (final PreparedQuery range : chunk) {
+                    builder.addRange(new RowRange(
+                        Optional.of(range.rowKeyStart), Optional.of(range.rowKeyEnd)));
+                }
+
+                fetches.add(readPoints(client, builder.build(), p, chunk.size(), watcher,
+                    (rowKey, mc) -> {
+                        final Series series =
+                            lookup.get(RowKeyMinimal.Series.create(rowKey.getSeries()));
+
+                        if (series != null) {
+                            metricsConsumer.accept(series,
+                                new MetricReadResult(mc, rowKey.getSeries().getResource()));
+                        }
+                    }, fetchSpan));
+            }
+        }
+
+        final int accessedRows = preparedSize;
+
+        return async.collect(fetches, FetchData
+            .collectResult(FETCH))
+            .directTransform(result -> {
+                fetchSpan.end();
+                // like fetch(), this counts row key prefixes rather than the rows touched.
+                watcher.accessedRows(accessedRows);
+                return result;
+            });
+    }
+
+    /**
+     * Stream the rows of a read, decoding each row straight into points as it arrives.
+     * <p>
+     * The next row is only read once the previous one has been handed to the consumer, so at most
+     * one row per read is buffered here regardless of how large the response is.
+     */
+    private AsyncFuture<FetchData.Result> readPoints(
+        final BigtableDataClient client,
+        final ReadRowsRequest request,
+        final PreparedQuery p,
+        final int rowRanges,
+        final FetchQuotaWatcher watcher,
+        final BiConsumer<RowKey, MetricCollection> consumer,
+        final Span parentSpan
+    ) {
+        final Span readRowsSpan =
+            tracer.spanBuilderWithExplicitParent("bigtable.readRows", parentSpan).startSpan();
+        readRowsSpan.putAttribute("rowKeyBaseTimestamp", longAttributeValue(p.base));
+        readRowsSpan.putAttribute("rowRanges", longAttributeValue(rowRanges));
+
+        final QueryTrace.NamedWatch fs = QueryTrace.watch(FETCH_SEGMENT);
+        final AtomicLong rowsReturned = new AtomicLong();
+        final ResolvableFuture<Void> future = async.future();
+
+        client.readRowsObserved(table, request).observe(AsyncObserver.bind(future, row -> {
+            final Optional<Family> family = row.getFamily(p.columnFamily);
+
+            if (!family.isPresent()) {
+                return async.resolved();
+            }
+
+            try {
+                final RowKey rowKey =
+                    rowKeySerializer.deserializeFull(ByteBuffer.wrap(row.getKey().toByteArray()));
+                final PointArray points = p.deserializePoints(family.get());
+
+                watcher.readData(points.size());
+                rowsReturned.incrementAndGet();
+
+                consumer.accept(rowKey, MetricCollection.points(points));
+            } catch (final Exception e) {
+                return async.failed(e);
+            }
+
+            return async.resolved();
+        }));
+
+        return future
+            .directTransform(ignore -> {
+                readRowsSpan.putAttribute("rowsReturned", longAttributeValue(rowsReturned.get()));
+                return new FetchData.Result(fs.end());
+            })
+            .onDone(new EndSpanFutureReporter(readRowsSpan));
+    }
+
+    private AsyncFuture<Long> compactRows(
+        final BigtableDataClient client, final PreparedQuery p
+    ) {
+        final ReadRowsRequest request = ReadRowsRequest
+            .builder()
+            .range(new RowRange(Optional.of(p.rowKeyStart), Optional.of(p.rowKeyEnd)))
+            .filter(RowFilter.chain(
+                Arrays.asList(RowFilter.newColumnRangeBuilder(p.columnFamily).build(),
+                    RowFilter.onlyLatestCell())))
+            .build();
+
+        final AtomicLong compacted = new AtomicLong();
+        final ResolvableFuture<Void> future = async.future();
+
+        client.readRowsObserved(table, request).observe(AsyncObserver.bind(future, row -> {
+            final Optional<Family> family = row.getFamily(p.columnFamily);
+
+            if (!family.isPresent()) {
+                return async.resolved();
+            }
+
+            final PointCells.Compactor compactor = new PointCells.Compactor(p.base);
+            family.get().forEachLatestCell(compactor);
+
+            final List<AsyncFuture<Void>> writes = new ArrayList<>();
+
+            for (final Mutations mutations : compactor.compact(p.columnFamily)) {
+                writes.add(client.mutateRow(table, row.getKey(), mutations));
+            }
+
+            compacted.addAndGet(compactor.samples());
+            return async.collectAndDiscard(writes);
+        }));
+
+        return future.directTransform(ignore -> compacted.get());
+    }
+
+    /**
+     * Compare row keys byte-by-byte, unsigned, which is the order Bigtable stores rows in.
+     */
+    static int compareRowKeys(final ByteString a, final ByteString b) {
+        final int size = Math.min(a.size(), b.size());
+
+        for (int i = 0; i < size; i++) {
+            final int c = Integer.compare(a.byteAt(i) & 0xff, b.byteAt(i) & 0xff);
+
+            if (c != 0) {
+                return c;
+            }
+        }
+
+        return Integer.compare(a.size(), b.size());
     }
 
     static long base(long timestamp) {
@@ -515,8 +724,7 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
     List<PreparedQuery> ranges(
         final Series series,
         final DateRange range,
-        final String columnFamily,
-        final BiFunction<Long, ByteString, Metric> deserializer
+        final String columnFamily
     ) throws IOException {
         final List<PreparedQuery> bases = new ArrayList<>();
 
@@ -536,12 +744,30 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
             final ByteString keyEnd = ByteString.copyFrom(
                 RowKeyUtil.calculateTheClosestNextRowKeyForPrefix(key.toByteArray()));
 
-            final ByteString columnStart = serializeOffset(offset(modified.start()));
-            final ByteString columnEnd = serializeOffset(offset(modified.end()));
+            final long startOffset = offset(modified.start());
+            final long endOffset = offset(modified.end());
+
+            final ByteString columnStart = serializeOffset(startOffset);
+            final ByteString columnEnd;
+            final Optional<ByteString> startBlock;
+
+            if (compactedBlocks) {
+                /* the block starting at the end of the range sorts right after its last sample,
+                 * while the block containing the start of the range sorts before the range unless
+                 * it starts exactly at it, see PointCells */
+                columnEnd = PointCells.blockQualifier(endOffset);
+
+                final long blockStart = PointCells.blockStart(startOffset);
+                startBlock = blockStart < startOffset
+                    ? Optional.of(PointCells.blockQualifier(blockStart)) : Optional.empty();
+            } else {
+                columnEnd = serializeOffset(endOffset);
+                startBlock = Optional.empty();
+            }
 
             bases.add(
-                new PreparedQuery(
-                    key, keyEnd, columnFamily, columnStart, columnEnd, deserializer, base));
+                new PreparedQuery(key, keyEnd, columnFamily, columnStart, columnEnd, startBlock,
+                    base, modified.start(), modified.end()));
         }
 
         return bases;
@@ -554,7 +780,7 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
     }
 
     static double deserializeValue(ByteString value) {
-        return Double.longBitsToDouble(ByteBuffer.wrap(value.toByteArray()).getLong());
+        return Double.longBitsToDouble(value.asReadOnlyByteBuffer().getLong());
     }
 
     /**
@@ -584,13 +810,11 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
     }
 
     static long deserializeOffset(ByteString value) {
-        final byte[] bytes = value.toByteArray();
-
         // @formatter:off
-        return ((long) (bytes[0] & 0xff) << 24) +
-               ((long) (bytes[1] & 0xff) << 16) +
-               ((long) (bytes[2] & 0xff) << 8) +
-               ((long) (bytes[3] & 0xff) << 0);
+        return ((long) (value.byteAt(0) & 0xff) << 24) +
+               ((long) (value.byteAt(1) & 0xff) << 16) +
+               ((long) (value.byteAt(2) & 0xff) << 8) +
+               ((long) (value.byteAt(3) & 0xff) << 0);
         // @formatter:on
     }
 
@@ -604,32 +828,66 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
         private final String columnFamily;
         private final ByteString startQualifierOpen;
         private final ByteString endQualifierClosed;
-        private final BiFunction<Long, ByteString, Metric> deserializer;
+        /* qualifier of a compacted block which overlaps the start of the range */
+        private final Optional<ByteString> startBlockQualifier;
         private final long base;
+        /* range of timestamps to read, (start, end] */
+        private final long start;
+        private final long end;
 
         @java.beans.ConstructorProperties({ "rowKeyStart", "rowKeyEnd", "columnFamily",
                                             "startQualifierOpen", "endQualifierClosed",
-                                            "deserializer",
-                                            "base" })
+                                            "startBlockQualifier", "base", "start",
+                                            "end" })
         public PreparedQuery(final ByteString rowKeyStart,
                              final ByteString rowKeyEnd,
                              final String columnFamily,
                              final ByteString startQualifierOpen,
                              final ByteString endQualifierClosed,
-                             final BiFunction<Long, ByteString, Metric> deserializer,
-                             final long base) {
+                             final Optional<ByteString> startBlockQualifier,
+                             final long base,
+                             final long start,
+                             final long end) {
             this.rowKeyStart = rowKeyStart;
             this.rowKeyEnd = rowKeyEnd;
             this.columnFamily = columnFamily;
             this.startQualifierOpen = startQualifierOpen;
             this.endQualifierClosed = endQualifierClosed;
-            this.deserializer = deserializer;
+            this.startBlockQualifier = startBlockQualifier;
             this.base = base;
+            this.start = start;
+            this.end = end;
+        }
+
+        ReadRowsRequest.Builder requestBuilder() {
+            final RowFilter range = RowFilter.newColumnRangeBuilder(columnFamily)
+                .startQualifierOpen(startQualifierOpen)
+                .endQualifierClosed(endQualifierClosed)
+                .build();
+
+            final RowFilter columns = startBlockQualifier
+                .<RowFilter>map(block -> RowFilter.interleave(Arrays.asList(range,
+                    RowFilter.newColumnRangeBuilder(columnFamily)
+                        .startQualifierClosed(block)
+                        .endQualifierClosed(block)
+                        .build())))
+                .orElse(range);
+
+            return ReadRowsRequest.builder().filter(
+                RowFilter.chain(Arrays.asList(columns, RowFilter.onlyLatestCell())));
         }
 
-        private Metric deserialize(final ByteString qualifier, final ByteString value) {
-            final long timestamp = base + deserializeOffset(qualifier);
-            return deserializer.apply(timestamp, value);
+        /**
+         * Decode point cells straight from their encoded values into columnar form, avoiding a
+         * {@link Point} per cell.
+         * <p>
+         * Rows may hold both single samples and compacted blocks, see {@link PointCells}.
+         */
+        private PointArray deserializePoints(final Family family) {
+            final PointCells.Decoder decoder =
+                new PointCells.Decoder(base, start, end, family.size());
+            family.forEachLatestCell(decoder);
+            return decoder.build();
         }
     }
 }
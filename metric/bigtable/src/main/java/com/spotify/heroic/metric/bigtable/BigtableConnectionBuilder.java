@@ -27,6 +27,7 @@ import com.google.cloud.bigtable.config.CredentialOptions;
 import com.google.cloud.bigtable.config.RetryOptions;
 import com.google.cloud.bigtable.grpc.BigtableSession;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.spotify.heroic.metric.bigtable.api.BigtableDataClient;
 import com.spotify.heroic.metric.bigtable.api.BigtableDataClientImpl;
 import com.spotify.heroic.metric.bigtable.api.BigtableMutator;
@@ -38,6 +39,8 @@ import eu.toolchain.async.AsyncFuture;
 import io.grpc.Status;
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class BigtableConnectionBuilder implements Callable<BigtableConnection> {
     private static final String USER_AGENT = "heroic";
@@ -52,15 +55,16 @@ public class BigtableConnectionBuilder implements Callable<BigtableConnection> {
     private final boolean disableBulkMutations;
     private final int flushIntervalSeconds;
     private final Optional<Integer> batchSize;
+    private final int readThreads;
 
     @java.beans.ConstructorProperties({ "project", "instance", "credentials", "async",
                                         "disableBulkMutations", "flushIntervalSeconds",
-                                        "batchSize" })
+                                        "batchSize", "readThreads" })
     public BigtableConnectionBuilder(final String project, final String instance,
                                      final CredentialsBuilder credentials,
                                      final AsyncFramework async, final boolean disableBulkMutations,
                                      final int flushIntervalSeconds,
-                                     final Optional<Integer> batchSize) {
+                                     final Optional<Integer> batchSize, final int readThreads) {
         this.project = project;
         this.instance = instance;
         this.credentials = credentials;
@@ -68,6 +72,7 @@ public class BigtableConnectionBuilder implements Callable<BigtableConnection> {
         this.disableBulkMutations = disableBulkMutations;
         this.flushIntervalSeconds = flushIntervalSeconds;
         this.batchSize = batchSize;
+        this.readThreads = readThreads;
     }
 
     @Override
@@ -103,11 +108,19 @@ public class BigtableConnectionBuilder implements Callable<BigtableConnection> {
         final BigtableMutator mutator =
             new BigtableMutatorImpl(async, session, disableBulkMutations, flushIntervalSeconds);
 
+        /* scans block while waiting for rows, so they get their own bounded pool instead of
+         * holding threads of the shared async executor */
+        final ExecutorService readExecutor = Executors.newFixedThreadPool(readThreads,
+            new ThreadFactoryBuilder()
+                .setNameFormat("heroic-bigtable-read-%d")
+                .setDaemon(true)
+                .build());
+
         final BigtableDataClient client =
-            new BigtableDataClientImpl(async, session, mutator, project, instance);
+            new BigtableDataClientImpl(async, session, mutator, project, instance, readExecutor);
 
         return new GrpcBigtableConnection(async, project, instance, session, mutator, adminClient,
-            client);
+            client, readExecutor);
     }
 
     public String toString() {
@@ -124,14 +137,16 @@ public class BigtableConnectionBuilder implements Callable<BigtableConnection> {
         final BigtableMutator mutator;
         final BigtableTableAdminClient tableAdminClient;
         final BigtableDataClient dataClient;
+        final ExecutorService readExecutor;
 
         @java.beans.ConstructorProperties({ "async", "project", "instance", "session", "mutator",
-                                            "tableAdminClient", "dataClient" })
+                                            "tableAdminClient", "dataClient", "readExecutor" })
         public GrpcBigtableConnection(final AsyncFramework async, final String project,
                                       final String instance, final BigtableSession session,
                                       final BigtableMutator mutator,
                                       final BigtableTableAdminClient tableAdminClient,
-                                      final BigtableDataClient dataClient) {
+                                      final BigtableDataClient dataClient,
+                                      final ExecutorService readExecutor) {
             this.async = async;
             this.project = project;
             this.instance = instance;
@@ -139,6 +154,7 @@ public class BigtableConnectionBuilder implements Callable<BigtableConnection> {
             this.mutator = mutator;
             this.tableAdminClient = tableAdminClient;
             this.dataClient = dataClient;
+            this.readExecutor = readExecutor;
         }
 
         @Override
@@ -154,6 +170,7 @@ public class BigtableConnectionBuilder implements Callable<BigtableConnection> {
         @Override
         public AsyncFuture<Void> close() {
             final AsyncFuture<Void> closeSession = async.call(() -> {
+                readExecutor.shutdownNow();
                 session.close();
                 return null;
             });
@@ -58,6 +58,8 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
     private static final boolean DEFAULT_CONFIGURE = false;
     private static final boolean DEFAULT_DISABLE_BULK_MUTATIONS = false;
     private static final int DEFAULT_FLUSH_INTERVAL_SECONDS = 2;
+    private static final int DEFAULT_READ_THREADS = 64;
+    private static final boolean DEFAULT_COMPACTED_BLOCKS = false;
     private static final boolean DEFAULT_FAKE = false;
 
     private final Optional<String> id;
@@ -70,6 +72,8 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
     private final boolean disableBulkMutations;
     private final int flushIntervalSeconds;
     private final Optional<Integer> batchSize;
+    private final int readThreads;
+    private final boolean compactedBlocks;
     private final boolean fake;
 
     @JsonCreator
@@ -84,6 +88,8 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
         @JsonProperty("disableBulkMutations") Optional<Boolean> disableBulkMutations,
         @JsonProperty("flushIntervalSeconds") Optional<Integer> flushIntervalSeconds,
         @JsonProperty("batchSize") Optional<Integer> batchSize,
+        @JsonProperty("readThreads") Optional<Integer> readThreads,
+        @JsonProperty("compactedBlocks") Optional<Boolean> compactedBlocks,
         @JsonProperty("fake") Optional<Boolean> fake
     ) {
         this.id = id;
@@ -96,6 +102,8 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
         this.disableBulkMutations = disableBulkMutations.orElse(DEFAULT_DISABLE_BULK_MUTATIONS);
         this.flushIntervalSeconds = flushIntervalSeconds.orElse(DEFAULT_FLUSH_INTERVAL_SECONDS);
         this.batchSize = batchSize;
+        this.readThreads = readThreads.orElse(DEFAULT_READ_THREADS);
+        this.compactedBlocks = compactedBlocks.orElse(DEFAULT_COMPACTED_BLOCKS);
         this.fake = fake.orElse(DEFAULT_FAKE);
     }
 
@@ -146,7 +154,7 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
                 public AsyncFuture<BigtableConnection> construct() throws Exception {
                     return async.call(
                         new BigtableConnectionBuilder(project, instance, credentials, async,
-                            disableBulkMutations, flushIntervalSeconds, batchSize));
+                            disableBulkMutations, flushIntervalSeconds, batchSize, readThreads));
                 }
 
                 @Override
@@ -174,6 +182,13 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
                 params.contains(BIGTABLE_CONFIGURE_PARAM) || configure;
         }
 
+        @Provides
+        @BigtableScope
+        @Named("compactedBlocks")
+        public boolean compactedBlocks() {
+            return compactedBlocks;
+        }
+
         @Provides
         @BigtableScope
         public RowKeySerializer rowKeySerializer() {
@@ -213,6 +228,8 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
         private Optional<Boolean> disableBulkMutations = empty();
         private Optional<Integer> flushIntervalSeconds = empty();
         private Optional<Integer> batchSize = empty();
+        private Optional<Integer> readThreads = empty();
+        private Optional<Boolean> compactedBlocks = empty();
         private Optional<Boolean> fake = empty();
 
         public Builder id(String id) {
@@ -260,6 +277,16 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
             return this;
         }
 
+        public Builder readThreads(int readThreads) {
+            this.readThreads = of(readThreads);
+            return this;
+        }
+
+        public Builder compactedBlocks(boolean compactedBlocks) {
+            this.compactedBlocks = of(compactedBlocks);
+            return this;
+        }
+
         public Builder table(final String table) {
             this.table = of(table);
             return this;
@@ -272,7 +299,8 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
 
         public BigtableMetricModule build() {
             return new BigtableMetricModule(id, groups, project, instance, table, credentials,
-                configure, disableBulkMutations, flushIntervalSeconds, batchSize, fake);
+                configure, disableBulkMutations, flushIntervalSeconds, batchSize, readThreads,
+                compactedBlocks, fake);
         }
     }
 }
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.bigtable;
+
+import com.google.bigtable.v2.TimestampRange;
+import com.google.protobuf.ByteString;
+import com.spotify.heroic.metric.PointArray;
+import com.spotify.heroic.metric.PointBlock;
+import com.spotify.heroic.metric.bigtable.api.Family;
+import com.spotify.heroic.metric.bigtable.api.Mutations;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Cell layouts of the points column family.
+ * <p>
+ * Points are written as one cell per sample, with the 4 byte offset of the sample as qualifier.
+ * Compaction packs all samples of an aligned block of {@link #BLOCK_WIDTH} milliseconds into a
+ * single cell holding a {@link PointBlock}, qualified by the offset of the block followed by
+ * {@link #BLOCK_MARKER}. Block qualifiers sort right after the sample at the start of their block,
+ * so both layouts can be read from the same column range.
+ */
+final class PointCells {
+    /* width of a compacted block, 2^24 milliseconds or about 4.7 hours */
+    static final long BLOCK_WIDTH = 0x1_000_000L;
+
+    private static final byte BLOCK_MARKER = 0x00;
+    private static final int BLOCK_QUALIFIER_SIZE = 5;
+
+    private PointCells() {
+    }
+
+    static long blockStart(final long offset) {
+        return offset - offset % BLOCK_WIDTH;
+    }
+
+    static ByteString blockQualifier(final long offset) {
+        return BigtableBackend
+            .serializeOffset(offset)
+            .concat(ByteString.copyFrom(new byte[]{BLOCK_MARKER}));
+    }
+
+    static boolean isBlock(final ByteString qualifier) {
+        return qualifier.size() == BLOCK_QUALIFIER_SIZE;
+    }
+
+    /**
+     * Merge samples with the points of blocks.
+     * <p>
+     * Both must be sorted, and blocks must be given in qualifier order. A sample replaces a block
+     * point with the same timestamp, since it was written after the block was compacted.
+     */
+    static PointArray merge(final PointArray samples, final List<PointArray> blocks) {
+        int size = samples.size();
+
+        for (final PointArray block : blocks) {
+            size += block.size();
+        }
+
+        final PointArray.Builder builder = PointArray.builder(size);
+        int i = 0;
+
+        for (final PointArray block : blocks) {
+            for (int j = 0; j < block.size(); j++) {
+                final long timestamp = block.getTimestamp(j);
+
+                while (i < samples.size() && samples.getTimestamp(i) < timestamp) {
+                    builder.add(samples.getTimestamp(i), samples.getValue(i));
+                    i++;
+                }
+
+                if (i < samples.size() && samples.getTimestamp(i) == timestamp) {
+                    continue;
+                }
+
+                builder.add(timestamp, block.getValue(j));
+            }
+        }
+
+        for (; i < samples.size(); i++) {
+            builder.add(samples.getTimestamp(i), samples.getValue(i));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Decodes the cells of a single row, in either layout, into points within {@code (start,
+     * end]}.
+     */
+    static final class Decoder implements BiConsumer<ByteString, ByteString> {
+        private final long base;
+        private final long start;
+        private final long end;
+        private final PointArray.Builder samples;
+        private List<PointArray> blocks = null;
+
+        Decoder(final long base, final long start, final long end, final int expectedSize) {
+            this.base = base;
+            this.start = start;
+            this.end = end;
+            this.samples = PointArray.builder(expectedSize);
+        }
+
+        @Override
+        public void accept(final ByteString qualifier, final ByteString value) {
+            if (isBlock(qualifier)) {
+                final PointArray points =
+                    PointBlock.fromBytes(value.toByteArray()).decode(start, end);
+
+                if (!points.isEmpty()) {
+                    if (blocks == null) {
+                        blocks = new ArrayList<>();
+                    }
+
+                    blocks.add(points);
+                }
+
+                return;
+            }
+
+            final long timestamp = base + BigtableBackend.deserializeOffset(qualifier);
+
+            if (timestamp > start && timestamp <= end) {
+                samples.add(timestamp, BigtableBackend.deserializeValue(value));
+            }
+        }
+
+        PointArray build() {
+            if (blocks == null) {
+                return samples.build();
+            }
+
+            return merge(samples.build(), blocks);
+        }
+    }
+
+    /**
+     * Collects the cells of a single row, and packs the samples of each block into a block cell.
+     */
+    static final class Compactor implements Family.CellConsumer {
+        private final long base;
+        private final SortedMap<Long, Pending> pending = new TreeMap<>();
+
+        Compactor(final long base) {
+            this.base = base;
+        }
+
+        @Override
+        public void accept(
+            final ByteString qualifier, final long timestampMicros, final ByteString value
+        ) {
+            final long offset = BigtableBackend.deserializeOffset(qualifier);
+            final Pending block = pending.computeIfAbsent(blockStart(offset), o -> new Pending());
+
+            if (isBlock(qualifier)) {
+                block.existing = PointBlock.fromBytes(value.toByteArray()).decode();
+                return;
+            }
+
+            block.samples.add(base + offset, BigtableBackend.deserializeValue(value));
+            block.qualifiers.add(qualifier);
+            block.timestamps.add(timestampMicros);
+        }
+
+        /**
+         * Number of samples that are not yet part of a block.
+         */
+        long samples() {
+            long samples = 0;
+
+            for (final Pending block : pending.values()) {
+                samples += block.qualifiers.size();
+            }
+
+            return samples;
+        }
+
+        /**
+         * Build the mutations that compact the row, one per block with samples to pack.
+         * <p>
+         * Each mutation writes the block and deletes its samples, so that it is applied atomically
+         * and readers never see a sample twice or not at all. Only the versions of a sample up to
+         * the one that was read are deleted, so a sample rewritten since stays in place and keeps
+         * replacing the stale point of the block.
+         */
+        List<Mutations> compact(final String columnFamily) {
+            final List<Mutations> mutations = new ArrayList<>();
+
+            for (final Map.Entry<Long, Pending> e : pending.entrySet()) {
+                final Pending block = e.getValue();
+
+                if (block.qualifiers.isEmpty()) {
+                    continue;
+                }
+
+                final List<PointArray> existing = new ArrayList<>();
+
+                if (block.existing != null) {
+                    existing.add(block.existing);
+                }
+
+                final PointArray points = merge(block.samples.build(), existing);
+
+                final Mutations.Builder builder = Mutations.builder();
+                builder.setCell(columnFamily, blockQualifier(e.getKey()),
+                    ByteString.copyFrom(PointBlock.encode(points).toBytes()));
+
+                for (int i = 0; i < block.qualifiers.size(); i++) {
+                    builder.deleteFromColumn(columnFamily, block.qualifiers.get(i),
+                        readVersions(block.timestamps.get(i)));
+                }
+
+                mutations.add(builder.build());
+            }
+
+            return mutations;
+        }
+
+        /**
+         * All versions up to and including the given one. Cell timestamps have millisecond
+         * granularity, so the exclusive end is the next millisecond.
+         */
+        private static TimestampRange readVersions(final long timestampMicros) {
+            return TimestampRange
+                .newBuilder()
+                .setStartTimestampMicros(0L)
+                .setEndTimestampMicros(timestampMicros + 1000L)
+                .build();
+        }
+
+        private static final class Pending {
+            private final PointArray.Builder samples = PointArray.builder();
+            private final List<ByteString> qualifiers = new ArrayList<>();
+            private final List<Long> timestamps = new ArrayList<>();
+            private PointArray existing = null;
+        }
+    }
+}
@@ -38,33 +38,41 @@ import eu.toolchain.async.AsyncFuture;
 import eu.toolchain.async.ResolvableFuture;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public class BigtableDataClientImpl implements BigtableDataClient {
     private final AsyncFramework async;
     private final com.google.cloud.bigtable.grpc.BigtableSession session;
     private final BigtableMutator mutator;
     private final String clusterUri;
+    /* runs the blocking scans of observed reads */
+    private final Executor readExecutor;
 
     public BigtableDataClientImpl(
         final AsyncFramework async,
         final com.google.cloud.bigtable.grpc.BigtableSession session,
         BigtableMutator mutator,
         final String project,
-        final String cluster
+        final String cluster,
+        final Executor readExecutor
     ) {
         this.async = async;
         this.session = session;
         this.mutator = mutator;
         this.clusterUri = String.format("projects/%s/instances/%s", project, cluster);
+        this.readExecutor = readExecutor;
     }
 
-    @java.beans.ConstructorProperties({ "async", "session", "mutator", "clusterUri" })
+    @java.beans.ConstructorProperties({ "async", "session", "mutator", "clusterUri",
+                                        "readExecutor" })
     public BigtableDataClientImpl(final AsyncFramework async, final BigtableSession session,
-                                  final BigtableMutator mutator, final String clusterUri) {
+                                  final BigtableMutator mutator, final String clusterUri,
+                                  final Executor readExecutor) {
         this.async = async;
         this.session = session;
         this.mutator = mutator;
         this.clusterUri = clusterUri;
+        this.readExecutor = readExecutor;
     }
 
     @Override
@@ -99,7 +107,7 @@ public class BigtableDataClientImpl implements BigtableDataClient {
     public AsyncObservable<Row> readRowsObserved(
         final String tableName, final ReadRowsRequest request
     ) {
-        return observer -> {
+        return observer -> execute(observer, () -> {
             final ResultScanner<com.google.bigtable.v2.Row> s =
                 session.getDataClient().readRows(request.toPb(Table.toURI(clusterUri, tableName)));
 
@@ -128,7 +136,7 @@ public class BigtableDataClientImpl implements BigtableDataClient {
                     final Row[] results = new Row[rows.length];
 
                     for (int i = 0; i < rows.length; i++) {
-                        results[i++] = convertRow(rows[i]);
+                        results[i] = convertRow(rows[i]);
                     }
 
                     return results;
@@ -140,8 +148,34 @@ public class BigtableDataClientImpl implements BigtableDataClient {
                 }
             };
 
-            scanAsync(scanner, observer);
-        };
+            /* reading from the scanner blocks, so the scan runs on the dedicated read executor
+             * instead of the calling thread. The scanner only buffers a bounded number of rows,
+             * and the next row is not read until the previous one has been observed. */
+            scanAsync(scanner, observer.onFinished(() -> {
+                try {
+                    scanner.close();
+                } catch (final IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        });
+    }
+
+    /**
+     * Run the given scan step on the read executor, failing the observer if it could not be run.
+     */
+    private <T> void execute(final AsyncObserver<T> observer, final ScanStep step) {
+        try {
+            readExecutor.execute(() -> {
+                try {
+                    step.run();
+                } catch (final Exception e) {
+                    observer.fail(e);
+                }
+            });
+        } catch (final Exception e) {
+            observer.fail(e);
+        }
     }
 
     Row convertRow(final com.google.bigtable.v2.Row row) {
@@ -188,10 +222,13 @@ public class BigtableDataClientImpl implements BigtableDataClient {
                 continue;
             }
 
+            /* continue on the read executor once the observer is ready for more, instead of
+             * blocking whichever thread resolved the future */
             f
-                .onResolved(ign -> scanAsync(scanner, observer))
+                .onResolved(ign -> execute(observer, () -> scanAsync(scanner, observer)))
                 .onFailed(observer::fail)
                 .onCancelled(observer::cancel);
+            return;
         }
     }
 
@@ -213,6 +250,10 @@ public class BigtableDataClientImpl implements BigtableDataClient {
         return future;
     }
 
+    private interface ScanStep {
+        void run() throws Exception;
+    }
+
     public String toString() {
         return "BigtableDataClientImpl(async=" + this.async + ", session=" + this.session
                + ", mutator="
@@ -23,18 +23,28 @@ package com.spotify.heroic.metric.bigtable.api;
 
 import static com.spotify.heroic.metric.bigtable.api.RowFilter.compareByteStrings;
 
+import com.google.bigtable.v2.Cell;
+import com.google.bigtable.v2.Column;
 import com.google.bigtable.v2.Mutation;
+import com.google.bigtable.v2.TimestampRange;
 import com.google.cloud.bigtable.grpc.scanner.FlatRow;
 import com.google.protobuf.ByteString;
 import com.spotify.heroic.async.AsyncObservable;
+import com.spotify.heroic.async.AsyncObserver;
 import com.spotify.heroic.metric.bigtable.BigtableConnection;
 import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -153,7 +163,65 @@ public class FakeBigtableConnection implements BigtableConnection {
         public AsyncObservable<Row> readRowsObserved(
             final String tableName, final ReadRowsRequest request
         ) {
-            return AsyncObservable.failed(new RuntimeException("not supported"));
+            final TableStorage storage = tables.get(tableName);
+
+            if (storage == null) {
+                return AsyncObservable.failed(
+                    new IllegalStateException("No such table: " + tableName));
+            }
+
+            return observer -> storage
+                .readRows(request)
+                .onResolved(rows -> feed(rows.iterator(), observer))
+                .onFailed(observer::fail)
+                .onCancelled(observer::cancel);
+        }
+
+        private void feed(final Iterator<FlatRow> rows, final AsyncObserver<Row> observer) {
+            while (rows.hasNext()) {
+                final AsyncFuture<Void> f = observer.observe(toRow(rows.next()));
+
+                if (!f.isDone()) {
+                    f
+                        .onResolved(ign -> feed(rows, observer))
+                        .onFailed(observer::fail)
+                        .onCancelled(observer::cancel);
+                    return;
+                }
+
+                if (f.isFailed()) {
+                    observer.fail(f.cause());
+                    return;
+                }
+
+                if (f.isCancelled()) {
+                    observer.cancel();
+                    return;
+                }
+            }
+
+            observer.end();
+        }
+
+        private Row toRow(final FlatRow row) {
+            final Map<String, List<Column>> columns = new HashMap<>();
+
+            for (final FlatRow.Cell cell : row.getCells()) {
+                columns
+                    .computeIfAbsent(cell.getFamily(), family -> new ArrayList<>())
+                    .add(Column
+                        .newBuilder()
+                        .setQualifier(cell.getQualifier())
+                        .addCells(Cell
+                            .newBuilder()
+                            .setTimestampMicros(cell.getTimestamp())
+                            .setValue(cell.getValue()))
+                        .build());
+            }
+
+            final Map<String, Family> families = new HashMap<>();
+            columns.forEach((name, c) -> families.put(name, new Family(name, c)));
+            return new Row(row.getRowKey(), families);
         }
 
         @Override
@@ -208,6 +276,25 @@ public class FakeBigtableConnection implements BigtableConnection {
                             }
 
                             rowStorage.runSetCell(setCell);
+                            break;
+                        case DELETE_FROM_COLUMN:
+                            final Mutation.DeleteFromColumn deleteFromColumn =
+                                mutation.getDeleteFromColumn();
+                            final ColumnFamily deleteFamily = table
+                                .getColumnFamily(deleteFromColumn.getFamilyName())
+                                .orElseThrow(() -> new IllegalArgumentException(
+                                    "no such column family: " + deleteFromColumn.getFamilyName()));
+
+                            final RowStorage deleteRow;
+
+                            synchronized (lock) {
+                                deleteRow = rows.get(Pair.of(rowKey, deleteFamily));
+                            }
+
+                            if (deleteRow != null) {
+                                deleteRow.runDeleteFromColumn(deleteFromColumn);
+                            }
+
                             break;
                         default:
                             throw new IllegalArgumentException(
@@ -228,8 +315,11 @@ public class FakeBigtableConnection implements BigtableConnection {
                 request.getFilter().<Function<ByteString, Boolean>>map(
                     filter -> filter::matchesColumn).orElse(column -> true);
 
+            final List<RowRange> ranges = new ArrayList<>(request.getRanges());
+            request.getRange().ifPresent(ranges::add);
+
             final Function<ByteString, Boolean> matchesRowKey = bytes -> {
-                final boolean rangeMatches = request.getRange().map(range -> {
+                final boolean rangeMatches = ranges.isEmpty() || ranges.stream().anyMatch(range -> {
                     if (range.getStart().isPresent()) {
                         final int n = compareByteStrings(range.getStart().get(), bytes);
 
@@ -247,7 +337,7 @@ public class FakeBigtableConnection implements BigtableConnection {
                     }
 
                     return true;
-                }).orElse(true);
+                });
 
                 final boolean keyMatches = request.getRowKey().map(bytes::equals).orElse(true);
 
@@ -274,7 +364,7 @@ public class FakeBigtableConnection implements BigtableConnection {
 
     class RowStorage {
         private final ColumnFamily columnFamily;
-        private final ConcurrentMap<ByteString, ByteString> storage =
+        private final ConcurrentMap<ByteString, ConcurrentSkipListMap<Long, ByteString>> storage =
             new ConcurrentSkipListMap<>(RowFilter::compareByteStrings);
 
         RowStorage(ColumnFamily columnFamily) {
@@ -282,8 +372,39 @@ public class FakeBigtableConnection implements BigtableConnection {
         }
 
         void runSetCell(final Mutation.SetCell setCell) {
-            // TODO: take timestamp into account
-            storage.put(setCell.getColumnQualifier(), setCell.getValue());
+            /* -1 requests a server-assigned timestamp, at millisecond granularity */
+            final long timestamp = setCell.getTimestampMicros() == -1
+                ? TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis())
+                : setCell.getTimestampMicros();
+
+            storage
+                .computeIfAbsent(setCell.getColumnQualifier(),
+                    qualifier -> new ConcurrentSkipListMap<>())
+                .put(timestamp, setCell.getValue());
+        }
+
+        void runDeleteFromColumn(final Mutation.DeleteFromColumn deleteFromColumn) {
+            final ByteString qualifier = deleteFromColumn.getColumnQualifier();
+
+            if (!deleteFromColumn.hasTimeRange()) {
+                storage.remove(qualifier);
+                return;
+            }
+
+            final TimestampRange range = deleteFromColumn.getTimeRange();
+
+            storage.computeIfPresent(qualifier, (q, cells) -> {
+                /* start is inclusive, end is exclusive and 0 means infinity */
+                final long start = range.getStartTimestampMicros();
+
+                if (range.getEndTimestampMicros() == 0) {
+                    cells.tailMap(start, true).clear();
+                } else {
+                    cells.subMap(start, true, range.getEndTimestampMicros(), false).clear();
+                }
+
+                return cells.isEmpty() ? null : cells;
+            });
         }
 
         FlatRow readRows(
@@ -296,12 +417,22 @@ public class FakeBigtableConnection implements BigtableConnection {
                 .entrySet()
                 .stream()
                 .filter(e -> matchesColumn.apply(e.getKey()))
-                .map(column -> FlatRow.Cell
-                    .newBuilder()
-                    .withFamily(columnFamily.getName())
-                    .withQualifier(column.getKey())
-                    .withValue(column.getValue())
-                    .build())
+                .map(column -> {
+                    final Map.Entry<Long, ByteString> latest = column.getValue().lastEntry();
+
+                    if (latest == null) {
+                        return null;
+                    }
+
+                    return FlatRow.Cell
+                        .newBuilder()
+                        .withFamily(columnFamily.getName())
+                        .withQualifier(column.getKey())
+                        .withTimestamp(latest.getKey())
+                        .withValue(latest.getValue())
+                        .build();
+                })
+                .filter(Objects::nonNull)
                 .forEach(builder::addCell);
 
             return builder.build();
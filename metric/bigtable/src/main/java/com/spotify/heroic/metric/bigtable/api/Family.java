@@ -24,12 +24,14 @@ package com.spotify.heroic.metric.bigtable.api;
 import com.google.bigtable.v2.Column;
 import com.google.protobuf.ByteString;
 import java.util.Iterator;
+import java.util.List;
+import java.util.function.BiConsumer;
 
 public class Family {
     private final String name;
-    private final Iterable<com.google.bigtable.v2.Column> columns;
+    private final List<com.google.bigtable.v2.Column> columns;
 
-    Family(String name, Iterable<Column> columns) {
+    Family(String name, List<Column> columns) {
         this.name = name;
         this.columns = columns;
     }
@@ -38,6 +40,45 @@ public class Family {
         return name;
     }
 
+    /**
+     * @return The number of columns in this family.
+     */
+    public int size() {
+        return columns.size();
+    }
+
+    /**
+     * Visit the qualifier and value of the latest cell in every column, without allocating an
+     * intermediate {@link LatestCellValueColumn} for each of them.
+     *
+     * @param consumer Consumer receiving the qualifier and the value of each column.
+     */
+    public void forEachLatestCell(final BiConsumer<ByteString, ByteString> consumer) {
+        for (final com.google.bigtable.v2.Column column : columns) {
+            if (column.getCellsCount() < 1) {
+                throw new IllegalStateException("empty cell");
+            }
+
+            consumer.accept(column.getQualifier(), column.getCells(0).getValue());
+        }
+    }
+
+    /**
+     * Visit the qualifier, timestamp and value of the latest cell in every column.
+     *
+     * @param consumer Consumer receiving the qualifier, the timestamp and the value of each column.
+     */
+    public void forEachLatestCell(final CellConsumer consumer) {
+        for (final com.google.bigtable.v2.Column column : columns) {
+            if (column.getCellsCount() < 1) {
+                throw new IllegalStateException("empty cell");
+            }
+
+            final com.google.bigtable.v2.Cell cell = column.getCells(0);
+            consumer.accept(column.getQualifier(), cell.getTimestampMicros(), cell.getValue());
+        }
+    }
+
     /**
      * Get an iterable of the latest cells in a given column.
      *
@@ -77,4 +118,9 @@ public class Family {
         };
     }
 
+
+    @FunctionalInterface
+    public interface CellConsumer {
+        void accept(ByteString qualifier, long timestampMicros, ByteString value);
+    }
 }
@@ -22,6 +22,7 @@
 package com.spotify.heroic.metric.bigtable.api;
 
 import com.google.bigtable.v2.Mutation;
+import com.google.bigtable.v2.TimestampRange;
 import com.google.common.collect.ImmutableList;
 import com.google.protobuf.ByteString;
 import java.util.ArrayList;
@@ -76,6 +77,39 @@ public class Mutations {
             return this;
         }
 
+        public Builder deleteFromColumn(String family, ByteString columnQualifier) {
+            return deleteFromColumn(com.google.bigtable.v2.Mutation.DeleteFromColumn
+                .newBuilder()
+                .setFamilyName(family)
+                .setColumnQualifier(columnQualifier));
+        }
+
+        /**
+         * Delete the versions of a column within the given range of timestamps, leaving versions
+         * outside of it in place.
+         */
+        public Builder deleteFromColumn(
+            String family, ByteString columnQualifier, TimestampRange timeRange
+        ) {
+            return deleteFromColumn(com.google.bigtable.v2.Mutation.DeleteFromColumn
+                .newBuilder()
+                .setFamilyName(family)
+                .setColumnQualifier(columnQualifier)
+                .setTimeRange(timeRange));
+        }
+
+        private Builder deleteFromColumn(
+            final com.google.bigtable.v2.Mutation.DeleteFromColumn.Builder deleteFromColumn
+        ) {
+            mutations.add(
+                com.google.bigtable.v2.Mutation
+                .newBuilder()
+                .setDeleteFromColumn(deleteFromColumn)
+                    .build()
+            );
+            return this;
+        }
+
         public Mutations build() {
             return new Mutations(ImmutableList.copyOf(mutations));
         }
@@ -27,11 +27,13 @@ import java.util.*
 data class ReadRowsRequest(
     val range: Optional<RowRange>,
     val filter: Optional<RowFilter>,
-    val rowKey: Optional<ByteString>
+    val rowKey: Optional<ByteString>,
+    val ranges: List<RowRange> = listOf()
 ) {
     fun toPb(tableUri: String): com.google.bigtable.v2.ReadRowsRequest {
         val rowSetBuilder = com.google.bigtable.v2.RowSet.newBuilder()
         range.map(RowRange::toPb).ifPresent { rowSetBuilder.addRowRanges(it) }
+        ranges.forEach { rowSetBuilder.addRowRanges(it.toPb()) }
         rowKey.ifPresent { rowSetBuilder.addRowKeys(it) }
 
         val requestBuilder = com.google.bigtable.v2.ReadRowsRequest.newBuilder()
@@ -45,13 +47,23 @@ data class ReadRowsRequest(
         class Builder(
             var range: RowRange? = null,
             var filter: RowFilter? = null,
-            var rowKey: ByteString? = null
+            var rowKey: ByteString? = null,
+            val ranges: MutableList<RowRange> = mutableListOf()
         ) {
             fun range(range: RowRange): Builder {
                 this.range = range
                 return this
             }
 
+            /**
+             * Add another row range to read, allowing several rows to be fetched with a single
+             * request.
+             */
+            fun addRange(range: RowRange): Builder {
+                this.ranges.add(range)
+                return this
+            }
+
             fun filter(filter: RowFilter): Builder {
                 this.filter = filter
                 return this
@@ -65,7 +77,8 @@ data class ReadRowsRequest(
             fun build(): ReadRowsRequest = ReadRowsRequest(
                 Optional.ofNullable(range),
                 Optional.ofNullable(filter),
-                Optional.ofNullable(rowKey))
+                Optional.ofNullable(rowKey),
+                ranges.toList())
         }
 
         @JvmStatic fun builder(): Builder = Builder()
@@ -78,6 +78,16 @@ public interface RowFilter {
         return new Chain(chain);
     }
 
+    /**
+     * Match cells matched by any of the given row filters.
+     *
+     * @param interleave Filters to apply.
+     * @return A filter that is the union of all given row filters.
+     */
+    static RowFilter interleave(final List<? extends RowFilter> interleave) {
+        return new Interleave(interleave);
+    }
+
     com.google.bigtable.v2.RowFilter toPb();
 
     class Chain implements RowFilter {
@@ -109,6 +119,35 @@ public interface RowFilter {
         }
     }
 
+    class Interleave implements RowFilter {
+        private final List<? extends RowFilter> interleave;
+
+        Interleave(List<? extends RowFilter> interleave) {
+            this.interleave = interleave;
+        }
+
+        @Override
+        public boolean matchesColumn(final ByteString columnQualifier) {
+            return interleave.stream().anyMatch(entry -> entry.matchesColumn(columnQualifier));
+        }
+
+        @Override
+        public boolean matchesColumnFamily(final String familyName) {
+            return interleave.stream().anyMatch(entry -> entry.matchesColumnFamily(familyName));
+        }
+
+        @Override
+        public com.google.bigtable.v2.RowFilter toPb() {
+            final com.google.bigtable.v2.RowFilter.Interleave.Builder interleave =
+                com.google.bigtable.v2.RowFilter.Interleave.newBuilder();
+            this.interleave.forEach(f -> interleave.addFilters(f.toPb()));
+            return com.google.bigtable.v2.RowFilter
+                .newBuilder()
+                .setInterleave(interleave.build())
+                .build();
+        }
+    }
+
     class ColumnRange implements RowFilter {
         private final String family;
         private final Optional<ByteString> startQualifierClosed;
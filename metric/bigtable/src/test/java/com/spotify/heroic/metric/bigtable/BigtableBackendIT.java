@@ -26,6 +26,7 @@ public class BigtableBackendIT extends AbstractMetricBackendIT {
         this.eventSupport = true;
         this.maxBatchSize = Optional.of(BigtableBackend.MAX_BATCH_SIZE);
         this.brokenSegmentsPr208 = true;
+        this.compactSupport = true;
     }
 
     @Override
@@ -52,6 +53,7 @@ public class BigtableBackendIT extends AbstractMetricBackendIT {
                 .instance(instance)
                 .table(table)
                 .credentials(credentials)
+                .compactedBlocks(true)
                 .build();
         });
 
@@ -65,6 +67,7 @@ public class BigtableBackendIT extends AbstractMetricBackendIT {
             .project("fake")
             .table(table)
             .fake(true)
+            .compactedBlocks(true)
             .build();
 
         return Optional.of(module);
@@ -0,0 +1,126 @@
+package com.spotify.heroic.metric.bigtable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.cloud.bigtable.grpc.scanner.FlatRow;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.ByteString;
+import com.spotify.heroic.metric.PointArray;
+import com.spotify.heroic.metric.PointBlock;
+import com.spotify.heroic.metric.bigtable.api.BigtableDataClient;
+import com.spotify.heroic.metric.bigtable.api.FakeBigtableConnection;
+import com.spotify.heroic.metric.bigtable.api.Mutations;
+import com.spotify.heroic.metric.bigtable.api.ReadRowsRequest;
+import com.spotify.heroic.metric.bigtable.api.Table;
+import eu.toolchain.async.TinyAsync;
+import java.nio.ByteBuffer;
+import java.util.List;
+import org.junit.Test;
+
+public class PointCellsTest {
+    private static final long BASE = BigtableBackend.PERIOD;
+
+    @Test
+    public void testBlockQualifierOrder() {
+        final long block = PointCells.BLOCK_WIDTH;
+
+        final ByteString sample = BigtableBackend.serializeOffset(block);
+        final ByteString qualifier = PointCells.blockQualifier(block);
+        final ByteString next = BigtableBackend.serializeOffset(block + 1);
+
+        assertTrue(BigtableBackend.compareRowKeys(sample, qualifier) < 0);
+        assertTrue(BigtableBackend.compareRowKeys(qualifier, next) < 0);
+        assertTrue(PointCells.isBlock(qualifier));
+        assertEquals(block, BigtableBackend.deserializeOffset(qualifier));
+        assertEquals(block, PointCells.blockStart(block + PointCells.BLOCK_WIDTH - 1));
+    }
+
+    @Test
+    public void testDecodeMixed() {
+        final PointCells.Decoder decoder = new PointCells.Decoder(BASE, BASE + 1, BASE + 40, 4);
+
+        decoder.accept(PointCells.blockQualifier(0),
+            block(PointArray.of(new long[]{BASE + 1, BASE + 10, BASE + 20},
+                new double[]{1D, 2D, 3D})));
+        decoder.accept(BigtableBackend.serializeOffset(10), value(4D));
+        decoder.accept(BigtableBackend.serializeOffset(15), value(5D));
+        decoder.accept(BigtableBackend.serializeOffset(50), value(6D));
+
+        assertEquals(
+            PointArray.of(new long[]{BASE + 10, BASE + 15, BASE + 20}, new double[]{4D, 5D, 3D}),
+            decoder.build());
+    }
+
+    @Test
+    public void testMerge() {
+        final PointArray samples = PointArray.of(new long[]{1, 5, 30}, new double[]{1D, 5D, 30D});
+        final PointArray first = PointArray.of(new long[]{2, 5}, new double[]{2D, 0D});
+        final PointArray second = PointArray.of(new long[]{20}, new double[]{20D});
+
+        assertEquals(PointArray.of(new long[]{1, 2, 5, 20, 30},
+            new double[]{1D, 2D, 5D, 20D, 30D}),
+            PointCells.merge(samples, ImmutableList.of(first, second)));
+    }
+
+    @Test
+    public void testCompactKeepsConcurrentOverwrite() throws Exception {
+        final FakeBigtableConnection connection =
+            new FakeBigtableConnection(TinyAsync.builder().build());
+        final Table table = connection.tableAdminClient().createTable("table");
+        connection.tableAdminClient().createColumnFamily(table, "points");
+        final BigtableDataClient client = connection.dataClient();
+
+        final ByteString rowKey = ByteString.copyFromUtf8("row");
+        final ByteString first = BigtableBackend.serializeOffset(10);
+        final ByteString second = BigtableBackend.serializeOffset(20);
+
+        client.mutateRow("table", rowKey, Mutations
+            .builder()
+            .setCell("points", first, value(1D))
+            .setCell("points", second, value(2D))
+            .build()).get();
+
+        final PointCells.Compactor compactor = new PointCells.Compactor(BASE);
+        final List<FlatRow.Cell> cells = readCells(client);
+
+        for (final FlatRow.Cell cell : cells) {
+            compactor.accept(cell.getQualifier(), cell.getTimestamp(), cell.getValue());
+        }
+
+        /* the overwrite needs a newer timestamp than the version that was read */
+        final long read = cells.get(0).getTimestamp() / 1000L;
+
+        while (System.currentTimeMillis() <= read) {
+            Thread.sleep(1L);
+        }
+
+        client.mutateRow("table", rowKey,
+            Mutations.builder().setCell("points", first, value(3D)).build()).get();
+
+        for (final Mutations mutations : compactor.compact("points")) {
+            client.mutateRow("table", rowKey, mutations).get();
+        }
+
+        final PointCells.Decoder decoder = new PointCells.Decoder(BASE, BASE, BASE + 40, 2);
+
+        for (final FlatRow.Cell cell : readCells(client)) {
+            decoder.accept(cell.getQualifier(), cell.getValue());
+        }
+
+        assertEquals(PointArray.of(new long[]{BASE + 10, BASE + 20}, new double[]{3D, 2D}),
+            decoder.build());
+    }
+
+    private List<FlatRow.Cell> readCells(final BigtableDataClient client) throws Exception {
+        return client.readRows("table", ReadRowsRequest.builder().build()).get().get(0).getCells();
+    }
+
+    private ByteString block(final PointArray points) {
+        return ByteString.copyFrom(PointBlock.encode(points).toBytes());
+    }
+
+    private ByteString value(final double value) {
+        return ByteString.copyFrom(ByteBuffer.allocate(Double.BYTES).putDouble(value).array());
+    }
+}
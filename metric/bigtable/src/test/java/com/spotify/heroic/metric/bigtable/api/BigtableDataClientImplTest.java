@@ -0,0 +1,104 @@
+package com.spotify.heroic.metric.bigtable.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.cloud.bigtable.grpc.scanner.ResultScanner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.spotify.heroic.async.AsyncObserver;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.async.TinyAsync;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.Test;
+
+public class BigtableDataClientImplTest {
+    private final AsyncFramework async = TinyAsync.builder().build();
+
+    private final BigtableDataClientImpl client =
+        new BigtableDataClientImpl(async, null, null, "cluster", MoreExecutors.directExecutor());
+
+    @Test
+    public void testScanWaitsForUnresolvedObserve() {
+        final ResolvableFuture<Void> pending = async.future();
+        final Scanner scanner = new Scanner(ImmutableList.of("a", "b"));
+        final Observer observer = new Observer(pending);
+
+        client.scanAsync(scanner, observer);
+
+        /* the second row must not be read before the first one has been observed */
+        assertEquals(ImmutableList.of("a"), observer.observed);
+        assertEquals(1, scanner.reads);
+        assertFalse(observer.ended);
+
+        pending.resolve(null);
+
+        assertEquals(ImmutableList.of("a", "b"), observer.observed);
+        assertEquals(3, scanner.reads);
+        assertTrue(observer.ended);
+    }
+
+    private class Observer implements AsyncObserver<String> {
+        private final List<String> observed = new ArrayList<>();
+        private final AsyncFuture<Void> first;
+        private boolean ended = false;
+
+        private Observer(final AsyncFuture<Void> first) {
+            this.first = first;
+        }
+
+        @Override
+        public AsyncFuture<Void> observe(final String value) {
+            observed.add(value);
+            return observed.size() == 1 ? first : async.resolved();
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+        @Override
+        public void fail(final Throwable cause) {
+            throw new AssertionError(cause);
+        }
+
+        @Override
+        public void end() {
+            ended = true;
+        }
+    }
+
+    private static class Scanner implements ResultScanner<String> {
+        private final Iterator<String> values;
+        private int reads = 0;
+
+        private Scanner(final List<String> values) {
+            this.values = values.iterator();
+        }
+
+        @Override
+        public String next() {
+            reads++;
+            return values.hasNext() ? values.next() : null;
+        }
+
+        @Override
+        public String[] next(final int count) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int available() {
+            return 0;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.spotify.heroic.metric.bigtable.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import com.google.bigtable.v2.Mutation;
+import com.google.bigtable.v2.TimestampRange;
+import com.google.cloud.bigtable.grpc.scanner.FlatRow;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.ByteString;
+import eu.toolchain.async.AsyncFramework;
+import java.util.Optional;
+import org.junit.Test;
+
+public class FakeBigtableConnectionTest {
+    private final ColumnFamily columnFamily = new ColumnFamily("fake", "table", "family");
+    private final ByteString rowKey = ByteString.copyFromUtf8("row");
+    private final ByteString qualifier = ByteString.copyFromUtf8("column");
+
+    private final ReadRowsRequest request =
+        new ReadRowsRequest(Optional.empty(), Optional.empty(), Optional.empty(),
+            ImmutableList.of());
+
+    private final FakeBigtableConnection.RowStorage storage =
+        new FakeBigtableConnection(mock(AsyncFramework.class)).new RowStorage(columnFamily);
+
+    @Test
+    public void testReadLatestCell() {
+        storage.runSetCell(setCell(10L, "a"));
+        storage.runSetCell(setCell(20L, "b"));
+
+        final FlatRow.Cell cell = read().getCells().get(0);
+        assertEquals(20L, cell.getTimestamp());
+        assertEquals(ByteString.copyFromUtf8("b"), cell.getValue());
+    }
+
+    @Test
+    public void testDeleteFromColumnTimeRange() {
+        storage.runSetCell(setCell(10L, "a"));
+        storage.runSetCell(setCell(20L, "b"));
+
+        /* end is exclusive, so the cell written at 20 survives */
+        storage.runDeleteFromColumn(deleteFromColumn(Optional.of(range(0L, 20L))));
+        assertEquals(ByteString.copyFromUtf8("b"), read().getCells().get(0).getValue());
+
+        /* an end of 0 means infinity */
+        storage.runSetCell(setCell(10L, "a"));
+        storage.runDeleteFromColumn(deleteFromColumn(Optional.of(range(20L, 0L))));
+        assertEquals(ByteString.copyFromUtf8("a"), read().getCells().get(0).getValue());
+
+        storage.runDeleteFromColumn(deleteFromColumn(Optional.empty()));
+        assertTrue(read().getCells().isEmpty());
+    }
+
+    private FlatRow read() {
+        return storage.readRows(rowKey, columnFamily, request, q -> true);
+    }
+
+    private Mutation.SetCell setCell(final long timestamp, final String value) {
+        return Mutation.SetCell
+            .newBuilder()
+            .setFamilyName(columnFamily.getName())
+            .setColumnQualifier(qualifier)
+            .setTimestampMicros(timestamp)
+            .setValue(ByteString.copyFromUtf8(value))
+            .build();
+    }
+
+    private Mutation.DeleteFromColumn deleteFromColumn(final Optional<TimestampRange> range) {
+        final Mutation.DeleteFromColumn.Builder builder = Mutation.DeleteFromColumn
+            .newBuilder()
+            .setFamilyName(columnFamily.getName())
+            .setColumnQualifier(qualifier);
+
+        range.ifPresent(builder::setTimeRange);
+        return builder.build();
+    }
+
+    private TimestampRange range(final long start, final long end) {
+        return TimestampRange
+            .newBuilder()
+            .setStartTimestampMicros(start)
+            .setEndTimestampMicros(end)
+            .build();
+    }
+}
@@ -0,0 +1,73 @@
+package com.spotify.heroic.metric.bigtable.api;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.bigtable.v2.Cell;
+import com.google.bigtable.v2.Column;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class FamilyTest {
+    final ByteString q1 = ByteString.copyFromUtf8("q1");
+    final ByteString q2 = ByteString.copyFromUtf8("q2");
+    final ByteString v1 = ByteString.copyFromUtf8("v1");
+    final ByteString v2 = ByteString.copyFromUtf8("v2");
+
+    @Test
+    public void testForEachLatestCell() {
+        final Family family = new Family("points", ImmutableList.of(column(q1, v1, v2),
+            column(q2, v2)));
+
+        final List<ByteString> visited = new ArrayList<>();
+
+        family.forEachLatestCell((qualifier, value) -> {
+            visited.add(qualifier);
+            visited.add(value);
+        });
+
+        assertEquals(2, family.size());
+        assertEquals(ImmutableList.of(q1, v1, q2, v2), visited);
+    }
+
+    @Test
+    public void testForEachLatestCellWithTimestamp() {
+        final Family family = new Family("points", ImmutableList.of(Column
+            .newBuilder()
+            .setQualifier(q1)
+            .addCells(Cell.newBuilder().setTimestampMicros(2000L).setValue(v2))
+            .addCells(Cell.newBuilder().setTimestampMicros(1000L).setValue(v1))
+            .build()));
+
+        final List<Object> visited = new ArrayList<>();
+
+        family.forEachLatestCell((qualifier, timestamp, value) -> {
+            visited.add(qualifier);
+            visited.add(timestamp);
+            visited.add(value);
+        });
+
+        assertEquals(ImmutableList.of(q1, 2000L, v2), visited);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testEmptyColumn() {
+        final Family family =
+            new Family("points", ImmutableList.of(Column.newBuilder().setQualifier(q1).build()));
+
+        family.forEachLatestCell((qualifier, value) -> {
+        });
+    }
+
+    private Column column(final ByteString qualifier, final ByteString... values) {
+        final Column.Builder builder = Column.newBuilder().setQualifier(qualifier);
+
+        for (final ByteString value : values) {
+            builder.addCells(Cell.newBuilder().setValue(value));
+        }
+
+        return builder.build();
+    }
+}
@@ -5,6 +5,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import com.google.common.collect.ImmutableList;
 import com.google.protobuf.ByteString;
 import org.junit.Test;
 
@@ -42,6 +43,23 @@ public class RowFilterTest {
         assertTrue(eqc.matchesColumn(b));
     }
 
+    @Test
+    public void testInterleave() {
+        final RowFilter interleave = RowFilter.interleave(ImmutableList.of(
+            RowFilter.newColumnRangeBuilder("family").startQualifierOpen(b).build(),
+            RowFilter
+                .newColumnRangeBuilder("family")
+                .startQualifierClosed(a)
+                .endQualifierClosed(a)
+                .build()));
+
+        assertTrue(interleave.matchesColumn(a));
+        assertFalse(interleave.matchesColumn(b));
+        assertTrue(interleave.matchesColumn(c));
+        assertTrue(interleave.matchesColumnFamily("family"));
+        assertFalse(interleave.matchesColumnFamily("other"));
+    }
+
     @Test
     public void testCompareByteStrings() {
         assertEquals(-1, compareByteStrings(s, a));
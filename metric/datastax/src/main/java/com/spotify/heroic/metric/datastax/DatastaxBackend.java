@@ -21,6 +21,7 @@
 
 package com.spotify.heroic.metric.datastax;
 
+import com.datastax.driver.core.BatchStatement;
 import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.ExecutionInfo;
 import com.datastax.driver.core.PreparedStatement;
@@ -34,6 +35,7 @@ import com.spotify.heroic.QueryOptions;
 import com.spotify.heroic.async.AsyncObservable;
 import com.spotify.heroic.async.AsyncObserver;
 import com.spotify.heroic.common.Groups;
+import com.spotify.heroic.common.Series;
 import com.spotify.heroic.common.Throwing;
 import com.spotify.heroic.lifecycle.LifeCycleRegistry;
 import com.spotify.heroic.lifecycle.LifeCycles;
@@ -48,6 +50,7 @@ import com.spotify.heroic.metric.MetricCollection;
 import com.spotify.heroic.metric.MetricReadResult;
 import com.spotify.heroic.metric.MetricType;
 import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointArray;
 import com.spotify.heroic.metric.QueryError;
 import com.spotify.heroic.metric.QueryTrace;
 import com.spotify.heroic.metric.Tracing;
@@ -56,6 +59,7 @@ import com.spotify.heroic.metric.datastax.schema.Schema;
 import com.spotify.heroic.metric.datastax.schema.Schema.PreparedFetch;
 import com.spotify.heroic.metric.datastax.schema.SchemaBoundStatement;
 import com.spotify.heroic.metric.datastax.schema.SchemaInstance;
+import com.spotify.heroic.statistics.MetricBackendReporter;
 import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
 import eu.toolchain.async.Borrowed;
@@ -68,18 +72,21 @@ import io.opencensus.trace.Span;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import javax.inject.Inject;
+import javax.inject.Named;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
@@ -100,15 +107,23 @@ public class DatastaxBackend extends AbstractMetricBackend implements LifeCycles
     private final AsyncFramework async;
     private final Managed<Connection> connection;
     private final Groups groups;
+    private final MetricBackendReporter reporter;
+    private final WriteLimiter writeLimiter;
+    private final int writeBatchSize;
 
     @Inject
     public DatastaxBackend(
-        final AsyncFramework async, final Managed<Connection> connection, final Groups groups
+        final AsyncFramework async, final Managed<Connection> connection, final Groups groups,
+        final MetricBackendReporter reporter, final WriteLimiter writeLimiter,
+        @Named("writeBatchSize") final int writeBatchSize
     ) {
         super(async);
         this.async = async;
         this.connection = connection;
         this.groups = groups;
+        this.reporter = reporter;
+        this.writeLimiter = writeLimiter;
+        this.writeBatchSize = writeBatchSize;
     }
 
     @Override
@@ -152,16 +167,49 @@ public class DatastaxBackend extends AbstractMetricBackend implements LifeCycles
                 c.schema.ranges(request.getSeries(), request.getRange());
 
             if (request.getType() == MetricType.POINT) {
-                final List<AsyncFuture<FetchData>> fetches =
-                    fetchDataPoints(w, limit, request.getOptions(), prepared, c);
-
                 final List<AsyncFuture<FetchData.Result>> results =
-                    Lists.transform(fetches, fetch -> fetch.directTransform(fetchData -> {
-                        fetchData
-                            .getGroups()
-                            .forEach(mc -> metricsConsumer.accept(new MetricReadResult(mc)));
-                        return fetchData.getResult();
-                    }));
+                    fetchDataPoints(w, limit, request.getOptions(), prepared, c,
+                        mc -> metricsConsumer.accept(new MetricReadResult(mc)));
+                return async.collect(results, FetchData.collectResult(FETCH));
+            }
+
+            return async.resolved(new FetchData.Result(w.end(FETCH),
+                new QueryError("unsupported source: " + request.getType())));
+        });
+    }
+
+    /**
+     * Fetch all partitions of a batch through a single connection borrow. Every partition is
+     * still its own bound statement, which allows the token aware load balancing policy to route
+     * it directly to a replica, while all of them are in flight at the same time.
+     */
+    @Override
+    public AsyncFuture<FetchData.Result> fetchBatch(
+        final FetchData.BatchRequest request,
+        final FetchQuotaWatcher watcher,
+        final BiConsumer<Series, MetricReadResult> metricsConsumer,
+        final Span parentSpan
+    ) {
+        if (!watcher.mayReadData()) {
+            throw new IllegalArgumentException("query violated data limit");
+        }
+
+        final int limit = watcher.getReadDataQuota();
+
+        return connection.doto(c -> {
+            final QueryTrace.Watch w = QueryTrace.watch();
+
+            if (request.getType() == MetricType.POINT) {
+                final List<AsyncFuture<FetchData.Result>> results = new ArrayList<>();
+
+                for (final Series series : request.getSeries()) {
+                    final List<PreparedFetch> prepared =
+                        c.schema.ranges(series, request.getRange());
+
+                    results.addAll(fetchDataPoints(w, limit, request.getOptions(), prepared, c,
+                        mc -> metricsConsumer.accept(series, new MetricReadResult(mc))));
+                }
+
                 return async.collect(results, FetchData.collectResult(FETCH));
             }
 
@@ -411,39 +459,35 @@ public class DatastaxBackend extends AbstractMetricBackend implements LifeCycles
         }
     }
 
+    /**
+     * Write the points of a request grouped by the partition they belong to. Every group is
+     * split into unlogged batches of at most writeBatchSize points, each of which is handled by a
+     * single replica since all statements share the routing key of the partition.
+     */
     private AsyncFuture<WriteMetric> doWrite(
         final Connection c, final SchemaInstance.WriteSession session,
         final WriteMetric.Request request
     ) throws IOException {
-        final List<Callable<AsyncFuture<Long>>> callables = new ArrayList<>();
+        final List<AsyncFuture<Long>> writes = new ArrayList<>();
 
         final MetricCollection g = request.getData();
 
         if (g.getType() == MetricType.POINT) {
+            final Map<Object, List<Point>> partitions = new LinkedHashMap<>();
+
             for (final Point d : g.getDataAs(Point.class)) {
-                final BoundStatement stmt = session.writePoint(request.getSeries(), d);
-
-                callables.add(() -> {
-                    final long start = System.nanoTime();
-                    return Async
-                        .bind(async, c.session.executeAsync(stmt))
-                        .onFailed(e -> {
-                            // log series using a marker so they can be collected on their own file
-                            log.info(
-                                FAILED_METRICS,
-                                "{\"series\": \"{}\", \"timestamp\": {}}",
-                                request.getSeries().toString(),
-                                d.toString()
-                            );
-                            // log exceptions without a marker for
-                            log.debug("Failed to write metric", e);
-                        })
-                        .directTransform((r) -> System.nanoTime() - start);
-                });
+                partitions.computeIfAbsent(session.partition(d), p -> new ArrayList<>()).add(d);
+            }
+
+            for (final List<Point> partition : partitions.values()) {
+                for (final List<Point> points : Lists.partition(partition, writeBatchSize)) {
+                    final Statement stmt = writeStatement(session, request.getSeries(), points);
+                    writes.add(writeLimiter.submit(() -> writeBatch(c, stmt, request, points)));
+                }
             }
         }
 
-        return async.eventuallyCollect(callables, new StreamCollector<Long, WriteMetric>() {
+        return async.collect(writes, new StreamCollector<Long, WriteMetric>() {
             final ConcurrentLinkedQueue<Long> q = new ConcurrentLinkedQueue<>();
 
             @Override
@@ -463,7 +507,44 @@ public class DatastaxBackend extends AbstractMetricBackend implements LifeCycles
             public WriteMetric end(int resolved, int failed, int cancelled) {
                 return new WriteMetric(ImmutableList.of(), ImmutableList.copyOf(q));
             }
-        }, 500);
+        });
+    }
+
+    private Statement writeStatement(
+        final SchemaInstance.WriteSession session, final Series series, final List<Point> points
+    ) throws IOException {
+        if (points.size() == 1) {
+            return session.writePoint(series, points.get(0));
+        }
+
+        final BatchStatement batch = new BatchStatement(BatchStatement.Type.UNLOGGED);
+
+        for (final Point d : points) {
+            batch.add(session.writePoint(series, d));
+        }
+
+        return batch;
+    }
+
+    private AsyncFuture<Long> writeBatch(
+        final Connection c, final Statement stmt, final WriteMetric.Request request,
+        final List<Point> points
+    ) {
+        final long start = System.nanoTime();
+
+        return Async.bind(async, c.session.executeAsync(stmt)).onFailed(e -> {
+            for (final Point d : points) {
+                // log series using a marker so they can be collected on their own file
+                log.info(FAILED_METRICS, "{\"series\": \"{}\", \"timestamp\": {}}",
+                    request.getSeries().toString(), d.toString());
+            }
+            // log exceptions without a marker for
+            log.debug("Failed to write metric", e);
+        }).directTransform(r -> {
+            final long elapsed = System.nanoTime() - start;
+            reporter.reportWriteBatch(points.size(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+            return elapsed;
+        });
     }
 
     private AsyncFuture<QueryTrace> buildTrace(
@@ -504,40 +585,39 @@ public class DatastaxBackend extends AbstractMetricBackend implements LifeCycles
             .directTransform(t -> QueryTrace.of(what, elapsed, ImmutableList.copyOf(t)));
     }
 
-    private List<AsyncFuture<FetchData>> fetchDataPoints(
+    /**
+     * Fetch the points of every prepared range, handing them to the consumer one page at a time.
+     */
+    private List<AsyncFuture<FetchData.Result>> fetchDataPoints(
         final QueryTrace.Watch w, final int limit, final QueryOptions options,
-        final List<PreparedFetch> prepared, final Connection c
+        final List<PreparedFetch> prepared, final Connection c,
+        final Consumer<MetricCollection> consumer
     ) {
-        final List<AsyncFuture<FetchData>> fetches = new ArrayList<>(prepared.size());
+        final List<AsyncFuture<FetchData.Result>> fetches = new ArrayList<>(prepared.size());
 
         for (final Schema.PreparedFetch p : prepared) {
-            final Function<RowFetchResult<Point>, AsyncFuture<QueryTrace>> traceBuilder;
+            final Function<List<ExecutionInfo>, AsyncFuture<QueryTrace>> traceBuilder;
 
             final Statement stmt;
 
             if (options.tracing().isEnabled(Tracing.DETAILED)) {
                 stmt = p.fetch(limit).enableTracing();
                 traceBuilder =
-                    result -> buildTrace(c, FETCH_SEGMENT.extend(p.toString()), w.elapsed(),
-                        result.getInfo());
+                    info -> buildTrace(c, FETCH_SEGMENT.extend(p.toString()), w.elapsed(), info);
             } else {
                 stmt = p.fetch(limit);
-                traceBuilder = result -> async.resolved(w.end(FETCH_SEGMENT));
+                traceBuilder = info -> async.resolved(w.end(FETCH_SEGMENT));
             }
 
-            final ResolvableFuture<FetchData> future = async.future();
+            final ResolvableFuture<List<ExecutionInfo>> future = async.future();
 
             Async
                 .bind(async, c.session.executeAsync(stmt))
-                .onDone(new RowFetchHelper<>(future, p.converter(),
-                    result -> traceBuilder.apply(result).directTransform(trace -> {
-                        final ImmutableList<Long> times = ImmutableList.of(trace.elapsed());
-                        final List<MetricCollection> groups =
-                            ImmutableList.of(MetricCollection.points(result.getData()));
-                        return new FetchData(new FetchData.Result(trace), times, groups);
-                    })));
-
-            fetches.add(future);
+                .onDone(new PointPageHelper(future, p, consumer));
+
+            fetches.add(future.lazyTransform(info -> traceBuilder
+                .apply(info)
+                .directTransform(trace -> new FetchData.Result(trace))));
         }
 
         return fetches;
@@ -650,6 +730,88 @@ public class DatastaxBackend extends AbstractMetricBackend implements LifeCycles
         }
     }
 
+    /**
+     * Decodes the points of a paged result set into primitive arrays one page at a time.
+     * <p>
+     * The next page is requested before the current one is decoded, so that fetching overlaps with
+     * decoding and aggregation, while at most two pages per fetch are held in memory.
+     */
+    private final class PointPageHelper implements FutureDone<ResultSet> {
+        private final ResolvableFuture<List<ExecutionInfo>> future;
+        private final PreparedFetch fetch;
+        private final Consumer<MetricCollection> consumer;
+
+        private PointPageHelper(
+            final ResolvableFuture<List<ExecutionInfo>> future, final PreparedFetch fetch,
+            final Consumer<MetricCollection> consumer
+        ) {
+            this.future = future;
+            this.fetch = fetch;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void failed(Throwable cause) {
+            future.fail(cause);
+        }
+
+        @Override
+        public void cancelled() {
+            future.cancel();
+        }
+
+        @Override
+        public void resolved(final ResultSet rows) {
+            if (future.isDone()) {
+                return;
+            }
+
+            final int count = rows.getAvailableWithoutFetching();
+
+            final Optional<AsyncFuture<Void>> nextFetch = rows.isFullyFetched() ? Optional.empty()
+                : Optional.of(
+                    Async.bind(async, rows.fetchMoreResults()).directTransform(r -> null));
+
+            final PointArray.Builder page = PointArray.builder(count);
+
+            try {
+                for (int i = 0; i < count; i++) {
+                    fetch.decode(rows.one(), page);
+                }
+
+                if (page.size() > 0) {
+                    consumer.accept(MetricCollection.points(page.build()));
+                }
+            } catch (final Exception e) {
+                future.fail(e);
+                return;
+            }
+
+            if (nextFetch.isPresent()) {
+                nextFetch.get().onDone(new FutureDone<Void>() {
+                    @Override
+                    public void failed(Throwable cause) {
+                        PointPageHelper.this.failed(cause);
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        PointPageHelper.this.cancelled();
+                    }
+
+                    @Override
+                    public void resolved(Void result) {
+                        PointPageHelper.this.resolved(rows);
+                    }
+                });
+
+                return;
+            }
+
+            future.resolve(rows.getAllExecutionInfo());
+        }
+    }
+
     private final class RowStreamHelper<R> implements FutureDone<ResultSet> {
         private final AsyncObserver<List<R>> observer;
         private final Transform<Row, R> rowConverter;
@@ -67,6 +67,9 @@ public final class DatastaxMetricModule implements MetricModule, DynamicModuleId
     private static final boolean DEFAULT_CONFIGURE = false;
     private static final int DEFAULT_FETCH_SIZE = 5000;
     private static final Duration DEFAULT_READ_TIMEOUT = new Duration(30, TimeUnit.SECONDS);
+    private static final int DEFAULT_WRITE_BATCH_SIZE = 100;
+    private static final int DEFAULT_WRITE_CONCURRENCY = 500;
+    private static final int MIN_WRITE_CONCURRENCY = 8;
 
     /* id of backend (defualt will be generated) */
     private final Optional<String> id;
@@ -90,6 +93,10 @@ public final class DatastaxMetricModule implements MetricModule, DynamicModuleId
     private final DatastaxAuthentication authentication;
     /* client pooling options */
     private final DatastaxPoolingOptions poolingOptions;
+    /* the maximum number of points to write in a single unlogged batch */
+    private final int writeBatchSize;
+    /* the maximum number of concurrent write batches */
+    private final int writeConcurrency;
 
     @JsonCreator
     public DatastaxMetricModule(
@@ -103,7 +110,9 @@ public final class DatastaxMetricModule implements MetricModule, DynamicModuleId
         @JsonProperty("consistencyLevel") Optional<ConsistencyLevel> consistencyLevel,
         @JsonProperty("retryPolicy") Optional<RetryPolicy> retryPolicy,
         @JsonProperty("authentication") Optional<DatastaxAuthentication> authentication,
-        @JsonProperty("poolingOptions") Optional<DatastaxPoolingOptions> poolingOptions
+        @JsonProperty("poolingOptions") Optional<DatastaxPoolingOptions> poolingOptions,
+        @JsonProperty("writeBatchSize") Optional<Integer> writeBatchSize,
+        @JsonProperty("writeConcurrency") Optional<Integer> writeConcurrency
     ) {
         this.id = id;
         this.groups = groups.orElseGet(Groups::empty).or("heroic");
@@ -116,6 +125,16 @@ public final class DatastaxMetricModule implements MetricModule, DynamicModuleId
         this.retryPolicy = retryPolicy.orElse(DefaultRetryPolicy.INSTANCE);
         this.authentication = authentication.orElseGet(DatastaxAuthentication.None::new);
         this.poolingOptions = poolingOptions.orElseGet(DatastaxPoolingOptions::new);
+        this.writeBatchSize = writeBatchSize.orElse(DEFAULT_WRITE_BATCH_SIZE);
+        this.writeConcurrency = writeConcurrency.orElse(DEFAULT_WRITE_CONCURRENCY);
+
+        if (this.writeBatchSize <= 0) {
+            throw new IllegalArgumentException("writeBatchSize must be positive");
+        }
+
+        if (this.writeConcurrency <= 0) {
+            throw new IllegalArgumentException("writeConcurrency must be positive");
+        }
     }
 
     private static List<InetSocketAddress> convert(Set<String> source) {
@@ -203,6 +222,20 @@ public final class DatastaxMetricModule implements MetricModule, DynamicModuleId
                     consistencyLevel, retryPolicy, authentication, poolingOptions));
         }
 
+        @Provides
+        @DatastaxScope
+        @Named("writeBatchSize")
+        public int writeBatchSize() {
+            return writeBatchSize;
+        }
+
+        @Provides
+        @DatastaxScope
+        public WriteLimiter writeLimiter(final AsyncFramework async) {
+            return new WriteLimiter(async, Math.min(MIN_WRITE_CONCURRENCY, writeConcurrency),
+                writeConcurrency);
+        }
+
         @Provides
         @DatastaxScope
         LifeCycle life(LifeCycleManager manager, DatastaxBackend backend) {
@@ -231,6 +264,8 @@ public final class DatastaxMetricModule implements MetricModule, DynamicModuleId
         private Optional<RetryPolicy> retryPolicy = empty();
         private Optional<DatastaxAuthentication> authentication = empty();
         private Optional<DatastaxPoolingOptions> poolingOptions = empty();
+        private Optional<Integer> writeBatchSize = empty();
+        private Optional<Integer> writeConcurrency = empty();
 
         public Builder id(String id) {
             this.id = of(id);
@@ -282,9 +317,20 @@ public final class DatastaxMetricModule implements MetricModule, DynamicModuleId
             return this;
         }
 
+        public Builder writeBatchSize(int writeBatchSize) {
+            this.writeBatchSize = of(writeBatchSize);
+            return this;
+        }
+
+        public Builder writeConcurrency(int writeConcurrency) {
+            this.writeConcurrency = of(writeConcurrency);
+            return this;
+        }
+
         public DatastaxMetricModule build() {
             return new DatastaxMetricModule(id, groups, seeds, schema, configure, fetchSize,
-                readTimeout, consistencyLevel, retryPolicy, authentication, poolingOptions);
+                readTimeout, consistencyLevel, retryPolicy, authentication, poolingOptions,
+                writeBatchSize, writeConcurrency);
         }
     }
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.datastax;
+
+import com.datastax.driver.core.exceptions.BusyPoolException;
+import com.datastax.driver.core.exceptions.NoHostAvailableException;
+import com.datastax.driver.core.exceptions.OverloadedException;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.FutureDone;
+import eu.toolchain.async.ResolvableFuture;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+
+/**
+ * Limits the number of concurrent writes, adapting the limit to what the cluster accepts.
+ * <p>
+ * The limit is increased by one for every limit number of successful writes, and halved whenever
+ * a write is rejected because a connection pool or a coordinator is overloaded. Writes above the
+ * limit are queued and started as earlier writes complete.
+ */
+class WriteLimiter {
+    private final AsyncFramework async;
+    private final int minLimit;
+    private final int maxLimit;
+
+    private final Object lock = new Object();
+    private final Deque<Runnable> queued = new ArrayDeque<>();
+    private double limit;
+    private int inFlight = 0;
+
+    WriteLimiter(final AsyncFramework async, final int minLimit, final int maxLimit) {
+        if (minLimit <= 0 || maxLimit < minLimit) {
+            throw new IllegalArgumentException(
+                "invalid limits, min: " + minLimit + ", max: " + maxLimit);
+        }
+
+        this.async = async;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = maxLimit;
+    }
+
+    /**
+     * Start the given write once it is within the limit.
+     */
+    <T> AsyncFuture<T> submit(final Callable<AsyncFuture<T>> write) {
+        final ResolvableFuture<T> future = async.future();
+        final Runnable start = () -> start(write, future);
+
+        synchronized (lock) {
+            if (inFlight >= (int) limit) {
+                queued.add(start);
+                return future;
+            }
+
+            inFlight++;
+        }
+
+        start.run();
+        return future;
+    }
+
+    /**
+     * Current concurrency limit.
+     */
+    int limit() {
+        synchronized (lock) {
+            return (int) limit;
+        }
+    }
+
+    private <T> void start(final Callable<AsyncFuture<T>> write, final ResolvableFuture<T> future) {
+        final AsyncFuture<T> result;
+
+        try {
+            result = write.call();
+        } catch (final Exception e) {
+            done(false);
+            future.fail(e);
+            return;
+        }
+
+        result.onDone(new FutureDone<T>() {
+            @Override
+            public void failed(final Throwable cause) {
+                done(isOverloaded(cause));
+                future.fail(cause);
+            }
+
+            @Override
+            public void resolved(final T value) {
+                done(false);
+                future.resolve(value);
+            }
+
+            @Override
+            public void cancelled() {
+                done(false);
+                future.cancel();
+            }
+        });
+    }
+
+    private void done(final boolean overloaded) {
+        final Runnable next;
+
+        synchronized (lock) {
+            if (overloaded) {
+                limit = Math.max(minLimit, limit / 2);
+            } else {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+
+            inFlight--;
+
+            if (inFlight >= (int) limit || queued.isEmpty()) {
+                return;
+            }
+
+            next = queued.poll();
+            inFlight++;
+        }
+
+        next.run();
+    }
+
+    static boolean isOverloaded(final Throwable cause) {
+        if (cause instanceof OverloadedException || cause instanceof BusyPoolException) {
+            return true;
+        }
+
+        if (cause instanceof NoHostAvailableException) {
+            for (final Throwable error : ((NoHostAvailableException) cause).getErrors().values()) {
+                if (isOverloaded(error)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+}
@@ -27,6 +27,7 @@ import com.datastax.driver.core.Session;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointArray;
 import com.spotify.heroic.metric.datastax.schema.ng.NextGenSchema;
 import eu.toolchain.async.AsyncFuture;
 import eu.toolchain.async.Transform;
@@ -44,5 +45,10 @@ public interface Schema {
         BoundStatement fetch(int limit);
 
         Transform<Row, Point> converter();
+
+        /**
+         * Decode the point in the given row straight into the given builder.
+         */
+        void decode(Row row, PointArray.Builder builder);
     }
 }
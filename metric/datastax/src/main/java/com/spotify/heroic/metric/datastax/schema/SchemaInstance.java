@@ -56,5 +56,11 @@ public interface SchemaInstance {
 
     public static interface WriteSession {
         public BoundStatement writePoint(Series series, Point d) throws IOException;
+
+        /**
+         * Identifies the partition that the given point is written to. Points with equal
+         * partitions can be written in the same unlogged batch.
+         */
+        public Object partition(Point d);
     }
 }
@@ -28,6 +28,7 @@ import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Series;
 import com.spotify.heroic.metric.BackendKey;
 import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointArray;
 import com.spotify.heroic.metric.datastax.MetricsRowKey;
 import com.spotify.heroic.metric.datastax.TypeSerializer;
 import com.spotify.heroic.metric.datastax.schema.AbstractSchemaInstance;
@@ -98,6 +99,11 @@ public class NextGenSchemaInstance extends AbstractSchemaInstance {
                 final int offset = calculateColumnKey(d.getTimestamp());
                 return write.bind(key, offset, d.getValue());
             }
+
+            @Override
+            public Object partition(Point d) {
+                return calculateBaseTimestamp(d.getTimestamp());
+            }
         };
     }
 
@@ -136,6 +142,11 @@ public class NextGenSchemaInstance extends AbstractSchemaInstance {
                     };
                 }
 
+                @Override
+                public void decode(Row row, PointArray.Builder builder) {
+                    builder.add(calculateAbsoluteTimestamp(base, row.getInt(0)), row.getDouble(1));
+                }
+
                 @Override
                 public String toString() {
                     return modified.toString();
@@ -167,6 +178,11 @@ public class NextGenSchemaInstance extends AbstractSchemaInstance {
                 };
             }
 
+            @Override
+            public void decode(Row row, PointArray.Builder builder) {
+                builder.add(calculateAbsoluteTimestamp(base, row.getInt(0)), row.getDouble(1));
+            }
+
             @Override
             public String toString() {
                 return "<Fetch Row " + key + ">";
@@ -0,0 +1,80 @@
+package com.spotify.heroic.metric.datastax;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.datastax.driver.core.exceptions.OverloadedException;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.async.TinyAsync;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class WriteLimiterTest {
+    private final AsyncFramework async = TinyAsync.builder().build();
+
+    @Test
+    public void testQueueAboveLimit() {
+        final WriteLimiter limiter = new WriteLimiter(async, 1, 2);
+        final List<ResolvableFuture<Void>> writes = new ArrayList<>();
+
+        final List<AsyncFuture<Void>> results = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            results.add(limiter.submit(() -> {
+                final ResolvableFuture<Void> write = async.future();
+                writes.add(write);
+                return write;
+            }));
+        }
+
+        assertEquals(2, writes.size());
+
+        writes.get(0).resolve(null);
+
+        assertTrue(results.get(0).isResolved());
+        assertEquals(3, writes.size());
+        assertFalse(results.get(2).isDone());
+
+        writes.get(1).resolve(null);
+        writes.get(2).resolve(null);
+
+        assertTrue(results.get(2).isResolved());
+    }
+
+    @Test
+    public void testBackOffWhenOverloaded() {
+        final WriteLimiter limiter = new WriteLimiter(async, 2, 16);
+        final OverloadedException overloaded =
+            new OverloadedException(new InetSocketAddress("localhost", 9042), "overloaded");
+
+        limiter.submit(() -> async.failed(overloaded));
+        assertEquals(8, limiter.limit());
+
+        limiter.submit(() -> async.failed(overloaded));
+        limiter.submit(() -> async.failed(overloaded));
+        limiter.submit(() -> async.failed(overloaded));
+        assertEquals(2, limiter.limit());
+
+        for (int i = 0; i < 10; i++) {
+            limiter.submit(() -> async.resolved());
+        }
+
+        assertTrue(limiter.limit() > 2);
+    }
+
+    @Test
+    public void testOtherFailuresDoNotBackOff() {
+        final WriteLimiter limiter = new WriteLimiter(async, 2, 16);
+
+        final AsyncFuture<Void> result =
+            limiter.submit(() -> async.failed(new IllegalStateException()));
+
+        assertTrue(result.isFailed());
+        assertEquals(16, limiter.limit());
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.memory;
+
+import com.spotify.heroic.metric.PointArray;
+import com.spotify.heroic.metric.PointBlock;
+
+/**
+ * A chunk storing points as a compressed {@link PointBlock}.
+ * <p>
+ * Points written in order are appended to the block. Out-of-order writes and overwrites require
+ * the chunk to be decoded and encoded again, which is expensive but rare for most series.
+ */
+final class CompressedPointChunk extends PointChunk {
+    private PointBlock.Writer writer = PointBlock.writer();
+
+    CompressedPointChunk(final long start, final long end) {
+        super(start, end);
+    }
+
+    @Override
+    synchronized void add(final long timestamp, final double value) {
+        if (writer.size() == 0 || timestamp > writer.lastTimestamp()) {
+            writer.add(timestamp, value);
+            return;
+        }
+
+        final PointArray current = writer.snapshot().decode();
+        final PointBlock.Writer next = PointBlock.writer();
+
+        boolean added = false;
+
+        for (int i = 0; i < current.size(); i++) {
+            final long t = current.getTimestamp(i);
+
+            if (!added && t >= timestamp) {
+                next.add(timestamp, value);
+                added = true;
+
+                if (t == timestamp) {
+                    continue;
+                }
+            }
+
+            next.add(t, current.getValue(i));
+        }
+
+        writer = next;
+    }
+
+    @Override
+    PointArray range(final long start, final long end) {
+        final PointBlock block;
+
+        synchronized (this) {
+            block = writer.snapshot();
+        }
+
+        return block.decode(start, end);
+    }
+
+    @Override
+    synchronized int size() {
+        return writer.size();
+    }
+
+    @Override
+    synchronized long bytes() {
+        return writer.allocated();
+    }
+}
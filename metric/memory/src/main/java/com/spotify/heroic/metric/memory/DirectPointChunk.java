@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.memory;
+
+import com.spotify.heroic.metric.PointArray;
+import java.nio.ByteBuffer;
+
+/**
+ * A chunk storing points off-heap, in a direct buffer.
+ * <p>
+ * Timestamps are stored in the first half of the buffer, and values in the second half. Since
+ * the buffer can't be exposed as a point array, ranges are copied out of the buffer when read.
+ */
+final class DirectPointChunk extends PointChunk {
+    private static final int POINT_BYTES = Long.BYTES + Double.BYTES;
+
+    private ByteBuffer buffer;
+    private int capacity;
+    private int size = 0;
+
+    DirectPointChunk(final long start, final long end) {
+        super(start, end);
+        this.capacity = HeapPointChunk.INITIAL_CAPACITY;
+        this.buffer = ByteBuffer.allocateDirect(capacity * POINT_BYTES);
+    }
+
+    @Override
+    synchronized void add(final long timestamp, final double value) {
+        final int insert = upperBound(timestamp);
+
+        if (insert > 0 && timestamp(insert - 1) == timestamp) {
+            buffer.putDouble(valueOffset(insert - 1), value);
+            return;
+        }
+
+        if (size == capacity) {
+            grow(capacity * 2);
+        }
+
+        for (int i = size; i > insert; i--) {
+            buffer.putLong(timestampOffset(i), timestamp(i - 1));
+            buffer.putDouble(valueOffset(i), buffer.getDouble(valueOffset(i - 1)));
+        }
+
+        buffer.putLong(timestampOffset(insert), timestamp);
+        buffer.putDouble(valueOffset(insert), value);
+        size += 1;
+    }
+
+    @Override
+    synchronized PointArray range(final long start, final long end) {
+        final int from = upperBound(start);
+        final int to = upperBound(end);
+
+        if (from >= to) {
+            return PointArray.empty();
+        }
+
+        final long[] timestamps = new long[to - from];
+        final double[] values = new double[to - from];
+
+        for (int i = from; i < to; i++) {
+            timestamps[i - from] = timestamp(i);
+            values[i - from] = buffer.getDouble(valueOffset(i));
+        }
+
+        return PointArray.of(timestamps, values);
+    }
+
+    @Override
+    synchronized int size() {
+        return size;
+    }
+
+    @Override
+    synchronized long bytes() {
+        return (long) capacity * POINT_BYTES;
+    }
+
+    private void grow(final int next) {
+        final ByteBuffer target = ByteBuffer.allocateDirect(next * POINT_BYTES);
+
+        for (int i = 0; i < size; i++) {
+            target.putLong(i * Long.BYTES, timestamp(i));
+            target.putDouble(next * Long.BYTES + i * Double.BYTES,
+                buffer.getDouble(valueOffset(i)));
+        }
+
+        buffer = target;
+        capacity = next;
+    }
+
+    private int upperBound(final long timestamp) {
+        int lo = 0;
+        int hi = size;
+
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+
+            if (timestamp(mid) <= timestamp) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+
+        return lo;
+    }
+
+    private long timestamp(final int index) {
+        return buffer.getLong(timestampOffset(index));
+    }
+
+    private int timestampOffset(final int index) {
+        return index * Long.BYTES;
+    }
+
+    private int valueOffset(final int index) {
+        return capacity * Long.BYTES + index * Double.BYTES;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.memory;
+
+import com.spotify.heroic.metric.PointArray;
+import java.util.Arrays;
+
+/**
+ * A chunk storing points in primitive arrays on the heap.
+ * <p>
+ * Points appended past the end of the chunk are written in place, while anything that would
+ * modify already published points (out-of-order writes and overwrites) copies the arrays. This
+ * means ranges can be returned as views of the arrays without copying.
+ */
+final class HeapPointChunk extends PointChunk {
+    static final int INITIAL_CAPACITY = 16;
+
+    /* replaced when the arrays grow, or when published points are modified */
+    private volatile Columns columns;
+    /* number of published points, always written after the columns */
+    private volatile int size = 0;
+
+    HeapPointChunk(final long start, final long end) {
+        super(start, end);
+        this.columns = new Columns(INITIAL_CAPACITY);
+    }
+
+    @Override
+    void add(final long timestamp, final double value) {
+        final Columns current = columns;
+        final int size = this.size;
+
+        if (size == 0 || timestamp > current.timestamps[size - 1]) {
+            final Columns target =
+                size < current.capacity() ? current : current.copy(size, size * 2);
+
+            target.timestamps[size] = timestamp;
+            target.values[size] = value;
+
+            if (target != current) {
+                columns = target;
+            }
+
+            this.size = size + 1;
+            return;
+        }
+
+        final int index = Arrays.binarySearch(current.timestamps, 0, size, timestamp);
+
+        if (index >= 0) {
+            final Columns next = current.copy(size, current.capacity());
+            next.values[index] = value;
+            columns = next;
+            return;
+        }
+
+        final int insert = -index - 1;
+        final int capacity = size < current.capacity() ? current.capacity() : size * 2;
+        final Columns next = new Columns(capacity);
+
+        System.arraycopy(current.timestamps, 0, next.timestamps, 0, insert);
+        System.arraycopy(current.values, 0, next.values, 0, insert);
+        next.timestamps[insert] = timestamp;
+        next.values[insert] = value;
+        System.arraycopy(current.timestamps, insert, next.timestamps, insert + 1, size - insert);
+        System.arraycopy(current.values, insert, next.values, insert + 1, size - insert);
+
+        columns = next;
+        this.size = size + 1;
+    }
+
+    @Override
+    PointArray range(final long start, final long end) {
+        /* read size first, the columns are at least as recent */
+        final int size = this.size;
+        final Columns columns = this.columns;
+
+        final int from = upperBound(columns.timestamps, size, start);
+        final int to = upperBound(columns.timestamps, size, end);
+
+        if (from >= to) {
+            return PointArray.empty();
+        }
+
+        return PointArray.of(columns.timestamps, columns.values, from, to - from);
+    }
+
+    @Override
+    int size() {
+        return size;
+    }
+
+    @Override
+    long bytes() {
+        return (long) columns.capacity() * (Long.BYTES + Double.BYTES);
+    }
+
+    private static final class Columns {
+        private final long[] timestamps;
+        private final double[] values;
+
+        private Columns(final int capacity) {
+            this(new long[capacity], new double[capacity]);
+        }
+
+        private Columns(final long[] timestamps, final double[] values) {
+            this.timestamps = timestamps;
+            this.values = values;
+        }
+
+        private int capacity() {
+            return timestamps.length;
+        }
+
+        private Columns copy(final int size, final int capacity) {
+            final Columns next = new Columns(capacity);
+            System.arraycopy(timestamps, 0, next.timestamps, 0, size);
+            System.arraycopy(values, 0, next.values, 0, size);
+            return next;
+        }
+    }
+}
@@ -27,6 +27,8 @@ import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Groups;
 import com.spotify.heroic.common.RequestTimer;
 import com.spotify.heroic.common.Statistics;
+import com.spotify.heroic.lifecycle.LifeCycleRegistry;
+import com.spotify.heroic.lifecycle.LifeCycles;
 import com.spotify.heroic.metric.AbstractMetricBackend;
 import com.spotify.heroic.metric.BackendEntry;
 import com.spotify.heroic.metric.BackendKey;
@@ -35,8 +37,12 @@ import com.spotify.heroic.metric.FetchQuotaWatcher;
 import com.spotify.heroic.metric.Metric;
 import com.spotify.heroic.metric.MetricCollection;
 import com.spotify.heroic.metric.MetricReadResult;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointArray;
 import com.spotify.heroic.metric.QueryTrace;
 import com.spotify.heroic.metric.WriteMetric;
+import com.spotify.heroic.scheduler.Scheduler;
 import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
 import io.opencensus.trace.Span;
@@ -50,14 +56,19 @@ import java.util.SortedMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import javax.inject.Inject;
 
 /**
- * MetricBackend for Heroic cassandra datastore.
+ * MetricBackend keeping all data in memory.
+ * <p>
+ * Points are kept in primitive, time-partitioned chunks by {@link PointStorage}, while other
+ * metric types are kept as-is.
  */
-public class MemoryBackend extends AbstractMetricBackend {
+public class MemoryBackend extends AbstractMetricBackend implements LifeCycles {
     public static final String MEMORY_KEYS = "memory-keys";
+    public static final String MEMORY_POINT_BYTES = "memory-point-bytes";
 
     public static final QueryTrace.Identifier FETCH =
         QueryTrace.identifier(MemoryBackend.class, "fetch");
@@ -97,19 +108,32 @@ public class MemoryBackend extends AbstractMetricBackend {
 
     private final AsyncFramework async;
     private final Groups groups;
+    private final PointStorage points;
+    private final Scheduler scheduler;
     private final ConcurrentMap<MemoryKey, MemoryCell> storage;
 
     @Inject
-    public MemoryBackend(final AsyncFramework async, final Groups groups) {
+    public MemoryBackend(
+        final AsyncFramework async, final Groups groups, final PointStorage points,
+        final Scheduler scheduler
+    ) {
         super(async);
         this.async = async;
         this.groups = groups;
+        this.points = points;
+        this.scheduler = scheduler;
         this.storage = new ConcurrentHashMap<>();
     }
 
+    @Override
+    public void register(LifeCycleRegistry registry) {
+        registry.start(this::start);
+    }
+
     @Override
     public Statistics getStatistics() {
-        return new Statistics(MEMORY_KEYS, storage.size());
+        return new Statistics(MEMORY_KEYS, storage.size() + points.size(), MEMORY_POINT_BYTES,
+            points.bytes());
     }
 
     @Override
@@ -154,7 +178,18 @@ public class MemoryBackend extends AbstractMetricBackend {
 
     @Override
     public AsyncFuture<Void> deleteKey(BackendKey key, QueryOptions options) {
-        storage.remove(new MemoryKey(key.getType(), key.getSeries().getTags()));
+        final MemoryKey memoryKey = new MemoryKey(key.getType(), key.getSeries().getTags());
+        storage.remove(memoryKey);
+        points.delete(memoryKey);
+        return async.resolved();
+    }
+
+    private AsyncFuture<Void> start() {
+        if (points.getRetention().isPresent()) {
+            scheduler.periodically("memory-retention", points.getChunkSpan(),
+                TimeUnit.MILLISECONDS, points::evict);
+        }
+
         return async.resolved();
     }
 
@@ -163,6 +198,12 @@ public class MemoryBackend extends AbstractMetricBackend {
 
         final MemoryKey key = new MemoryKey(g.getType(), request.getSeries().getTags());
 
+        if (g.getType() == MetricType.POINT) {
+            points.write(key, request.getSeries().getResource(),
+                PointArray.copyOf(g.getDataAs(Point.class)));
+            return;
+        }
+
         final MemoryCell cell =
             storage.computeIfAbsent(key, k -> new MemoryCell(new ConcurrentHashMap<>()));
 
@@ -180,6 +221,18 @@ public class MemoryBackend extends AbstractMetricBackend {
         final MemoryKey key, final DateRange range, final FetchQuotaWatcher watcher,
         final Consumer<MetricReadResult> metricsConsumer
     ) {
+        if (key.getSource() == MetricType.POINT) {
+            for (final Map.Entry<SortedMap<String, String>, PointArray> e : points
+                .fetch(key, range.getStart(), range.getEnd())
+                .entrySet()) {
+                watcher.readData(e.getValue().size());
+                metricsConsumer.accept(
+                    new MetricReadResult(MetricCollection.points(e.getValue()), e.getKey()));
+            }
+
+            return;
+        }
+
         final MemoryCell cell = storage.get(key);
 
         // empty
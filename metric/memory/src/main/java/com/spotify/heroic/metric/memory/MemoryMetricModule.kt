@@ -22,23 +22,37 @@
 package com.spotify.heroic.metric.memory
 
 import com.fasterxml.jackson.annotation.JsonProperty
+import com.spotify.heroic.common.Duration
 import com.spotify.heroic.common.DynamicModuleId
 import com.spotify.heroic.common.Groups
 import com.spotify.heroic.common.ModuleId
 import com.spotify.heroic.dagger.PrimaryComponent
+import com.spotify.heroic.lifecycle.LifeCycle
+import com.spotify.heroic.lifecycle.LifeCycleManager
 import com.spotify.heroic.metric.MetricModule
+import com.spotify.heroic.time.Clock
 import dagger.Component
 import dagger.Module
 import dagger.Provides
 import java.util.*
+import java.util.concurrent.TimeUnit
 
 private val DEFAULT_GROUPS = Groups("memory")
+private val DEFAULT_CHUNK_SPAN = Duration.of(1, TimeUnit.HOURS)
 
 @ModuleId("memory")
 data class MemoryMetricModule(
     @JsonProperty("id") val id: Optional<String>,
     @JsonProperty("groups") var groups: Groups = DEFAULT_GROUPS,
-    @JsonProperty("synchronizedStorage") val synchronizedStorage: Boolean = false
+    @JsonProperty("synchronizedStorage") val synchronizedStorage: Boolean = false,
+    /* time spanned by each chunk of points */
+    @JsonProperty("chunkSpan") val chunkSpan: Duration = DEFAULT_CHUNK_SPAN,
+    /* how long points are kept, forever if absent */
+    @JsonProperty("retention") val retention: Optional<Duration> = Optional.empty(),
+    /* store points outside of the heap */
+    @JsonProperty("offHeap") val offHeap: Boolean = false,
+    /* store points compressed, takes precedence over offHeap */
+    @JsonProperty("compressed") val compressed: Boolean = false
 ): MetricModule, DynamicModuleId {
     override fun module(
         primary: PrimaryComponent, depends: MetricModule.Depends, id: String
@@ -60,6 +74,8 @@ data class MemoryMetricModule(
     )
     interface C: MetricModule.Exposed {
         override fun backend(): MemoryBackend
+
+        override fun life(): LifeCycle
     }
 
     @Module
@@ -67,6 +83,16 @@ data class MemoryMetricModule(
         @Provides
         @MemoryScope
         fun groups() = groups
+
+        @Provides
+        @MemoryScope
+        fun points(clock: Clock) = PointStorage(
+            chunkSpan.toMilliseconds(), retention.map { it.toMilliseconds() }, offHeap, compressed,
+            clock)
+
+        @Provides
+        @MemoryScope
+        fun life(manager: LifeCycleManager, backend: MemoryBackend) = manager.build(backend)
     }
 
     companion object {
@@ -78,11 +104,20 @@ data class MemoryMetricModule(
 data class Builder(
     var id: Optional<String> = Optional.empty(),
     var groups: Groups = DEFAULT_GROUPS,
-    var synchronizedStorage: Boolean = false
+    var synchronizedStorage: Boolean = false,
+    var chunkSpan: Duration = DEFAULT_CHUNK_SPAN,
+    var retention: Optional<Duration> = Optional.empty(),
+    var offHeap: Boolean = false,
+    var compressed: Boolean = false
 ) {
     fun id(id: String) = apply { this.id = Optional.of(id) }
     fun groups(groups: Groups) = apply { this.groups = groups }
     fun synchronizedStorage(synchronizedStorage: Boolean) =
         apply { this.synchronizedStorage = synchronizedStorage }
-    fun build() = MemoryMetricModule(id, groups, synchronizedStorage)
+    fun chunkSpan(chunkSpan: Duration) = apply { this.chunkSpan = chunkSpan }
+    fun retention(retention: Duration) = apply { this.retention = Optional.of(retention) }
+    fun offHeap(offHeap: Boolean) = apply { this.offHeap = offHeap }
+    fun compressed(compressed: Boolean) = apply { this.compressed = compressed }
+    fun build() = MemoryMetricModule(
+        id, groups, synchronizedStorage, chunkSpan, retention, offHeap, compressed)
 }
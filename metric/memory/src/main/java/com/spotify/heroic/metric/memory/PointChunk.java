@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.memory;
+
+import com.spotify.heroic.metric.PointArray;
+
+/**
+ * A time partition of the points of a single series, covering the range {@code [start, end)}.
+ * <p>
+ * Points are kept sorted by timestamp, and a later write to an existing timestamp replaces the
+ * value. Writes are expected to be serialized by the owning {@link PointSeries}, while reads may
+ * happen concurrently with writes.
+ */
+abstract class PointChunk {
+    private final long start;
+    private final long end;
+
+    PointChunk(final long start, final long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    long start() {
+        return start;
+    }
+
+    long end() {
+        return end;
+    }
+
+    /**
+     * Add a single point to the chunk.
+     */
+    abstract void add(long timestamp, double value);
+
+    /**
+     * Get all points with a timestamp in {@code (start, end]}.
+     */
+    abstract PointArray range(long start, long end);
+
+    /**
+     * Number of points in this chunk.
+     */
+    abstract int size();
+
+    /**
+     * Number of bytes allocated for this chunk.
+     */
+    abstract long bytes();
+
+    /**
+     * Find the index of the first timestamp strictly greater than the given timestamp.
+     */
+    static int upperBound(final long[] timestamps, final int size, final long timestamp) {
+        int lo = 0;
+        int hi = size;
+
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+
+            if (timestamps[mid] <= timestamp) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+
+        return lo;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.memory;
+
+import com.spotify.heroic.metric.PointArray;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Points of a single series, partitioned into time-based chunks.
+ * <p>
+ * Writes are serialized on the series, while reads are lock-free.
+ */
+final class PointSeries {
+    private final PointStorage storage;
+    private final ConcurrentSkipListMap<Long, PointChunk> chunks = new ConcurrentSkipListMap<>();
+
+    /* set when the series has been removed from storage, writers must then retry */
+    private boolean retired = false;
+
+    PointSeries(final PointStorage storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * Write the given points.
+     *
+     * @return {@code false} if the series has been retired, and nothing was written
+     */
+    synchronized boolean write(final PointArray points, final long cutoff) {
+        if (retired) {
+            return false;
+        }
+
+        PointChunk chunk = null;
+
+        for (int i = 0; i < points.size(); i++) {
+            final long timestamp = points.getTimestamp(i);
+
+            if (timestamp < cutoff) {
+                continue;
+            }
+
+            if (chunk == null || timestamp < chunk.start() || timestamp >= chunk.end()) {
+                chunk = chunks.computeIfAbsent(storage.chunkStart(timestamp), storage::newChunk);
+            }
+
+            chunk.add(timestamp, points.getValue(i));
+        }
+
+        return true;
+    }
+
+    /**
+     * Read all points with a timestamp in {@code (start, end]}.
+     * <p>
+     * If the range is covered by a single chunk, the result is a view of that chunk.
+     */
+    PointArray range(final long start, final long end, final long cutoff) {
+        final Collection<PointChunk> covered =
+            chunks.subMap(storage.chunkStart(start), true, end, true).values();
+
+        /* expired points might not have been evicted yet */
+        final long from = cutoff > start ? cutoff - 1 : start;
+
+        final List<PointArray> parts = new ArrayList<>();
+        int total = 0;
+
+        for (final PointChunk chunk : covered) {
+            if (chunk.end() <= cutoff) {
+                continue;
+            }
+
+            final PointArray part = chunk.range(from, end);
+
+            if (!part.isEmpty()) {
+                parts.add(part);
+                total += part.size();
+            }
+        }
+
+        if (parts.isEmpty()) {
+            return PointArray.empty();
+        }
+
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+
+        final PointArray.Builder builder = PointArray.builder(total);
+
+        for (final PointArray part : parts) {
+            builder.addAll(part);
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Remove all chunks which end at or before the given cutoff.
+     *
+     * @return {@code true} if the series is empty, in which case it has been retired
+     */
+    synchronized boolean evict(final long cutoff) {
+        final Iterator<PointChunk> it = chunks.headMap(cutoff).values().iterator();
+
+        while (it.hasNext()) {
+            if (it.next().end() <= cutoff) {
+                it.remove();
+            }
+        }
+
+        if (chunks.isEmpty()) {
+            retired = true;
+        }
+
+        return retired;
+    }
+
+    long bytes() {
+        long bytes = 0L;
+
+        for (final PointChunk chunk : chunks.values()) {
+            bytes += chunk.bytes();
+        }
+
+        return bytes;
+    }
+}
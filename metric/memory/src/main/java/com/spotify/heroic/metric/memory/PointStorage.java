@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.memory;
+
+import com.spotify.heroic.metric.PointArray;
+import com.spotify.heroic.time.Clock;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Primitive storage for points, partitioned by series and time.
+ * <p>
+ * Each series is split into chunks spanning a fixed amount of time, stored either as primitive
+ * columns on or off the heap, or compressed using {@link com.spotify.heroic.metric.PointBlock}.
+ * When a retention is configured, points older than the retention are not returned, and chunks
+ * which only contain such points are dropped by {@link #evict()}.
+ */
+public class PointStorage {
+    private final long chunkSpan;
+    private final Optional<Long> retention;
+    private final boolean offHeap;
+    private final boolean compressed;
+    private final Clock clock;
+
+    private final ConcurrentMap<MemoryKey, ConcurrentMap<SortedMap<String, String>, PointSeries>>
+        storage = new ConcurrentHashMap<>();
+
+    public PointStorage(
+        final long chunkSpan, final Optional<Long> retention, final boolean offHeap,
+        final boolean compressed, final Clock clock
+    ) {
+        if (chunkSpan <= 0) {
+            throw new IllegalArgumentException("chunkSpan must be positive: " + chunkSpan);
+        }
+
+        this.chunkSpan = chunkSpan;
+        this.retention = retention;
+        this.offHeap = offHeap;
+        this.compressed = compressed;
+        this.clock = clock;
+    }
+
+    public long getChunkSpan() {
+        return chunkSpan;
+    }
+
+    public Optional<Long> getRetention() {
+        return retention;
+    }
+
+    public void write(
+        final MemoryKey key, final SortedMap<String, String> resource, final PointArray points
+    ) {
+        final ConcurrentMap<SortedMap<String, String>, PointSeries> entries =
+            storage.computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+
+        final long cutoff = cutoff();
+
+        while (true) {
+            final PointSeries series =
+                entries.computeIfAbsent(resource, k -> new PointSeries(this));
+
+            if (series.write(points, cutoff)) {
+                return;
+            }
+
+            /* series was evicted concurrently */
+            entries.remove(resource, series);
+        }
+    }
+
+    /**
+     * Read points in the range {@code (start, end]} for every resource of the given key.
+     */
+    public Map<SortedMap<String, String>, PointArray> fetch(
+        final MemoryKey key, final long start, final long end
+    ) {
+        final ConcurrentMap<SortedMap<String, String>, PointSeries> entries = storage.get(key);
+
+        if (entries == null) {
+            return Collections.emptyMap();
+        }
+
+        final long cutoff = cutoff();
+        final Map<SortedMap<String, String>, PointArray> results = new HashMap<>();
+
+        for (final Map.Entry<SortedMap<String, String>, PointSeries> e : entries.entrySet()) {
+            results.put(e.getKey(), e.getValue().range(start, end, cutoff));
+        }
+
+        return results;
+    }
+
+    public void delete(final MemoryKey key) {
+        storage.remove(key);
+    }
+
+    /**
+     * Drop all chunks that have fallen out of the retention.
+     */
+    public void evict() {
+        if (!retention.isPresent()) {
+            return;
+        }
+
+        final long cutoff = cutoff();
+
+        for (final ConcurrentMap<SortedMap<String, String>, PointSeries> entries :
+            storage.values()) {
+            entries.values().removeIf(series -> series.evict(cutoff));
+        }
+    }
+
+    /**
+     * Number of keys with stored points.
+     */
+    public int size() {
+        return storage.size();
+    }
+
+    /**
+     * Number of bytes allocated for stored points.
+     */
+    public long bytes() {
+        long bytes = 0L;
+
+        for (final ConcurrentMap<SortedMap<String, String>, PointSeries> entries :
+            storage.values()) {
+            for (final PointSeries series : entries.values()) {
+                bytes += series.bytes();
+            }
+        }
+
+        return bytes;
+    }
+
+    long chunkStart(final long timestamp) {
+        return Math.floorDiv(timestamp, chunkSpan) * chunkSpan;
+    }
+
+    PointChunk newChunk(final long start) {
+        if (compressed) {
+            return new CompressedPointChunk(start, start + chunkSpan);
+        }
+
+        if (offHeap) {
+            return new DirectPointChunk(start, start + chunkSpan);
+        }
+
+        return new HeapPointChunk(start, start + chunkSpan);
+    }
+
+    private long cutoff() {
+        return retention.map(r -> clock.currentTimeMillis() - r).orElse(Long.MIN_VALUE);
+    }
+}
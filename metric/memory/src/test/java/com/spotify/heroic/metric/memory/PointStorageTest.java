@@ -0,0 +1,117 @@
+package com.spotify.heroic.metric.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableSortedMap;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.PointArray;
+import com.spotify.heroic.time.Clock;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import org.junit.Test;
+
+public class PointStorageTest {
+    private static final MemoryKey KEY =
+        new MemoryKey(MetricType.POINT, ImmutableSortedMap.of("host", "a"));
+    private static final SortedMap<String, String> RESOURCE = ImmutableSortedMap.of();
+
+    private long now = 0L;
+    private final Clock clock = () -> now;
+
+    @Test
+    public void testHeap() {
+        verifyReadWrite(new PointStorage(10L, Optional.empty(), false, false, clock));
+    }
+
+    @Test
+    public void testOffHeap() {
+        verifyReadWrite(new PointStorage(10L, Optional.empty(), true, false, clock));
+    }
+
+    @Test
+    public void testCompressed() {
+        verifyReadWrite(new PointStorage(10L, Optional.empty(), false, true, clock));
+    }
+
+    @Test
+    public void testSliceWithinChunk() {
+        final PointStorage storage =
+            new PointStorage(100L, Optional.empty(), false, false, clock);
+        storage.write(KEY, RESOURCE, points(1L, 2L, 3L, 4L));
+
+        final PointArray first = fetch(storage, 0L, 4L);
+        final PointArray second = fetch(storage, 1L, 3L);
+
+        assertEquals(points(2L, 3L), second);
+        assertSame(first.timestamps(), second.timestamps());
+    }
+
+    @Test
+    public void testRetention() {
+        final PointStorage storage =
+            new PointStorage(10L, Optional.of(15L), false, false, clock);
+        storage.write(KEY, RESOURCE, points(1L, 11L, 21L, 31L));
+
+        now = 30L;
+
+        assertEquals(points(21L, 31L), fetch(storage, 0L, 100L));
+        assertTrue(storage.bytes() > 0);
+
+        now = 100L;
+        storage.evict();
+
+        assertEquals(PointArray.empty(), fetch(storage, 0L, 100L));
+        assertEquals(0L, storage.bytes());
+
+        /* writing to an evicted series starts a new one */
+        storage.write(KEY, RESOURCE, points(101L));
+        assertEquals(points(101L), fetch(storage, 0L, 200L));
+    }
+
+    private void verifyReadWrite(final PointStorage storage) {
+        /* out of order, across chunks and overwriting an existing timestamp */
+        storage.write(KEY, RESOURCE, points(5L, 15L, 25L));
+        storage.write(KEY, RESOURCE, points(1L, 12L));
+        storage.write(KEY, RESOURCE, PointArray.of(new long[]{15L}, new double[]{42.0}));
+
+        final PointArray all = fetch(storage, 0L, 100L);
+
+        assertEquals(PointArray.of(new long[]{1L, 5L, 12L, 15L, 25L},
+            new double[]{1.0, 5.0, 12.0, 42.0, 25.0}), all);
+
+        /* start is exclusive, end is inclusive */
+        assertEquals(PointArray.of(new long[]{12L, 15L}, new double[]{12.0, 42.0}),
+            fetch(storage, 5L, 15L));
+
+        for (int i = 100; i < 1000; i++) {
+            storage.write(KEY, RESOURCE, points(i));
+        }
+
+        assertEquals(900, fetch(storage, 99L, 999L).size());
+    }
+
+    private PointArray fetch(final PointStorage storage, final long start, final long end) {
+        final Map<SortedMap<String, String>, PointArray> results =
+            storage.fetch(KEY, start, end);
+
+        if (results.isEmpty()) {
+            return PointArray.empty();
+        }
+
+        assertEquals(1, results.size());
+        return results.get(RESOURCE);
+    }
+
+    private static PointArray points(final long... timestamps) {
+        final PointArray.Builder builder = PointArray.builder();
+
+        for (final long timestamp : timestamps) {
+            builder.add(timestamp, timestamp);
+        }
+
+        return builder.build();
+    }
+}
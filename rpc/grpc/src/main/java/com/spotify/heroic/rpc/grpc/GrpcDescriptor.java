@@ -22,6 +22,7 @@
 package com.spotify.heroic.rpc.grpc;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.grpc.MethodDescriptor;
 
 public interface GrpcDescriptor<Q, R> {
@@ -30,4 +31,9 @@ public interface GrpcDescriptor<Q, R> {
     TypeReference<R> responseType();
 
     MethodDescriptor<byte[], byte[]> descriptor();
+
+    /**
+     * Codec used to send responses for this endpoint.
+     */
+    GrpcResponseCodec<R> responseCodec(ObjectMapper mapper);
 }
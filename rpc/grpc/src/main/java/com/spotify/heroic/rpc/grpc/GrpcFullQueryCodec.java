@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.rpc.grpc;
+
+import static com.spotify.heroic.metric.MetricSerializer.readMap;
+import static com.spotify.heroic.metric.MetricSerializer.readMetrics;
+import static com.spotify.heroic.metric.MetricSerializer.readSeries;
+import static com.spotify.heroic.metric.MetricSerializer.readVarInt;
+import static com.spotify.heroic.metric.MetricSerializer.writeMap;
+import static com.spotify.heroic.metric.MetricSerializer.writeMetrics;
+import static com.spotify.heroic.metric.MetricSerializer.writeSeries;
+import static com.spotify.heroic.metric.MetricSerializer.writeVarInt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.FullQuery;
+import com.spotify.heroic.metric.Metric;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.PointArray;
+import com.spotify.heroic.metric.ResultGroup;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streaming binary codec for {@link FullQuery} responses.
+ * <p>
+ * Result groups are sent in frames of roughly {@link #FRAME_SAMPLES} samples, with their metrics
+ * encoded in columns by {@link com.spotify.heroic.metric.MetricSerializer}. Groups larger than a
+ * single frame are split into several consecutive parts. The final frame contains the rest of the
+ * response (trace, errors, statistics, and limits) encoded as JSON.
+ * <p>
+ * Every frame starts with a version byte, which must be bumped whenever the layout changes.
+ */
+public class GrpcFullQueryCodec implements GrpcResponseCodec<FullQuery> {
+    static final byte VERSION = 1;
+
+    static final int FRAME_SAMPLES = 1 << 16;
+
+    private static final byte FRAME_GROUPS = 0;
+    private static final byte FRAME_SUMMARY = 1;
+
+    private final ObjectMapper mapper;
+    private final int frameSamples;
+
+    public GrpcFullQueryCodec(final ObjectMapper mapper) {
+        this(mapper, FRAME_SAMPLES);
+    }
+
+    GrpcFullQueryCodec(final ObjectMapper mapper, final int frameSamples) {
+        this.mapper = mapper;
+        this.frameSamples = frameSamples;
+    }
+
+    @Override
+    public Iterator<byte[]> encode(final FullQuery response) {
+        final Iterator<ResultGroup> groups = response.groups().iterator();
+
+        return new AbstractIterator<byte[]>() {
+            private ResultGroup current = null;
+            private int offset = 0;
+            private boolean summarized = false;
+
+            @Override
+            protected byte[] computeNext() {
+                try {
+                    if (current != null || groups.hasNext()) {
+                        return groupsFrame();
+                    }
+
+                    if (!summarized) {
+                        summarized = true;
+                        return summaryFrame(response);
+                    }
+
+                    return endOfData();
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            private byte[] groupsFrame() throws IOException {
+                final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                final DataOutputStream out = new DataOutputStream(bytes);
+
+                final List<Part> parts = new ArrayList<>();
+                int samples = 0;
+
+                while (samples < frameSamples && (current != null || groups.hasNext())) {
+                    if (current == null) {
+                        current = groups.next();
+                        offset = 0;
+                    }
+
+                    final int size = current.getGroup().size();
+                    final int end = Math.min(size, offset + (frameSamples - samples));
+
+                    parts.add(new Part(current, offset, end));
+                    samples += end - offset;
+
+                    if (end >= size) {
+                        current = null;
+                    } else {
+                        offset = end;
+                    }
+                }
+
+                out.writeByte(VERSION);
+                out.writeByte(FRAME_GROUPS);
+                writeVarInt(out, parts.size());
+
+                for (final Part part : parts) {
+                    part.write(out);
+                }
+
+                out.flush();
+                return bytes.toByteArray();
+            }
+        };
+    }
+
+    private byte[] summaryFrame(final FullQuery response) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(VERSION);
+        bytes.write(FRAME_SUMMARY);
+
+        mapper.writeValue(bytes,
+            FullQuery.create(response.trace(), response.errors(), ImmutableList.of(),
+                response.statistics(), response.limits(), response.dataDensity()));
+
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public Decoder<FullQuery> newDecoder() {
+        return new Decoder<FullQuery>() {
+            private final List<GroupBuilder> groups = new ArrayList<>();
+            private FullQuery summary = null;
+
+            @Override
+            public void frame(final byte[] frame) throws IOException {
+                if (summary != null) {
+                    throw new IOException("Received frame after end of response");
+                }
+
+                final DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame));
+
+                final byte version = in.readByte();
+
+                if (version != VERSION) {
+                    throw new IOException("Unsupported frame version: " + version);
+                }
+
+                final byte type = in.readByte();
+
+                switch (type) {
+                    case FRAME_GROUPS:
+                        readGroups(in);
+                        break;
+                    case FRAME_SUMMARY:
+                        summary = mapper.readValue(in, FullQuery.class);
+                        break;
+                    default:
+                        throw new IOException("Unsupported frame type: " + type);
+                }
+            }
+
+            private void readGroups(final DataInputStream in) throws IOException {
+                final int count = readVarInt(in);
+
+                for (int i = 0; i < count; i++) {
+                    final boolean continued = in.readBoolean();
+
+                    if (continued) {
+                        if (groups.isEmpty()) {
+                            throw new IOException("Continued group without a preceding group");
+                        }
+
+                        groups.get(groups.size() - 1).add(readMetrics(in));
+                        continue;
+                    }
+
+                    final Map<String, String> key = readMap(in);
+                    final int seriesCount = readVarInt(in);
+                    final Set<Series> series = new HashSet<>(seriesCount);
+
+                    for (int j = 0; j < seriesCount; j++) {
+                        series.add(readSeries(in));
+                    }
+
+                    final long cadence = in.readLong();
+                    final GroupBuilder group = new GroupBuilder(key, series, cadence);
+                    group.add(readMetrics(in));
+                    groups.add(group);
+                }
+            }
+
+            @Override
+            public FullQuery end() throws IOException {
+                if (summary == null) {
+                    throw new IOException("Request finished without response");
+                }
+
+                final List<ResultGroup> results = new ArrayList<>(groups.size());
+
+                for (final GroupBuilder group : groups) {
+                    results.add(group.build());
+                }
+
+                return FullQuery.create(summary.trace(), summary.errors(), results,
+                    summary.statistics(), summary.limits(), summary.dataDensity());
+            }
+        };
+    }
+
+    /**
+     * A range of samples from a single result group.
+     */
+    private static class Part {
+        private final ResultGroup group;
+        private final int from;
+        private final int to;
+
+        Part(final ResultGroup group, final int from, final int to) {
+            this.group = group;
+            this.from = from;
+            this.to = to;
+        }
+
+        void write(final DataOutputStream out) throws IOException {
+            final boolean continued = from > 0;
+            out.writeBoolean(continued);
+
+            if (!continued) {
+                writeMap(out, group.getKey());
+                writeVarInt(out, group.getSeries().size());
+
+                for (final Series series : group.getSeries()) {
+                    writeSeries(out, series);
+                }
+
+                out.writeLong(group.getCadence());
+            }
+
+            writeMetrics(out, slice(group.getGroup(), from, to));
+        }
+    }
+
+    private static MetricCollection slice(
+        final MetricCollection metrics, final int from, final int to
+    ) {
+        if (from == 0 && to == metrics.size()) {
+            return metrics;
+        }
+
+        if (metrics.getType() == MetricType.POINT) {
+            return MetricCollection.build(MetricType.POINT,
+                ((PointArray) metrics.data()).slice(from, to));
+        }
+
+        return MetricCollection.build(metrics.getType(), metrics.data().subList(from, to));
+    }
+
+    private static class GroupBuilder {
+        private final Map<String, String> key;
+        private final Set<Series> series;
+        private final long cadence;
+        private final List<MetricCollection> parts = new ArrayList<>(1);
+
+        GroupBuilder(final Map<String, String> key, final Set<Series> series, final long cadence) {
+            this.key = key;
+            this.series = series;
+            this.cadence = cadence;
+        }
+
+        void add(final MetricCollection metrics) throws IOException {
+            if (!parts.isEmpty() && parts.get(0).getType() != metrics.getType()) {
+                throw new IOException("Continued group with a different metric type");
+            }
+
+            parts.add(metrics);
+        }
+
+        ResultGroup build() {
+            return new ResultGroup(key, series, concat(parts), cadence);
+        }
+    }
+
+    private static MetricCollection concat(final List<MetricCollection> parts) {
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+
+        final MetricType type = parts.get(0).getType();
+
+        if (type == MetricType.POINT) {
+            final PointArray.Builder builder = PointArray.builder(
+                parts.stream().mapToInt(MetricCollection::size).sum());
+
+            for (final MetricCollection part : parts) {
+                builder.addAll((PointArray) part.data());
+            }
+
+            return MetricCollection.build(MetricType.POINT, builder.build());
+        }
+
+        final List<Metric> metrics = new ArrayList<>();
+
+        for (final MetricCollection part : parts) {
+            metrics.addAll(part.data());
+        }
+
+        return MetricCollection.build(type, metrics);
+    }
+}
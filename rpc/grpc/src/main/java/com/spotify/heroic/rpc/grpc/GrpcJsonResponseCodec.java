@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.rpc.grpc;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.AbstractIterator;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+
+/**
+ * Encodes a response as a single JSON frame.
+ */
+public class GrpcJsonResponseCodec<R> implements GrpcResponseCodec<R> {
+    private final ObjectMapper mapper;
+    private final TypeReference<R> responseType;
+
+    public GrpcJsonResponseCodec(final ObjectMapper mapper, final TypeReference<R> responseType) {
+        this.mapper = mapper;
+        this.responseType = responseType;
+    }
+
+    @Override
+    public Iterator<byte[]> encode(final R response) {
+        return new AbstractIterator<byte[]>() {
+            private boolean done = false;
+
+            @Override
+            protected byte[] computeNext() {
+                if (done) {
+                    return endOfData();
+                }
+
+                done = true;
+
+                try {
+                    return mapper.writeValueAsBytes(response);
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    @Override
+    public Decoder<R> newDecoder() {
+        return new Decoder<R>() {
+            private R response = null;
+
+            @Override
+            public void frame(final byte[] frame) throws IOException {
+                if (response != null) {
+                    throw new IOException("Received more than one response");
+                }
+
+                response = mapper.readValue(frame, responseType);
+            }
+
+            @Override
+            public R end() throws IOException {
+                if (response == null) {
+                    throw new IOException("Request finished without response");
+                }
+
+                return response;
+            }
+        };
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2019 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.rpc.grpc;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Encodes a response into one or more frames, each sent as a separate message on a server
+ * streaming call.
+ *
+ * @param <R> type of the response
+ */
+public interface GrpcResponseCodec<R> {
+    /**
+     * Lazily encode the given response into frames.
+     * <p>
+     * Frames are only encoded as they are requested, so that the server never has to hold more
+     * than the frames which are currently in flight.
+     */
+    Iterator<byte[]> encode(R response);
+
+    /**
+     * Create a new decoder for a single response.
+     */
+    Decoder<R> newDecoder();
+
+    interface Decoder<R> {
+        /**
+         * Consume the next frame of the response.
+         */
+        void frame(byte[] frame) throws IOException;
+
+        /**
+         * Build the response after all frames have been received.
+         */
+        R end() throws IOException;
+    }
+}
@@ -93,34 +93,45 @@ public class GrpcRpcClient {
             final Metadata metadata = new Metadata();
 
             final ResolvableFuture<R> future = async.future();
-
-
+            final GrpcResponseCodec.Decoder<R> decoder =
+                endpoint.responseCodec(mapper).newDecoder();
 
             call.start(new ClientCall.Listener<byte[]>() {
                 @Override
                 public void onMessage(final byte[] message) {
-                    final R response;
-
                     try {
-                        response = mapper.readValue(message, endpoint.responseType());
+                        decoder.frame(message);
                     } catch (IOException e) {
                         future.fail(e);
+                        call.cancel("Failed to decode response", e);
                         return;
                     }
 
-                    future.resolve(response);
+                    // frames are requested one at a time to apply backpressure on the server
+                    call.request(1);
                 }
 
                 @Override
                 public void onClose(final Status status, final Metadata trailers) {
-                    if (status.isOk()) {
-                        if (!future.isDone()) {
-                            future.fail(new RuntimeException("Request finished without response"));
-                        }
-                    } else {
-                        future.fail(new RuntimeException(
-                            "Request finished with status code (" + status + ")"));
+                    if (future.isDone()) {
+                        return;
                     }
+
+                    if (!status.isOk()) {
+                        future.fail(status.asRuntimeException(trailers));
+                        return;
+                    }
+
+                    final R response;
+
+                    try {
+                        response = decoder.end();
+                    } catch (IOException e) {
+                        future.fail(e);
+                        return;
+                    }
+
+                    future.resolve(response);
                 }
 
                 @Override
@@ -141,7 +152,8 @@ public class GrpcRpcClient {
 
             // Don't mark all api nodes as unhealthy if only suggest is failing.
             return future.onFailed(e -> {
-                if (!endpoint.descriptor().getFullMethodName().contains("heroic/suggest:")) {
+                if (!endpoint.descriptor().getFullMethodName().contains("heroic/suggest:") &&
+                    Status.fromThrowable(e).getCode() != Status.Code.UNIMPLEMENTED) {
                     errors.mark();
                 }
             }).onFinished(scope::close);
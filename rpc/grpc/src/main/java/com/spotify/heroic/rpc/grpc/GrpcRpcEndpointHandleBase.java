@@ -22,6 +22,7 @@
 package com.spotify.heroic.rpc.grpc;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.grpc.MethodDescriptor;
 
 public abstract class GrpcRpcEndpointHandleBase<Q, R> implements GrpcEndpointHandle<Q, R> {
@@ -46,4 +47,9 @@ public abstract class GrpcRpcEndpointHandleBase<Q, R> implements GrpcEndpointHan
     public MethodDescriptor<byte[], byte[]> descriptor() {
         return spec.descriptor();
     }
+
+    @Override
+    public GrpcResponseCodec<R> responseCodec(final ObjectMapper mapper) {
+        return spec.responseCodec(mapper);
+    }
 }
@@ -22,20 +22,33 @@
 package com.spotify.heroic.rpc.grpc;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.grpc.MethodDescriptor;
+import java.util.function.Function;
 
 public class GrpcRpcEndpointSpec<Q, R> implements GrpcDescriptor<Q, R> {
     private final TypeReference<Q> queryType;
     private final TypeReference<R> responseType;
     private final MethodDescriptor<byte[], byte[]> descriptor;
+    private final Function<ObjectMapper, GrpcResponseCodec<R>> responseCodec;
 
-    @java.beans.ConstructorProperties({ "queryType", "responseType", "descriptor" })
     public GrpcRpcEndpointSpec(final TypeReference<Q> queryType,
                                final TypeReference<R> responseType,
                                final MethodDescriptor<byte[], byte[]> descriptor) {
+        this(queryType, responseType, descriptor,
+            mapper -> new GrpcJsonResponseCodec<>(mapper, responseType));
+    }
+
+    @java.beans.ConstructorProperties({ "queryType", "responseType", "descriptor",
+                                        "responseCodec" })
+    public GrpcRpcEndpointSpec(final TypeReference<Q> queryType,
+                               final TypeReference<R> responseType,
+                               final MethodDescriptor<byte[], byte[]> descriptor,
+                               final Function<ObjectMapper, GrpcResponseCodec<R>> responseCodec) {
         this.queryType = queryType;
         this.responseType = responseType;
         this.descriptor = descriptor;
+        this.responseCodec = responseCodec;
     }
 
     @Override
@@ -52,4 +65,9 @@ public class GrpcRpcEndpointSpec<Q, R> implements GrpcDescriptor<Q, R> {
     public MethodDescriptor<byte[], byte[]> descriptor() {
         return descriptor;
     }
+
+    @Override
+    public GrpcResponseCodec<R> responseCodec(final ObjectMapper mapper) {
+        return responseCodec.apply(mapper);
+    }
 }
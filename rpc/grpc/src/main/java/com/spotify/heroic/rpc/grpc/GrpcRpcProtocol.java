@@ -25,6 +25,7 @@ import static io.grpc.MethodDescriptor.generateFullMethodName;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
 import com.google.common.io.ByteStreams;
 import com.spotify.heroic.cluster.ClusterNode;
 import com.spotify.heroic.cluster.NodeMetadata;
@@ -50,6 +51,7 @@ import eu.toolchain.async.ResolvableFuture;
 import io.grpc.CallOptions;
 import io.grpc.ManagedChannel;
 import io.grpc.MethodDescriptor;
+import io.grpc.Status;
 import io.grpc.netty.NettyChannelBuilder;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.opencensus.trace.Span;
@@ -59,8 +61,12 @@ import java.io.InputStream;
 import java.net.Inet6Address;
 import java.net.InetSocketAddress;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import javax.inject.Inject;
 import javax.inject.Named;
 
@@ -159,6 +165,13 @@ public class GrpcRpcProtocol implements RpcProtocol {
         private final GrpcRpcClient client;
         private final NodeMetadata metadata;
 
+        /**
+         * Cleared if the remote node doesn't support streaming queries, after which the plain
+         * JSON endpoint is used instead.
+         */
+        private final AtomicBoolean streamingQueries = new AtomicBoolean(true);
+        private final AtomicBoolean batchQueries = new AtomicBoolean(true);
+
         public GrpcRpcClusterNode(GrpcRpcClient client, NodeMetadata metadata) {
             this.client = client;
             this.metadata = metadata;
@@ -218,7 +231,50 @@ public class GrpcRpcProtocol implements RpcProtocol {
             @Override
             public AsyncFuture<FullQuery> query(final FullQuery.Request request, final Span span) {
                 // TODO: Do we have to use a span here with gRPC since its auto instrumented?
-                return request(METRICS_FULL_QUERY, request);
+                if (!streamingQueries.get()) {
+                    return request(METRICS_FULL_QUERY, request);
+                }
+
+                return request(METRICS_FULL_QUERY_STREAM, request).lazyCatchFailed(e -> {
+                    if (Status.fromThrowable(e).getCode() != Status.Code.UNIMPLEMENTED) {
+                        return async.failed(e);
+                    }
+
+                    // remote node is running an older version
+                    streamingQueries.set(false);
+                    return request(METRICS_FULL_QUERY, request);
+                });
+            }
+
+            @Override
+            public AsyncFuture<List<FullQuery>> queryBatch(
+                final List<FullQuery.Request> requests, final Span span
+            ) {
+                if (!batchQueries.get()) {
+                    return queryEach(requests, span);
+                }
+
+                return request(METRICS_FULL_QUERY_BATCH, requests).lazyCatchFailed(e -> {
+                    if (Status.fromThrowable(e).getCode() != Status.Code.UNIMPLEMENTED) {
+                        return async.failed(e);
+                    }
+
+                    // remote node is running an older version
+                    batchQueries.set(false);
+                    return queryEach(requests, span);
+                });
+            }
+
+            private AsyncFuture<List<FullQuery>> queryEach(
+                final List<FullQuery.Request> requests, final Span span
+            ) {
+                final List<AsyncFuture<FullQuery>> queries = new ArrayList<>(requests.size());
+
+                for (final FullQuery.Request request : requests) {
+                    queries.add(query(request, span));
+                }
+
+                return async.collect(queries).directTransform(ImmutableList::copyOf);
             }
 
             @Override
@@ -314,12 +370,21 @@ public class GrpcRpcProtocol implements RpcProtocol {
     private static <Q, R> GrpcDescriptor<Q, R> descriptor(
         final String endpointName, final TypeReference<Q> requestType,
         final TypeReference<R> responseType
+    ) {
+        return descriptor(endpointName, requestType, responseType,
+            mapper -> new GrpcJsonResponseCodec<>(mapper, responseType));
+    }
+
+    private static <Q, R> GrpcDescriptor<Q, R> descriptor(
+        final String endpointName, final TypeReference<Q> requestType,
+        final TypeReference<R> responseType,
+        final Function<ObjectMapper, GrpcResponseCodec<R>> responseCodec
     ) {
         final MethodDescriptor<byte[], byte[]> descriptor =
             MethodDescriptor.create(MethodDescriptor.MethodType.SERVER_STREAMING,
                 generateFullMethodName(SERVICE, endpointName), BYTE_MARSHALLER, BYTE_MARSHALLER);
 
-        return new GrpcRpcEndpointSpec<>(requestType, responseType, descriptor);
+        return new GrpcRpcEndpointSpec<>(requestType, responseType, descriptor, responseCodec);
     }
 
     public static final GrpcDescriptor<GrpcRpcEmptyBody, NodeMetadata> METADATA =
@@ -339,6 +404,25 @@ public class GrpcRpcProtocol implements RpcProtocol {
         }, new TypeReference<FullQuery>() {
         });
 
+    /**
+     * Same as {@link #METRICS_FULL_QUERY}, but with the response streamed in binary frames.
+     */
+    public static final GrpcDescriptor<GroupedQuery<FullQuery.Request>, FullQuery>
+        METRICS_FULL_QUERY_STREAM = descriptor("metrics:fullQueryStream",
+        new TypeReference<GroupedQuery<FullQuery.Request>>() {
+        }, new TypeReference<FullQuery>() {
+        }, GrpcFullQueryCodec::new);
+
+    /**
+     * Several full queries in one request, see
+     * {@link com.spotify.heroic.metric.MetricBackendGroup#queryBatch(List, Span)}.
+     */
+    public static final GrpcDescriptor<GroupedQuery<List<FullQuery.Request>>, List<FullQuery>>
+        METRICS_FULL_QUERY_BATCH = descriptor("metrics:fullQueryBatch",
+        new TypeReference<GroupedQuery<List<FullQuery.Request>>>() {
+        }, new TypeReference<List<FullQuery>>() {
+        });
+
     public static final GrpcDescriptor<GroupedQuery<WriteMetric.Request>, WriteMetric>
         METRICS_WRITE =
         descriptor("metrics:write", new TypeReference<GroupedQuery<WriteMetric.Request>>() {
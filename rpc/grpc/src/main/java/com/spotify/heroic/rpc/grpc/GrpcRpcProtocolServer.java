@@ -21,7 +21,7 @@
 
 package com.spotify.heroic.rpc.grpc;
 
-import static io.grpc.stub.ServerCalls.asyncUnaryCall;
+import static io.grpc.stub.ServerCalls.asyncServerStreamingCall;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.spotify.heroic.cluster.NodeMetadataProvider;
@@ -45,12 +45,15 @@ import io.grpc.Status;
 import io.grpc.StatusException;
 import io.grpc.internal.ServerImpl;
 import io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.netty.channel.Channel;
 import io.netty.channel.nio.NioEventLoopGroup;
+import io.opencensus.trace.BlankSpan;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.net.InetSocketAddress;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicReference;
@@ -118,6 +121,13 @@ public class GrpcRpcProtocolServer implements LifeCycles {
         container.register(GrpcRpcProtocol.METRICS_FULL_QUERY,
             g -> g.apply(metrics, MetricBackendGroup::query));
 
+        container.register(GrpcRpcProtocol.METRICS_FULL_QUERY_STREAM,
+            g -> g.apply(metrics, MetricBackendGroup::query));
+
+        container.register(GrpcRpcProtocol.METRICS_FULL_QUERY_BATCH,
+            g -> g.apply(metrics,
+                (group, requests) -> group.queryBatch(requests, BlankSpan.INSTANCE)));
+
         container.register(GrpcRpcProtocol.METRICS_WRITE,
             g -> g.apply(metrics, MetricBackend::write));
 
@@ -223,11 +233,16 @@ public class GrpcRpcProtocolServer implements LifeCycles {
     private ServerCallHandler<byte[], byte[]> serverCallHandlerFor(
         final GrpcEndpointHandle<Object, Object> spec
     ) {
-        return asyncUnaryCall((request, observer) -> {
+        final GrpcResponseCodec<Object> codec = spec.responseCodec(mapper);
+
+        return asyncServerStreamingCall((request, observer) -> {
             final UUID id = UUID.randomUUID();
 
             log.trace("{}: Received request: {}", id, request);
 
+            final ResponseSender sender =
+                new ResponseSender(id, (ServerCallStreamObserver<byte[]>) observer);
+
             final AsyncFuture<Object> future;
 
             try {
@@ -248,9 +263,7 @@ public class GrpcRpcProtocolServer implements LifeCycles {
 
                 @Override
                 public void resolved(final Object result) throws Exception {
-                    final byte[] body = mapper.writeValueAsBytes(result);
-                    observer.onNext(body);
-                    observer.onCompleted();
+                    sender.send(codec.encode(result));
                 }
 
                 @Override
@@ -261,6 +274,56 @@ public class GrpcRpcProtocolServer implements LifeCycles {
         });
     }
 
+    /**
+     * Sends the frames of a response while the client is ready to receive them, so that frames
+     * are only encoded as they can be written.
+     */
+    private static class ResponseSender {
+        private final UUID id;
+        private final ServerCallStreamObserver<byte[]> observer;
+
+        private Iterator<byte[]> frames = null;
+        private boolean done = false;
+
+        ResponseSender(final UUID id, final ServerCallStreamObserver<byte[]> observer) {
+            this.id = id;
+            this.observer = observer;
+            observer.setOnReadyHandler(this::drain);
+            observer.setOnCancelHandler(this::cancel);
+        }
+
+        synchronized void send(final Iterator<byte[]> frames) {
+            this.frames = frames;
+            drain();
+        }
+
+        private synchronized void cancel() {
+            done = true;
+        }
+
+        private synchronized void drain() {
+            if (frames == null || done) {
+                return;
+            }
+
+            try {
+                while (observer.isReady()) {
+                    if (!frames.hasNext()) {
+                        done = true;
+                        observer.onCompleted();
+                        return;
+                    }
+
+                    observer.onNext(frames.next());
+                }
+            } catch (final RuntimeException e) {
+                log.error("{}: Failed to encode response", id, e);
+                done = true;
+                observer.onError(new StatusException(Status.INTERNAL));
+            }
+        }
+    }
+
     private AsyncFuture<Void> stop() {
         final List<AsyncFuture<Void>> callbacks = new ArrayList<>();
 
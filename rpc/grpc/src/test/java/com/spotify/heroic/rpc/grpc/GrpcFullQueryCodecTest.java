@@ -0,0 +1,84 @@
+package com.spotify.heroic.rpc.grpc;
+
+import static org.junit.Assert.assertEquals;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.common.Statistics;
+import com.spotify.heroic.metric.FullQuery;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.QueryError;
+import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.ResultGroup;
+import com.spotify.heroic.metric.ResultLimit;
+import com.spotify.heroic.metric.ResultLimits;
+import com.spotify.heroic.metric.Spread;
+import com.spotify.heroic.test.FakeModuleLoader;
+import java.util.List;
+import java.util.Optional;
+import org.junit.Test;
+
+public class GrpcFullQueryCodecTest {
+    private final ObjectMapper mapper = FakeModuleLoader.builder().build().json();
+
+    private final Series series = Series.of("foo", ImmutableMap.of("host", "a"));
+
+    @Test
+    public void testEmpty() throws Exception {
+        final FullQuery query = query(ImmutableList.of());
+        final List<byte[]> frames = encode(new GrpcFullQueryCodec(mapper), query);
+
+        assertEquals(1, frames.size());
+        assertEquals(query, decode(new GrpcFullQueryCodec(mapper), frames));
+    }
+
+    @Test
+    public void testSplitGroups() throws Exception {
+        final GrpcFullQueryCodec codec = new GrpcFullQueryCodec(mapper, 4);
+
+        final FullQuery query = query(ImmutableList.of(
+            group("a", MetricCollection.points(new long[]{1, 2, 3},
+                new double[]{1.0, 2.0, 3.0})),
+            group("b", MetricCollection.points(new long[]{4, 3, 5, 6, 7, 8},
+                new double[]{4.0, 3.0, 5.0, 6.0, 7.0, 8.0})),
+            group("c", MetricCollection.spreads(ImmutableList.of(
+                new Spread(1, 1, 1.0, 1.0, 1.0, 1.0), new Spread(2, 1, 2.0, 4.0, 2.0, 2.0),
+                new Spread(3, 1, 3.0, 9.0, 3.0, 3.0), new Spread(4, 1, 4.0, 16.0, 4.0, 4.0),
+                new Spread(5, 1, 5.0, 25.0, 5.0, 5.0)))),
+            group("d", MetricCollection.points(new long[]{}, new double[]{}))));
+
+        final List<byte[]> frames = encode(codec, query);
+
+        // 14 samples in frames of 4, and one summary frame.
+        assertEquals(5, frames.size());
+        assertEquals(query, decode(codec, frames));
+    }
+
+    private ResultGroup group(final String key, final MetricCollection metrics) {
+        return new ResultGroup(ImmutableMap.of("key", key), ImmutableSet.of(series), metrics, 10);
+    }
+
+    private FullQuery query(final List<ResultGroup> groups) {
+        return FullQuery.create(QueryTrace.PASSIVE, ImmutableList.of(new QueryError("error")),
+            groups, Statistics.empty(), ResultLimits.of(ResultLimit.SERIES), Optional.empty());
+    }
+
+    private List<byte[]> encode(final GrpcFullQueryCodec codec, final FullQuery query) {
+        return Lists.newArrayList(codec.encode(query));
+    }
+
+    private FullQuery decode(final GrpcFullQueryCodec codec, final List<byte[]> frames)
+        throws Exception {
+        final GrpcResponseCodec.Decoder<FullQuery> decoder = codec.newDecoder();
+
+        for (final byte[] frame : frames) {
+            decoder.frame(frame);
+        }
+
+        return decoder.end();
+    }
+}
@@ -126,6 +126,13 @@ public class SemanticHeroicReporter implements HeroicReporter {
         });
     }
 
+    @Override
+    public void registerCacheHitRatio(final String id, final Supplier<Double> hitRatio) {
+        registry.register(
+            metricId.tagged("what", "cache-hit-ratio", "id", id, "unit", Units.RATIO),
+            (Gauge<Double>) hitRatio::get);
+    }
+
     public String toString() {
         return "SemanticHeroicReporter()";
     }
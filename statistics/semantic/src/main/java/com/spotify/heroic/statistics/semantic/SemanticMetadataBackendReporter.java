@@ -22,6 +22,7 @@
 package com.spotify.heroic.statistics.semantic;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
 import com.spotify.heroic.async.AsyncObservable;
 import com.spotify.heroic.common.Groups;
 import com.spotify.heroic.common.Statistics;
@@ -58,6 +59,8 @@ public class SemanticMetadataBackendReporter implements MetadataBackendReporter
     private final Counter writesDroppedByCacheHit;
     private final Counter writesDroppedByDuplicate;
 
+    private final Histogram bulkWriteSize;
+    private final Histogram bulkWriteLatency;
 
     public SemanticMetadataBackendReporter(SemanticMetricRegistry registry) {
         final MetricId base = MetricId.build().tagged("component", COMPONENT);
@@ -85,6 +88,12 @@ public class SemanticMetadataBackendReporter implements MetadataBackendReporter
         writesDroppedByDuplicate = registry.counter(
             base.tagged("what", "writes-dropped-by-duplicate", "unit", Units.COUNT));
 
+        bulkWriteSize = registry.getOrAdd(
+            base.tagged("what", "bulk-write-size", "unit", Units.WRITE),
+            HistogramBuilder.HISTOGRAM);
+        bulkWriteLatency = registry.getOrAdd(
+            base.tagged("what", "bulk-write-latency", "unit", Units.MILLISECOND),
+            HistogramBuilder.HISTOGRAM);
     }
 
     @Override
@@ -109,6 +118,12 @@ public class SemanticMetadataBackendReporter implements MetadataBackendReporter
         writesDroppedByDuplicate.inc();
     }
 
+    @Override
+    public void reportBulkWrite(final int actions, final long latencyMillis) {
+        bulkWriteSize.update(actions);
+        bulkWriteLatency.update(latencyMillis);
+    }
+
     public String toString() {
         return "SemanticMetadataBackendReporter()";
     }
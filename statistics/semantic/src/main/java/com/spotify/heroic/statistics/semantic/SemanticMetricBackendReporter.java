@@ -26,7 +26,9 @@ import com.codahale.metrics.Histogram;
 import com.google.common.base.Stopwatch;
 import com.spotify.heroic.QueryOptions;
 import com.spotify.heroic.async.AsyncObservable;
+import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Groups;
+import com.spotify.heroic.common.Series;
 import com.spotify.heroic.common.Statistics;
 import com.spotify.heroic.metric.BackendEntry;
 import com.spotify.heroic.metric.BackendKey;
@@ -50,6 +52,7 @@ import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAccumulator;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 public class SemanticMetricBackendReporter implements MetricBackendReporter {
@@ -82,6 +85,9 @@ public class SemanticMetricBackendReporter implements MetricBackendReporter {
     // Average samples per mega-seconds :)
     private final Histogram queryRowDensity;
 
+    private final Histogram writeBatchSize;
+    private final Histogram writeBatchLatency;
+
     public SemanticMetricBackendReporter(SemanticMetricRegistry registry) {
         final MetricId base = MetricId.build().tagged("component", COMPONENT);
 
@@ -124,6 +130,13 @@ public class SemanticMetricBackendReporter implements MetricBackendReporter {
         queryRowDensity =
             registry.getOrAdd(base.tagged("what", "query-metrics-row-density", "unit", Units.COUNT),
                 HistogramBuilder.HISTOGRAM);
+
+        writeBatchSize =
+            registry.getOrAdd(base.tagged("what", "write-batch-size", "unit", Units.SAMPLE),
+                HistogramBuilder.HISTOGRAM);
+        writeBatchLatency = registry.getOrAdd(
+            base.tagged("what", "write-batch-latency", "unit", Units.MILLISECOND),
+            HistogramBuilder.HISTOGRAM);
     }
 
     @Override
@@ -202,6 +215,12 @@ public class SemanticMetricBackendReporter implements MetricBackendReporter {
         return queryMetrics.setup();
     }
 
+    @Override
+    public void reportWriteBatch(final int points, final long latencyMillis) {
+        writeBatchSize.update(points);
+        writeBatchLatency.update(latencyMillis);
+    }
+
     public String toString() {
         return "SemanticMetricBackendReporter()";
     }
@@ -246,6 +265,17 @@ public class SemanticMetricBackendReporter implements MetricBackendReporter {
                 request, watcher, metricsConsumer, parentSpan).onDone(fetch.setup());
         }
 
+        @Override
+        public AsyncFuture<FetchData.Result> fetchBatch(
+            final FetchData.BatchRequest request,
+            final FetchQuotaWatcher watcher,
+            final BiConsumer<Series, MetricReadResult> metricsConsumer,
+            final Span parentSpan
+        ) {
+            return delegate.fetchBatch(
+                request, watcher, metricsConsumer, parentSpan).onDone(fetch.setup());
+        }
+
         @Override
         public Iterable<BackendEntry> listEntries() {
             return delegate.listEntries();
@@ -287,6 +317,13 @@ public class SemanticMetricBackendReporter implements MetricBackendReporter {
             return delegate.countKey(key, options).onDone(countKey.setup());
         }
 
+        @Override
+        public AsyncFuture<Long> compactSeries(
+            final Series series, final DateRange range, final QueryOptions options
+        ) {
+            return delegate.compactSeries(series, range, options);
+        }
+
         @Override
         public AsyncFuture<MetricCollection> fetchRow(final BackendKey key) {
             return delegate.fetchRow(key).onDone(fetchRow.setup());
@@ -36,6 +36,10 @@ public class SemanticQueryReporter implements QueryReporter {
     private final Histogram queryReadRate;
     private final Counter rpcError;
     private final Counter rpcCancellation;
+    private final Counter cacheHit;
+    private final Counter cacheMiss;
+    private final Counter cacheEviction;
+    private final Histogram cacheLoadLatency;
 
     public SemanticQueryReporter(final SemanticMetricRegistry registry) {
         final MetricId base = MetricId.build().tagged("component", COMPONENT);
@@ -50,6 +54,13 @@ public class SemanticQueryReporter implements QueryReporter {
         rpcError = registry.counter(base.tagged("what", "cluster-rpc-error", "unit", Units.COUNT));
         rpcCancellation =
             registry.counter(base.tagged("what", "cluster-rpc-cancellation", "unit", Units.COUNT));
+
+        cacheHit = registry.counter(base.tagged("what", "cache-hit", "unit", Units.COUNT));
+        cacheMiss = registry.counter(base.tagged("what", "cache-miss", "unit", Units.COUNT));
+        cacheEviction =
+            registry.counter(base.tagged("what", "cache-eviction", "unit", Units.COUNT));
+        cacheLoadLatency = registry.histogram(
+            base.tagged("what", "cache-load-latency", "unit", Units.MILLISECOND));
     }
 
     @Override
@@ -82,6 +93,26 @@ public class SemanticQueryReporter implements QueryReporter {
         rpcCancellation.inc();
     }
 
+    @Override
+    public void reportCacheHit() {
+        cacheHit.inc();
+    }
+
+    @Override
+    public void reportCacheMiss() {
+        cacheMiss.inc();
+    }
+
+    @Override
+    public void reportCacheEviction() {
+        cacheEviction.inc();
+    }
+
+    @Override
+    public void reportCacheLoadLatency(final long duration) {
+        cacheLoadLatency.update(duration);
+    }
+
     public String toString() {
         return "SemanticQueryReporter()";
     }
@@ -22,6 +22,7 @@
 package com.spotify.heroic.statistics.semantic;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
 import com.spotify.heroic.common.Groups;
 import com.spotify.heroic.common.Statistics;
 import com.spotify.heroic.statistics.FutureReporter;
@@ -55,6 +56,9 @@ public class SemanticSuggestBackendReporter implements SuggestBackendReporter {
     private final Counter writesDroppedByCacheHit;
     private final Counter writesDroppedByDuplicate;
 
+    private final Histogram bulkWriteSize;
+    private final Histogram bulkWriteLatency;
+
     public SemanticSuggestBackendReporter(SemanticMetricRegistry registry) {
         final MetricId base = MetricId.build().tagged("component", COMPONENT);
 
@@ -77,6 +81,13 @@ public class SemanticSuggestBackendReporter implements SuggestBackendReporter {
             base.tagged("what", "writes-dropped-by-cache-hit", "unit", Units.COUNT));
         writesDroppedByDuplicate = registry.counter(
             base.tagged("what", "writes-dropped-by-duplicate", "unit", Units.COUNT));
+
+        bulkWriteSize = registry.getOrAdd(
+            base.tagged("what", "bulk-write-size", "unit", Units.WRITE),
+            HistogramBuilder.HISTOGRAM);
+        bulkWriteLatency = registry.getOrAdd(
+            base.tagged("what", "bulk-write-latency", "unit", Units.MILLISECOND),
+            HistogramBuilder.HISTOGRAM);
     }
 
     @Override
@@ -101,6 +112,12 @@ public class SemanticSuggestBackendReporter implements SuggestBackendReporter {
         return backendWrite.setup();
     }
 
+    @Override
+    public void reportBulkWrite(final int actions, final long latencyMillis) {
+        bulkWriteSize.update(actions);
+        bulkWriteLatency.update(latencyMillis);
+    }
+
     public String toString() {
         return "SemanticSuggestBackendReporter()";
     }
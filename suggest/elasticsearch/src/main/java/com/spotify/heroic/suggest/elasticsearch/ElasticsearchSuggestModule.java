@@ -25,6 +25,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static java.lang.Math.toIntExact;
 import static java.util.Optional.empty;
 import static java.util.Optional.of;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
@@ -43,6 +44,7 @@ import com.spotify.heroic.common.Groups;
 import com.spotify.heroic.common.ModuleId;
 import com.spotify.heroic.dagger.PrimaryComponent;
 import com.spotify.heroic.elasticsearch.BackendType;
+import com.spotify.heroic.elasticsearch.BulkWriter;
 import com.spotify.heroic.elasticsearch.Connection;
 import com.spotify.heroic.elasticsearch.ConnectionModule;
 import com.spotify.heroic.elasticsearch.DefaultRateLimitedCache;
@@ -52,13 +54,16 @@ import com.spotify.heroic.elasticsearch.MemcachedConnection;
 import com.spotify.heroic.elasticsearch.RateLimitedCache;
 import com.spotify.heroic.lifecycle.LifeCycle;
 import com.spotify.heroic.lifecycle.LifeCycleManager;
+import com.spotify.heroic.scheduler.Scheduler;
 import com.spotify.heroic.statistics.HeroicReporter;
+import com.spotify.heroic.statistics.SuggestBackendReporter;
 import com.spotify.heroic.suggest.SuggestBackend;
 import com.spotify.heroic.suggest.SuggestModule;
 import dagger.Component;
 import dagger.Lazy;
 import dagger.Module;
 import dagger.Provides;
+import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.Managed;
 import java.util.HashMap;
 import java.util.List;
@@ -79,6 +84,10 @@ public final class ElasticsearchSuggestModule implements SuggestModule, DynamicM
     private static final int DEFAULT_WRITE_CACHE_CONCURRENCY = 4;
     private static final long DEFAULT_WRITE_CACHE_MAX_SIZE = 30_000_000L;
 
+    private static final int DEFAULT_BULK_ACTIONS = 1000;
+    private static final long DEFAULT_BULK_FLUSH_INTERVAL_MILLIS = 100L;
+    private static final int DEFAULT_BULK_MAX_IN_FLIGHT = 4;
+
     private static final String DEFAULT_GROUP = "elasticsearch";
     private static final String DEFAULT_TEMPLATE_NAME = "heroic-suggest";
     private static final boolean DEFAULT_CONFIGURE = false;
@@ -94,6 +103,9 @@ public final class ElasticsearchSuggestModule implements SuggestModule, DynamicM
     private final String distributedCacheSrvRecord;
     private final String templateName;
     private final boolean configure;
+    private final int bulkActions;
+    private final long bulkFlushIntervalMillis;
+    private final int bulkMaxInFlight;
 
     private static Supplier<BackendType> defaultSetup = SuggestBackendKV.factory();
 
@@ -123,7 +135,10 @@ public final class ElasticsearchSuggestModule implements SuggestModule, DynamicM
         @JsonProperty("distributedCacheSrvRecord") Optional<String> distributedCacheSrvRecord,
         @JsonProperty("templateName") Optional<String> templateName,
         @JsonProperty("backendType") Optional<String> backendType,
-        @JsonProperty("configure") Optional<Boolean> configure
+        @JsonProperty("configure") Optional<Boolean> configure,
+        @JsonProperty("bulkActions") Optional<Integer> bulkActions,
+        @JsonProperty("bulkFlushIntervalMillis") Optional<Long> bulkFlushIntervalMillis,
+        @JsonProperty("bulkMaxInFlight") Optional<Integer> bulkMaxInFlight
     ) {
         this.id = id;
         this.groups = groups.orElseGet(Groups::empty).or(DEFAULT_GROUP);
@@ -142,6 +157,10 @@ public final class ElasticsearchSuggestModule implements SuggestModule, DynamicM
         this.templateName = templateName.orElse(DEFAULT_TEMPLATE_NAME);
         this.type = backendType.map(this::lookupBackendType).orElse(defaultSetup);
         this.configure = configure.orElse(DEFAULT_CONFIGURE);
+        this.bulkActions = bulkActions.orElse(DEFAULT_BULK_ACTIONS);
+        this.bulkFlushIntervalMillis =
+            bulkFlushIntervalMillis.orElse(DEFAULT_BULK_FLUSH_INTERVAL_MILLIS);
+        this.bulkMaxInFlight = bulkMaxInFlight.orElse(DEFAULT_BULK_MAX_IN_FLIGHT);
     }
 
     private Supplier<BackendType> lookupBackendType(final String bt) {
@@ -238,6 +257,19 @@ public final class ElasticsearchSuggestModule implements SuggestModule, DynamicM
                 RateLimiter.create(writesPerSecond, rateLimitSlowStartSeconds, SECONDS));
         }
 
+        @Provides
+        @ElasticsearchScope
+        public BulkWriter bulkWriter(
+            AsyncFramework async, Managed<Connection> connection,
+            SuggestBackendReporter reporter, Scheduler scheduler
+        ) {
+            final BulkWriter writer = new BulkWriter(async, connection, reporter::reportBulkWrite,
+                bulkActions, bulkMaxInFlight);
+            scheduler.periodically("elasticsearch-suggest-bulk-flush", bulkFlushIntervalMillis,
+                MILLISECONDS, writer::flush);
+            return writer;
+        }
+
         @Provides
         @ElasticsearchScope
         public SuggestBackend suggestBackend(Lazy<SuggestBackendKV> kv) {
@@ -275,6 +307,9 @@ public final class ElasticsearchSuggestModule implements SuggestModule, DynamicM
         private Optional<String> templateName = empty();
         private Optional<String> backendType = empty();
         private Optional<Boolean> configure = empty();
+        private Optional<Integer> bulkActions = empty();
+        private Optional<Long> bulkFlushIntervalMillis = empty();
+        private Optional<Integer> bulkMaxInFlight = empty();
 
         public Builder id(final String id) {
             checkNotNull(id, "id");
@@ -345,6 +380,21 @@ public final class ElasticsearchSuggestModule implements SuggestModule, DynamicM
             return this;
         }
 
+        public Builder bulkActions(final int bulkActions) {
+            this.bulkActions = of(bulkActions);
+            return this;
+        }
+
+        public Builder bulkFlushIntervalMillis(final long bulkFlushIntervalMillis) {
+            this.bulkFlushIntervalMillis = of(bulkFlushIntervalMillis);
+            return this;
+        }
+
+        public Builder bulkMaxInFlight(final int bulkMaxInFlight) {
+            this.bulkMaxInFlight = of(bulkMaxInFlight);
+            return this;
+        }
+
         public ElasticsearchSuggestModule build() {
             return new ElasticsearchSuggestModule(
               id,
@@ -358,7 +408,10 @@ public final class ElasticsearchSuggestModule implements SuggestModule, DynamicM
               distributedCacheSrvRecord,
               templateName,
               backendType,
-              configure
+              configure,
+              bulkActions,
+              bulkFlushIntervalMillis,
+              bulkMaxInFlight
             );
         }
     }
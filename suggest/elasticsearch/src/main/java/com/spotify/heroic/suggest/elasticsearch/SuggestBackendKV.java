@@ -40,6 +40,7 @@ import com.spotify.heroic.common.Series;
 import com.spotify.heroic.common.Statistics;
 import com.spotify.heroic.elasticsearch.AbstractElasticsearchBackend;
 import com.spotify.heroic.elasticsearch.BackendType;
+import com.spotify.heroic.elasticsearch.BulkWriter;
 import com.spotify.heroic.elasticsearch.Connection;
 import com.spotify.heroic.elasticsearch.RateLimitedCache;
 import com.spotify.heroic.elasticsearch.index.NoIndexSelectedException;
@@ -160,13 +161,14 @@ public class SuggestBackendKV extends AbstractElasticsearchBackend
     private final RateLimitedCache<Pair<String, HashCode>> writeCache;
     private final Groups groups;
     private final boolean configure;
+    private final BulkWriter bulk;
 
     @Inject
     public SuggestBackendKV(
         final AsyncFramework async, final Managed<Connection> connection,
         final SuggestBackendReporter reporter,
         final RateLimitedCache<Pair<String, HashCode>> writeCache, final Groups groups,
-        @Named("configure") boolean configure
+        @Named("configure") boolean configure, final BulkWriter bulk
     ) {
         super(async);
         this.connection = connection;
@@ -174,6 +176,7 @@ public class SuggestBackendKV extends AbstractElasticsearchBackend
         this.writeCache = writeCache;
         this.groups = groups;
         this.configure = configure;
+        this.bulk = bulk;
     }
 
     @Override
@@ -592,11 +595,14 @@ public class SuggestBackendKV extends AbstractElasticsearchBackend
                 final Span indexWriteSpan = tracer
                     .spanBuilderWithExplicitParent(indexSpanName + ".writeIndex", indexSpan)
                     .startSpan();
-                writes.add(bind(c.index(index, SERIES_TYPE)
+                writes.add(bulk.add(c.index(index, SERIES_TYPE)
                     .setId(seriesId)
                     .setSource(series)
                     .setOpType(DocWriteRequest.OpType.CREATE)
-                    .execute()).directTransform(response -> timer.end())
+                    .request())
+                    .directTransform(response -> timer.end())
+                    .catchFailed(handleVersionConflict(WriteSuggest::new,
+                        reporter::reportWriteDroppedByDuplicate))
                     .onFinished(indexWriteSpan::end));
 
                 for (final Map.Entry<String, String> e : s.getTags().entrySet()) {
@@ -619,12 +625,12 @@ public class SuggestBackendKV extends AbstractElasticsearchBackend
                     final FutureReporter.Context writeContext =
                         reporter.setupWriteReporter();
 
-                    writes.add(bind(c
+                    writes.add(bulk.add(c
                         .index(index, TAG_TYPE)
                         .setId(suggestId)
                         .setSource(suggest)
                         .setOpType(DocWriteRequest.OpType.CREATE)
-                        .execute())
+                        .request())
                         .directTransform(response -> timer.end())
                         .catchFailed(handleVersionConflict(WriteSuggest::new,
                             reporter::reportWriteDroppedByDuplicate))
@@ -659,6 +665,8 @@ public class SuggestBackendKV extends AbstractElasticsearchBackend
     }
 
     private AsyncFuture<Void> stop() {
+        /* the connection waits for any bulk request in flight before it stops */
+        bulk.flush();
         return connection.stop();
     }
 
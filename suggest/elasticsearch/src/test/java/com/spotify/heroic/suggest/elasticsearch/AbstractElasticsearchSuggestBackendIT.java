@@ -1,11 +1,15 @@
 package com.spotify.heroic.suggest.elasticsearch;
 
+import com.google.common.collect.ImmutableMap;
+import com.spotify.heroic.common.Series;
 import com.spotify.heroic.elasticsearch.ConnectionModule;
 import com.spotify.heroic.elasticsearch.index.RotatingIndexMapping;
 import com.spotify.heroic.elasticsearch.test.ElasticsearchTestUtils;
 import com.spotify.heroic.suggest.SuggestModule;
+import com.spotify.heroic.suggest.WriteSuggest;
 import com.spotify.heroic.test.AbstractSuggestBackendIT;
 import java.util.UUID;
+import org.junit.Test;
 
 public abstract class AbstractElasticsearchSuggestBackendIT extends AbstractSuggestBackendIT {
     protected abstract String backendType();
@@ -21,6 +25,8 @@ public abstract class AbstractElasticsearchSuggestBackendIT extends AbstractSugg
             .builder()
             .templateName(testName)
             .configure(true)
+            .writeCacheDurationMinutes(0L)
+            .bulkActions(2)
             .backendType(backendType())
             .connection(ConnectionModule
                 .builder()
@@ -29,4 +35,15 @@ public abstract class AbstractElasticsearchSuggestBackendIT extends AbstractSugg
                 .build())
             .build();
     }
+
+    @Test
+    public void writeDuplicateSeries() throws Exception {
+        final Series series =
+            Series.of("duplicate", ImmutableMap.of("role", "foo", "host", "bar"));
+        final WriteSuggest.Request request = new WriteSuggest.Request(series, range);
+
+        backend.write(request).get();
+        /* every bulk item of the second write is a version conflict, which is not a failure */
+        backend.write(request).get();
+    }
 }
@@ -28,7 +28,9 @@ import com.spotify.heroic.common.Grouped;
 import com.spotify.heroic.common.Groups;
 import com.spotify.heroic.common.OptionalLimit;
 import com.spotify.heroic.common.Series;
+import com.spotify.heroic.filter.CompiledFilter;
 import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.filter.TrueFilter;
 import com.spotify.heroic.suggest.KeySuggest;
 import com.spotify.heroic.suggest.SuggestBackend;
 import com.spotify.heroic.suggest.TagKeyCount;
@@ -38,6 +40,7 @@ import com.spotify.heroic.suggest.TagValuesSuggest;
 import com.spotify.heroic.suggest.WriteSuggest;
 import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -46,31 +49,40 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.SortedMap;
-import java.util.SortedSet;
-import java.util.TreeMap;
-import java.util.TreeSet;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.inject.Inject;
 
+/**
+ * In-memory suggest backend.
+ * <p>
+ * All indexes are concurrent maps, so writes to different series don't contend with each other
+ * and reads never block writes. Reads see a weakly consistent view of the indexes.
+ * <p>
+ * Keys, tag keys and tag values are split into tokens and every prefix of those tokens is
+ * indexed, so that suggestions only have to look at documents that contain all the requested
+ * prefixes. The distinct values of every tag key are also kept, so that unfiltered tag counts and
+ * tag value suggestions don't have to look at every series.
+ */
 @MemoryScope
 public class MemoryBackend implements SuggestBackend, Grouped {
     private static final float SCORE = 1.0f;
 
-    private final SortedMap<String, Set<String>> keys = new TreeMap<>();
-    private final SortedMap<String, Set<TagId>> tagKeys = new TreeMap<>();
-    private final SortedMap<String, Set<TagId>> tagValues = new TreeMap<>();
+    /* prefix indexes, from token prefix to documents */
+    private final ConcurrentMap<String, Set<String>> keys = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<TagId>> tagKeys = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<TagId>> tagValues = new ConcurrentHashMap<>();
 
-    private final HashMap<String, KeyDocument> keyIndex = new HashMap<>();
-    private final HashMap<TagId, TagDocument> tagIndex = new HashMap<>();
-    private final SortedSet<Series> series = new TreeSet<>();
+    private final ConcurrentMap<String, KeyDocument> keyIndex = new ConcurrentHashMap<>();
+    private final ConcurrentMap<TagId, TagDocument> tagIndex = new ConcurrentHashMap<>();
+    private final Set<Series> series = ConcurrentHashMap.newKeySet();
 
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /* distinct values of every tag key */
+    private final ConcurrentMap<String, Set<String>> values = new ConcurrentHashMap<>();
 
     private final Groups groups;
     private final AsyncFramework async;
@@ -88,34 +100,15 @@ public class MemoryBackend implements SuggestBackend, Grouped {
 
     @Override
     public AsyncFuture<TagValuesSuggest> tagValuesSuggest(TagValuesSuggest.Request request) {
-        final Map<String, Set<String>> counts = new HashMap<>();
-
         final OptionalLimit groupLimit = request.getGroupLimit();
-
-        try (final Stream<Series> series = lookupSeries(request.getFilter())) {
-            series.forEach(s -> {
-                for (final Map.Entry<String, String> e : s.getTags().entrySet()) {
-                    Set<String> c = counts.get(e.getKey());
-
-                    if (c == null) {
-                        c = new HashSet<>();
-                        counts.put(e.getKey(), c);
-                    }
-
-                    if (groupLimit.isGreaterOrEqual(c.size())) {
-                        continue;
-                    }
-
-                    c.add(e.getValue());
-                }
-            });
-        }
+        final Map<String, Set<String>> counts = tagValues(request.getFilter(), groupLimit);
 
         final List<TagValuesSuggest.Suggestion> suggestions = ImmutableList.copyOf(request
             .getLimit()
             .limitStream(counts.entrySet().stream())
             .map(e -> new TagValuesSuggest.Suggestion(e.getKey(),
-                ImmutableSortedSet.copyOf(e.getValue()), false))
+                ImmutableSortedSet.copyOf(groupLimit.limitStream(e.getValue().stream()).iterator()),
+                false))
             .iterator());
 
         return async.resolved(new TagValuesSuggest(suggestions, false));
@@ -123,22 +116,8 @@ public class MemoryBackend implements SuggestBackend, Grouped {
 
     @Override
     public AsyncFuture<TagKeyCount> tagKeyCount(final TagKeyCount.Request request) {
-        final Map<String, Set<String>> counts = new HashMap<>();
-
-        try (final Stream<Series> series = lookupSeries(request.getFilter())) {
-            series.forEach(s -> {
-                for (final Map.Entry<String, String> e : s.getTags().entrySet()) {
-                    Set<String> c = counts.get(e.getKey());
-
-                    if (c == null) {
-                        c = new HashSet<>();
-                        counts.put(e.getKey(), c);
-                    }
-
-                    c.add(e.getValue());
-                }
-            });
-        }
+        final Map<String, Set<String>> counts =
+            tagValues(request.getFilter(), OptionalLimit.empty());
 
         final List<TagKeyCount.Suggestion> suggestions = ImmutableList.copyOf(request
             .getLimit()
@@ -155,45 +134,43 @@ public class MemoryBackend implements SuggestBackend, Grouped {
         final Optional<Set<String>> keys = request.getKey().map(MemoryBackend::analyze);
         final Optional<Set<String>> values = request.getValue().map(MemoryBackend::analyze);
 
-        try (final Stream<TagDocument> docs = lookupTags(request.getFilter())) {
-            final Set<TagId> ids = docs.map(TagDocument::getId).collect(Collectors.toSet());
+        final List<Set<TagId>> postings = new ArrayList<>();
+        keys.ifPresent(parts -> parts.forEach(
+            k -> postings.add(tagKeys.getOrDefault(k, ImmutableSet.of()))));
+        values.ifPresent(parts -> parts.forEach(
+            k -> postings.add(tagValues.getOrDefault(k, ImmutableSet.of()))));
 
-            keys.ifPresent(parts -> parts.forEach(
-                k -> ids.retainAll(tagKeys.getOrDefault(k, ImmutableSet.of()))));
+        final Predicate<Series> filter = CompiledFilter.compile(request.getFilter());
 
-            values.ifPresent(parts -> parts.forEach(
-                k -> ids.retainAll(tagValues.getOrDefault(k, ImmutableSet.of()))));
+        final Stream<TagDocument> docs = candidates(postings, tagIndex)
+            .filter(d -> filter.test(d.getSeries()));
 
-            final List<TagSuggest.Suggestion> suggestions = ImmutableList.copyOf(
-                ImmutableSortedSet.copyOf(request
-                    .getLimit()
-                    .limitStream(ids.stream())
-                    .map(tagIndex::get)
-                    .filter(Objects::nonNull)
-                    .map(d -> new TagSuggest.Suggestion(
-                        SCORE, d.getId().getKey(), d.getId().getValue()))
-                    .iterator()));
+        final List<TagSuggest.Suggestion> suggestions = ImmutableList.copyOf(
+            ImmutableSortedSet.copyOf(request
+                .getLimit()
+                .limitStream(docs)
+                .map(d -> new TagSuggest.Suggestion(
+                    SCORE, d.getId().getKey(), d.getId().getValue()))
+                .iterator()));
 
-            return async.resolved(new TagSuggest(suggestions));
-        }
+        return async.resolved(new TagSuggest(suggestions));
     }
 
     @Override
     public AsyncFuture<KeySuggest> keySuggest(final KeySuggest.Request request) {
-        final Optional<Set<String>> analyzedKeys = request.getKey().map(MemoryBackend::analyze);
+        final List<Set<String>> postings = new ArrayList<>();
+        request.getKey().map(MemoryBackend::analyze).ifPresent(parts -> parts.forEach(
+            k -> postings.add(keys.getOrDefault(k, ImmutableSet.of()))));
 
-        final Set<String> ids;
+        final Predicate<Series> filter = CompiledFilter.compile(request.getFilter());
 
-        try (final Stream<KeyDocument> docs = lookupKeys(request.getFilter())) {
-            ids = docs.map(KeyDocument::getId).collect(Collectors.toSet());
-
-            analyzedKeys.ifPresent(parts -> parts.forEach(
-                k -> ids.retainAll(keys.getOrDefault(k, ImmutableSet.of()))));
-        }
+        final Stream<String> ids = candidates(postings, keyIndex)
+            .filter(d -> filter.test(d.getSeries()))
+            .map(KeyDocument::getId);
 
         final List<KeySuggest.Suggestion> suggestions = ImmutableList.copyOf(request
             .getLimit()
-            .limitStream(ids.stream())
+            .limitStream(ids)
             .map(d -> new KeySuggest.Suggestion(SCORE, d))
             .iterator());
 
@@ -202,68 +179,62 @@ public class MemoryBackend implements SuggestBackend, Grouped {
 
     @Override
     public AsyncFuture<TagValueSuggest> tagValueSuggest(final TagValueSuggest.Request request) {
-        try (final Stream<TagDocument> docs = lookupTags(request.getFilter())) {
-            final Stream<TagId> ids = docs.map(TagDocument::getId);
+        final Predicate<Series> filter = CompiledFilter.compile(request.getFilter());
 
-            final List<String> values = request
-                .getLimit()
-                .limitStream(
-                    request.getKey().map(k -> ids.filter(id -> id.getKey().equals(k))).orElse(ids))
-                .map(TagId::getValue)
-                .collect(Collectors.toList());
+        final Stream<TagId> ids = tagIndex.values().stream()
+            .filter(d -> filter.test(d.getSeries()))
+            .map(TagDocument::getId);
 
-            return async.resolved(new TagValueSuggest(values, false));
-        }
+        final List<String> values = request
+            .getLimit()
+            .limitStream(
+                request.getKey().map(k -> ids.filter(id -> id.getKey().equals(k))).orElse(ids))
+            .map(TagId::getValue)
+            .collect(Collectors.toList());
+
+        return async.resolved(new TagValueSuggest(values, false));
     }
 
     @Override
     public AsyncFuture<WriteSuggest> write(final WriteSuggest.Request request) {
         final Series s = request.getSeries();
 
-        final Lock l = lock.writeLock();
-
-        l.lock();
-
-        try {
-            series.add(s);
-
-            keyIndex.put(s.getKey(), new KeyDocument(s.getKey(), s));
+        /* the series is already indexed */
+        if (!series.add(s)) {
+            return async.resolved(new WriteSuggest());
+        }
 
+        if (keyIndex.putIfAbsent(s.getKey(), new KeyDocument(s.getKey(), s)) == null) {
             for (final String t : analyze(s.getKey())) {
                 putEntry(keys, t, s.getKey());
             }
+        }
 
-            for (final Map.Entry<String, String> tag : s.getTags().entrySet()) {
-                final TagId id = new TagId(tag.getKey(), tag.getValue());
+        for (final Map.Entry<String, String> tag : s.getTags().entrySet()) {
+            final TagId id = new TagId(tag.getKey(), tag.getValue());
 
-                tagIndex.put(id, new TagDocument(id, s));
+            putEntry(values, tag.getKey(), tag.getValue());
 
-                for (final String t : analyze(tag.getKey())) {
-                    putEntry(tagKeys, t, id);
-                }
+            if (tagIndex.putIfAbsent(id, new TagDocument(id, s)) != null) {
+                continue;
+            }
 
-                for (final String t : analyze(tag.getValue())) {
-                    putEntry(tagValues, t, id);
-                }
+            for (final String t : analyze(tag.getKey())) {
+                putEntry(tagKeys, t, id);
             }
 
-            return async.resolved(new WriteSuggest());
-        } finally {
-            l.unlock();
+            for (final String t : analyze(tag.getValue())) {
+                putEntry(tagValues, t, id);
+            }
         }
+
+        return async.resolved(new WriteSuggest());
     }
 
     private <K, V> void putEntry(
-        final SortedMap<K, Set<V>> index, final K key, final V value
+        final ConcurrentMap<K, Set<V>> index, final K key, final V value
     ) {
-        Set<V> store = index.get(key);
-
-        if (store == null) {
-            store = new HashSet<>();
-            index.put(key, store);
-        }
-
-        store.add(value);
+        index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(value);
     }
 
     @Override
@@ -310,26 +281,59 @@ public class MemoryBackend implements SuggestBackend, Grouped {
         return prefixes;
     }
 
-    private Stream<KeyDocument> lookupKeys(final Filter filter) {
-        final Lock l = lock.readLock();
-        l.lock();
-        return keyIndex.values().stream()
-            .filter(e -> filter.apply(e.getSeries()))
-            .onClose(l::unlock);
-    }
+    /**
+     * Documents which are part of all the given postings, or all documents if there are none.
+     * <p>
+     * Only the smallest posting is iterated over.
+     */
+    static <K, D> Stream<D> candidates(
+        final Collection<? extends Set<K>> postings, final Map<K, D> index
+    ) {
+        if (postings.isEmpty()) {
+            return index.values().stream();
+        }
 
-    private Stream<TagDocument> lookupTags(final Filter filter) {
-        final Lock l = lock.readLock();
-        l.lock();
-        return tagIndex.values().stream()
-            .filter(e -> filter.apply(e.getSeries()))
-            .onClose(l::unlock);
+        Set<K> smallest = null;
+
+        for (final Set<K> posting : postings) {
+            if (smallest == null || posting.size() < smallest.size()) {
+                smallest = posting;
+            }
+        }
+
+        final Set<K> first = smallest;
+
+        return first
+            .stream()
+            .filter(id -> postings.stream().allMatch(other -> other == first || other.contains(id)))
+            .map(index::get)
+            .filter(Objects::nonNull);
     }
 
-    private Stream<Series> lookupSeries(final Filter filter) {
-        final Lock l = lock.readLock();
-        l.lock();
-        return series.stream().filter(filter::apply).onClose(l::unlock);
+    /**
+     * Distinct values of every tag key of the series matching the given filter.
+     */
+    private Map<String, Set<String>> tagValues(final Filter filter, final OptionalLimit limit) {
+        if (filter.optimize() instanceof TrueFilter) {
+            return values;
+        }
+
+        final Predicate<Series> compiled = CompiledFilter.compile(filter);
+        final Map<String, Set<String>> counts = new HashMap<>();
+
+        series.stream().filter(compiled).forEach(s -> {
+            for (final Map.Entry<String, String> e : s.getTags().entrySet()) {
+                final Set<String> c = counts.computeIfAbsent(e.getKey(), k -> new HashSet<>());
+
+                if (limit.isGreaterOrEqual(c.size())) {
+                    continue;
+                }
+
+                c.add(e.getValue());
+            }
+        });
+
+        return counts;
     }
 
     public String toString() {
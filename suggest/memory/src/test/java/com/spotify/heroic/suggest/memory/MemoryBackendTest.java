@@ -1,6 +1,10 @@
 package com.spotify.heroic.suggest.memory;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import java.util.Map;
+import java.util.stream.Collectors;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -14,4 +18,21 @@ public class MemoryBackendTest {
 
         assertEquals(ImmutableSet.of("a", "b"), MemoryBackend.analyze("a-b"));
     }
+
+    @Test
+    public void testCandidates() {
+        final Map<String, Integer> index = ImmutableMap.of("a", 1, "b", 2, "c", 3);
+
+        assertEquals(ImmutableSet.of(1, 2, 3),
+            MemoryBackend.candidates(ImmutableList.of(), index).collect(Collectors.toSet()));
+
+        assertEquals(ImmutableSet.of(2), MemoryBackend
+            .candidates(ImmutableList.of(ImmutableSet.of("a", "b", "c"), ImmutableSet.of("b", "d")),
+                index)
+            .collect(Collectors.toSet()));
+
+        assertEquals(ImmutableSet.of(), MemoryBackend
+            .candidates(ImmutableList.of(ImmutableSet.of("a"), ImmutableSet.<String>of()), index)
+            .collect(Collectors.toSet()));
+    }
 }